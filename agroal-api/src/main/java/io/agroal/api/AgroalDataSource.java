@@ -9,9 +9,13 @@ import javax.sql.DataSource;
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Supplier;
 
 import static java.util.ServiceLoader.load;
@@ -90,6 +94,31 @@ public interface AgroalDataSource extends AutoCloseable, DataSource, Serializabl
         return true;
     }
 
+    /**
+     * Acquires a connection without blocking the calling thread, waiting at most the configured acquisition timeout.
+     * See {@link #getConnectionAsync(Duration)}.
+     */
+    default CompletionStage<Connection> getConnectionAsync() {
+        return getConnectionAsync( getConfiguration().connectionPoolConfiguration().acquisitionTimeout() );
+    }
+
+    /**
+     * Acquires a connection without blocking the calling thread. The stage completes once a connection is available, or exceptionally if none is within the timeout. A zero timeout waits indefinitely.
+     * The stage is completed on the default async executor, so that dependent stages never run on the thread that makes the connection available. Cancelling it cancels the acquisition.
+     * Connections acquired this way are not enlisted in transactions.
+     *
+     * The default implementation blocks on {@link #getConnection()}.
+     */
+    default CompletionStage<Connection> getConnectionAsync(Duration timeout) {
+        CompletableFuture<Connection> future = new CompletableFuture<>();
+        try {
+            future.complete( getConnection() );
+        } catch ( SQLException e ) {
+            future.completeExceptionally( e );
+        }
+        return future;
+    }
+
     /**
      * {@inheritDoc}
      */
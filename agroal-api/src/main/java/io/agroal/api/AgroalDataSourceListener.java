@@ -110,6 +110,11 @@ public interface AgroalDataSourceListener {
      */
     default void onPoolInterceptor(AgroalPoolInterceptor interceptor) {}
 
+    /**
+     * This callback is invoked when the max size of the pool is adjusted to the demand.
+     */
+    default void onPoolResize(int previousMaxSize, int maxSize) {}
+
     /**
      * This callback is invoked to report anomalous circumstances that do not prevent the pool from functioning.
      */
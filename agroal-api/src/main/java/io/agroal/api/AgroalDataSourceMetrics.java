@@ -4,6 +4,9 @@
 package io.agroal.api;
 
 import java.time.Duration;
+import java.util.Map;
+
+import static java.util.Collections.emptyMap;
 
 /**
  * Several metrics provided by the pool.
@@ -135,9 +138,92 @@ public interface AgroalDataSourceMetrics {
 
     // --- //
 
+    /**
+     * Number of times the pool was checked for leaks, validation and idle connections.
+     */
+    default long housekeepingCount() {
+        return 0;
+    }
+
+    /**
+     * Total CPU time spent checking the pool for leaks, validation and idle connections. Zero if the JVM does not measure the CPU time of threads.
+     */
+    default Duration housekeepingCpuTime() {
+        return Duration.ZERO;
+    }
+
+    /**
+     * Total bytes allocated checking the pool for leaks, validation and idle connections. Zero if the JVM does not measure the allocations of threads.
+     */
+    default long housekeepingAllocatedBytes() {
+        return 0;
+    }
+
+    // --- //
+
+    /**
+     * Number of times a prepared statement was found in the cache of the connection.
+     */
+    default long statementCacheHitCount() {
+        return 0;
+    }
+
+    /**
+     * Number of times a prepared statement was not found in the cache of the connection, and had to be prepared.
+     */
+    default long statementCacheMissCount() {
+        return 0;
+    }
+
+    /**
+     * Number of prepared statements closed to make room in the cache of the connection.
+     */
+    default long statementCacheEvictionCount() {
+        return 0;
+    }
+
+    // --- //
+
+    /**
+     * Execution metrics of each SQL statement, keyed by the SQL with literals replaced by '?'. Empty unless statement metrics are enabled.
+     */
+    default Map<String, StatementMetrics> statementMetrics() {
+        return emptyMap();
+    }
+
+    // --- //
+
     /**
      * Reset the metrics.
      */
     default void reset() {
     }
+
+    // --- //
+
+    /**
+     * Distribution of the execution time and rows of a SQL statement. Percentiles are approximate, within a few percent of the exact value.
+     */
+    interface StatementMetrics {
+
+        /**
+         * Number of times the statement was executed.
+         */
+        long executionCount();
+
+        /**
+         * Execution time below which the given percentage of executions fall, for a percentile between 0 and 100.
+         */
+        Duration executionTimePercentile(double percentile);
+
+        /**
+         * Maximum execution time of the statement.
+         */
+        Duration executionTimeMax();
+
+        /**
+         * Number of rows below which the given percentage of executions fall, for a percentile between 0 and 100. Rows are the update count, or the rows read from the result.
+         */
+        long rowsPercentile(double percentile);
+    }
 }
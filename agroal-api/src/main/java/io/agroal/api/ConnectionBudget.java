@@ -0,0 +1,214 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.api;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A maximum number of connections for a set of pools, usually the ones of several data sources that connect to the same database server.
+ * A pool registers with the budget by setting it on its configuration.
+ * <p>
+ * Each pool is entitled to a fair share of the budget, in proportion to its weight. Pools can go beyond their share while there is room in the budget.
+ * When the budget is exhausted, pools above their share give back connections as they become idle to the pools that are below theirs.
+ * The size of each pool is still bound by its max size.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class ConnectionBudget {
+
+    private final int maxConnections;
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final List<Share> shares = new CopyOnWriteArrayList<>();
+
+    public ConnectionBudget(int maxConnections) {
+        if ( maxConnections <= 0 ) {
+            throw new IllegalArgumentException( "A connection budget must allow at least one connection" );
+        }
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Maximum number of connections of all the pools registered with this budget.
+     */
+    public int maxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Number of connections of all the pools registered with this budget.
+     */
+    public int connectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Registers a pool with this budget. To be called by the pool implementation.
+     */
+    public Share register(int weight, Member member) {
+        if ( weight <= 0 ) {
+            throw new IllegalArgumentException( "Weight on a connection budget must be positive" );
+        }
+        Share share = new Share( weight, member );
+        shares.add( share );
+        return share;
+    }
+
+    private int totalWeight() {
+        int total = 0;
+        for ( Share share : shares ) {
+            total += share.weight;
+        }
+        return total;
+    }
+
+    // asks the pool that is furthest above its share to give back one connection
+    private void reclaim() {
+        Share selected = null;
+        long selectedExcess = 0;
+        for ( Share share : shares ) {
+            long excess = share.connectionCount.get() - share.pendingReclaims.get() - (long) share.fairShare();
+            if ( excess > selectedExcess ) {
+                selected = share;
+                selectedExcess = excess;
+            }
+        }
+        if ( selected != null ) {
+            selected.pendingReclaims.incrementAndGet();
+            selected.member.reclaim();
+        }
+    }
+
+    private void release() {
+        connectionCount.decrementAndGet();
+        for ( Share share : shares ) {
+            share.member.available();
+        }
+    }
+
+    @Override
+    @SuppressWarnings( "StringConcatenation" )
+    public String toString() {
+        return "ConnectionBudget{" + connectionCount() + " of " + maxConnections + " connections in " + shares.size() + " pools}";
+    }
+
+    // --- //
+
+    /**
+     * Callbacks from the budget to a registered pool.
+     */
+    public interface Member {
+
+        /**
+         * The pool should give back connections, either idle ones or as they return to the pool, while {@link Share#takeReclaim()} returns true.
+         */
+        void reclaim();
+
+        /**
+         * There may be room in the budget, after a connection was given back.
+         */
+        void available();
+    }
+
+    /**
+     * The part of the budget of a registered pool.
+     */
+    public final class Share {
+
+        private final int weight;
+        private final Member member;
+        private final AtomicInteger connectionCount = new AtomicInteger();
+        private final AtomicInteger pendingReclaims = new AtomicInteger();
+
+        @SuppressWarnings( "WeakerAccess" )
+        Share(int weight, Member member) {
+            this.weight = weight;
+            this.member = member;
+        }
+
+        /**
+         * Number of connections of the pool that is guaranteed by the budget, in proportion to its weight. At least one.
+         */
+        public int fairShare() {
+            int totalWeight = totalWeight();
+            return totalWeight == 0 ? maxConnections : Math.max( 1, (int) ( (long) maxConnections * weight / totalWeight ) );
+        }
+
+        /**
+         * Number of connections of the pool.
+         */
+        public int connectionCount() {
+            return connectionCount.get();
+        }
+
+        /**
+         * If there may be room for a new connection. When there is none and the pool is below its share, other pools are asked to give back connections.
+         */
+        public boolean hasRoom() {
+            if ( ConnectionBudget.this.connectionCount.get() < maxConnections ) {
+                return true;
+            }
+            if ( connectionCount.get() < fairShare() ) {
+                reclaim();
+            }
+            return false;
+        }
+
+        /**
+         * Accounts for a new connection, if there is room for it.
+         */
+        public boolean tryAcquire() {
+            for ( int count = ConnectionBudget.this.connectionCount.get(); count < maxConnections; count = ConnectionBudget.this.connectionCount.get() ) {
+                if ( ConnectionBudget.this.connectionCount.compareAndSet( count, count + 1 ) ) {
+                    connectionCount.incrementAndGet();
+                    return true;
+                }
+            }
+            if ( connectionCount.get() < fairShare() ) {
+                reclaim();
+            }
+            return false;
+        }
+
+        /**
+         * Accounts for a connection that was closed.
+         */
+        public void release() {
+            connectionCount.decrementAndGet();
+            ConnectionBudget.this.release();
+        }
+
+        /**
+         * If the pool should give back a connection.
+         */
+        public boolean takeReclaim() {
+            if ( connectionCount.get() <= fairShare() ) {
+                pendingReclaims.set( 0 );
+                return false;
+            }
+            for ( int pending = pendingReclaims.get(); pending > 0; pending = pendingReclaims.get() ) {
+                if ( pendingReclaims.compareAndSet( pending, pending - 1 ) ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Puts back a reclaim taken with {@link #takeReclaim()} when the pool could not give back the connection, so that it is taken by a later one.
+         */
+        public void putBackReclaim() {
+            pendingReclaims.incrementAndGet();
+        }
+
+        /**
+         * Removes the pool from the budget. The pool is expected to release all its connections.
+         */
+        public void unregister() {
+            shares.remove( this );
+            pendingReclaims.set( 0 );
+        }
+    }
+}
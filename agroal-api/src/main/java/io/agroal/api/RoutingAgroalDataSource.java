@@ -0,0 +1,37 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.api;
+
+import java.util.List;
+
+/**
+ * AgroalDataSource for a primary database and its read replicas, with one pool for each. Connections go to a replica when acquired within a {@link #readOnlyScope()}, and to the primary otherwise.
+ * The metrics of this DataSource are the ones of the primary.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public interface RoutingAgroalDataSource extends AgroalDataSource {
+
+    /**
+     * Connections acquired by the current thread until the returned scope is closed are routed to a replica.
+     */
+    ReadOnlyScope readOnlyScope();
+
+    /**
+     * Metrics of the pools of the replicas, in the order they were configured.
+     */
+    List<AgroalDataSourceMetrics> getReplicaMetrics();
+
+    // --- //
+
+    /**
+     * Scope where the connections acquired by a thread are routed to a replica. Scopes can be nested.
+     */
+    @FunctionalInterface
+    interface ReadOnlyScope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
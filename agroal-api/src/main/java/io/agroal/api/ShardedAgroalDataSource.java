@@ -0,0 +1,32 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.api;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * AgroalDataSource for a database split in shards, with one pool for each shard. Connections are acquired for a key, that is mapped to a shard by {@link io.agroal.api.configuration.AgroalDataSourceConfiguration#shardFunction()}.
+ * The metrics of this DataSource are the aggregate of the ones of all the shards.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public interface ShardedAgroalDataSource extends AgroalDataSource {
+
+    /**
+     * Gets a connection to the shard of a key.
+     */
+    Connection getConnection(Object shardKey) throws SQLException;
+
+    /**
+     * The shard of a key, that is the index in {@link #getShardMetrics()}.
+     */
+    int shardOf(Object shardKey);
+
+    /**
+     * Metrics of the pools of each shard, in the order they were configured.
+     */
+    List<AgroalDataSourceMetrics> getShardMetrics();
+}
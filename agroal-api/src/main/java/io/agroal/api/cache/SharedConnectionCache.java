@@ -0,0 +1,85 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.api.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.lang.Runtime.getRuntime;
+
+/**
+ * Implementations of ConnectionCache that are shared among threads, instead of relying on {@link ThreadLocal}.
+ * These suit short-lived threads, like virtual threads, that would otherwise never find a connection in a thread local cache.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public interface SharedConnectionCache {
+
+    /**
+     * A cache with a slot for each available processor.
+     */
+    static ConnectionCache perProcessor() {
+        return slots( getRuntime().availableProcessors() );
+    }
+
+    /**
+     * A cache with a number of slots, each storing at most a single connection. The slots are a striped free list: threads start at a random slot, and look in the others when that one is empty.
+     * Connections are not mapped to threads, as with short-lived threads the one that returns a connection is seldom the next to acquire one.
+     */
+    static ConnectionCache slots(int size) {
+        if ( size <= 0 ) {
+            throw new IllegalArgumentException( "A positive number of slots is required" );
+        }
+        return new ConnectionCache() {
+
+            private volatile AtomicReferenceArray<Acquirable> slots;
+
+            { // instance initializer
+                reset();
+            }
+
+            @Override
+            public Acquirable get() {
+                AtomicReferenceArray<Acquirable> current = slots;
+                int start = probe();
+                for ( int i = 0; i < size; i++ ) {
+                    int slot = ( start + i ) % size;
+                    Acquirable acquirable = current.get( slot );
+                    // the slot is emptied first, so that concurrent threads do not contend on the same connection
+                    if ( acquirable != null && current.compareAndSet( slot, acquirable, null ) && acquirable.acquire() ) {
+                        return acquirable;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void put(Acquirable acquirable) {
+                if ( !acquirable.isAcquirable() ) {
+                    return;
+                }
+                AtomicReferenceArray<Acquirable> current = slots;
+                int start = probe();
+                for ( int i = 0; i < size; i++ ) {
+                    int slot = ( start + i ) % size;
+                    Acquirable cached = current.get( slot );
+                    if ( ( cached == null || !cached.isAcquirable() ) && current.compareAndSet( slot, cached, acquirable ) ) {
+                        return;
+                    }
+                }
+                // all slots hold connections that can be acquired. the one at the probe is replaced, as the pool still has it
+                current.lazySet( start, acquirable );
+            }
+
+            @Override
+            public void reset() {
+                slots = new AtomicReferenceArray<>( size );
+            }
+
+            private int probe() {
+                return size == 1 ? 0 : ThreadLocalRandom.current().nextInt( size );
+            }
+        };
+    }
+}
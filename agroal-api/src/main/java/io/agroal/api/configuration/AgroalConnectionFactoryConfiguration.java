@@ -9,8 +9,11 @@ import java.security.Principal;
 import java.sql.Connection;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.Properties;
 
+import static java.util.Collections.emptyList;
+
 /**
  * The configuration of the connection factory.
  *
@@ -33,6 +36,71 @@ public interface AgroalConnectionFactoryConfiguration {
      */
     boolean trackJdbcResources();
 
+    /**
+     * If the values of auto-commit, transaction isolation, read-only, schema and catalog are kept by the pool, so that reading them or setting the same value again does not involve the driver.
+     * Requires those attributes to be changed only through the JDBC API, and not with SQL statements.
+     */
+    default boolean cacheSessionState() {
+        return false;
+    }
+
+    /**
+     * The number of {@link java.sql.PreparedStatement} kept open on each connection to be reused when the same SQL is prepared again. The least recently used statement is closed when the cache is full.
+     * Statements closed by the application return to the cache, instead of being closed. A value of 0 means that statements are not cached.
+     */
+    default int preparedStatementCacheSize() {
+        return 0;
+    }
+
+    /**
+     * The number of {@link java.sql.CallableStatement} kept open on each connection to be reused when the same call is prepared again. This cache is separate from the one of prepared statements.
+     * Parameters are cleared when a statement returns to the cache. OUT parameters can not be unregistered, so reading one not registered since the statement was taken from the cache fails, and statements used with different OUT parameters than the first time are not reused. A value of 0 means that statements are not cached.
+     */
+    default int callableStatementCacheSize() {
+        return 0;
+    }
+
+    /**
+     * If the column index for each label is kept by the pool, so that label based getters of {@link java.sql.ResultSet} do not involve the driver to resolve the label.
+     * The index is built from {@link java.sql.ResultSetMetaData} on first use, and shared by all executions of the same prepared statement, including across uses of a cached statement.
+     * Requires the columns returned by a statement to remain the same (a change in the number of columns is detected, but not a change in their order).
+     */
+    default boolean cacheColumnLabels() {
+        return false;
+    }
+
+    /**
+     * If the results of queries are read in full on execution, and the cursor closed right away. The {@link java.sql.ResultSet} returned remains usable after the statement and the connection are closed, so that the connection can return to the pool before the results are processed.
+     * Requires the results to fit in memory, see {@link #materializeResultsMaxRows()}. Updatable results and results with columns that are read from the database on access (ARRAY, REF, STRUCT, SQLXML, NCLOB) are not materialized.
+     */
+    default boolean materializeResults() {
+        return false;
+    }
+
+    /**
+     * The maximum number of rows of a result that are read on execution. The rows above it are read from the open cursor as they are consumed, as if results were not materialized, and the result can only be scrolled forward.
+     * Zero means that results are always read in full.
+     */
+    default int materializeResultsMaxRows() {
+        return 0;
+    }
+
+    /**
+     * The maximum number of distinct SQL statements with execution metrics, see {@link io.agroal.api.AgroalDataSourceMetrics#statementMetrics()}. Statements are told apart by their SQL with literals replaced by '?'.
+     * Executions of statements beyond the limit are not recorded. Requires metrics to be enabled. A value of 0 means that statement metrics are disabled.
+     */
+    default int statementMetricsLimit() {
+        return 0;
+    }
+
+    /**
+     * Maximum time a statement may execute before it's cancelled by the pool. Applies to statements where the application did not set a query timeout.
+     * The timeout is enforced by a timer shared by all pools, instead of relying on the driver. A value of zero means that statements are not cancelled.
+     */
+    default Duration queryTimeout() {
+        return Duration.ZERO;
+    }
+
     /**
      * Maximum time to wait while attempting to connect to a database. Resolution in seconds.
      */
@@ -43,6 +111,22 @@ public interface AgroalConnectionFactoryConfiguration {
      */
     String jdbcUrl();
 
+    /**
+     * URLs of other database hosts, that can be used instead of the one of {@link #jdbcUrl()}. New connections are created on the healthiest host, according to the time it takes to connect and the rate of errors.
+     * A host is avoided for some time after a failed attempt to connect or a fatal error on one of its connections, according to {@link AgroalConnectionPoolConfiguration#exceptionSorter()}.
+     * Not supported with an XADataSource, as transaction recovery only connects to the database URL.
+     */
+    default List<String> failoverJdbcUrls() {
+        return emptyList();
+    }
+
+    /**
+     * Time a host is avoided after a failure, when there are failover URLs. Doubles with each consecutive failure of the host, up to 64 times.
+     */
+    default Duration failoverBackoff() {
+        return Duration.ofSeconds( 1 );
+    }
+
     /**
      * A SQL command to be executed when a connection is created.
      */
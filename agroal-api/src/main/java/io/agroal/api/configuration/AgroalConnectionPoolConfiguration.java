@@ -3,7 +3,9 @@
 
 package io.agroal.api.configuration;
 
+import io.agroal.api.ConnectionBudget;
 import io.agroal.api.cache.ConnectionCache;
+import io.agroal.api.cache.SharedConnectionCache;
 import io.agroal.api.transaction.TransactionIntegration;
 
 import java.sql.Connection;
@@ -37,6 +39,14 @@ public interface AgroalConnectionPoolConfiguration {
      */
     ConnectionCache connectionCache();
 
+    /**
+     * Strategy for connection caching used instead of {@link #connectionCache()} when the thread acquiring the connection is a virtual thread.
+     * Virtual threads are usually short-lived, so a cache that relies on thread locals is not effective. Default is {@link SharedConnectionCache#perProcessor}, as with the configuration supplier.
+     */
+    default ConnectionCache virtualThreadConnectionCache() {
+        return SharedConnectionCache.perProcessor();
+    }
+
     /**
      * The transaction layer integration to use.
      */
@@ -83,6 +93,32 @@ public interface AgroalConnectionPoolConfiguration {
      */
     Duration maxLifetime();
 
+    /**
+     * The percentage by which the max lifetime of each connection is shortened, at random. Spreads in time the expiration of connections that were created together, like the ones created when the pool starts.
+     * A value of 0 means that all connections expire exactly at max lifetime.
+     */
+    default int maxLifetimeJitter() {
+        return 0;
+    }
+
+    /**
+     * The maximum number of connections being replaced at the same time for reaching max lifetime. The other expired connections stay in the pool until their turn comes.
+     * While the pool is at min size, the replacement of a connection is established before the expired one is flushed, so that the pool does not drop below min size (unless it's also at max size).
+     * A value of 0 means there is no limit.
+     */
+    default int maxLifetimeEvictions() {
+        return 0;
+    }
+
+    /**
+     * The interval between adjustments of the size of the pool to the demand. The size is raised when acquisitions have to wait and lowered when connections are not needed, within min size and max size.
+     * The adjusted size is kept by the pool and does not change {@link #maxSize()}, that can still be changed by the application. Each adjustment is reported with {@link io.agroal.api.AgroalDataSourceListener#onPoolResize(int, int)}.
+     * A duration of {@link Duration#ZERO} means that this feature is disabled.
+     */
+    default Duration adaptiveSizingInterval() {
+        return Duration.ZERO;
+    }
+
     /**
      * Provides detailed insights of the connection status when it's reported as a leak (as INFO messages on AgroalDataSourceListener).
      */
@@ -108,6 +144,56 @@ public interface AgroalConnectionPoolConfiguration {
         return true;
     }
 
+    /**
+     * If connections returning to the pool should be handed over directly to the threads waiting for one, in the order they started waiting.
+     * Threads blocked on a full pool do not have to compete with other threads to acquire the returning connection.
+     */
+    default boolean directHandoff() {
+        return false;
+    }
+
+    /**
+     * If the reset of connections returning to the pool is deferred, so that it does not delay the return.
+     * The reset is applied on the first operation of the next borrower, or by the housekeeping thread while the connection is idle.
+     * Attributes the next borrower sets before that are not reset first, so that with cached session state setting the same value again does not need a round trip to the database.
+     * Autocommit is always reset on return, so that a transaction left open does not outlive the borrow.
+     */
+    default boolean deferredReset() {
+        return false;
+    }
+
+    /**
+     * The number of stripes the pool is divided into when looking for an available connection.
+     * Each thread starts looking on a stripe of its own and only visits the others when no connection is available there, reducing contention between threads.
+     * A value of 1 means that all threads look for connections in the same order.
+     */
+    default int stripeCount() {
+        return 1;
+    }
+
+    /**
+     * The maximum number of connections that can be established at the same time.
+     * Connections are established on a pool of threads of its own, so that filling the pool or a burst of demand does not have to wait for each connection in turn.
+     * Other pool maintenance tasks (leak detection, validation, reap) are executed by a single thread regardless of this value.
+     */
+    default int creationConcurrency() {
+        return 1;
+    }
+
+    /**
+     * Maximum number of connections shared with other pools, usually of other data sources to the same database server. A value of null means that only max size applies.
+     */
+    default ConnectionBudget connectionBudget() {
+        return null;
+    }
+
+    /**
+     * The weight of this pool on the {@link #connectionBudget()}, that determines its fair share of connections when the budget is exhausted.
+     */
+    default int connectionBudgetWeight() {
+        return 1;
+    }
+
     /**
      * Behaviour when a thread tries to acquire multiple connections.
      */
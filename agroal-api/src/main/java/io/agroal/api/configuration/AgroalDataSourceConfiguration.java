@@ -3,6 +3,11 @@
 
 package io.agroal.api.configuration;
 
+import java.time.Duration;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
 /**
  * Configuration of an AgroalDataSource.
  *
@@ -20,6 +25,50 @@ public interface AgroalDataSourceConfiguration {
      */
     DataSourceImplementation dataSourceImplementation();
 
+    /**
+     * Configuration of the pools of the read replicas, used by the AGROAL_ROUTING implementation. The pool of this DataSource is the one of the primary.
+     */
+    default List<AgroalConnectionPoolConfiguration> replicaPoolConfigurations() {
+        return emptyList();
+    }
+
+    /**
+     * If the AGROAL_ROUTING implementation acquires connections on first use, so that setting them read-only before that routes them to a replica.
+     * Otherwise connections are acquired from the primary, or from a replica within a read-only scope.
+     */
+    default boolean lazyRouting() {
+        return false;
+    }
+
+    /**
+     * Configuration of the pools of the shards, used by the AGROAL_SHARDED implementation. The pool of this DataSource is the template the ones of the shards are derived from.
+     */
+    default List<AgroalConnectionPoolConfiguration> shardPoolConfigurations() {
+        return emptyList();
+    }
+
+    /**
+     * Function that maps the keys to the shards, used by the AGROAL_SHARDED implementation.
+     */
+    default ShardFunction shardFunction() {
+        return ShardFunction.hash();
+    }
+
+    /**
+     * Maximum number of connections in use across the pools for the credentials passed to {@link javax.sql.DataSource#getConnection(String, String)}. There is one pool for each distinct credentials, derived from the pool of this DataSource.
+     * This is also the maximum number of those pools. A value of 0 means that connections with other credentials are not supported, which is required with a transaction integration.
+     */
+    default int credentialPoolsMaxSize() {
+        return 0;
+    }
+
+    /**
+     * Time after which the pool for some credentials is closed, if no connections were acquired from it in the meantime and it has none in use.
+     */
+    default Duration credentialPoolsIdleTimeout() {
+        return Duration.ofMinutes( 5 );
+    }
+
     // --- //
 
     /**
@@ -54,6 +103,18 @@ public interface AgroalDataSourceConfiguration {
          */
         AGROAL_POOLLESS( "io.agroal.pool.DataSource" ),
 
+        /**
+         * Agroal pools for a primary and its read replicas. Connections acquired within a read-only scope, or set read-only before being used with lazy routing, are routed to one of the replicas.
+         * Replicas are not supported with a transaction integration, as the connection enlisted in a transaction would be shared by the primary and the replicas.
+         */
+        AGROAL_ROUTING( "io.agroal.pool.RoutingDataSource" ),
+
+        /**
+         * Agroal pools for each shard of a database. Connections are acquired for a key, that determines the shard.
+         * Not supported with a transaction integration, as the connection enlisted in a transaction would be shared by all the shards.
+         */
+        AGROAL_SHARDED( "io.agroal.pool.ShardedDataSource" ),
+
         /**
          * The popular Hikari connection pool. Mainly for testing purposes as the Agroal API is not fully supported.
          */
@@ -75,4 +136,20 @@ public interface AgroalDataSourceConfiguration {
     interface MetricsEnabledListener {
         void onMetricsEnabled(boolean metricsEnabled);
     }
+
+    /**
+     * Maps a key to one of the shards, from 0 to the number of shards (exclusive). Must return the same shard for equal keys.
+     */
+    @FunctionalInterface
+    interface ShardFunction {
+
+        /**
+         * Maps keys by their hash code.
+         */
+        static ShardFunction hash() {
+            return (key, shardCount) -> Math.floorMod( key.hashCode(), shardCount );
+        }
+
+        int shard(Object key, int shardCount);
+    }
 }
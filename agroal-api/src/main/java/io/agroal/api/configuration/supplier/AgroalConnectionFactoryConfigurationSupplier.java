@@ -10,14 +10,17 @@ import io.agroal.api.security.AgroalDefaultSecurityProvider;
 import io.agroal.api.security.AgroalKerberosSecurityProvider;
 import io.agroal.api.security.AgroalSecurityProvider;
 
+import javax.sql.XADataSource;
 import java.security.Principal;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Properties;
 import java.util.function.Supplier;
 
 import static io.agroal.api.configuration.AgroalConnectionFactoryConfiguration.TransactionIsolation.UNDEFINED;
+import static java.util.Collections.unmodifiableList;
 
 /**
  * Builder of AgroalConnectionFactoryConfiguration.
@@ -33,8 +36,18 @@ public class AgroalConnectionFactoryConfigurationSupplier implements Supplier<Ag
     boolean autoCommit = true;
     boolean readOnly;
     boolean trackJdbcResources = true;
+    boolean cacheSessionState;
+    int preparedStatementCacheSize;
+    int callableStatementCacheSize;
+    boolean cacheColumnLabels;
+    boolean materializeResults;
+    int materializeResultsMaxRows;
+    int statementMetricsLimit;
+    Duration queryTimeout = Duration.ZERO;
     Duration loginTimeout = Duration.ZERO;
     String jdbcUrl = "";
+    List<String> failoverJdbcUrls = new ArrayList<>();
+    Duration failoverBackoff = Duration.ofSeconds( 1 );
     String initialSql = "";
     Class<?> connectionProviderClass;
     IsolationLevel transactionIsolation = UNDEFINED;
@@ -68,14 +81,24 @@ public class AgroalConnectionFactoryConfigurationSupplier implements Supplier<Ag
         connectionProviderClass = existingConfiguration.connectionProviderClass();
         transactionIsolation = existingConfiguration.jdbcTransactionIsolation();
         principal = existingConfiguration.principal();
-        credentials = existingConfiguration.credentials();
+        credentials = new ArrayList<>( existingConfiguration.credentials() );
         poolRecovery = existingConfiguration.poolRecovery();
         recoveryPrincipal = existingConfiguration.recoveryPrincipal();
-        recoveryCredentials = existingConfiguration.recoveryCredentials();
-        jdbcProperties = existingConfiguration.jdbcProperties();
-        xaProperties = existingConfiguration.xaProperties();
-        securityProviders = existingConfiguration.securityProviders();
+        recoveryCredentials = new ArrayList<>( existingConfiguration.recoveryCredentials() );
+        jdbcProperties.putAll( existingConfiguration.jdbcProperties() );
+        xaProperties.putAll( existingConfiguration.xaProperties() );
+        securityProviders = new ArrayList<>( existingConfiguration.securityProviders() );
         trackJdbcResources = existingConfiguration.trackJdbcResources();
+        cacheSessionState = existingConfiguration.cacheSessionState();
+        preparedStatementCacheSize = existingConfiguration.preparedStatementCacheSize();
+        callableStatementCacheSize = existingConfiguration.callableStatementCacheSize();
+        cacheColumnLabels = existingConfiguration.cacheColumnLabels();
+        materializeResults = existingConfiguration.materializeResults();
+        materializeResultsMaxRows = existingConfiguration.materializeResultsMaxRows();
+        statementMetricsLimit = existingConfiguration.statementMetricsLimit();
+        queryTimeout = existingConfiguration.queryTimeout();
+        failoverJdbcUrls = new ArrayList<>( existingConfiguration.failoverJdbcUrls() );
+        failoverBackoff = existingConfiguration.failoverBackoff();
     }
 
     private void checkLock() {
@@ -120,6 +143,78 @@ public class AgroalConnectionFactoryConfigurationSupplier implements Supplier<Ag
         return this;
     }
 
+    /**
+     * Sets if the session state of connections is cached by the pool. Default is false.
+     */
+    public AgroalConnectionFactoryConfigurationSupplier cacheSessionState(boolean cacheSessionStateEnabled) {
+        checkLock();
+        cacheSessionState = cacheSessionStateEnabled;
+        return this;
+    }
+
+    /**
+     * Sets the number of prepared statements cached on each connection. Must not be negative. Default is zero meaning that statements are not cached.
+     */
+    public AgroalConnectionFactoryConfigurationSupplier preparedStatementCacheSize(int size) {
+        checkLock();
+        preparedStatementCacheSize = size;
+        return this;
+    }
+
+    /**
+     * Sets the number of callable statements cached on each connection. Must not be negative. Default is zero meaning that statements are not cached.
+     */
+    public AgroalConnectionFactoryConfigurationSupplier callableStatementCacheSize(int size) {
+        checkLock();
+        callableStatementCacheSize = size;
+        return this;
+    }
+
+    /**
+     * Sets if the column index of result set labels is cached by the pool. Default is false.
+     */
+    public AgroalConnectionFactoryConfigurationSupplier cacheColumnLabels(boolean cacheColumnLabelsEnabled) {
+        checkLock();
+        cacheColumnLabels = cacheColumnLabelsEnabled;
+        return this;
+    }
+
+    /**
+     * Sets if the results of queries are read in full on execution, and usable after the connection is closed. Default is false.
+     */
+    public AgroalConnectionFactoryConfigurationSupplier materializeResults(boolean materializeResultsEnabled) {
+        checkLock();
+        materializeResults = materializeResultsEnabled;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of rows of a result that are read on execution, when results are materialized. Must not be negative. Default is zero meaning that results are always read in full.
+     */
+    public AgroalConnectionFactoryConfigurationSupplier materializeResultsMaxRows(int maxRows) {
+        checkLock();
+        materializeResultsMaxRows = maxRows;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of distinct SQL statements with execution metrics. Must not be negative. Default is zero meaning that statement metrics are disabled.
+     */
+    public AgroalConnectionFactoryConfigurationSupplier statementMetricsLimit(int limit) {
+        checkLock();
+        statementMetricsLimit = limit;
+        return this;
+    }
+
+    /**
+     * Sets the time a statement may execute before it's cancelled by the pool. Default is 0 (statements are not cancelled)
+     */
+    public AgroalConnectionFactoryConfigurationSupplier queryTimeout(Duration timeout) {
+        checkLock();
+        queryTimeout = timeout;
+        return this;
+    }
+
     /**
      * Sets the login timeout (in seconds). Default is 0 (waits indefinitely)
      */
@@ -138,6 +233,24 @@ public class AgroalConnectionFactoryConfigurationSupplier implements Supplier<Ag
         return this;
     }
 
+    /**
+     * Adds the URL of another database host, to create connections on when it's healthier than the others. Default is to connect only to the database URL.
+     */
+    public AgroalConnectionFactoryConfigurationSupplier addFailoverJdbcUrl(String jdbcUrlString) {
+        checkLock();
+        failoverJdbcUrls.add( jdbcUrlString );
+        return this;
+    }
+
+    /**
+     * Sets the time a host is avoided after a failure, when there are failover URLs. Default is 1 second.
+     */
+    public AgroalConnectionFactoryConfigurationSupplier failoverBackoff(Duration backoff) {
+        checkLock();
+        failoverBackoff = backoff;
+        return this;
+    }
+
     /**
      * Sets the SQL command to be executed when a connection is created.
      */
@@ -217,6 +330,18 @@ public class AgroalConnectionFactoryConfigurationSupplier implements Supplier<Ag
         return this;
     }
 
+    /**
+     * Removes the principal and the credentials, including the ones for recovery connections.
+     */
+    public AgroalConnectionFactoryConfigurationSupplier clearCredentials() {
+        checkLock();
+        principal = null;
+        credentials.clear();
+        recoveryPrincipal = null;
+        recoveryCredentials.clear();
+        return this;
+    }
+
     /**
      * Sets the value of pool recovery connections. Default is true.
      */
@@ -275,6 +400,31 @@ public class AgroalConnectionFactoryConfigurationSupplier implements Supplier<Ag
         if ( loginTimeout.isNegative() ) {
             throw new IllegalArgumentException( "Login timeout must not be negative" );
         }
+        if ( preparedStatementCacheSize < 0 ) {
+            throw new IllegalArgumentException( "Prepared statement cache size must not be negative" );
+        }
+        if ( callableStatementCacheSize < 0 ) {
+            throw new IllegalArgumentException( "Callable statement cache size must not be negative" );
+        }
+        if ( statementMetricsLimit < 0 ) {
+            throw new IllegalArgumentException( "Statement metrics limit must not be negative" );
+        }
+        if ( materializeResultsMaxRows < 0 ) {
+            throw new IllegalArgumentException( "Materialized results max rows must not be negative" );
+        }
+        if ( queryTimeout.isNegative() ) {
+            throw new IllegalArgumentException( "Query timeout must not be negative" );
+        }
+        if ( failoverJdbcUrls.stream().anyMatch( url -> url == null || url.isEmpty() ) ) {
+            throw new IllegalArgumentException( "Failover URL must not be empty" );
+        }
+        if ( failoverBackoff.isNegative() ) {
+            throw new IllegalArgumentException( "Failover backoff must not be negative" );
+        }
+        // recovery connections are only created for the database URL, and transactions prepared on the other hosts would not be recovered
+        if ( !failoverJdbcUrls.isEmpty() && connectionProviderClass != null && XADataSource.class.isAssignableFrom( connectionProviderClass ) ) {
+            throw new IllegalArgumentException( "Failover URLs are not supported with an XADataSource" );
+        }
         if ( jdbcProperties.containsKey( USER_PROPERTY_NAME ) ) {
             throw new IllegalArgumentException( "Invalid JDBC property '" + USER_PROPERTY_NAME + "': use principal instead." );
         }
@@ -306,6 +456,46 @@ public class AgroalConnectionFactoryConfigurationSupplier implements Supplier<Ag
                 return trackJdbcResources;
             }
 
+            @Override
+            public boolean cacheSessionState() {
+                return cacheSessionState;
+            }
+
+            @Override
+            public int preparedStatementCacheSize() {
+                return preparedStatementCacheSize;
+            }
+
+            @Override
+            public int callableStatementCacheSize() {
+                return callableStatementCacheSize;
+            }
+
+            @Override
+            public boolean cacheColumnLabels() {
+                return cacheColumnLabels;
+            }
+
+            @Override
+            public boolean materializeResults() {
+                return materializeResults;
+            }
+
+            @Override
+            public int materializeResultsMaxRows() {
+                return materializeResultsMaxRows;
+            }
+
+            @Override
+            public int statementMetricsLimit() {
+                return statementMetricsLimit;
+            }
+
+            @Override
+            public Duration queryTimeout() {
+                return queryTimeout;
+            }
+
             @Override
             public Duration loginTimeout() {
                 return loginTimeout;
@@ -316,6 +506,16 @@ public class AgroalConnectionFactoryConfigurationSupplier implements Supplier<Ag
                 return jdbcUrl;
             }
 
+            @Override
+            public List<String> failoverJdbcUrls() {
+                return unmodifiableList( failoverJdbcUrls );
+            }
+
+            @Override
+            public Duration failoverBackoff() {
+                return failoverBackoff;
+            }
+
             @Override
             public String initialSql() {
                 return initialSql;
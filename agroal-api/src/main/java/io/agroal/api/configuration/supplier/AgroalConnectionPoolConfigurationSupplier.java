@@ -3,8 +3,10 @@
 
 package io.agroal.api.configuration.supplier;
 
+import io.agroal.api.ConnectionBudget;
 import io.agroal.api.cache.ConnectionCache;
 import io.agroal.api.cache.LocalConnectionCache;
+import io.agroal.api.cache.SharedConnectionCache;
 import io.agroal.api.configuration.AgroalConnectionFactoryConfiguration;
 import io.agroal.api.configuration.AgroalConnectionPoolConfiguration;
 import io.agroal.api.configuration.AgroalConnectionPoolConfiguration.MultipleAcquisitionAction;
@@ -32,12 +34,19 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
     AgroalConnectionFactoryConfiguration connectionFactoryConfiguration;
 
     ConnectionCache connectionCache = LocalConnectionCache.single();
+    ConnectionCache virtualThreadConnectionCache = SharedConnectionCache.perProcessor();
     TransactionIntegration transactionIntegration = none();
     TransactionRequirement transactionRequirement = TransactionRequirement.OFF;
     MultipleAcquisitionAction multipleAcquisitionAction = MultipleAcquisitionAction.OFF;
     boolean enhancedLeakReport;
     boolean flushOnClose;
     boolean recoveryEnable = true;
+    boolean directHandoff;
+    boolean deferredReset;
+    int stripeCount = 1;
+    int creationConcurrency = 1;
+    ConnectionBudget connectionBudget;
+    int connectionBudgetWeight = 1;
     int initialSize;
     volatile int minSize;
     volatile int maxSize = MAX_VALUE;
@@ -49,6 +58,9 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
     Duration validationTimeout = ZERO;
     Duration reapTimeout = ZERO;
     Duration maxLifetime = ZERO;
+    int maxLifetimeJitter;
+    int maxLifetimeEvictions;
+    Duration adaptiveSizingInterval = ZERO;
     volatile Duration acquisitionTimeout = ZERO;
 
     private volatile boolean lock;
@@ -66,11 +78,18 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
         }
         connectionFactoryConfigurationSupplier = new AgroalConnectionFactoryConfigurationSupplier( existingConfiguration.connectionFactoryConfiguration() );
         connectionCache = existingConfiguration.connectionCache();
+        virtualThreadConnectionCache = existingConfiguration.virtualThreadConnectionCache();
         transactionIntegration = existingConfiguration.transactionIntegration();
         transactionRequirement = existingConfiguration.transactionRequirement();
         multipleAcquisitionAction = existingConfiguration.multipleAcquisition();
         flushOnClose = existingConfiguration.flushOnClose();
         recoveryEnable = existingConfiguration.recoveryEnable();
+        directHandoff = existingConfiguration.directHandoff();
+        deferredReset = existingConfiguration.deferredReset();
+        stripeCount = existingConfiguration.stripeCount();
+        creationConcurrency = existingConfiguration.creationConcurrency();
+        connectionBudget = existingConfiguration.connectionBudget();
+        connectionBudgetWeight = existingConfiguration.connectionBudgetWeight();
         enhancedLeakReport = existingConfiguration.enhancedLeakReport();
         initialSize = existingConfiguration.initialSize();
         minSize = existingConfiguration.minSize();
@@ -83,6 +102,9 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
         validationTimeout = existingConfiguration.validationTimeout();
         reapTimeout = existingConfiguration.reapTimeout();
         maxLifetime = existingConfiguration.maxLifetime();
+        maxLifetimeJitter = existingConfiguration.maxLifetimeJitter();
+        maxLifetimeEvictions = existingConfiguration.maxLifetimeEvictions();
+        adaptiveSizingInterval = existingConfiguration.adaptiveSizingInterval();
         acquisitionTimeout = existingConfiguration.acquisitionTimeout();
     }
 
@@ -133,6 +155,15 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
         return this;
     }
 
+    /**
+     * Sets the connection cache implementation used by virtual threads. Default is {@link SharedConnectionCache#perProcessor}.
+     */
+    public AgroalConnectionPoolConfigurationSupplier virtualThreadConnectionCache(ConnectionCache cache) {
+        checkLock();
+        virtualThreadConnectionCache = cache;
+        return this;
+    }
+
     /**
      * Sets the transaction integration instance to use. Default is {@link TransactionIntegration#none()}.
      */
@@ -201,6 +232,83 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
         recoveryEnable = enable;
         return this;
     }
+
+    /**
+     * Enables direct handoff of connections to waiting threads.
+     */
+    public AgroalConnectionPoolConfigurationSupplier directHandoff() {
+        return directHandoff( true );
+    }
+
+    /**
+     * Enables or disables direct handoff of connections to waiting threads. Default is false.
+     */
+    public AgroalConnectionPoolConfigurationSupplier directHandoff(boolean handoff) {
+        checkLock();
+        directHandoff = handoff;
+        return this;
+    }
+
+    /**
+     * Enables deferred reset of connections returning to the pool.
+     */
+    public AgroalConnectionPoolConfigurationSupplier deferredReset() {
+        return deferredReset( true );
+    }
+
+    /**
+     * Enables or disables deferred reset of connections returning to the pool. Default is false.
+     */
+    public AgroalConnectionPoolConfigurationSupplier deferredReset(boolean deferred) {
+        checkLock();
+        deferredReset = deferred;
+        return this;
+    }
+
+    /**
+     * Sets the number of stripes of the pool for connection lookup. Must be positive. Default is 1.
+     */
+    public AgroalConnectionPoolConfigurationSupplier stripeCount(int count) {
+        checkLock();
+        stripeCount = count;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of connections established at the same time. Must be positive. Default is 1.
+     */
+    public AgroalConnectionPoolConfigurationSupplier creationConcurrency(int concurrency) {
+        checkLock();
+        creationConcurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of connections shared with other pools. Default is null, meaning no budget.
+     */
+    public AgroalConnectionPoolConfigurationSupplier connectionBudget(ConnectionBudget budget) {
+        checkLock();
+        connectionBudget = budget;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of connections shared with other pools, and the weight of this pool on it.
+     */
+    public AgroalConnectionPoolConfigurationSupplier connectionBudget(ConnectionBudget budget, int weight) {
+        connectionBudget( budget );
+        return connectionBudgetWeight( weight );
+    }
+
+    /**
+     * Sets the weight of this pool on the connection budget. Must be positive. Default is 1.
+     */
+    public AgroalConnectionPoolConfigurationSupplier connectionBudgetWeight(int weight) {
+        checkLock();
+        connectionBudgetWeight = weight;
+        return this;
+    }
+
     /**
      * Sets the number of connections when the pool starts. Must not be negative. Default is zero.
      */
@@ -309,6 +417,33 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
         return this;
     }
 
+    /**
+     * Sets the percentage by which the lifetime of connections is shortened at random. Must be between 0 and 99. Default is zero.
+     */
+    public AgroalConnectionPoolConfigurationSupplier maxLifetimeJitter(int percentage) {
+        checkLock();
+        maxLifetimeJitter = percentage;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of connections replaced at the same time for reaching max lifetime. Must not be negative. Default is zero meaning there is no limit.
+     */
+    public AgroalConnectionPoolConfigurationSupplier maxLifetimeEvictions(int evictions) {
+        checkLock();
+        maxLifetimeEvictions = evictions;
+        return this;
+    }
+
+    /**
+     * Sets the interval between adjustments of the size of the pool. Default is {@link Duration#ZERO} meaning that this feature is disabled.
+     */
+    public AgroalConnectionPoolConfigurationSupplier adaptiveSizingInterval(Duration interval) {
+        checkLock();
+        adaptiveSizingInterval = interval;
+        return this;
+    }
+
     // --- //
 
     private void validate() {
@@ -330,6 +465,15 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
         if ( initialSize < 0 ) {
             throw new IllegalArgumentException( "Invalid value for initial size. Must not be negative, and ideally between min size and max size" );
         }
+        if ( stripeCount <= 0 ) {
+            throw new IllegalArgumentException( "A positive stripe count is required" );
+        }
+        if ( creationConcurrency <= 0 ) {
+            throw new IllegalArgumentException( "A positive creation concurrency is required" );
+        }
+        if ( connectionBudgetWeight <= 0 ) {
+            throw new IllegalArgumentException( "A positive connection budget weight is required" );
+        }
         if ( acquisitionTimeout.isNegative() ) {
             throw new IllegalArgumentException( "Acquisition timeout must not be negative" );
         }
@@ -345,6 +489,15 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
         if ( maxLifetime.isNegative() ) {
             throw new IllegalArgumentException( "Max Lifetime must not be negative" );
         }
+        if ( maxLifetimeJitter < 0 || maxLifetimeJitter >= 100 ) {
+            throw new IllegalArgumentException( "Max Lifetime jitter must be between 0 and 99" );
+        }
+        if ( maxLifetimeEvictions < 0 ) {
+            throw new IllegalArgumentException( "Max Lifetime evictions must not be negative" );
+        }
+        if ( adaptiveSizingInterval.isNegative() ) {
+            throw new IllegalArgumentException( "Adaptive sizing interval must not be negative" );
+        }
         if ( validationTimeout.isNegative() ) {
             throw new IllegalArgumentException( "Validation timeout must not be negative" );
         }
@@ -372,6 +525,11 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
                 return connectionCache;
             }
 
+            @Override
+            public ConnectionCache virtualThreadConnectionCache() {
+                return virtualThreadConnectionCache;
+            }
+
             @Override
             public TransactionIntegration transactionIntegration() {
                 return transactionIntegration;
@@ -397,6 +555,36 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
                 return recoveryEnable;
             }
 
+            @Override
+            public boolean directHandoff() {
+                return directHandoff;
+            }
+
+            @Override
+            public boolean deferredReset() {
+                return deferredReset;
+            }
+
+            @Override
+            public int stripeCount() {
+                return stripeCount;
+            }
+
+            @Override
+            public int creationConcurrency() {
+                return creationConcurrency;
+            }
+
+            @Override
+            public ConnectionBudget connectionBudget() {
+                return connectionBudget;
+            }
+
+            @Override
+            public int connectionBudgetWeight() {
+                return connectionBudgetWeight;
+            }
+
             @Override
             public MultipleAcquisitionAction multipleAcquisition() {
                 return multipleAcquisitionAction;
@@ -491,6 +679,21 @@ public class AgroalConnectionPoolConfigurationSupplier implements Supplier<Agroa
             public Duration maxLifetime() {
                 return maxLifetime;
             }
+
+            @Override
+            public int maxLifetimeJitter() {
+                return maxLifetimeJitter;
+            }
+
+            @Override
+            public int maxLifetimeEvictions() {
+                return maxLifetimeEvictions;
+            }
+
+            @Override
+            public Duration adaptiveSizingInterval() {
+                return adaptiveSizingInterval;
+            }
         };
     }
 }
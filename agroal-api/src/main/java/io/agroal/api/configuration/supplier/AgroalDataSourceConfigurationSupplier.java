@@ -3,14 +3,23 @@
 
 package io.agroal.api.configuration.supplier;
 
+import io.agroal.api.cache.LocalConnectionCache;
+import io.agroal.api.cache.SharedConnectionCache;
 import io.agroal.api.configuration.AgroalConnectionPoolConfiguration;
 import io.agroal.api.configuration.AgroalDataSourceConfiguration;
 import io.agroal.api.configuration.AgroalDataSourceConfiguration.DataSourceImplementation;
 import io.agroal.api.configuration.AgroalDataSourceConfiguration.MetricsEnabledListener;
+import io.agroal.api.configuration.AgroalDataSourceConfiguration.ShardFunction;
+import io.agroal.api.transaction.TransactionIntegration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import static java.util.Collections.unmodifiableList;
+
 /**
  * Builder of AgroalDataSourceConfiguration.
  *
@@ -20,6 +29,12 @@ import java.util.function.Supplier;
 public class AgroalDataSourceConfigurationSupplier implements Supplier<AgroalDataSourceConfiguration> {
 
     AgroalConnectionPoolConfiguration connectionPoolConfiguration;
+    List<AgroalConnectionPoolConfiguration> replicaPoolConfigurations;
+    boolean lazyRouting;
+    List<AgroalConnectionPoolConfiguration> shardPoolConfigurations;
+    ShardFunction shardFunction = ShardFunction.hash();
+    int credentialPoolsMaxSize;
+    Duration credentialPoolsIdleTimeout = Duration.ofMinutes( 5 );
 
     DataSourceImplementation dataSourceImplementation = DataSourceImplementation.AGROAL;
     volatile boolean metrics;
@@ -28,6 +43,8 @@ public class AgroalDataSourceConfigurationSupplier implements Supplier<AgroalDat
     private volatile boolean lock;
 
     private AgroalConnectionPoolConfigurationSupplier connectionPoolConfigurationSupplier = new AgroalConnectionPoolConfigurationSupplier();
+    private final List<Function<? super AgroalConnectionPoolConfigurationSupplier, ? extends AgroalConnectionPoolConfigurationSupplier>> replicaPoolConfigurationFunctions = new ArrayList<>();
+    private final List<Function<? super AgroalConnectionPoolConfigurationSupplier, ? extends AgroalConnectionPoolConfigurationSupplier>> shardPoolConfigurationFunctions = new ArrayList<>();
 
     public AgroalDataSourceConfigurationSupplier() {
         lock = false;
@@ -69,6 +86,76 @@ public class AgroalDataSourceConfigurationSupplier implements Supplier<AgroalDat
         return connectionPoolConfigurationSupplier;
     }
 
+    /**
+     * Adds a read replica, with the configuration of its connection pool. Replicas are only used by the AGROAL_ROUTING implementation.
+     */
+    public AgroalDataSourceConfigurationSupplier replicaPoolConfiguration(AgroalConnectionPoolConfiguration configuration) {
+        return replicaPoolConfiguration( primary -> new AgroalConnectionPoolConfigurationSupplier( configuration ) );
+    }
+
+    /**
+     * Adds a read replica, with the configuration of its connection pool modified from a copy of the one of the primary. Replicas are only used by the AGROAL_ROUTING implementation.
+     * Connection caches are not shared between pools, so the copy has the default ones.
+     */
+    public AgroalDataSourceConfigurationSupplier replicaPoolConfiguration(Function<? super AgroalConnectionPoolConfigurationSupplier, ? extends AgroalConnectionPoolConfigurationSupplier> function) {
+        checkLock();
+        replicaPoolConfigurationFunctions.add( function );
+        return this;
+    }
+
+    /**
+     * Enables or disables the routing of connections on first use, so that a connection set read-only before being used goes to a replica. The default is false, meaning that connections are acquired from the primary unless within a read-only scope.
+     */
+    public AgroalDataSourceConfigurationSupplier lazyRouting(boolean lazy) {
+        checkLock();
+        lazyRouting = lazy;
+        return this;
+    }
+
+    /**
+     * Adds a shard, with a connection pool that has the configuration of the one of this DataSource connecting to a different database URL. Shards are only used by the AGROAL_SHARDED implementation.
+     */
+    public AgroalDataSourceConfigurationSupplier shardJdbcUrl(String jdbcUrl) {
+        return shardPoolConfiguration( template -> template.connectionFactoryConfiguration( cf -> cf.jdbcUrl( jdbcUrl ) ) );
+    }
+
+    /**
+     * Adds a shard, with the configuration of its connection pool modified from a copy of the one of this DataSource. Shards are only used by the AGROAL_SHARDED implementation.
+     * Connection caches are not shared between pools, so the copy has the default ones.
+     */
+    public AgroalDataSourceConfigurationSupplier shardPoolConfiguration(Function<? super AgroalConnectionPoolConfigurationSupplier, ? extends AgroalConnectionPoolConfigurationSupplier> function) {
+        checkLock();
+        shardPoolConfigurationFunctions.add( function );
+        return this;
+    }
+
+    /**
+     * Sets the function that maps keys to shards. Default is to map keys by their hash code.
+     */
+    public AgroalDataSourceConfigurationSupplier shardFunction(ShardFunction function) {
+        checkLock();
+        shardFunction = function;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of connections in use across the pools for the credentials passed to getConnection(user, password). Must not be negative. Default is 0, meaning that connections with other credentials are not supported.
+     */
+    public AgroalDataSourceConfigurationSupplier credentialPoolsMaxSize(int maxSize) {
+        checkLock();
+        credentialPoolsMaxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * Sets the time after which the pool for some credentials is closed, when not in use. Default is 5 minutes.
+     */
+    public AgroalDataSourceConfigurationSupplier credentialPoolsIdleTimeout(Duration timeout) {
+        checkLock();
+        credentialPoolsIdleTimeout = timeout;
+        return this;
+    }
+
     // --- //
 
     /**
@@ -105,7 +192,54 @@ public class AgroalDataSourceConfigurationSupplier implements Supplier<AgroalDat
         if ( connectionPoolConfigurationSupplier == null ) {
             throw new IllegalArgumentException( "Connection pool configuration not defined" );
         }
+        if ( credentialPoolsMaxSize < 0 ) {
+            throw new IllegalArgumentException( "Credential pools max size must not be negative" );
+        }
+        if ( credentialPoolsIdleTimeout.isNegative() || credentialPoolsIdleTimeout.isZero() ) {
+            throw new IllegalArgumentException( "Credential pools idle timeout must be positive" );
+        }
+        if ( shardFunction == null ) {
+            throw new IllegalArgumentException( "Shard function not defined" );
+        }
+        if ( dataSourceImplementation == DataSourceImplementation.AGROAL_SHARDED && shardPoolConfigurationFunctions.isEmpty() ) {
+            throw new IllegalArgumentException( "Sharded data source requires at least one shard" );
+        }
         connectionPoolConfiguration = connectionPoolConfigurationSupplier.get();
+        // the transaction integration shares the connection enlisted in a transaction regardless of credentials
+        if ( credentialPoolsMaxSize > 0 && hasTransactionIntegration( connectionPoolConfiguration ) ) {
+            throw new IllegalArgumentException( "Connections with other credentials are not supported with a transaction integration" );
+        }
+        replicaPoolConfigurations = derivedPoolConfigurations( replicaPoolConfigurationFunctions, "Replica" );
+        shardPoolConfigurations = derivedPoolConfigurations( shardPoolConfigurationFunctions, "Shard" );
+        // the connection enlisted in a transaction would be shared by all the shards
+        if ( dataSourceImplementation == DataSourceImplementation.AGROAL_SHARDED && shardPoolConfigurations.stream().anyMatch( AgroalDataSourceConfigurationSupplier::hasTransactionIntegration ) ) {
+            throw new IllegalArgumentException( "Sharded data source is not supported with a transaction integration" );
+        }
+        // the connection enlisted in a transaction would be shared by the primary and the replicas
+        if ( dataSourceImplementation == DataSourceImplementation.AGROAL_ROUTING && !replicaPoolConfigurations.isEmpty()
+                && ( hasTransactionIntegration( connectionPoolConfiguration ) || replicaPoolConfigurations.stream().anyMatch( AgroalDataSourceConfigurationSupplier::hasTransactionIntegration ) ) ) {
+            throw new IllegalArgumentException( "Routing data source with replicas is not supported with a transaction integration" );
+        }
+    }
+
+    private static boolean hasTransactionIntegration(AgroalConnectionPoolConfiguration configuration) {
+        return configuration.transactionIntegration().getClass() != TransactionIntegration.none().getClass();
+    }
+
+    @SuppressWarnings( "StringConcatenation" )
+    private List<AgroalConnectionPoolConfiguration> derivedPoolConfigurations(List<Function<? super AgroalConnectionPoolConfigurationSupplier, ? extends AgroalConnectionPoolConfigurationSupplier>> functions, String kind) {
+        List<AgroalConnectionPoolConfiguration> configurations = new ArrayList<>( functions.size() );
+        for ( Function<? super AgroalConnectionPoolConfigurationSupplier, ? extends AgroalConnectionPoolConfigurationSupplier> function : functions ) {
+            AgroalConnectionPoolConfigurationSupplier copy = new AgroalConnectionPoolConfigurationSupplier( connectionPoolConfiguration )
+                    .connectionCache( LocalConnectionCache.single() )
+                    .virtualThreadConnectionCache( SharedConnectionCache.perProcessor() );
+            AgroalConnectionPoolConfigurationSupplier derived = function.apply( copy );
+            if ( derived == null ) {
+                throw new IllegalArgumentException( kind + " connection pool configuration not defined" );
+            }
+            configurations.add( derived.get() );
+        }
+        return unmodifiableList( configurations );
     }
 
     @Override
@@ -126,6 +260,36 @@ public class AgroalDataSourceConfigurationSupplier implements Supplier<AgroalDat
                 return dataSourceImplementation;
             }
 
+            @Override
+            public List<AgroalConnectionPoolConfiguration> replicaPoolConfigurations() {
+                return replicaPoolConfigurations;
+            }
+
+            @Override
+            public boolean lazyRouting() {
+                return lazyRouting;
+            }
+
+            @Override
+            public List<AgroalConnectionPoolConfiguration> shardPoolConfigurations() {
+                return shardPoolConfigurations;
+            }
+
+            @Override
+            public ShardFunction shardFunction() {
+                return shardFunction;
+            }
+
+            @Override
+            public int credentialPoolsMaxSize() {
+                return credentialPoolsMaxSize;
+            }
+
+            @Override
+            public Duration credentialPoolsIdleTimeout() {
+                return credentialPoolsIdleTimeout;
+            }
+
             @Override
             public boolean metricsEnabled() {
                 return metrics;
@@ -53,6 +53,10 @@ public class AgroalPropertiesReader implements Supplier<AgroalDataSourceConfigur
 
     public static final String IMPLEMENTATION = "implementation";
     public static final String METRICS_ENABLED = "metricsEnabled";
+    public static final String LAZY_ROUTING = "lazyRouting";
+    public static final String SHARD_JDBC_URLS = "shardJdbcUrls";
+    public static final String CREDENTIAL_POOLS_MAX_SIZE = "credentialPoolsMaxSize";
+    public static final String CREDENTIAL_POOLS_IDLE_TIMEOUT = "credentialPoolsIdleTimeout";
 
     // --- //
 
@@ -66,6 +70,10 @@ public class AgroalPropertiesReader implements Supplier<AgroalDataSourceConfigur
     public static final String MULTIPLE_ACQUISITION = "multipleAcquisition";
     public static final String TRANSACTION_REQUIREMENT = "transactionRequirement";
     public static final String VALIDATE_ON_BORROW = "validateOnBorrow";
+    public static final String DIRECT_HANDOFF = "directHandoff";
+    public static final String DEFERRED_RESET = "deferredReset";
+    public static final String STRIPE_COUNT = "stripeCount";
+    public static final String CREATION_CONCURRENCY = "creationConcurrency";
 
     public static final String ACQUISITION_TIMEOUT = "acquisitionTimeout";
     public static final String ACQUISITION_TIMEOUT_MS = "acquisitionTimeout_ms";
@@ -97,12 +105,30 @@ public class AgroalPropertiesReader implements Supplier<AgroalDataSourceConfigur
     public static final String MAX_LIFETIME_S = "maxLifetime_s";
     public static final String MAX_LIFETIME_M = "maxLifetime_m";
 
+    public static final String MAX_LIFETIME_JITTER = "maxLifetimeJitter";
+    public static final String MAX_LIFETIME_EVICTIONS = "maxLifetimeEvictions";
+
+    public static final String ADAPTIVE_SIZING_INTERVAL = "adaptiveSizingInterval";
+    public static final String ADAPTIVE_SIZING_INTERVAL_MS = "adaptiveSizingInterval_ms";
+    public static final String ADAPTIVE_SIZING_INTERVAL_S = "adaptiveSizingInterval_s";
+    public static final String ADAPTIVE_SIZING_INTERVAL_M = "adaptiveSizingInterval_m";
+
     // --- //
 
     public static final String JDBC_URL = "jdbcUrl";
+    public static final String FAILOVER_JDBC_URLS = "failoverJdbcUrls";
+    public static final String FAILOVER_BACKOFF = "failoverBackoff";
     public static final String AUTO_COMMIT = "autoCommit";
     public static final String READ_ONLY = "readOnly";
     public static final String TRACK_JDBC_RESOURCES = "trackJdbcResources";
+    public static final String CACHE_SESSION_STATE = "cacheSessionState";
+    public static final String PREPARED_STATEMENT_CACHE_SIZE = "preparedStatementCacheSize";
+    public static final String CALLABLE_STATEMENT_CACHE_SIZE = "callableStatementCacheSize";
+    public static final String CACHE_COLUMN_LABELS = "cacheColumnLabels";
+    public static final String MATERIALIZE_RESULTS = "materializeResults";
+    public static final String MATERIALIZE_RESULTS_MAX_ROWS = "materializeResultsMaxRows";
+    public static final String STATEMENT_METRICS_LIMIT = "statementMetricsLimit";
+    public static final String QUERY_TIMEOUT = "queryTimeout";
     public static final String LOGIN_TIMEOUT = "loginTimeout";
     public static final String INITIAL_SQL = "initialSQL";
     public static final String PROVIDER_CLASS_NAME = "providerClassName";
@@ -168,6 +194,10 @@ public class AgroalPropertiesReader implements Supplier<AgroalDataSourceConfigur
 
         apply( dataSourceSupplier::dataSourceImplementation, DataSourceImplementation::valueOf, properties, IMPLEMENTATION );
         apply( dataSourceSupplier::metricsEnabled, Boolean::parseBoolean, properties, METRICS_ENABLED );
+        apply( dataSourceSupplier::lazyRouting, Boolean::parseBoolean, properties, LAZY_ROUTING );
+        applyList( dataSourceSupplier::shardJdbcUrl, properties, SHARD_JDBC_URLS );
+        apply( dataSourceSupplier::credentialPoolsMaxSize, Integer::parseInt, properties, CREDENTIAL_POOLS_MAX_SIZE );
+        apply( dataSourceSupplier::credentialPoolsIdleTimeout, Duration::parse, properties, CREDENTIAL_POOLS_IDLE_TIMEOUT );
 
         apply( connectionPoolSupplier::minSize, Integer::parseInt, properties, MIN_SIZE );
         apply( connectionPoolSupplier::maxSize, Integer::parseInt, properties, MAX_SIZE );
@@ -179,6 +209,10 @@ public class AgroalPropertiesReader implements Supplier<AgroalDataSourceConfigur
         apply( connectionPoolSupplier::multipleAcquisition, MultipleAcquisitionAction::valueOf, properties, MULTIPLE_ACQUISITION );
         apply( connectionPoolSupplier::transactionRequirement, TransactionRequirement::valueOf, properties, TRANSACTION_REQUIREMENT );
         apply( connectionPoolSupplier::validateOnBorrow, Boolean::parseBoolean, properties, VALIDATE_ON_BORROW );
+        apply( connectionPoolSupplier::directHandoff, Boolean::parseBoolean, properties, DIRECT_HANDOFF );
+        apply( connectionPoolSupplier::deferredReset, Boolean::parseBoolean, properties, DEFERRED_RESET );
+        apply( connectionPoolSupplier::stripeCount, Integer::parseInt, properties, STRIPE_COUNT );
+        apply( connectionPoolSupplier::creationConcurrency, Integer::parseInt, properties, CREATION_CONCURRENCY );
 
         apply( connectionPoolSupplier::acquisitionTimeout, Duration::parse, properties, ACQUISITION_TIMEOUT );
         apply( connectionPoolSupplier::acquisitionTimeout, AgroalPropertiesReader::parseDurationMs, properties, ACQUISITION_TIMEOUT_MS );
@@ -209,11 +243,28 @@ public class AgroalPropertiesReader implements Supplier<AgroalDataSourceConfigur
         apply( connectionPoolSupplier::maxLifetime, AgroalPropertiesReader::parseDurationMs, properties, MAX_LIFETIME_MS );
         apply( connectionPoolSupplier::maxLifetime, AgroalPropertiesReader::parseDurationS, properties, MAX_LIFETIME_S );
         apply( connectionPoolSupplier::maxLifetime, AgroalPropertiesReader::parseDurationM, properties, MAX_LIFETIME_M );
+        apply( connectionPoolSupplier::maxLifetimeJitter, Integer::parseInt, properties, MAX_LIFETIME_JITTER );
+        apply( connectionPoolSupplier::maxLifetimeEvictions, Integer::parseInt, properties, MAX_LIFETIME_EVICTIONS );
+
+        apply( connectionPoolSupplier::adaptiveSizingInterval, Duration::parse, properties, ADAPTIVE_SIZING_INTERVAL );
+        apply( connectionPoolSupplier::adaptiveSizingInterval, AgroalPropertiesReader::parseDurationMs, properties, ADAPTIVE_SIZING_INTERVAL_MS );
+        apply( connectionPoolSupplier::adaptiveSizingInterval, AgroalPropertiesReader::parseDurationS, properties, ADAPTIVE_SIZING_INTERVAL_S );
+        apply( connectionPoolSupplier::adaptiveSizingInterval, AgroalPropertiesReader::parseDurationM, properties, ADAPTIVE_SIZING_INTERVAL_M );
 
         apply( connectionFactorySupplier::jdbcUrl, identity(), properties, JDBC_URL );
+        applyList( connectionFactorySupplier::addFailoverJdbcUrl, properties, FAILOVER_JDBC_URLS );
+        apply( connectionFactorySupplier::failoverBackoff, Duration::parse, properties, FAILOVER_BACKOFF );
         apply( connectionFactorySupplier::autoCommit, Boolean::parseBoolean, properties, AUTO_COMMIT );
         apply( connectionFactorySupplier::readOnly, Boolean::parseBoolean, properties, READ_ONLY );
         apply( connectionFactorySupplier::trackJdbcResources, Boolean::parseBoolean, properties, TRACK_JDBC_RESOURCES );
+        apply( connectionFactorySupplier::cacheSessionState, Boolean::parseBoolean, properties, CACHE_SESSION_STATE );
+        apply( connectionFactorySupplier::preparedStatementCacheSize, Integer::parseInt, properties, PREPARED_STATEMENT_CACHE_SIZE );
+        apply( connectionFactorySupplier::callableStatementCacheSize, Integer::parseInt, properties, CALLABLE_STATEMENT_CACHE_SIZE );
+        apply( connectionFactorySupplier::cacheColumnLabels, Boolean::parseBoolean, properties, CACHE_COLUMN_LABELS );
+        apply( connectionFactorySupplier::materializeResults, Boolean::parseBoolean, properties, MATERIALIZE_RESULTS );
+        apply( connectionFactorySupplier::materializeResultsMaxRows, Integer::parseInt, properties, MATERIALIZE_RESULTS_MAX_ROWS );
+        apply( connectionFactorySupplier::statementMetricsLimit, Integer::parseInt, properties, STATEMENT_METRICS_LIMIT );
+        apply( connectionFactorySupplier::queryTimeout, Duration::parse, properties, QUERY_TIMEOUT );
         apply( connectionFactorySupplier::loginTimeout, Duration::parse, properties, LOGIN_TIMEOUT );
         apply( connectionFactorySupplier::initialSql, identity(), properties, INITIAL_SQL );
         apply( connectionFactorySupplier::connectionProviderClassName, identity(), properties, PROVIDER_CLASS_NAME );
@@ -249,6 +300,17 @@ public class AgroalPropertiesReader implements Supplier<AgroalDataSourceConfigur
         }
     }
 
+    // URLs may contain ';' or ',' so the elements of the list are separated by whitespace
+    @SuppressWarnings( "StringConcatenation" )
+    private void applyList(Consumer<? super String> consumer, Map<String, String> properties, String key) {
+        String list = properties.get( prefix + key );
+        if ( list != null && !list.trim().isEmpty() ) {
+            for ( String element : list.trim().split( "\\s+" ) ) {
+                consumer.accept( element );
+            }
+        }
+    }
+
     // --- //
 
     /**
@@ -0,0 +1,205 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool;
+
+import io.agroal.api.AgroalDataSourceMetrics;
+
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+
+import static java.time.Duration.ZERO;
+import static java.time.Duration.ofNanos;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Metrics of several pools added together. Max values are the max of all pools, except for the max used count that is the sum of the ones of each pool.
+ * Statement metrics are not aggregated, as their percentiles can't be combined. These are available on the metrics of each pool.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+final class AggregateMetrics implements AgroalDataSourceMetrics {
+
+    private static final String FORMAT_1 = "Aggregate of {0} pools";
+    private static final String FORMAT_2 = "Connections: {0} created | {1} invalid | {2} reap | {3} flush | {4} destroyed";
+    private static final String FORMAT_3 = "Pool: {0} available | {1} active | {2} max | {3} acquired";
+    private static final String FORMAT_4 = "Created duration: {0,number,000.000}ms average | {1}ms max | {2}ms total";
+    private static final String FORMAT_5 = "Acquire duration: {0,number,000.000}ms average | {1}ms max | {2}ms total";
+    private static final String FORMAT_6 = "Threads awaiting: {0}";
+    private static final String FORMAT_7 = "Housekeeping: {0} runs | {1}ms cpu | {2} bytes allocated";
+    private static final String FORMAT_8 = "Statement cache: {0} hit | {1} miss | {2} evicted";
+
+    // the metrics of a pool are replaced when metrics are enabled or disabled, so they are obtained from the pool every time
+    private final Pool[] pools;
+
+    @SuppressWarnings( "WeakerAccess" )
+    AggregateMetrics(Pool[] pools) {
+        this.pools = pools;
+    }
+
+    private long sum(ToLongFunction<? super AgroalDataSourceMetrics> metric) {
+        long sum = 0;
+        for ( Pool pool : pools ) {
+            sum += metric.applyAsLong( pool.getMetrics() );
+        }
+        return sum;
+    }
+
+    private long max(ToLongFunction<? super AgroalDataSourceMetrics> metric) {
+        long max = 0;
+        for ( Pool pool : pools ) {
+            max = Math.max( max, metric.applyAsLong( pool.getMetrics() ) );
+        }
+        return max;
+    }
+
+    // --- //
+
+    @Override
+    public long creationCount() {
+        return sum( AgroalDataSourceMetrics::creationCount );
+    }
+
+    @Override
+    public Duration creationTimeAverage() {
+        long count = creationCount();
+        return count == 0 ? ZERO : creationTimeTotal().dividedBy( count );
+    }
+
+    @Override
+    public Duration creationTimeMax() {
+        return ofNanos( max( m -> m.creationTimeMax().toNanos() ) );
+    }
+
+    @Override
+    public Duration creationTimeTotal() {
+        return ofNanos( sum( m -> m.creationTimeTotal().toNanos() ) );
+    }
+
+    @Override
+    public long leakDetectionCount() {
+        return sum( AgroalDataSourceMetrics::leakDetectionCount );
+    }
+
+    @Override
+    public long invalidCount() {
+        return sum( AgroalDataSourceMetrics::invalidCount );
+    }
+
+    @Override
+    public long flushCount() {
+        return sum( AgroalDataSourceMetrics::flushCount );
+    }
+
+    @Override
+    public long reapCount() {
+        return sum( AgroalDataSourceMetrics::reapCount );
+    }
+
+    @Override
+    public long destroyCount() {
+        return sum( AgroalDataSourceMetrics::destroyCount );
+    }
+
+    @Override
+    public long activeCount() {
+        return sum( AgroalDataSourceMetrics::activeCount );
+    }
+
+    @Override
+    public long maxUsedCount() {
+        return sum( AgroalDataSourceMetrics::maxUsedCount );
+    }
+
+    @Override
+    public long availableCount() {
+        return sum( AgroalDataSourceMetrics::availableCount );
+    }
+
+    @Override
+    public long acquireCount() {
+        return sum( AgroalDataSourceMetrics::acquireCount );
+    }
+
+    @Override
+    public Duration blockingTimeAverage() {
+        long count = acquireCount();
+        return count == 0 ? ZERO : blockingTimeTotal().dividedBy( count );
+    }
+
+    @Override
+    public Duration blockingTimeMax() {
+        return ofNanos( max( m -> m.blockingTimeMax().toNanos() ) );
+    }
+
+    @Override
+    public Duration blockingTimeTotal() {
+        return ofNanos( sum( m -> m.blockingTimeTotal().toNanos() ) );
+    }
+
+    @Override
+    public long awaitingCount() {
+        return sum( AgroalDataSourceMetrics::awaitingCount );
+    }
+
+    @Override
+    public long housekeepingCount() {
+        return sum( AgroalDataSourceMetrics::housekeepingCount );
+    }
+
+    @Override
+    public Duration housekeepingCpuTime() {
+        return ofNanos( sum( m -> m.housekeepingCpuTime().toNanos() ) );
+    }
+
+    @Override
+    public long housekeepingAllocatedBytes() {
+        return sum( AgroalDataSourceMetrics::housekeepingAllocatedBytes );
+    }
+
+    @Override
+    public long statementCacheHitCount() {
+        return sum( AgroalDataSourceMetrics::statementCacheHitCount );
+    }
+
+    @Override
+    public long statementCacheMissCount() {
+        return sum( AgroalDataSourceMetrics::statementCacheMissCount );
+    }
+
+    @Override
+    public long statementCacheEvictionCount() {
+        return sum( AgroalDataSourceMetrics::statementCacheEvictionCount );
+    }
+
+    @Override
+    public void reset() {
+        for ( Pool pool : pools ) {
+            pool.getMetrics().reset();
+        }
+    }
+
+    // --- //
+
+    @Override
+    public String toString() {
+        double avgCreationMs = (double) creationTimeAverage().toNanos() / MILLISECONDS.toNanos( 1 );
+        double avgBlockingMs = (double) blockingTimeAverage().toNanos() / MILLISECONDS.toNanos( 1 );
+
+        String nl = System.lineSeparator();
+
+        StringBuffer buffer = new StringBuffer( 500 );
+        buffer.append( nl ).append( "===" ).append( nl );
+        new MessageFormat( FORMAT_1, Locale.ROOT ).format( new Object[]{pools.length}, buffer, null ).append( nl );
+        new MessageFormat( FORMAT_2, Locale.ROOT ).format( new Object[]{creationCount(), invalidCount(), reapCount(), flushCount(), destroyCount()}, buffer, null ).append( nl );
+        new MessageFormat( FORMAT_3, Locale.ROOT ).format( new Object[]{availableCount(), activeCount(), maxUsedCount(), acquireCount()}, buffer, null ).append( nl );
+        new MessageFormat( FORMAT_4, Locale.ROOT ).format( new Object[]{avgCreationMs, creationTimeMax().toMillis(), creationTimeTotal().toMillis()}, buffer, null ).append( nl );
+        new MessageFormat( FORMAT_5, Locale.ROOT ).format( new Object[]{avgBlockingMs, blockingTimeMax().toMillis(), blockingTimeTotal().toMillis()}, buffer, null ).append( nl );
+        new MessageFormat( FORMAT_6, Locale.ROOT ).format( new Object[]{awaitingCount()}, buffer, null ).append( nl );
+        new MessageFormat( FORMAT_7, Locale.ROOT ).format( new Object[]{housekeepingCount(), housekeepingCpuTime().toMillis(), housekeepingAllocatedBytes()}, buffer, null ).append( nl );
+        new MessageFormat( FORMAT_8, Locale.ROOT ).format( new Object[]{statementCacheHitCount(), statementCacheMissCount(), statementCacheEvictionCount()}, buffer, null ).append( nl );
+        return buffer.append( "===" ).toString();
+    }
+}
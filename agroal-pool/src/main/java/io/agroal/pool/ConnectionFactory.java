@@ -18,12 +18,16 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 
 import static io.agroal.api.configuration.AgroalConnectionFactoryConfiguration.TransactionIsolation.UNDEFINED;
 import static io.agroal.pool.util.ListenerHelper.fireOnWarning;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
@@ -34,17 +38,26 @@ public final class ConnectionFactory implements ResourceRecoveryFactory {
 
     private static final Properties EMPTY_PROPERTIES = new Properties();
 
+    // the backoff of a failing host doubles up to 2^MAX_BACKOFF_SHIFT times
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    // weight of a new sample in the moving averages of the health of a host is 1 / 2^HEALTH_SHIFT
+    private static final int HEALTH_SHIFT = 3;
+
+    // error rate is a fixed point value, where ERROR_RATE_ONE (2^16) is a rate of 100%
+    private static final int ERROR_RATE_ONE = 1 << 16;
+
     private final AgroalConnectionFactoryConfiguration configuration;
     private final AgroalDataSourceListener[] listeners;
     private final Properties jdbcProperties = new Properties(); // backup of jdbcProperties for DRIVER mode
     private final Mode factoryMode;
 
-    // these are the sources for connections, that will be used depending on the mode
+    // these are the sources for connections, that will be used depending on the mode. there is one data source for each endpoint.
     private java.sql.Driver driver;
-    private javax.sql.DataSource dataSource;
-    private javax.sql.XADataSource xaDataSource;
     private javax.sql.XADataSource xaRecoveryDataSource;
 
+    private final Endpoint[] endpoints;
+
     private PropertyInjector injector;
     private Integer defaultIsolationLevel;
 
@@ -52,21 +65,33 @@ public final class ConnectionFactory implements ResourceRecoveryFactory {
         this.configuration = configuration;
         this.listeners = listeners;
 
+        List<String> urls = new ArrayList<>( 1 + configuration.failoverJdbcUrls().size() );
+        urls.add( configuration.jdbcUrl() );
+        urls.addAll( configuration.failoverJdbcUrls() );
+        endpoints = new Endpoint[urls.size()];
+
         factoryMode = Mode.fromClass( configuration.connectionProviderClass() );
         switch ( factoryMode ) {
             case XA_DATASOURCE:
                 injector = new PropertyInjector( configuration.connectionProviderClass() );
                 Properties xaProperties = configuration.xaProperties().isEmpty() ? configuration.jdbcProperties() : configuration.xaProperties();
-                xaDataSource = newXADataSource( xaProperties );
-                xaRecoveryDataSource = newXADataSource( xaProperties );
+                for ( int i = 0; i < endpoints.length; i++ ) {
+                    endpoints[i] = new Endpoint( urls.get( i ), null, newXADataSource( urls.get( i ), xaProperties ) );
+                }
+                xaRecoveryDataSource = newXADataSource( configuration.jdbcUrl(), xaProperties );
                 break;
             case DATASOURCE:
                 injector = new PropertyInjector( configuration.connectionProviderClass() );
-                dataSource = newDataSource( configuration.jdbcProperties() );
+                for ( int i = 0; i < endpoints.length; i++ ) {
+                    endpoints[i] = new Endpoint( urls.get( i ), newDataSource( urls.get( i ), configuration.jdbcProperties() ), null );
+                }
                 break;
             case DRIVER:
                 driver = newDriver();
                 jdbcProperties.putAll( configuration.jdbcProperties() );
+                for ( int i = 0; i < endpoints.length; i++ ) {
+                    endpoints[i] = new Endpoint( urls.get( i ), null, null );
+                }
                 break;
         }
     }
@@ -76,7 +101,7 @@ public final class ConnectionFactory implements ResourceRecoveryFactory {
     }
 
     @SuppressWarnings( "StringConcatenation" )
-    private javax.sql.XADataSource newXADataSource(Properties properties) {
+    private javax.sql.XADataSource newXADataSource(String url, Properties properties) {
         javax.sql.XADataSource newDataSource;
         try {
             newDataSource = configuration.connectionProviderClass().asSubclass( javax.sql.XADataSource.class ).getDeclaredConstructor().newInstance();
@@ -84,8 +109,8 @@ public final class ConnectionFactory implements ResourceRecoveryFactory {
             throw new RuntimeException( "Unable to instantiate javax.sql.XADataSource", e );
         }
 
-        if ( configuration.jdbcUrl() != null && !configuration.jdbcUrl().isEmpty() ) {
-            injectUrlProperty( newDataSource, URL_PROPERTY_NAME, configuration.jdbcUrl() );
+        if ( url != null && !url.isEmpty() ) {
+            injectUrlProperty( newDataSource, URL_PROPERTY_NAME, url );
         }
         try {
             newDataSource.setLoginTimeout( (int) configuration.loginTimeout().getSeconds() );
@@ -98,7 +123,7 @@ public final class ConnectionFactory implements ResourceRecoveryFactory {
     }
 
     @SuppressWarnings( "StringConcatenation" )
-    private javax.sql.DataSource newDataSource(Properties properties) {
+    private javax.sql.DataSource newDataSource(String url, Properties properties) {
         javax.sql.DataSource newDataSource;
         try {
             newDataSource = configuration.connectionProviderClass().asSubclass( javax.sql.DataSource.class ).getDeclaredConstructor().newInstance();
@@ -106,8 +131,8 @@ public final class ConnectionFactory implements ResourceRecoveryFactory {
             throw new RuntimeException( "Unable to instantiate javax.sql.DataSource", e );
         }
 
-        if ( configuration.jdbcUrl() != null && !configuration.jdbcUrl().isEmpty() ) {
-            injectUrlProperty( newDataSource, URL_PROPERTY_NAME, configuration.jdbcUrl() );
+        if ( url != null && !url.isEmpty() ) {
+            injectUrlProperty( newDataSource, URL_PROPERTY_NAME, url );
         }
         try {
             newDataSource.setLoginTimeout( (int) configuration.loginTimeout().getSeconds() );
@@ -219,26 +244,76 @@ public final class ConnectionFactory implements ResourceRecoveryFactory {
 
     // --- //
 
-    public XAConnection createConnection() throws SQLException {
+    /**
+     * Creates a connection on the healthiest endpoint. If that fails, the other endpoints that are not quarantined are attempted in turn.
+     */
+    public ConnectionHandler createConnection(Pool pool) throws SQLException {
+        Endpoint endpoint = selectEndpoint();
+        for ( int attempt = 1; ; attempt++ ) {
+            try {
+                return new ConnectionHandler( createConnection( endpoint ), endpoint, pool );
+            } catch ( SQLException e ) {
+                Endpoint failover = attempt < endpoints.length ? selectEndpoint() : null;
+                if ( failover == null || failover == endpoint || failover.isQuarantined( nanoTime() ) ) {
+                    throw e;
+                }
+                endpoint = failover;
+            }
+        }
+    }
+
+    // the outcome is accounted for in the health of the endpoint
+    private XAConnection createConnection(Endpoint endpoint) throws SQLException {
+        long start = nanoTime();
+        try {
+            XAConnection xaConnection = createConnection( endpoint.url, endpoint.dataSource, endpoint.xaDataSource );
+            endpoint.onConnect( nanoTime() - start );
+            return xaConnection;
+        } catch ( SQLException | RuntimeException e ) {
+            endpoint.onFailure();
+            throw e;
+        }
+    }
+
+    private XAConnection createConnection(String url, javax.sql.DataSource dataSource, javax.sql.XADataSource xaDataSource) throws SQLException {
         switch ( factoryMode ) {
             case DRIVER:
-                return new XAConnectionAdaptor( connectionSetup( driver.connect( configuration.jdbcUrl(), jdbcProperties() ) ) );
+                return new XAConnectionAdaptor( connectionSetup( driver.connect( url, jdbcProperties() ), url ) );
             case DATASOURCE:
                 injectJdbcProperties( dataSource, securityProperties( configuration.principal(), configuration.credentials() ) );
-                return new XAConnectionAdaptor( connectionSetup( dataSource.getConnection() ) );
+                return new XAConnectionAdaptor( connectionSetup( dataSource.getConnection(), url ) );
             case XA_DATASOURCE:
                 injectJdbcProperties( xaDataSource, securityProperties( configuration.principal(), configuration.credentials() ) );
-                return xaConnectionSetup( xaDataSource.getXAConnection() );
+                return xaConnectionSetup( xaDataSource.getXAConnection(), url );
             default:
                 throw new SQLException( "Unknown connection factory mode" );
         }
     }
 
+    // the endpoint with the best health that is not quarantined or, if all are, the one that leaves quarantine first
+    private Endpoint selectEndpoint() {
+        if ( endpoints.length == 1 ) {
+            return endpoints[0];
+        }
+        long now = nanoTime();
+        Endpoint selected = null, earliest = null;
+        for ( Endpoint endpoint : endpoints ) {
+            if ( endpoint.isQuarantined( now ) ) {
+                if ( earliest == null || endpoint.quarantineEnd - earliest.quarantineEnd < 0 ) {
+                    earliest = endpoint;
+                }
+            } else if ( selected == null || endpoint.score() < selected.score() ) {
+                selected = endpoint;
+            }
+        }
+        return selected == null ? earliest : selected;
+    }
+
     @SuppressWarnings( "MagicConstant" )
-    private Connection connectionSetup(Connection connection) throws SQLException {
+    private Connection connectionSetup(Connection connection, String url) throws SQLException {
         if ( connection == null ) {
             // AG-90: Driver can return null if the URL is not supported (see java.sql.Driver#connect() documentation)
-            throw new SQLException( "Driver does not support the provided URL: " + configuration.jdbcUrl() );
+            throw new SQLException( "Driver does not support the provided URL: " + url );
         }
 
         connection.setAutoCommit( configuration.autoCommit() );
@@ -258,14 +333,14 @@ public final class ConnectionFactory implements ResourceRecoveryFactory {
         return connection;
     }
 
-    private XAConnection xaConnectionSetup(XAConnection xaConnection) throws SQLException {
+    private XAConnection xaConnectionSetup(XAConnection xaConnection, String url) throws SQLException {
         if ( xaConnection.getXAResource() == null ) {
             // Make sure that XAConnections are not processed as non-XA connections by the pool
             xaConnection.close();
             throw new SQLException( "null XAResource from XADataSource" );
         }
         try ( Connection connection = xaConnection.getConnection() ) {
-            connectionSetup( connection );
+            connectionSetup( connection, url );
         }
         return xaConnection;
     }
@@ -297,6 +372,71 @@ public final class ConnectionFactory implements ResourceRecoveryFactory {
 
     // --- //
 
+    /**
+     * A database host where connections are created, with its health. Connect time and error rate are moving averages, updated without synchronization as lost updates are inconsequential.
+     */
+    public final class Endpoint {
+
+        private final String url;
+        private final javax.sql.DataSource dataSource;
+        private final javax.sql.XADataSource xaDataSource;
+
+        private volatile long connectTime;
+        private volatile long errorRate;
+        private volatile int failures;
+        private volatile long quarantineEnd;
+
+        @SuppressWarnings( "WeakerAccess" )
+        Endpoint(String url, javax.sql.DataSource dataSource, javax.sql.XADataSource xaDataSource) {
+            this.url = url;
+            this.dataSource = dataSource;
+            this.xaDataSource = xaDataSource;
+        }
+
+        boolean isQuarantined(long now) {
+            return failures > 0 && now - quarantineEnd < 0;
+        }
+
+        // the connect time, penalized up to 5 times for a host that always fails
+        long score() {
+            long time = connectTime;
+            return time + ( time * errorRate >> 14 );
+        }
+
+        void onConnect(long nanos) {
+            long time = connectTime;
+            connectTime = time + ( ( nanos - time ) >> HEALTH_SHIFT );
+            long rate = errorRate;
+            errorRate = rate - ( rate >> HEALTH_SHIFT );
+            failures = 0;
+        }
+
+        // quarantines the host, unless it's quarantined already
+        @SuppressWarnings( "StringConcatenation" )
+        void onFailure() {
+            long rate = errorRate;
+            errorRate = rate + ( ( ERROR_RATE_ONE - rate ) >> HEALTH_SHIFT );
+            if ( endpoints.length == 1 ) {
+                return;
+            }
+            long now = nanoTime();
+            if ( !isQuarantined( now ) ) {
+                int count = failures + 1;
+                long backoff = configuration.failoverBackoff().toNanos() << Math.min( count - 1, MAX_BACKOFF_SHIFT );
+                failures = count;
+                quarantineEnd = now + backoff;
+                fireOnWarning( listeners, "Avoiding host " + url + " for " + NANOSECONDS.toMillis( backoff ) + "ms after " + count + " consecutive failure(s)" );
+            }
+        }
+
+        @Override
+        public String toString() {
+            return url;
+        }
+    }
+
+    // --- //
+
     private enum Mode {
 
         DRIVER, DATASOURCE, XA_DATASOURCE;
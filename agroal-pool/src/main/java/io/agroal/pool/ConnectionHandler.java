@@ -8,23 +8,34 @@ import io.agroal.api.configuration.AgroalConnectionFactoryConfiguration;
 import io.agroal.api.configuration.AgroalConnectionPoolConfiguration;
 import io.agroal.api.transaction.TransactionAware;
 import io.agroal.pool.util.AutoCloseableElement;
+import io.agroal.pool.util.AvailabilityIndex;
+import io.agroal.pool.util.StatementCache;
+import io.agroal.pool.util.StatementMetricsRegistry;
+import io.agroal.pool.util.TimingWheel;
 import io.agroal.pool.util.UncheckedArrayList;
 import io.agroal.pool.wrapper.ConnectionWrapper;
 import io.agroal.pool.wrapper.XAConnectionWrapper;
 
 import javax.sql.XAConnection;
 import javax.transaction.xa.XAResource;
+import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
+import java.sql.Statement;
 import java.time.Duration;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static io.agroal.pool.ConnectionHandler.DirtyAttribute.AUTOCOMMIT;
+import static io.agroal.pool.ConnectionHandler.DirtyAttribute.CATALOG;
 import static io.agroal.pool.ConnectionHandler.DirtyAttribute.READ_ONLY;
+import static io.agroal.pool.ConnectionHandler.DirtyAttribute.SCHEMA;
 import static io.agroal.pool.ConnectionHandler.DirtyAttribute.TRANSACTION_ISOLATION;
 import static io.agroal.pool.util.ListenerHelper.fireOnWarning;
 import static java.lang.System.nanoTime;
@@ -40,6 +51,8 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
 
     private static final AtomicReferenceFieldUpdater<ConnectionHandler, State> stateUpdater = newUpdater( ConnectionHandler.class, State.class, "state" );
 
+    private static final AtomicIntegerFieldUpdater<ConnectionHandler> generationUpdater = AtomicIntegerFieldUpdater.newUpdater( ConnectionHandler.class, "generation" );
+
     private static final TransactionAware.SQLCallable<Boolean> NO_ACTIVE_TRANSACTION = () -> false;
 
     // --- //
@@ -57,13 +70,44 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
     // attributes that need to be reset when the connection is returned
     private final Set<DirtyAttribute> dirtyAttributes = noneOf( DirtyAttribute.class );
 
+    // attributes dirty when the connection was returned, still to be reset
+    private final Set<DirtyAttribute> deferredAttributes = noneOf( DirtyAttribute.class );
+    private boolean resetDeferred;
+
     // collection of wrappers created while enlisted in the current transaction
     private final AutoCloseableElement enlistedOpenWrappers = AutoCloseableElement.newHead();
 
+    // collection of statements of the wrapper of the current borrow, reused from one borrow to the next. null if resources are not tracked
+    private final AutoCloseableElement borrowedStatements;
+
+    // prepared statements kept open for reuse. null if the cache is disabled
+    private final StatementCache<PreparedStatement> preparedStatementCache;
+    private final StatementCache<CallableStatement> callableStatementCache;
+
+    // statements are always wrapped when executions are recorded
+    private final boolean statementMetrics;
+
+    // time, in nanoseconds, a statement may execute before it's cancelled. zero if statements are not cancelled
+    private final long queryTimeout;
+
+    // prepared statements are always wrapped when the column index of their results is cached
+    private final boolean columnLabelCache;
+
+    // statements are always wrapped when the results of queries are read in full on execution
+    private final boolean materializeResults;
+    private final int materializeResultsMaxRows;
+
     // Can use annotation to get (in theory) a little better performance
     // @Contended
     private volatile State state = State.NEW;
 
+    // incremented when the wrapper of a borrow is closed, so that a wrapper from a previous borrow can't affect the current one
+    private volatile int generation;
+
+    // index of available connections of the pool, kept up to date on every transition in and out of CHECKED_IN
+    private AvailabilityIndex<ConnectionHandler> availabilityIndex;
+    private int availabilitySlot;
+
     // for leak detection (only valid for CHECKED_OUT connections)
     private Thread holdingThread;
 
@@ -79,20 +123,46 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
     // flag to indicate that this the connection is enlisted to a transaction
     private boolean enlisted;
 
+    // shadow copy of the session state, if enabled. null values are not known and have to be read from the driver
+    private final boolean cacheSessionState;
+    private Boolean autoCommitState;
+    private Integer isolationState;
+    private Boolean readOnlyState;
+    private String schemaState;
+    private String catalogState;
+    private boolean schemaKnown;
+    private boolean catalogKnown;
+
     // reference to the task that flushes this connection when it gets over it's maxLifetime
-    private Future<?> maxLifetimeTask;
+    private TimingWheel.Timeout maxLifetimeTask;
 
     // Callback set by the transaction integration layer to prevent deferred enlistment
     // If the connection is not associated with a transaction and an operation occurs within the bounds of a transaction, an SQLException is thrown
     // If there is no transaction integration this should just return false
     private TransactionAware.SQLCallable<Boolean> transactionActiveCheck = NO_ACTIVE_TRANSACTION;
 
-    public ConnectionHandler(XAConnection xa, Pool pool) throws SQLException {
+    // the host the connection was created on, that is notified of fatal errors
+    private final ConnectionFactory.Endpoint endpoint;
+
+    public ConnectionHandler(XAConnection xa, ConnectionFactory.Endpoint host, Pool pool) throws SQLException {
         xaConnection = xa;
+        endpoint = host;
         connection = xaConnection.getConnection();
         xaResource = xaConnection.getXAResource();
 
         connectionPool = pool;
+        AgroalConnectionFactoryConfiguration connectionFactoryConfiguration = pool.getConfiguration().connectionFactoryConfiguration();
+        borrowedStatements = connectionFactoryConfiguration.trackJdbcResources() ? AutoCloseableElement.newHead() : null;
+        cacheSessionState = connectionFactoryConfiguration.cacheSessionState();
+        int preparedCacheSize = connectionFactoryConfiguration.preparedStatementCacheSize();
+        int callableCacheSize = connectionFactoryConfiguration.callableStatementCacheSize();
+        preparedStatementCache = preparedCacheSize > 0 ? new StatementCache<>( preparedCacheSize, pool::getMetrics ) : null;
+        callableStatementCache = callableCacheSize > 0 ? new StatementCache<>( callableCacheSize, pool::getMetrics ) : null;
+        statementMetrics = connectionFactoryConfiguration.statementMetricsLimit() > 0;
+        queryTimeout = connectionFactoryConfiguration.queryTimeout().toNanos();
+        columnLabelCache = connectionFactoryConfiguration.cacheColumnLabels();
+        materializeResults = connectionFactoryConfiguration.materializeResults();
+        materializeResultsMaxRows = connectionFactoryConfiguration.materializeResultsMaxRows();
         touch();
     }
 
@@ -101,7 +171,11 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
     }
 
     public ConnectionWrapper connectionWrapper() {
-        return new ConnectionWrapper( this, connectionPool.getConfiguration().connectionFactoryConfiguration().trackJdbcResources(), enlisted ? enlistedOpenWrappers : null );
+        if ( enlisted ) {
+            // there may be more than one wrapper open in the transaction, each with it's own statements
+            return new ConnectionWrapper( this, connectionPool.getConfiguration().connectionFactoryConfiguration().trackJdbcResources(), enlistedOpenWrappers );
+        }
+        return new ConnectionWrapper( this, borrowedStatements, generationUpdater.get( this ) );
     }
 
     public ConnectionWrapper detachedWrapper() {
@@ -118,6 +192,17 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
         }
     }
 
+    /**
+     * Ends the borrow of the wrapper with the given generation. Returns false if it ended already.
+     */
+    public boolean endGeneration(int wrapperGeneration) {
+        return generationUpdater.compareAndSet( this, wrapperGeneration, wrapperGeneration + 1 );
+    }
+
+    public boolean isCurrentGeneration(int wrapperGeneration) {
+        return generationUpdater.get( this ) == wrapperGeneration;
+    }
+
     public Connection rawConnection() {
         return connection;
     }
@@ -126,40 +211,154 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
         return xaResource;
     }
 
-    @SuppressWarnings( "MagicConstant" )
+    public StatementCache<PreparedStatement> getPreparedStatementCache() {
+        return preparedStatementCache;
+    }
+
+    public StatementCache<CallableStatement> getCallableStatementCache() {
+        return callableStatementCache;
+    }
+
+    public boolean isStatementMetricsEnabled() {
+        return statementMetrics;
+    }
+
+    /**
+     * Where the executions of a SQL statement on this connection are recorded. null if statement metrics are disabled.
+     */
+    public StatementMetricsRegistry.Recorder statementRecorder(String sql) {
+        return statementMetrics ? connectionPool.getMetrics().statementRecorder( sql ) : null;
+    }
+
+    public boolean isColumnLabelCacheEnabled() {
+        return columnLabelCache;
+    }
+
+    public boolean isMaterializeResultsEnabled() {
+        return materializeResults;
+    }
+
+    public int materializeResultsMaxRows() {
+        return materializeResultsMaxRows;
+    }
+
+    public boolean isQueryTimeoutEnabled() {
+        return queryTimeout > 0;
+    }
+
+    /**
+     * Schedules the cancellation of a statement about to execute. null if the pool does not enforce a query timeout.
+     */
+    public TimingWheel.Timeout scheduleQueryTimeout(Runnable cancellation) {
+        return queryTimeout > 0 ? connectionPool.scheduleQueryTimeout( cancellation, queryTimeout ) : null;
+    }
+
+    /**
+     * Cancels a statement that exceeded the query timeout. The execution fails with an exception that may flush the connection, depending on the exception sorter.
+     */
+    public void cancelStatement(Statement statement) {
+        try {
+            fireOnWarning( connectionPool.getListeners(), "Cancelling statement after exceeding the query timeout" );
+            statement.cancel();
+        } catch ( SQLException se ) {
+            setFlushOnly( se );
+            fireOnWarning( connectionPool.getListeners(), se );
+        }
+    }
+
     public void resetConnection() throws SQLException {
         transactionActiveCheck = NO_ACTIVE_TRANSACTION;
+        resetAttributes( dirtyAttributes );
+        resetWarnings();
+    }
+
+    /**
+     * Defers the reset of the connection to the first operation of the next borrower, or to housekeeping while the connection is idle. See {@link #applyDeferredReset()}.
+     * Autocommit is reset right away, as an open transaction must not outlive the borrow.
+     */
+    public void deferReset() throws SQLException {
+        transactionActiveCheck = NO_ACTIVE_TRANSACTION;
+        if ( dirtyAttributes.remove( AUTOCOMMIT ) ) {
+            resetAttributes( EnumSet.of( AUTOCOMMIT ) );
+        }
+        deferredAttributes.addAll( dirtyAttributes );
+        dirtyAttributes.clear();
+        resetDeferred = true;
+    }
+
+    public boolean isResetDeferred() {
+        return resetDeferred;
+    }
+
+    /**
+     * Applies a deferred reset. The caller must own the connection, either as the current borrower or in VALIDATION on housekeeping.
+     */
+    public void applyDeferredReset() throws SQLException {
+        if ( resetDeferred ) {
+            resetDeferred = false;
+            resetAttributes( deferredAttributes );
+            resetWarnings();
+        }
+    }
 
-        if ( !dirtyAttributes.isEmpty() ) {
+    /**
+     * The borrower sets the attribute before the deferred reset is applied, so there is no need to reset it first. It is still reset when the connection is returned.
+     * With the session state cached, setting the same value as the previous borrower does not need a round trip.
+     */
+    public void overrideDeferredReset(DirtyAttribute attribute) {
+        if ( resetDeferred && deferredAttributes.remove( attribute ) ) {
+            dirtyAttributes.add( attribute );
+        }
+    }
+
+    @SuppressWarnings( "MagicConstant" )
+    private void resetAttributes(Set<DirtyAttribute> attributes) throws SQLException {
+        if ( !attributes.isEmpty() ) {
             AgroalConnectionFactoryConfiguration connectionFactoryConfiguration = connectionPool.getConfiguration().connectionFactoryConfiguration();
 
             try {
-                if ( dirtyAttributes.contains( AUTOCOMMIT ) ) {
-                    connection.setAutoCommit( connectionFactoryConfiguration.autoCommit() );
+                // with the session state cached, attributes are only set if their value differs from the default
+                if ( attributes.contains( AUTOCOMMIT ) ) {
+                    boolean autoCommit = connectionFactoryConfiguration.autoCommit();
+                    if ( autoCommitState == null || autoCommitState != autoCommit ) {
+                        connection.setAutoCommit( autoCommit );
+                        autoCommitState = cacheSessionState ? autoCommit : null;
+                    }
                 }
-                if ( dirtyAttributes.contains( TRANSACTION_ISOLATION ) ) {
+                if ( attributes.contains( TRANSACTION_ISOLATION ) ) {
                     AgroalConnectionFactoryConfiguration.IsolationLevel isolation = connectionFactoryConfiguration.jdbcTransactionIsolation();
-                    connection.setTransactionIsolation( isolation.isDefined() ? isolation.level() : connectionPool.defaultJdbcIsolationLevel() );
+                    int level = isolation.isDefined() ? isolation.level() : connectionPool.defaultJdbcIsolationLevel();
+                    if ( isolationState == null || isolationState != level ) {
+                        connection.setTransactionIsolation( level );
+                        isolationState = cacheSessionState ? level : null;
+                    }
                 }
-                if ( dirtyAttributes.contains( READ_ONLY ) ) {
-                    connection.setReadOnly( connectionFactoryConfiguration.readOnly() );
+                if ( attributes.contains( READ_ONLY ) ) {
+                    boolean readOnly = connectionFactoryConfiguration.readOnly();
+                    if ( readOnlyState == null || readOnlyState != readOnly ) {
+                        connection.setReadOnly( readOnly );
+                        readOnlyState = cacheSessionState ? readOnly : null;
+                    }
                 }
                 // other attributes do not have default values in connectionFactoryConfiguration
             } catch ( SQLException se ) {
+                clearSessionState();
                 setFlushOnly( se );
                 throw se;
             } finally {
-                dirtyAttributes.clear();
+                attributes.clear();
             }
         }
+    }
 
+    private void resetWarnings() throws SQLException {
         try {
             SQLWarning warning = connection.getWarnings();
             if ( warning != null ) {
                 AgroalConnectionPoolConfiguration.ExceptionSorter exceptionSorter = connectionPool.getConfiguration().exceptionSorter();
                 while ( warning != null ) {
                     if ( exceptionSorter != null && exceptionSorter.isFatal( warning ) ) {
-                        setState( State.FLUSH );
+                        setFatal();
                     }
                     warning = warning.getNextWarning();
                 }
@@ -172,23 +371,49 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
         }
     }
 
-    public void closeConnection() throws SQLException {
-        if ( maxLifetimeTask != null && !maxLifetimeTask.isDone() ) {
-            maxLifetimeTask.cancel( false );
+    /**
+     * Closes the connection and moves to DESTROYED. Returns false if it was destroyed before, in which case there is nothing to close.
+     */
+    public boolean closeConnection() throws SQLException {
+        // the single transition to DESTROYED, as a connection may be destroyed again, for instance when returned after the pool closed
+        State observedState = stateUpdater.getAndSet( this, State.DESTROYED );
+        if ( observedState == State.DESTROYED ) {
+            return false;
+        }
+        if ( maxLifetimeTask != null ) {
+            maxLifetimeTask.cancel();
         }
         maxLifetimeTask = null;
         try {
-            State observedState = stateUpdater.get( this );
             if ( observedState != State.FLUSH ) {
                 throw new SQLException( "Closing connection in incorrect state " + observedState );
             }
         } finally {
+            try {
+                if ( preparedStatementCache != null ) {
+                    preparedStatementCache.close();
+                }
+                if ( callableStatementCache != null ) {
+                    callableStatementCache.close();
+                }
+            } catch ( SQLException se ) {
+                fireOnWarning( connectionPool.getListeners(), se );
+            }
             try {
                 xaConnection.close();
             } finally {
-                stateUpdater.set( this, State.DESTROYED );
+                if ( availabilityIndex != null ) {
+                    availabilityIndex.unregister( availabilitySlot );
+                }
             }
         }
+        return true;
+    }
+
+    // must be called before the first transition to CHECKED_IN
+    public void setAvailabilityIndex(AvailabilityIndex<ConnectionHandler> index) {
+        availabilityIndex = index;
+        availabilitySlot = index.register( this );
     }
 
     public boolean acquire() {
@@ -213,15 +438,40 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
             case VALIDATION:
             case FLUSH:
             case DESTROYED:
-                return stateUpdater.compareAndSet( this, expected, newState );
+                if ( stateUpdater.compareAndSet( this, expected, newState ) ) {
+                    if ( availabilityIndex != null ) {
+                        updateAvailability( expected, newState );
+                    }
+                    return true;
+                }
+                return false;
             default:
                 throw new IllegalArgumentException( "Trying to set invalid state " + newState );
         }
     }
 
+    // there is no way out of DESTROYED
     public void setState(State newState) {
-        // Maybe could use lazySet here, but there doesn't seem to be any performance advantage
-        stateUpdater.set( this, newState );
+        for ( State previousState = stateUpdater.get( this ); previousState != State.DESTROYED; previousState = stateUpdater.get( this ) ) {
+            if ( stateUpdater.compareAndSet( this, previousState, newState ) ) {
+                if ( availabilityIndex != null ) {
+                    updateAvailability( previousState, newState );
+                }
+                return;
+            }
+        }
+    }
+
+    private void updateAvailability(State previousState, State newState) {
+        if ( newState == State.CHECKED_IN ) {
+            availabilityIndex.available( availabilitySlot );
+        } else if ( previousState == State.CHECKED_IN ) {
+            availabilityIndex.unavailable( availabilitySlot );
+            if ( stateUpdater.get( this ) == State.CHECKED_IN ) {
+                // a concurrent transition back to CHECKED_IN may have set the bit before it got cleared
+                availabilityIndex.available( availabilitySlot );
+            }
+        }
     }
 
     private boolean isActive() {
@@ -240,7 +490,7 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
         return nanoTime() - lastAccess > timeout.toNanos();
     }
 
-    public void setMaxLifetimeTask(Future<?> maxLifetimeTask) {
+    public void setMaxLifetimeTask(TimingWheel.Timeout maxLifetimeTask) {
         this.maxLifetimeTask = maxLifetimeTask;
     }
 
@@ -253,6 +503,122 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
         }
     }
 
+    // --- Session state //
+
+    // the driver may change auto-commit on it's own while the connection takes part in a XA transaction
+    private boolean isSessionStateCached() {
+        return cacheSessionState && !enlisted;
+    }
+
+    /**
+     * Forgets the shadow copy of the session state, for when it may have been changed without the pool knowing.
+     */
+    public void clearSessionState() {
+        autoCommitState = null;
+        isolationState = null;
+        readOnlyState = null;
+        schemaState = null;
+        catalogState = null;
+        schemaKnown = false;
+        catalogKnown = false;
+    }
+
+    public boolean getAutoCommit() throws SQLException {
+        if ( !isSessionStateCached() ) {
+            return connection.getAutoCommit();
+        }
+        if ( autoCommitState == null ) {
+            autoCommitState = connection.getAutoCommit();
+        }
+        return autoCommitState;
+    }
+
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        if ( getAutoCommit() != autoCommit ) {
+            setDirtyAttribute( AUTOCOMMIT );
+            connection.setAutoCommit( autoCommit );
+            autoCommitState = cacheSessionState ? autoCommit : null;
+        }
+    }
+
+    @SuppressWarnings( "MagicConstant" )
+    public int getTransactionIsolation() throws SQLException {
+        if ( !isSessionStateCached() ) {
+            return connection.getTransactionIsolation();
+        }
+        if ( isolationState == null ) {
+            isolationState = connection.getTransactionIsolation();
+        }
+        return isolationState;
+    }
+
+    @SuppressWarnings( "MagicConstant" )
+    public void setTransactionIsolation(int level) throws SQLException {
+        if ( !isSessionStateCached() || isolationState == null || isolationState != level ) {
+            setDirtyAttribute( TRANSACTION_ISOLATION );
+            connection.setTransactionIsolation( level );
+            isolationState = cacheSessionState ? level : null;
+        }
+    }
+
+    public boolean isReadOnly() throws SQLException {
+        if ( !isSessionStateCached() ) {
+            return connection.isReadOnly();
+        }
+        if ( readOnlyState == null ) {
+            readOnlyState = connection.isReadOnly();
+        }
+        return readOnlyState;
+    }
+
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        if ( !isSessionStateCached() || readOnlyState == null || readOnlyState != readOnly ) {
+            setDirtyAttribute( READ_ONLY );
+            connection.setReadOnly( readOnly );
+            readOnlyState = cacheSessionState ? readOnly : null;
+        }
+    }
+
+    public String getSchema() throws SQLException {
+        if ( !isSessionStateCached() ) {
+            return connection.getSchema();
+        }
+        if ( !schemaKnown ) {
+            schemaState = connection.getSchema();
+            schemaKnown = true;
+        }
+        return schemaState;
+    }
+
+    public void setSchema(String schema) throws SQLException {
+        if ( !isSessionStateCached() || !schemaKnown || !Objects.equals( schemaState, schema ) ) {
+            setDirtyAttribute( SCHEMA );
+            connection.setSchema( schema );
+            schemaState = schema;
+            schemaKnown = cacheSessionState;
+        }
+    }
+
+    public String getCatalog() throws SQLException {
+        if ( !isSessionStateCached() ) {
+            return connection.getCatalog();
+        }
+        if ( !catalogKnown ) {
+            catalogState = connection.getCatalog();
+            catalogKnown = true;
+        }
+        return catalogState;
+    }
+
+    public void setCatalog(String catalog) throws SQLException {
+        if ( !isSessionStateCached() || !catalogKnown || !Objects.equals( catalogState, catalog ) ) {
+            setDirtyAttribute( CATALOG );
+            connection.setCatalog( catalog );
+            catalogState = catalog;
+            catalogKnown = cacheSessionState;
+        }
+    }
+
     public void verifyReadOnly(boolean readOnly) throws SQLException {
         if ( enlisted ) {
             throw new SQLException( "Attempted to modify read-only state while enlisted in transaction" );
@@ -336,10 +702,13 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
     @Override
     public void transactionStart() throws SQLException {
         try {
+            // the attributes of the previous borrow are not changed within the transaction
+            applyDeferredReset();
             if ( !enlisted && connection.getAutoCommit() ) {
                 connection.setAutoCommit( false );
                 setDirtyAttribute( AUTOCOMMIT );
             }
+            autoCommitState = null;
             enlisted = true;
         } catch ( SQLException se ) {
             setFlushOnly( se );
@@ -387,7 +756,10 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
             // should never happen, but it's here as a safeguard to prevent double returns in all cases.
             fireOnWarning( connectionPool.getListeners(), "Closing open connection(s) on after completion" );
         }
-        enlisted = false;
+        if ( enlisted ) {
+            autoCommitState = null;
+            enlisted = false;
+        }
         connectionPool.returnConnectionHandler( this );
     }
 
@@ -415,10 +787,18 @@ public final class ConnectionHandler implements TransactionAware, Acquirable {
         // Assumed currentState == State.CHECKED_OUT (or eventually in FLUSH already)
         AgroalConnectionPoolConfiguration.ExceptionSorter exceptionSorter = connectionPool.getConfiguration().exceptionSorter();
         if ( exceptionSorter != null && exceptionSorter.isFatal( se ) ) {
-            setState( State.FLUSH );
+            setFatal();
         }
     }
 
+    private void setFatal() {
+        // only the first fatal error of a connection counts against the host
+        if ( endpoint != null && state != State.FLUSH ) {
+            endpoint.onFailure();
+        }
+        setState( State.FLUSH );
+    }
+
     // --- //
 
     public enum State {
@@ -6,25 +6,36 @@ package io.agroal.pool;
 import io.agroal.api.AgroalDataSource;
 import io.agroal.api.AgroalDataSourceListener;
 import io.agroal.api.AgroalPoolInterceptor;
+import io.agroal.api.ConnectionBudget;
 import io.agroal.api.cache.ConnectionCache;
 import io.agroal.api.configuration.AgroalConnectionPoolConfiguration;
 import io.agroal.api.transaction.TransactionIntegration;
 import io.agroal.pool.MetricsRepository.EmptyMetricsRepository;
 import io.agroal.pool.util.AgroalSynchronizer;
+import io.agroal.pool.util.AvailabilityIndex;
+import io.agroal.pool.util.HandoffQueue;
 import io.agroal.pool.util.PriorityScheduledExecutor;
 import io.agroal.pool.util.StampedCopyOnWriteArrayList;
+import io.agroal.pool.util.TimingWheel;
 
 import javax.sql.XAConnection;
+import java.lang.invoke.MethodHandle;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.LongAccumulator;
@@ -38,6 +49,7 @@ import static io.agroal.pool.ConnectionHandler.State.CHECKED_IN;
 import static io.agroal.pool.ConnectionHandler.State.CHECKED_OUT;
 import static io.agroal.pool.ConnectionHandler.State.FLUSH;
 import static io.agroal.pool.ConnectionHandler.State.VALIDATION;
+import static io.agroal.pool.util.CompletionHelper.completeAsync;
 import static io.agroal.pool.util.InterceptorHelper.fireOnConnectionAcquiredInterceptor;
 import static io.agroal.pool.util.InterceptorHelper.fireOnConnectionCreateInterceptor;
 import static io.agroal.pool.util.InterceptorHelper.fireOnConnectionDestroyInterceptor;
@@ -62,11 +74,20 @@ import static io.agroal.pool.util.ListenerHelper.fireOnConnectionReturn;
 import static io.agroal.pool.util.ListenerHelper.fireOnConnectionValid;
 import static io.agroal.pool.util.ListenerHelper.fireOnInfo;
 import static io.agroal.pool.util.ListenerHelper.fireOnPoolInterceptor;
+import static io.agroal.pool.util.ListenerHelper.fireOnPoolResize;
 import static io.agroal.pool.util.ListenerHelper.fireOnWarning;
+import static io.agroal.pool.util.ThreadCost.allocatedBytes;
+import static io.agroal.pool.util.ThreadCost.cpuTime;
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.System.nanoTime;
 import static java.lang.Thread.currentThread;
+import static java.lang.invoke.MethodHandles.publicLookup;
+import static java.lang.invoke.MethodType.methodType;
 import static java.util.Collections.unmodifiableList;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
 
 /**
@@ -76,15 +97,27 @@ public final class ConnectionPool implements Pool {
 
     private static final AtomicInteger HOUSEKEEP_COUNT = new AtomicInteger();
 
+    // seconds the connection creation threads of a pool with a shared executor are kept while idle
+    private static final long CREATION_KEEP_ALIVE = 60;
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
     private final AgroalConnectionPoolConfiguration configuration;
     private final AgroalDataSourceListener[] listeners;
 
     private final StampedCopyOnWriteArrayList<ConnectionHandler> allConnections;
+    private final AvailabilityIndex<ConnectionHandler> availableConnections;
 
     private final AgroalSynchronizer synchronizer;
+    private final HandoffQueue<ConnectionHandler> handoffQueue;
     private final ConnectionFactory connectionFactory;
     private final PriorityScheduledExecutor housekeepingExecutor;
+    private final PriorityScheduledExecutor creationExecutor;
+    private final boolean sharedExecutor;
+    private final PriorityScheduledExecutor cancellationExecutor;
+    private final TimingWheel timingWheel = TimingWheel.shared();
+    private final Queue<TimingWheel.Timeout> housekeepingTimeouts = new ConcurrentLinkedQueue<>();
     private final TransactionIntegration transactionIntegration;
+    private final ConnectionBudget.Share budgetShare;
 
     private final boolean borrowValidationEnabled;
     private final boolean idleValidationEnabled;
@@ -92,25 +125,60 @@ public final class ConnectionPool implements Pool {
     private final boolean validationEnabled;
     private final boolean reapEnabled;
     private final boolean recoveryEnabled;
+    // adjusts the size of the pool to the demand. null if adaptive sizing is disabled
+    private final AdaptiveSizingTask adaptiveSizing;
+    private final boolean handoffEnabled;
+    private final int stripeCount;
 
     private final LongAccumulator maxUsed = new LongAccumulator( Math::max, Long.MIN_VALUE );
     private final LongAdder activeCount = new LongAdder();
+    private final AtomicInteger pendingCreations = new AtomicInteger();
+    private final AtomicInteger lifetimeEvictions = new AtomicInteger();
+    private final Queue<ConnectionHandler> expiredConnections = new ConcurrentLinkedQueue<>();
 
     private MetricsRepository metricsRepository;
     private ConnectionCache localCache;
+    private ConnectionCache virtualThreadCache;
     private List<AgroalPoolInterceptor> interceptors;
 
+    // set on close, as the executor may be shared with other pools and outlive this one
+    private volatile boolean closed;
+
     public ConnectionPool(AgroalConnectionPoolConfiguration configuration, AgroalDataSourceListener... listeners) {
+        this( configuration, null, listeners );
+    }
+
+    /**
+     * Creates a pool that runs housekeeping on an executor shared with other pools, instead of having a thread of its own. The executor is not shut down when the pool is closed.
+     * Connections are created on threads of the pool, at most {@link AgroalConnectionPoolConfiguration#creationConcurrency()}, that are only kept while in use, so that a connection that takes long to establish does not hold back the other pools.
+     */
+    public ConnectionPool(AgroalConnectionPoolConfiguration configuration, PriorityScheduledExecutor executor, AgroalDataSourceListener... listeners) {
         this.configuration = configuration;
         this.listeners = listeners;
 
         allConnections = new StampedCopyOnWriteArrayList<>( ConnectionHandler.class );
+        availableConnections = new AvailabilityIndex<>();
         localCache = configuration.connectionCache();
+        virtualThreadCache = configuration.virtualThreadConnectionCache();
 
         synchronizer = new AgroalSynchronizer();
+        handoffQueue = new HandoffQueue<>();
         connectionFactory = new ConnectionFactory( configuration.connectionFactoryConfiguration(), listeners );
-        housekeepingExecutor = new PriorityScheduledExecutor( 1, "agroal-" + HOUSEKEEP_COUNT.incrementAndGet(), listeners );
+        sharedExecutor = executor != null;
+        if ( sharedExecutor ) {
+            housekeepingExecutor = executor;
+            creationExecutor = new PriorityScheduledExecutor( configuration.creationConcurrency(), "agroal-" + HOUSEKEEP_COUNT.incrementAndGet() + "-create-", listeners );
+            creationExecutor.setKeepAliveTime( CREATION_KEEP_ALIVE, SECONDS );
+            creationExecutor.allowCoreThreadTimeOut( true );
+        } else {
+            String threadPrefix = "agroal-" + HOUSEKEEP_COUNT.incrementAndGet();
+            housekeepingExecutor = new PriorityScheduledExecutor( 1, threadPrefix, listeners );
+            creationExecutor = configuration.creationConcurrency() > 1 ? new PriorityScheduledExecutor( configuration.creationConcurrency(), threadPrefix + "-create-", listeners ) : housekeepingExecutor;
+        }
+        // a driver that does not return from cancel() must not hold back housekeeping, even when the executor is shared
+        cancellationExecutor = configuration.connectionFactoryConfiguration().queryTimeout().isZero() ? null : new PriorityScheduledExecutor( 1, "agroal-cancel-" + HOUSEKEEP_COUNT.incrementAndGet(), listeners );
         transactionIntegration = configuration.transactionIntegration();
+        budgetShare = configuration.connectionBudget() == null ? null : configuration.connectionBudget().register( configuration.connectionBudgetWeight(), new BudgetMember() );
 
         borrowValidationEnabled = configuration.validateOnBorrow();
         idleValidationEnabled = !configuration.validateOnBorrow() && !configuration.idleValidationTimeout().isZero();
@@ -118,6 +186,9 @@ public final class ConnectionPool implements Pool {
         validationEnabled = !configuration.validationTimeout().isZero();
         reapEnabled = !configuration.reapTimeout().isZero();
         recoveryEnabled = configuration.recoveryEnable();
+        adaptiveSizing = configuration.adaptiveSizingInterval().isZero() ? null : new AdaptiveSizingTask();
+        handoffEnabled = configuration.directHandoff();
+        stripeCount = configuration.stripeCount();
     }
 
     private TransactionIntegration.ResourceRecoveryFactory getResourceRecoveryFactory() {
@@ -129,14 +200,12 @@ public final class ConnectionPool implements Pool {
             fireOnWarning( listeners, "Login timeout should be smaller than acquisition timeout" );
         }
 
-        if ( leakEnabled ) {
-            housekeepingExecutor.schedule( new LeakTask(), configuration.leakTimeout().toNanos(), NANOSECONDS );
+        if ( leakEnabled || validationEnabled || reapEnabled ) {
+            HousekeepingTask housekeepingTask = new HousekeepingTask();
+            schedulePeriodic( housekeepingTask, housekeepingTask.period() );
         }
-        if ( validationEnabled ) {
-            housekeepingExecutor.schedule( new ValidationTask(), configuration.validationTimeout().toNanos(), NANOSECONDS );
-        }
-        if ( reapEnabled ) {
-            housekeepingExecutor.schedule( new ReapTask(), configuration.reapTimeout().toNanos(), NANOSECONDS );
+        if ( adaptiveSizing != null ) {
+            schedulePeriodic( adaptiveSizing, configuration.adaptiveSizingInterval() );
         }
         if ( recoveryEnabled ) {
             transactionIntegration.addResourceRecoveryFactory( getResourceRecoveryFactory());
@@ -149,10 +218,14 @@ public final class ConnectionPool implements Pool {
             fireOnInfo( listeners, "Initial size bigger than max. Connections will be destroyed as soon as they return to the pool" );
         }
         for ( int n = configuration.initialSize(); n > 0; n-- ) {
-            housekeepingExecutor.executeNow( new CreateConnectionTask().initial() );
+            creationExecutor.executeNow( new CreateConnectionTask().initial() );
         }
     }
 
+    private void schedulePeriodic(Runnable task, Duration period) {
+        housekeepingTimeouts.add( timingWheel.scheduleAtFixedRate( task, period.toNanos(), NANOSECONDS, housekeepingExecutor ) );
+    }
+
     public AgroalConnectionPoolConfiguration getConfiguration() {
         return configuration;
     }
@@ -161,6 +234,12 @@ public final class ConnectionPool implements Pool {
         return connectionFactory.defaultJdbcIsolationLevel();
     }
 
+    @Override
+    public TimingWheel.Timeout scheduleQueryTimeout(Runnable cancellation, long timeout) {
+        // cancel() involves the driver, so it's run on neither the timer thread nor the housekeeping thread
+        return timingWheel.schedule( cancellation, timeout, NANOSECONDS, cancellationExecutor );
+    }
+
     public AgroalDataSourceListener[] getListeners() {
         return listeners;
     }
@@ -190,24 +269,41 @@ public final class ConnectionPool implements Pool {
 
     @Override
     public void close() {
+        closed = true;
         if ( recoveryEnabled ) {
             transactionIntegration.removeResourceRecoveryFactory(getResourceRecoveryFactory());
         }
 
-        for ( Runnable task : housekeepingExecutor.shutdownNow() ) {
-            if ( task instanceof DestroyConnectionTask ) {
-                task.run();
+        for ( TimingWheel.Timeout timeout; ( timeout = housekeepingTimeouts.poll() ) != null; ) {
+            timeout.cancel();
+        }
+        if ( !sharedExecutor ) {
+            for ( Runnable task : housekeepingExecutor.shutdownNow() ) {
+                if ( task instanceof DestroyConnectionTask ) {
+                    task.run();
+                }
             }
         }
+        if ( creationExecutor != housekeepingExecutor ) {
+            creationExecutor.shutdownNow();
+        }
+        if ( cancellationExecutor != null ) {
+            cancellationExecutor.shutdownNow();
+        }
 
         for ( ConnectionHandler handler : allConnections ) {
             handler.setState( FLUSH );
             new DestroyConnectionTask( handler ).run();
         }
         allConnections.clear();
+        expiredConnections.clear();
         activeCount.reset();
+        if ( budgetShare != null ) {
+            budgetShare.unregister();
+        }
 
         synchronizer.release( synchronizer.getQueueLength() );
+        handoffQueue.signalAll();
     }
 
     // --- //
@@ -225,7 +321,7 @@ public final class ConnectionPool implements Pool {
 
         try {
             do {
-                checkedOutHandler = (ConnectionHandler) localCache.get();
+                checkedOutHandler = (ConnectionHandler) threadCache().get();
                 if ( checkedOutHandler == null ) {
                     checkedOutHandler = handlerFromSharedCache();
                 }
@@ -238,7 +334,7 @@ public final class ConnectionPool implements Pool {
             return checkedOutHandler.xaConnectionWrapper();
         } catch ( Throwable t ) {
             if ( checkedOutHandler != null ) {
-                checkedOutHandler.setState( CHECKED_OUT, CHECKED_IN );
+                abortAcquisition( checkedOutHandler );
             }
             throw t;
         }
@@ -248,10 +344,12 @@ public final class ConnectionPool implements Pool {
 
     private long beforeAcquire() throws SQLException {
         fireBeforeConnectionAcquire( listeners );
-        if ( housekeepingExecutor.isShutdown() ) {
+        if ( closed ) {
             throw new SQLException( "This pool is closed and does not handle any more connections!" );
         }
-        return metricsRepository.beforeConnectionAcquire();
+        long stamp = metricsRepository.beforeConnectionAcquire();
+        // acquisitions are timed for adaptive sizing, even with metrics disabled
+        return stamp == 0 && adaptiveSizing != null ? nanoTime() : stamp;
     }
 
     private void checkMultipleAcquisition() throws SQLException {
@@ -288,7 +386,7 @@ public final class ConnectionPool implements Pool {
 
         try {
             do {
-                checkedOutHandler = (ConnectionHandler) localCache.get();
+                checkedOutHandler = (ConnectionHandler) threadCache().get();
                 if ( checkedOutHandler == null ) {
                     checkedOutHandler = handlerFromSharedCache();
                 }
@@ -303,12 +401,47 @@ public final class ConnectionPool implements Pool {
         } catch ( Throwable t ) {
             if ( checkedOutHandler != null ) {
                 // AG-140 - Return the connection to the pool to prevent leak
-                checkedOutHandler.setState( CHECKED_OUT, CHECKED_IN );
+                abortAcquisition( checkedOutHandler );
             }
             throw t;
         }
     }
 
+    @Override
+    public CompletionStage<Connection> getConnectionAsync(Duration timeout) {
+        CompletableFuture<Connection> future = new CompletableFuture<>();
+        try {
+            long stamp = beforeAcquire();
+            checkMultipleAcquisition();
+            new AsyncAcquisition( future, stamp ).start( timeout );
+        } catch ( SQLException e ) {
+            future.completeExceptionally( e );
+        }
+        return completeAsync( future );
+    }
+
+    // virtual threads are short-lived and do not benefit from a thread local cache
+    private ConnectionCache threadCache() {
+        return isVirtual( currentThread() ) ? virtualThreadCache : localCache;
+    }
+
+    // Thread.isVirtual() is not available on all supported JVMs
+    private static MethodHandle isVirtualHandle() {
+        try {
+            return publicLookup().findVirtual( Thread.class, "isVirtual", methodType( boolean.class ) );
+        } catch ( NoSuchMethodException | IllegalAccessException e ) {
+            return null;
+        }
+    }
+
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return IS_VIRTUAL != null && (boolean) IS_VIRTUAL.invokeExact( thread );
+        } catch ( Throwable t ) {
+            return false;
+        }
+    }
+
     private ConnectionHandler handlerFromTransaction() throws SQLException {
         return (ConnectionHandler) transactionIntegration.getTransactionAware();
     }
@@ -321,22 +454,29 @@ public final class ConnectionPool implements Pool {
             for ( ; ; ) {
                 // If min-size increases, create a connection right away
                 if ( allConnections.size() < configuration.minSize() ) {
-                    task = housekeepingExecutor.executeNow( new CreateConnectionTask() );
+                    task = creationExecutor.executeNow( new CreateConnectionTask() );
                 }
                 // Try to find an available connection in the pool
-                for ( ConnectionHandler handler : allConnections ) {
-                    if ( handler.acquire() ) {
-                        return handler;
-                    }
+                ConnectionHandler available = handlerFromAvailable();
+                if ( available != null ) {
+                    return available;
                 }
                 // If no connections are available and there is room, create one
-                if ( task == null && allConnections.size() < configuration.maxSize() ) {
-                    task = housekeepingExecutor.executeNow( new CreateConnectionTask() );
+                if ( task == null && hasRoom() ) {
+                    task = creationExecutor.executeNow( new CreateConnectionTask() );
                 }
                 long start = nanoTime();
                 if ( task == null )  {
                     // Pool full, will have to wait for a connection to be returned
-                    if ( !synchronizer.tryAcquireNanos( synchronizer.getStamp(), remaining ) ) {
+                    if ( handoffEnabled ) {
+                        ConnectionHandler handler = handlerFromHandoff( remaining );
+                        if ( handler != null ) {
+                            return handler;
+                        }
+                        if ( nanoTime() - start >= remaining ) {
+                            throw new SQLException( "Sorry, acquisition timeout!" );
+                        }
+                    } else if ( !synchronizer.tryAcquireNanos( synchronizer.getStamp(), remaining ) ) {
                         throw new SQLException( "Sorry, acquisition timeout!" );
                     }
                 } else {
@@ -359,15 +499,87 @@ public final class ConnectionPool implements Pool {
         } catch ( TimeoutException e ) {
             task.cancel( true );
             // AG-201: Last effort. Connections may have returned to the pool while waiting.
-            for ( ConnectionHandler handler : allConnections ) {
-                if ( handler.acquire() ) {
-                    return handler;
-                }
+            ConnectionHandler available = handlerFromAvailable();
+            if ( available != null ) {
+                return available;
             }
             throw new SQLException( "Acquisition timeout while waiting for new connection", e );
         }
     }
 
+    // there may be room for a new connection, both on this pool and on the connection budget
+    private boolean hasRoom() {
+        return allConnections.size() < maxSize() && ( budgetShare == null || budgetShare.hasRoom() );
+    }
+
+    // the configured max size, or the one set by adaptive sizing if lower
+    private int maxSize() {
+        return adaptiveSizing == null ? configuration.maxSize() : min( adaptiveSizing.maxSize, configuration.maxSize() );
+    }
+
+    private ConnectionHandler handlerFromAvailable() {
+        // Start on the stripe of this thread and steal from the other stripes only on a miss
+        return stripeCount > 1 ? availableConnections.acquire( threadStripe(), stripeCount ) : availableConnections.acquire();
+    }
+
+    private int threadStripe() {
+        // Fibonacci hashing of the thread id spreads sequential ids evenly among the stripes
+        return (int) ( ( ( currentThread().getId() * 0x9E3779B97F4A7C15L ) >>> 33 ) % stripeCount );
+    }
+
+    // Waits for a connection to be handed over by the thread that returns it. Returns null on timeout or if there may be room for a new connection.
+    private ConnectionHandler handlerFromHandoff(long remaining) throws InterruptedException {
+        HandoffQueue<ConnectionHandler>.Waiter waiter = handoffQueue.enqueue();
+
+        // Check again after enqueue, as a connection may have been returned (or removed) in the meantime without noticing this waiter
+        ConnectionHandler available = handlerFromAvailable();
+        if ( available != null || hasRoom() ) {
+            if ( !handoffQueue.cancel( waiter ) ) {
+                // the waiter was fulfilled in the meantime. keep only one of the connections
+                ConnectionHandler handedOver = waiter.await( 0 );
+                if ( handedOver != null ) {
+                    if ( available != null ) {
+                        checkIn( handedOver );
+                        handoff( handedOver );
+                    } else {
+                        return handedOver;
+                    }
+                }
+            }
+            return available;
+        }
+        return waiter.await( remaining );
+    }
+
+    // Hands over a CHECKED_IN handler to the oldest waiting thread, if there is one
+    private void handoff(ConnectionHandler handler) {
+        while ( handoffQueue.hasWaiters() && handler.acquire() ) {
+            if ( handoffQueue.offer( handler ) ) {
+                return;
+            }
+            checkIn( handler );
+        }
+    }
+
+    // Returns a handler that a failed acquisition left CHECKED_OUT, notifying the threads waiting for a connection
+    private void abortAcquisition(ConnectionHandler handler) {
+        if ( handler.setState( CHECKED_OUT, CHECKED_IN ) ) {
+            handoff( handler );
+            synchronizer.releaseConditional();
+        } else if ( !handler.isAcquirable() ) {
+            // flushed during the acquisition
+            removeFromPool( handler );
+        }
+    }
+
+    // Makes a CHECKED_OUT handler up for grabs again
+    private void checkIn(ConnectionHandler handler) {
+        if ( !handler.setState( CHECKED_OUT, CHECKED_IN ) ) {
+            // handler not in CHECKED_OUT implies FLUSH
+            removeFromPool( handler );
+        }
+    }
+
     private SQLException unwrapExecutionException(ExecutionException ee) {
         try {
             throw ee.getCause();
@@ -399,6 +611,7 @@ public final class ConnectionPool implements Pool {
         fireBeforeConnectionValidation( listeners, handler );
         if ( handler.isValid() && handler.setState( VALIDATION, targetState ) ) {
             fireOnConnectionValid( listeners, handler );
+            handoff( handler );
             synchronizer.releaseConditional();
             return true;
         } else {
@@ -410,7 +623,15 @@ public final class ConnectionPool implements Pool {
     }
 
     private void afterAcquire(long metricsStamp, ConnectionHandler checkedOutHandler, boolean verifyEnlistment) throws SQLException {
+        afterAcquire( metricsStamp, checkedOutHandler, verifyEnlistment, currentThread() );
+    }
+
+    // the requester is the thread that asked for the connection, that on asynchronous acquisition may not be the current thread
+    private void afterAcquire(long metricsStamp, ConnectionHandler checkedOutHandler, boolean verifyEnlistment, Thread requester) throws SQLException {
         metricsRepository.afterConnectionAcquire( metricsStamp );
+        if ( adaptiveSizing != null ) {
+            adaptiveSizing.afterAcquire( metricsStamp );
+        }
         fireOnConnectionAcquired( listeners, checkedOutHandler );
 
         if ( verifyEnlistment && !checkedOutHandler.isEnlisted() ) {
@@ -428,13 +649,13 @@ public final class ConnectionPool implements Pool {
             checkedOutHandler.touch();
         }
         if ( leakEnabled || configuration.multipleAcquisition() != OFF ) {
-            if ( checkedOutHandler.getHoldingThread() != null && checkedOutHandler.getHoldingThread() != currentThread() ) {
-                Throwable warn = new Throwable( "Shared connection between threads '" + checkedOutHandler.getHoldingThread().getName() + "' and '" + currentThread().getName() + "'" );
+            if ( checkedOutHandler.getHoldingThread() != null && checkedOutHandler.getHoldingThread() != requester ) {
+                Throwable warn = new Throwable( "Shared connection between threads '" + checkedOutHandler.getHoldingThread().getName() + "' and '" + requester.getName() + "'" );
                 warn.setStackTrace( checkedOutHandler.getHoldingThread().getStackTrace() );
                 fireOnWarning( listeners, warn );
             }
-            checkedOutHandler.setHoldingThread( currentThread() );
-            if ( configuration.enhancedLeakReport() ) {
+            checkedOutHandler.setHoldingThread( requester );
+            if ( configuration.enhancedLeakReport() && requester == currentThread() ) {
                 checkedOutHandler.setAcquisitionStackTrace( currentThread().getStackTrace() );
             }
         }
@@ -463,8 +684,9 @@ public final class ConnectionPool implements Pool {
         activeCount.decrement();
 
         // resize on change of max-size, or flush on close
+        // also give back connections borrowed from the connection budget
         int currentSize = allConnections.size();
-        if ( ( currentSize > configuration.maxSize() && currentSize > configuration.minSize() ) || configuration.flushOnClose() ) {
+        if ( ( currentSize > configuration.minSize() && ( currentSize > maxSize() || budgetShare != null && budgetShare.takeReclaim() ) ) || configuration.flushOnClose() ) {
             handler.setState( FLUSH );
             removeFromPool( handler );
             metricsRepository.afterConnectionReap();
@@ -473,15 +695,20 @@ public final class ConnectionPool implements Pool {
         }
 
         try {
-            handler.resetConnection();
+            if ( configuration.deferredReset() ) {
+                handler.deferReset();
+            } else {
+                handler.resetConnection();
+            }
         } catch ( SQLException sqlException ) {
             fireOnWarning( listeners, sqlException );
         }
-        localCache.put( handler );
+        threadCache().put( handler );
         fireOnConnectionReturnInterceptor( interceptors, handler );
 
         if ( handler.setState( CHECKED_OUT, CHECKED_IN ) ) {
             // here the handler is already up for grabs
+            handoff( handler );
             synchronizer.releaseConditional();
             metricsRepository.afterConnectionReturn();
             fireOnConnectionReturn( listeners, handler );
@@ -496,6 +723,7 @@ public final class ConnectionPool implements Pool {
     private void removeFromPool(ConnectionHandler handler) {
         allConnections.remove( handler );
         synchronizer.releaseConditional();
+        handoffQueue.signal();
         housekeepingExecutor.execute( new FillTask() );
         housekeepingExecutor.execute( new DestroyConnectionTask( handler ) );
     }
@@ -528,19 +756,22 @@ public final class ConnectionPool implements Pool {
     }
 
     public long awaitingCount() {
-        return synchronizer.getQueueLength();
+        return synchronizer.getQueueLength() + handoffQueue.waiterCount();
     }
 
     // --- health check //
 
     @Override
     public boolean isHealthy(boolean newConnection) throws SQLException {
+        if ( closed ) {
+            throw new SQLException( "This pool is closed and does not handle any more connections!" );
+        }
         ConnectionHandler healthHandler;
         Future<ConnectionHandler> task = null;
         if ( newConnection ) {
             try {
                 do {
-                    task = housekeepingExecutor.executeNow( new CreateConnectionTask().initial() );
+                    task = creationExecutor.executeNow( new CreateConnectionTask().initial() );
                     healthHandler = task.get( configuration.acquisitionTimeout().isZero() ? Long.MAX_VALUE : configuration.acquisitionTimeout().toNanos(), NANOSECONDS );
                 } while ( !healthHandler.setState( CHECKED_IN, VALIDATION ) );
             } catch ( InterruptedException e ) {
@@ -561,6 +792,184 @@ public final class ConnectionPool implements Pool {
         return performValidation( healthHandler, CHECKED_IN );
     }
 
+    // --- async acquisition //
+
+    // State of an asynchronous acquisition. Instead of a parked thread, waits in the handoff queue for a connection to be handed over by the thread that makes it available.
+    // The connection handed over is validated and reset on the housekeeping executor, not on the thread that returned it.
+    private final class AsyncAcquisition {
+
+        private final CompletableFuture<Connection> future;
+        private final long metricsStamp;
+        private final Thread requester;
+        private final StackTraceElement[] requestStackTrace;
+
+        private volatile HandoffQueue<ConnectionHandler>.Waiter waiter;
+        private volatile TimingWheel.Timeout timeoutTask;
+
+        @SuppressWarnings( "WeakerAccess" )
+        AsyncAcquisition(CompletableFuture<Connection> future, long metricsStamp) {
+            this.future = future;
+            this.metricsStamp = metricsStamp;
+            this.requester = currentThread();
+            this.requestStackTrace = configuration.enhancedLeakReport() && ( leakEnabled || configuration.multipleAcquisition() != OFF ) ? currentThread().getStackTrace() : null;
+        }
+
+        @SuppressWarnings( "WeakerAccess" )
+        void start(Duration timeout) {
+            if ( !timeout.isZero() ) {
+                timeoutTask = timingWheel.schedule( this::timeout, timeout.toNanos(), NANOSECONDS, housekeepingExecutor );
+            }
+            // on timeout or cancellation stop waiting for a connection
+            future.whenComplete( (connection, throwable) -> {
+                cancelTimeout();
+                if ( throwable != null ) {
+                    cancelWaiter();
+                }
+            } );
+            attempt();
+        }
+
+        private void attempt() {
+            try {
+                for ( ; ; ) {
+                    if ( future.isDone() ) {
+                        return;
+                    }
+                    if ( closed ) {
+                        fail( new SQLException( "Can't create new connection as the pool is shutting down" ) );
+                        return;
+                    }
+                    ConnectionHandler available = handlerFromAvailable();
+                    if ( available != null ) {
+                        complete( available );
+                        return;
+                    }
+
+                    HandoffQueue<ConnectionHandler>.Waiter registered = handoffQueue.enqueue( this::handedOver );
+                    waiter = registered;
+
+                    // Check again after enqueue, as a connection may have been returned in the meantime without noticing this waiter
+                    available = handlerFromAvailable();
+                    if ( available == null && !future.isDone() ) {
+                        if ( hasRoom() ) {
+                            // the new connection is handed over to the oldest waiter, that may or may not be this one
+                            creationExecutor.executeNow( this::createConnection );
+                        }
+                        return;
+                    }
+                    if ( !handoffQueue.cancel( registered ) ) {
+                        // the waiter was fulfilled in the meantime, keep only one of the connections
+                        if ( available != null ) {
+                            checkIn( available );
+                            handoff( available );
+                        }
+                        return;
+                    }
+                    if ( available != null ) {
+                        complete( available );
+                        return;
+                    }
+                }
+            } catch ( RejectedExecutionException e ) {
+                fail( new SQLException( "Can't create new connection as the pool is shutting down", e ) );
+            }
+        }
+
+        // invoked by the thread that fulfills the waiter, with null if it's only a signal
+        private void handedOver(ConnectionHandler handler) {
+            if ( future.isDone() ) {
+                if ( handler == null ) {
+                    // pass the signal along to a waiter that still needs it
+                    handoffQueue.signal();
+                } else {
+                    checkIn( handler );
+                    handoff( handler );
+                }
+                return;
+            }
+            try {
+                housekeepingExecutor.execute( () -> resume( handler ) );
+            } catch ( RejectedExecutionException e ) {
+                if ( handler != null ) {
+                    abortAcquisition( handler );
+                }
+                fail( new SQLException( "Can't create new connection as the pool is shutting down", e ) );
+            }
+        }
+
+        private void resume(ConnectionHandler handler) {
+            if ( handler != null ) {
+                complete( handler );
+            } else {
+                attempt();
+            }
+        }
+
+        private void createConnection() {
+            try {
+                new CreateConnectionTask().call();
+            } catch ( Throwable t ) {
+                HandoffQueue<ConnectionHandler>.Waiter registered = waiter;
+                if ( registered != null && handoffQueue.cancel( registered ) ) {
+                    fail( t );
+                }
+            }
+        }
+
+        // the handler must be CHECKED_OUT
+        private void complete(ConnectionHandler handler) {
+            if ( future.isDone() ) {
+                checkIn( handler );
+                handoff( handler );
+                return;
+            }
+            try {
+                if ( ( borrowValidationEnabled && !borrowValidation( handler ) ) || ( idleValidationEnabled && !idleValidation( handler ) ) ) {
+                    attempt();
+                    return;
+                }
+
+                activeCount.increment();
+                fireOnConnectionAcquiredInterceptor( interceptors, handler );
+                afterAcquire( metricsStamp, handler, false, requester );
+                if ( requestStackTrace != null ) {
+                    handler.setAcquisitionStackTrace( requestStackTrace );
+                }
+
+                Connection connection = handler.connectionWrapper();
+                if ( !future.complete( connection ) ) {
+                    // timeout or cancellation in the meantime
+                    connection.close();
+                }
+            } catch ( Throwable t ) {
+                abortAcquisition( handler );
+                fail( t );
+            }
+        }
+
+        private void fail(Throwable t) {
+            future.completeExceptionally( t );
+        }
+
+        private void timeout() {
+            future.completeExceptionally( new SQLException( "Sorry, acquisition timeout!" ) );
+        }
+
+        private void cancelWaiter() {
+            HandoffQueue<ConnectionHandler>.Waiter registered = waiter;
+            if ( registered != null ) {
+                handoffQueue.cancel( registered );
+            }
+        }
+
+        private void cancelTimeout() {
+            TimingWheel.Timeout task = timeoutTask;
+            if ( task != null ) {
+                task.cancel();
+            }
+        }
+    }
+
     // --- create //
 
     private final class CreateConnectionTask implements Callable<ConnectionHandler> {
@@ -575,41 +984,83 @@ public final class ConnectionPool implements Pool {
 
         @Override
         public ConnectionHandler call() throws SQLException {
-            if ( !initial && allConnections.size() >= configuration.maxSize() ) {
+            if ( closed ) {
+                return null;
+            }
+            if ( initial ) {
+                pendingCreations.incrementAndGet();
+            } else if ( !reserveCreation() ) {
+                return null;
+            }
+            if ( budgetShare != null && !budgetShare.tryAcquire() ) {
+                pendingCreations.decrementAndGet();
                 return null;
             }
             fireBeforeConnectionCreation( listeners );
             long metricsStamp = metricsRepository.beforeConnectionCreation();
+            if ( metricsStamp == 0 && adaptiveSizing != null ) {
+                metricsStamp = nanoTime();
+            }
 
             try {
-                ConnectionHandler handler = new ConnectionHandler( connectionFactory.createConnection(), ConnectionPool.this );
+                ConnectionHandler handler = connectionFactory.createConnection( ConnectionPool.this );
                 metricsRepository.afterConnectionCreation( metricsStamp );
+                if ( adaptiveSizing != null ) {
+                    adaptiveSizing.afterCreation( metricsStamp );
+                }
 
                 if ( !configuration.maxLifetime().isZero() ) {
-                    handler.setMaxLifetimeTask( housekeepingExecutor.schedule( new FlushTask( GRACEFUL, handler ), configuration.maxLifetime().toNanos(), NANOSECONDS ) );
+                    handler.setMaxLifetimeTask( timingWheel.schedule( new MaxLifetimeTask( handler ), lifetime(), NANOSECONDS, creationExecutor ) );
                 }
 
                 fireOnConnectionCreation( listeners, handler );
                 fireOnConnectionCreateInterceptor( interceptors, handler );
 
+                handler.setAvailabilityIndex( availableConnections );
                 handler.setState( CHECKED_IN );
                 allConnections.add( handler );
 
                 maxUsed.accumulate( allConnections.size() );
                 fireOnConnectionPooled( listeners, handler );
 
+                handoff( handler );
+
                 return handler;
             } catch ( SQLException e ) {
+                releaseBudget();
                 fireOnWarning( listeners, e );
                 throw e;
             } catch ( Throwable t ) {
+                releaseBudget();
                 fireOnWarning( listeners, "Failed to create connection due to " + t.getClass().getSimpleName() );
                 throw t;
             } finally {
+                // decremented after the connection is in the pool, so that in the meantime it's not missing from the count
+                pendingCreations.decrementAndGet();
                 // not strictly needed, but not harmful either
                 synchronizer.releaseConditional();
             }
         }
+
+        // shortened at random by up to the jitter percentage
+        private long lifetime() {
+            long maxLifetime = configuration.maxLifetime().toNanos();
+            return maxLifetime - (long) ( maxLifetime * ThreadLocalRandom.current().nextDouble() * configuration.maxLifetimeJitter() / 100 );
+        }
+
+        // Connections may be established concurrently. Those still being established are accounted for when checking max size.
+        private boolean reserveCreation() {
+            for ( ; ; ) {
+                // read pending before the pool size, as a connection is added to the pool before it stops being pending
+                int pending = pendingCreations.get();
+                if ( allConnections.size() + pending >= maxSize() ) {
+                    return false;
+                }
+                if ( pendingCreations.compareAndSet( pending, pending + 1 ) ) {
+                    return true;
+                }
+            }
+        }
     }
 
     // --- flush //
@@ -683,6 +1134,7 @@ public final class ConnectionPool implements Pool {
         private void flushHandler(ConnectionHandler handler) {
             allConnections.remove( handler );
             synchronizer.releaseConditional();
+            handoffQueue.signal();
             metricsRepository.afterConnectionFlush();
             fireOnConnectionFlush( listeners, handler );
             housekeepingExecutor.execute( new DestroyConnectionTask( handler ) );
@@ -706,118 +1158,292 @@ public final class ConnectionPool implements Pool {
         }
     }
 
-    // --- fill task //
+    // --- max lifetime //
 
-    private final class FillTask implements Runnable {
+    private final class MaxLifetimeTask implements Runnable {
+
+        private final ConnectionHandler handler;
+
+        @SuppressWarnings( "WeakerAccess" )
+        MaxLifetimeTask(ConnectionHandler handler) {
+            this.handler = handler;
+        }
 
         @Override
         public void run() {
-            for ( int n = configuration.minSize() - allConnections.size(); n > 0; n-- ) {
-                housekeepingExecutor.executeNow( new CreateConnectionTask() );
+            expiredConnections.add( handler );
+
+            // A thread that can't reserve an eviction leaves the connection for the threads holding one, that check the queue again after releasing it
+            while ( !expiredConnections.isEmpty() && reserveEviction() ) {
+                try {
+                    ConnectionHandler expired = expiredConnections.poll();
+                    if ( expired != null && expired.isAcquirable() ) {
+                        evict( expired );
+                    }
+                } finally {
+                    lifetimeEvictions.decrementAndGet();
+                }
+            }
+        }
+
+        private boolean reserveEviction() {
+            for ( ; ; ) {
+                int evictions = lifetimeEvictions.get();
+                if ( configuration.maxLifetimeEvictions() != 0 && evictions >= configuration.maxLifetimeEvictions() ) {
+                    return false;
+                }
+                if ( lifetimeEvictions.compareAndSet( evictions, evictions + 1 ) ) {
+                    return true;
+                }
+            }
+        }
+
+        // the eviction only ends once the pool is back to min size, so that the cap on evictions also limits the connections being replaced
+        private void evict(ConnectionHandler expired) {
+            boolean replaced = allConnections.size() <= configuration.minSize() && replace();
+            new FlushTask( GRACEFUL, expired ).run();
+            if ( !replaced && allConnections.size() + pendingCreations.get() < configuration.minSize() ) {
+                replace();
+            }
+        }
+
+        private boolean replace() {
+            try {
+                return new CreateConnectionTask().call() != null;
+            } catch ( SQLException e ) {
+                // already reported
+                return false;
             }
         }
     }
 
-    // --- leak detection //
+    // --- fill task //
 
-    private final class LeakTask implements Runnable {
+    private final class FillTask implements Runnable {
 
         @Override
         public void run() {
-            housekeepingExecutor.schedule( this, configuration.leakTimeout().toNanos(), NANOSECONDS );
-
-            for ( ConnectionHandler handler : allConnections ) {
-                housekeepingExecutor.execute( new LeakConnectionTask( handler ) );
+            // connections being established count towards min size
+            for ( int n = configuration.minSize() - allConnections.size() - pendingCreations.get(); n > 0; n-- ) {
+                creationExecutor.executeNow( new CreateConnectionTask() );
             }
         }
+    }
 
-        private class LeakConnectionTask implements Runnable {
+    // --- housekeeping //
 
-            private final ConnectionHandler handler;
+    // Leak detection, validation and reap visit the connections in a single pass, without allocating per connection.
+    // The pass runs at the shortest of the intervals, and each check is applied when due (rounded to the nearest pass).
+    private final class HousekeepingTask implements Runnable {
 
-            LeakConnectionTask(ConnectionHandler handler) {
-                this.handler = handler;
-            }
+        private final long leakInterval = leakEnabled ? configuration.leakTimeout().toNanos() : 0;
+        private final long validationInterval = validationEnabled ? configuration.validationTimeout().toNanos() : 0;
+        private final long reapInterval = reapEnabled ? configuration.reapTimeout().toNanos() : 0;
+        private final long period = shortest( shortest( leakInterval, validationInterval ), reapInterval );
 
-            @Override
-            public void run() {
-                fireBeforeConnectionLeak( listeners, handler );
-                if ( handler.isLeak( configuration.leakTimeout() ) ) {
-                    metricsRepository.afterLeakDetection();
-                    fireOnConnectionLeak( listeners, handler );
-                }
-            }
+        private long nextLeak, nextValidation, nextReap;
+
+        @SuppressWarnings( "WeakerAccess" )
+        HousekeepingTask() {
+            long now = nanoTime();
+            nextLeak = now + leakInterval;
+            nextValidation = now + validationInterval;
+            nextReap = now + reapInterval;
         }
-    }
 
-    // --- validation //
+        private long shortest(long interval, long other) {
+            return interval == 0 ? other : other == 0 ? interval : min( interval, other );
+        }
 
-    private final class ValidationTask implements Runnable {
+        private Duration period() {
+            return Duration.ofNanos( period );
+        }
 
         @Override
         public void run() {
-            housekeepingExecutor.schedule( this, configuration.validationTimeout().toNanos(), NANOSECONDS );
+            // the thread bean is only queried when metrics are collected
+            MetricsRepository metrics = metricsRepository;
+            boolean metered = !( metrics instanceof EmptyMetricsRepository );
+            long cpuTime = metered ? cpuTime() : 0, allocatedBytes = metered ? allocatedBytes() : 0;
+            long now = nanoTime();
+
+            boolean leak = leakEnabled && now - nextLeak >= -period / 2;
+            boolean validation = validationEnabled && now - nextValidation >= -period / 2;
+            boolean reap = reapEnabled && now - nextReap >= -period / 2;
+            if ( leak ) {
+                nextLeak = now + leakInterval;
+            }
+            if ( validation ) {
+                nextValidation = now + validationInterval;
+            }
+            if ( reap ) {
+                nextReap = now + reapInterval;
+
+                // reset the connection caches
+                localCache.reset();
+                virtualThreadCache.reset();
+            }
 
             for ( ConnectionHandler handler : allConnections ) {
-                housekeepingExecutor.execute( new ValidateConnectionTask( handler ) );
+                if ( leak ) {
+                    detectLeak( handler );
+                }
+                // a connection reaped is not validated
+                if ( !( reap && reap( handler ) ) && validation ) {
+                    validate( handler );
+                }
+                // idle connections are reset here, instead of by the next borrower
+                if ( handler.isResetDeferred() ) {
+                    resetIdle( handler );
+                }
+                // connections to create should not wait for the whole pass
+                housekeepingExecutor.runPriorityTasks();
+            }
+
+            if ( metered ) {
+                metrics.afterHousekeeping( cpuTime() - cpuTime, allocatedBytes() - allocatedBytes );
             }
         }
 
-        private class ValidateConnectionTask implements Runnable {
+        private void detectLeak(ConnectionHandler handler) {
+            fireBeforeConnectionLeak( listeners, handler );
+            if ( handler.isLeak( configuration.leakTimeout() ) ) {
+                metricsRepository.afterLeakDetection();
+                fireOnConnectionLeak( listeners, handler );
+            }
+        }
 
-            private final ConnectionHandler handler;
+        private void validate(ConnectionHandler handler) {
+            if ( handler.setState( CHECKED_IN, VALIDATION ) ) {
+                performValidation( handler, CHECKED_IN );
+            }
+        }
 
-            ValidateConnectionTask(ConnectionHandler handler) {
-                this.handler = handler;
+        private void resetIdle(ConnectionHandler handler) {
+            if ( handler.setState( CHECKED_IN, VALIDATION ) ) {
+                try {
+                    handler.applyDeferredReset();
+                } catch ( SQLException sqlException ) {
+                    fireOnWarning( listeners, sqlException );
+                }
+                if ( handler.setState( VALIDATION, CHECKED_IN ) ) {
+                    handoff( handler );
+                    synchronizer.releaseConditional();
+                } else {
+                    // a failed reset sets the connection for flush
+                    removeFromPool( handler );
+                    metricsRepository.afterConnectionFlush();
+                    fireOnConnectionFlush( listeners, handler );
+                }
             }
+        }
 
-            @Override
-            public void run() {
-                if ( handler.setState( CHECKED_IN, VALIDATION ) ) {
-                    performValidation( handler, CHECKED_IN );
+        private boolean reap(ConnectionHandler handler) {
+            fireBeforeConnectionReap( listeners, handler );
+            if ( allConnections.size() > configuration.minSize() && handler.setState( CHECKED_IN, FLUSH ) ) {
+                if ( handler.isIdle( configuration.reapTimeout() ) ) {
+                    removeFromPool( handler );
+                    metricsRepository.afterConnectionReap();
+                    fireOnConnectionReap( listeners, handler );
+                    return true;
+                } else {
+                    handler.setState( CHECKED_IN );
+                    // for debug, something like: fireOnWarning( listeners,  "Connection " + handler.getConnection() + " used recently. Do not reap!" );
                 }
             }
+            return false;
         }
     }
 
-    // --- reap //
+    // --- adaptive sizing //
 
-    private final class ReapTask implements Runnable {
+    private final class AdaptiveSizingTask implements Runnable {
 
-        @Override
-        public void run() {
-            housekeepingExecutor.schedule( this, configuration.reapTimeout().toNanos(), NANOSECONDS );
+        // shrink only after the pool is oversized by this fraction for a number of consecutive intervals
+        private static final double SHRINK_THRESHOLD = 0.25;
+        private static final int SHRINK_INTERVALS = 3;
 
-            // reset the thead local cache
-            localCache.reset();
+        private final long interval = configuration.adaptiveSizingInterval().toNanos();
 
-            for ( ConnectionHandler handler : allConnections ) {
-                housekeepingExecutor.execute( new ReapConnectionTask( handler ) );
-            }
-        }
+        // kept by the task, as metrics may be disabled
+        private final LongAdder acquireCount = new LongAdder(), blockingTime = new LongAdder();
+        private final LongAdder creationCount = new LongAdder(), creationTime = new LongAdder();
+
+        // the max size of the pool, within the configured one. the configuration is not changed, so that a new max size set by the application is kept as the ceiling
+        private volatile int maxSize = configuration.maxSize();
+
+        private long lastAcquireCount, lastBlockingTime;
+        private int shrinkIntervals;
 
-        private class ReapConnectionTask implements Runnable {
+        void afterAcquire(long timestamp) {
+            acquireCount.increment();
+            blockingTime.add( nanoTime() - timestamp );
+        }
 
-            private final ConnectionHandler handler;
+        void afterCreation(long timestamp) {
+            creationCount.increment();
+            creationTime.add( nanoTime() - timestamp );
+        }
 
-            ReapConnectionTask(ConnectionHandler handler) {
-                this.handler = handler;
+        @Override
+        public void run() {
+            // acquisitions during the last interval, and how long they were blocked
+            long acquireTotal = acquireCount.sum(), blockingTotal = blockingTime.sum();
+            long acquired = max( 0, acquireTotal - lastAcquireCount ), blocked = max( 0, blockingTotal - lastBlockingTime );
+            lastAcquireCount = acquireTotal;
+            lastBlockingTime = blockingTotal;
+
+            long creations = creationCount.sum(), averageCreationTime = creations == 0 ? 0 : creationTime.sum() / creations;
+            long awaiting = awaitingCount(), demand = activeCount.sum() + awaiting;
+
+            // Little's law: connections in demand, plus the ones taken by the arrivals during the establishment of a new connection
+            double arrivalRate = (double) acquired / interval;
+            int target = (int) ceil( demand + arrivalRate * averageCreationTime );
+
+            // the configured max size may have changed since the last interval
+            int ceiling = configuration.maxSize(), current = min( maxSize, ceiling );
+            if ( awaiting > 0 && acquired > 0 && blocked / acquired > averageCreationTime ) {
+                // waiting for a connection took longer than establishing one would, the pool is too small
+                target = max( target, current + (int) awaiting );
             }
+            target = max( min( target, ceiling ), max( configuration.minSize(), 1 ) );
+
+            if ( target > current ) {
+                shrinkIntervals = 0;
+                resize( current, target );
+            } else if ( target < current * ( 1 - SHRINK_THRESHOLD ) ) {
+                if ( ++shrinkIntervals >= SHRINK_INTERVALS ) {
+                    shrinkIntervals = 0;
+                    // shrink halfway to the target, to dampen oscillations
+                    resize( current, max( target, current - max( 1, ( current - target ) / 2 ) ) );
+                }
+            } else {
+                shrinkIntervals = 0;
+            }
+        }
+
+        private void resize(int current, int target) {
+            maxSize = target;
 
-            @Override
-            public void run() {
-                fireBeforeConnectionReap( listeners, handler );
-                if ( allConnections.size() > configuration.minSize() && handler.setState( CHECKED_IN, FLUSH ) ) {
-                    if ( handler.isIdle( configuration.reapTimeout() ) ) {
+            if ( target > current ) {
+                // the room for new connections goes to the acquisitions waiting for one
+                for ( long n = min( awaitingCount(), target - allConnections.size() ); n > 0; n-- ) {
+                    creationExecutor.executeNow( new CreateConnectionTask() );
+                }
+            } else {
+                // connections in use are flushed when returned
+                for ( ConnectionHandler handler : allConnections ) {
+                    if ( allConnections.size() <= target ) {
+                        break;
+                    }
+                    if ( handler.setState( CHECKED_IN, FLUSH ) ) {
                         removeFromPool( handler );
                         metricsRepository.afterConnectionReap();
                         fireOnConnectionReap( listeners, handler );
-                    } else {
-                        handler.setState( CHECKED_IN );
-                        // for debug, something like: fireOnWarning( listeners,  "Connection " + handler.getConnection() + " used recently. Do not reap!" );
                     }
                 }
             }
+            fireOnPoolResize( listeners, current, target );
         }
     }
 
@@ -834,14 +1460,71 @@ public final class ConnectionPool implements Pool {
         @Override
         public void run() {
             fireBeforeConnectionDestroy( listeners, handler );
+            boolean destroyed = true;
             try {
                 fireOnConnectionDestroyInterceptor( interceptors, handler );
-                handler.closeConnection();
+                destroyed = handler.closeConnection();
             } catch ( SQLException e ) {
                 fireOnWarning( listeners, e );
             }
-            metricsRepository.afterConnectionDestroy();
-            fireOnConnectionDestroy( listeners, handler );
+            // accounted for once, on the transition to DESTROYED
+            if ( destroyed ) {
+                releaseBudget();
+                metricsRepository.afterConnectionDestroy();
+                fireOnConnectionDestroy( listeners, handler );
+            }
+        }
+    }
+
+    private void releaseBudget() {
+        if ( budgetShare != null ) {
+            budgetShare.release();
+        }
+    }
+
+    // --- connection budget //
+
+    private final class BudgetMember implements ConnectionBudget.Member {
+
+        @Override
+        public void reclaim() {
+            if ( !closed ) {
+                try {
+                    housekeepingExecutor.execute( new ReclaimTask() );
+                } catch ( RejectedExecutionException e ) {
+                    // pool is shutting down, and connections are given back anyway
+                }
+            }
+        }
+
+        @Override
+        public void available() {
+            synchronizer.releaseConditional();
+            handoffQueue.signal();
+        }
+    }
+
+    // Gives back idle connections to the connection budget. Connections in use are given back as they return to the pool.
+    private final class ReclaimTask implements Runnable {
+
+        @Override
+        public void run() {
+            for ( ConnectionHandler handler : allConnections ) {
+                if ( allConnections.size() <= configuration.minSize() ) {
+                    return;
+                }
+                // the reclaim is taken first, so that an idle connection is never made unavailable only to be put back
+                if ( !budgetShare.takeReclaim() ) {
+                    return;
+                }
+                if ( handler.setState( CHECKED_IN, FLUSH ) ) {
+                    removeFromPool( handler );
+                    metricsRepository.afterConnectionReap();
+                    fireOnConnectionReap( listeners, handler );
+                } else {
+                    budgetShare.putBackReclaim();
+                }
+            }
         }
     }
 }
@@ -0,0 +1,314 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceListener;
+import io.agroal.api.AgroalPoolInterceptor;
+import io.agroal.api.cache.LocalConnectionCache;
+import io.agroal.api.cache.SharedConnectionCache;
+import io.agroal.api.configuration.AgroalConnectionPoolConfiguration;
+import io.agroal.api.configuration.AgroalDataSourceConfiguration;
+import io.agroal.api.configuration.supplier.AgroalConnectionPoolConfigurationSupplier;
+import io.agroal.api.security.NamePrincipal;
+import io.agroal.api.security.SimplePassword;
+import io.agroal.pool.util.PriorityScheduledExecutor;
+import io.agroal.pool.util.TimingWheel;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.agroal.pool.util.ListenerHelper.fireOnInfo;
+import static java.lang.Runtime.getRuntime;
+import static java.lang.System.nanoTime;
+import static java.lang.Thread.currentThread;
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Pools for the credentials passed to {@link javax.sql.DataSource#getConnection(String, String)}, created on first use and closed once idle.
+ * The pools share one executor, and a maximum number of connections in use across all of them. There are at most as many pools as that maximum, the ones with no connections in use being closed to make room.
+ * A pool is registered once a connection is established with its credentials, so that failed attempts do not leave pools behind.
+ * The configuration does not allow a transaction integration together with these pools, as the connection enlisted in a transaction would be shared regardless of credentials.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+final class CredentialPools implements AutoCloseable {
+
+    private static final AtomicInteger CREDENTIAL_POOLS_COUNT = new AtomicInteger();
+
+    private final AgroalConnectionPoolConfiguration template;
+    private final AgroalDataSourceListener[] listeners;
+    private final int maxSize;
+    private final long idleTimeout;
+    private final Semaphore inUse;
+
+    private final PriorityScheduledExecutor executor;
+    private final TimingWheel.Timeout evictionTask;
+    private final ConcurrentMap<Credentials, CredentialPool> pools = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Credentials, CompletableFuture<CredentialPool>> pendingPools = new ConcurrentHashMap<>();
+
+    private volatile boolean metricsEnabled;
+    private volatile Collection<? extends AgroalPoolInterceptor> interceptors = emptyList();
+    private volatile boolean closed;
+
+    @SuppressWarnings( {"WeakerAccess", "StringConcatenation"} )
+    CredentialPools(AgroalDataSourceConfiguration configuration, AgroalDataSourceListener... listeners) {
+        template = configuration.connectionPoolConfiguration();
+        maxSize = configuration.credentialPoolsMaxSize();
+        idleTimeout = configuration.credentialPoolsIdleTimeout().toNanos();
+        inUse = new Semaphore( maxSize, true );
+
+        // connections in use are accounted for until they return to their pool
+        this.listeners = Arrays.copyOf( listeners, listeners.length + 1 );
+        this.listeners[listeners.length] = new AgroalDataSourceListener() {
+            @Override
+            public void beforeConnectionReturn(Connection connection) {
+                inUse.release();
+            }
+        };
+
+        executor = new PriorityScheduledExecutor( getRuntime().availableProcessors(), "agroal-credentials-" + CREDENTIAL_POOLS_COUNT.incrementAndGet() + "-", listeners );
+        evictionTask = TimingWheel.shared().scheduleAtFixedRate( this::evictIdle, idleTimeout / 2, NANOSECONDS, executor );
+    }
+
+    @SuppressWarnings( "StringConcatenation" )
+    Connection getConnection(String username, String password) throws SQLException {
+        if ( closed ) {
+            throw new SQLException( "This pool is closed and does not handle any more connections!" );
+        }
+        acquirePermit();
+        try {
+            Credentials credentials = new Credentials( username, password );
+            // touched within compute(), so that it can't be evicted in the meantime
+            CredentialPool pool = pools.computeIfPresent( credentials, (key, existing) -> existing.touch() );
+            return pool == null ? connect( credentials ) : pool.connectionPool.getConnection();
+        } catch ( SQLException | RuntimeException e ) {
+            inUse.release();
+            throw e;
+        }
+    }
+
+    // creates the pool for some credentials and registers it once a connection is established. concurrent attempts with the same credentials wait for the outcome
+    private Connection connect(Credentials credentials) throws SQLException {
+        CompletableFuture<CredentialPool> creation = new CompletableFuture<>();
+        CompletableFuture<CredentialPool> pending = pendingPools.putIfAbsent( credentials, creation );
+        if ( pending != null ) {
+            return awaitCreation( pending ).touch().connectionPool.getConnection();
+        }
+
+        CredentialPool pool = null;
+        try {
+            // registered by another attempt that completed in the meantime
+            CredentialPool registered = pools.computeIfPresent( credentials, (key, existing) -> existing.touch() );
+            if ( registered != null ) {
+                creation.complete( registered );
+                return registered.connectionPool.getConnection();
+            }
+            evictForRoom();
+            pool = new CredentialPool( credentials );
+            Connection connection = pool.connectionPool.getConnection();
+            pools.put( credentials, pool );
+            if ( closed ) {
+                pools.remove( credentials, pool );
+                throw new SQLException( "This pool is closed and does not handle any more connections!" );
+            }
+            creation.complete( pool );
+            return connection;
+        } catch ( SQLException | RuntimeException e ) {
+            if ( pool != null ) {
+                pool.connectionPool.close();
+            }
+            creation.completeExceptionally( e );
+            throw e;
+        } finally {
+            pendingPools.remove( credentials, creation );
+        }
+    }
+
+    private static CredentialPool awaitCreation(CompletableFuture<CredentialPool> creation) throws SQLException {
+        try {
+            return creation.get();
+        } catch ( InterruptedException e ) {
+            currentThread().interrupt();
+            throw new SQLException( "Interrupted while acquiring" );
+        } catch ( ExecutionException e ) {
+            throw e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException( e.getCause() );
+        }
+    }
+
+    // with as many pools as connections allowed in use, one of them has none in use, as the caller holds a permit
+    @SuppressWarnings( "StringConcatenation" )
+    private void evictForRoom() {
+        while ( pools.size() >= maxSize ) {
+            CredentialPool[] evicted = new CredentialPool[1];
+            for ( Credentials credentials : pools.keySet() ) {
+                pools.computeIfPresent( credentials, (key, pool) -> {
+                    if ( pool.connectionPool.activeCount() == 0 ) {
+                        evicted[0] = pool;
+                        return null;
+                    }
+                    return pool;
+                } );
+                if ( evicted[0] != null ) {
+                    evicted[0].connectionPool.close();
+                    fireOnInfo( listeners, "Closed pool for principal " + credentials.username + " to make room for other credentials" );
+                    break;
+                }
+            }
+            if ( evicted[0] == null ) {
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings( "StringConcatenation" )
+    private void acquirePermit() throws SQLException {
+        try {
+            long timeout = template.acquisitionTimeout().toNanos();
+            if ( timeout == 0 ) {
+                inUse.acquire();
+            } else if ( !inUse.tryAcquire( timeout, NANOSECONDS ) ) {
+                throw new SQLException( "Sorry, acquisition timeout! All " + maxSize + " connections for other credentials are in use" );
+            }
+        } catch ( InterruptedException e ) {
+            currentThread().interrupt();
+            throw new SQLException( "Interrupted while acquiring" );
+        }
+    }
+
+    @SuppressWarnings( "StringConcatenation" )
+    private void evictIdle() {
+        long now = nanoTime();
+        for ( Credentials credentials : pools.keySet() ) {
+            CredentialPool[] evicted = new CredentialPool[1];
+            pools.computeIfPresent( credentials, (key, pool) -> {
+                if ( pool.connectionPool.activeCount() == 0 && now - pool.lastUse > idleTimeout ) {
+                    evicted[0] = pool;
+                    return null;
+                }
+                return pool;
+            } );
+            if ( evicted[0] != null ) {
+                evicted[0].connectionPool.close();
+                fireOnInfo( listeners, "Closed idle pool for principal " + credentials.username );
+            }
+        }
+    }
+
+    // --- //
+
+    void onMetricsEnabled(boolean enabled) {
+        metricsEnabled = enabled;
+        for ( CredentialPool pool : pools.values() ) {
+            pool.connectionPool.onMetricsEnabled( enabled );
+        }
+    }
+
+    void setPoolInterceptors(Collection<? extends AgroalPoolInterceptor> list) {
+        interceptors = list;
+        for ( CredentialPool pool : pools.values() ) {
+            pool.connectionPool.setPoolInterceptors( list );
+        }
+    }
+
+    void flush(AgroalDataSource.FlushMode mode) {
+        for ( CredentialPool pool : pools.values() ) {
+            pool.connectionPool.flushPool( mode );
+        }
+    }
+
+    /**
+     * Number of pools, one for each of the credentials currently in use.
+     */
+    int size() {
+        return pools.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictionTask.cancel();
+        for ( CredentialPool pool : pools.values() ) {
+            pool.connectionPool.close();
+        }
+        pools.clear();
+        // runs the tasks in queue, that may be destroying connections, before terminating
+        executor.shutdown();
+    }
+
+    // --- //
+
+    private final class CredentialPool {
+
+        private final ConnectionPool connectionPool;
+        private volatile long lastUse = nanoTime();
+
+        @SuppressWarnings( "WeakerAccess" )
+        CredentialPool(Credentials credentials) {
+            connectionPool = new ConnectionPool( configuration( credentials ), executor, listeners );
+            connectionPool.onMetricsEnabled( metricsEnabled );
+            connectionPool.setPoolInterceptors( interceptors );
+            connectionPool.init();
+        }
+
+        // the pool of the data source with other credentials, that does not keep connections when idle
+        private AgroalConnectionPoolConfiguration configuration(Credentials credentials) {
+            return new AgroalConnectionPoolConfigurationSupplier( template )
+                    .connectionCache( LocalConnectionCache.single() )
+                    .virtualThreadConnectionCache( SharedConnectionCache.perProcessor() )
+                    .initialSize( 0 )
+                    .minSize( 0 )
+                    .maxSize( Math.min( template.maxSize(), maxSize ) )
+                    .connectionFactoryConfiguration( cf -> {
+                        cf.clearCredentials().principal( new NamePrincipal( credentials.username ) );
+                        return credentials.password == null ? cf : cf.credential( new SimplePassword( credentials.password ) );
+                    } )
+                    .get();
+        }
+
+        private CredentialPool touch() {
+            lastUse = nanoTime();
+            return this;
+        }
+    }
+
+    private static final class Credentials {
+
+        private final String username;
+        private final String password;
+
+        @SuppressWarnings( "WeakerAccess" )
+        Credentials(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( !( o instanceof Credentials ) ) {
+                return false;
+            }
+            Credentials other = (Credentials) o;
+            return Objects.equals( username, other.username ) && Objects.equals( password, other.password );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash( username, password );
+        }
+    }
+}
@@ -13,8 +13,10 @@ import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 import java.util.logging.Logger;
 
 import static java.util.Collections.emptyList;
@@ -28,6 +30,7 @@ public final class DataSource implements AgroalDataSource {
 
     private final AgroalDataSourceConfiguration configuration;
     private final Pool connectionPool;
+    private final CredentialPools credentialPools;
 
     public DataSource(AgroalDataSourceConfiguration dataSourceConfiguration, AgroalDataSourceListener... listeners) {
         configuration = dataSourceConfiguration;
@@ -37,16 +40,30 @@ public final class DataSource implements AgroalDataSource {
             connectionPool = new ConnectionPool( dataSourceConfiguration.connectionPoolConfiguration(), listeners );
         }
 
-        dataSourceConfiguration.registerMetricsEnabledListener( connectionPool );
-        connectionPool.onMetricsEnabled( dataSourceConfiguration.metricsEnabled() );
+        credentialPools = dataSourceConfiguration.credentialPoolsMaxSize() > 0 ? new CredentialPools( dataSourceConfiguration, listeners ) : null;
+
+        // there is room for a single listener on the configuration
+        dataSourceConfiguration.registerMetricsEnabledListener( this::onMetricsEnabled );
+        onMetricsEnabled( dataSourceConfiguration.metricsEnabled() );
         connectionPool.init();
     }
 
+    private void onMetricsEnabled(boolean metricsEnabled) {
+        connectionPool.onMetricsEnabled( metricsEnabled );
+        if ( credentialPools != null ) {
+            credentialPools.onMetricsEnabled( metricsEnabled );
+        }
+    }
+
     // --- AgroalDataSource methods //
 
     @Override
     public void setPoolInterceptors(Collection<? extends AgroalPoolInterceptor> interceptors) {
-        connectionPool.setPoolInterceptors( interceptors == null ? emptyList() : interceptors );
+        Collection<? extends AgroalPoolInterceptor> list = interceptors == null ? emptyList() : interceptors;
+        connectionPool.setPoolInterceptors( list );
+        if ( credentialPools != null ) {
+            credentialPools.setPoolInterceptors( list );
+        }
     }
 
     @Override
@@ -67,6 +84,9 @@ public final class DataSource implements AgroalDataSource {
     @Override
     public void flush(FlushMode mode) {
         connectionPool.flushPool( mode );
+        if ( credentialPools != null ) {
+            credentialPools.flush( mode );
+        }
     }
 
     @Override
@@ -74,9 +94,17 @@ public final class DataSource implements AgroalDataSource {
         return connectionPool.isHealthy( newConnection );
     }
 
+    @Override
+    public CompletionStage<Connection> getConnectionAsync(Duration timeout) {
+        return connectionPool.getConnectionAsync( timeout );
+    }
+
     @Override
     public void close() {
         connectionPool.close();
+        if ( credentialPools != null ) {
+            credentialPools.close();
+        }
     }
 
     // --- DataSource methods //
@@ -86,8 +114,18 @@ public final class DataSource implements AgroalDataSource {
         return connectionPool.getConnection();
     }
 
+    /**
+     * Connections for other credentials come from a pool for those credentials, if enabled with {@link AgroalDataSourceConfiguration#credentialPoolsMaxSize()}.
+     * These are not supported together with a transaction integration.
+     */
     @Override
     public Connection getConnection(String username, String password) throws SQLException {
+        if ( username == null && password == null ) {
+            return getConnection();
+        }
+        if ( credentialPools != null ) {
+            return credentialPools.getConnection( username, password );
+        }
         throw new SQLException( "username and password combination invalid on a pooled data source!" );
     }
 
@@ -10,6 +10,8 @@ import io.agroal.api.configuration.AgroalDataSourceConfiguration;
 
 import static io.agroal.api.configuration.AgroalDataSourceConfiguration.DataSourceImplementation.AGROAL;
 import static io.agroal.api.configuration.AgroalDataSourceConfiguration.DataSourceImplementation.AGROAL_POOLLESS;
+import static io.agroal.api.configuration.AgroalDataSourceConfiguration.DataSourceImplementation.AGROAL_ROUTING;
+import static io.agroal.api.configuration.AgroalDataSourceConfiguration.DataSourceImplementation.AGROAL_SHARDED;
 
 /**
  * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
@@ -18,6 +20,12 @@ public final class DataSourceProvider implements AgroalDataSourceProvider {
 
     @Override
     public AgroalDataSource getDataSource(AgroalDataSourceConfiguration config, AgroalDataSourceListener... listeners) {
+        if ( config.dataSourceImplementation() == AGROAL_ROUTING ) {
+            return new RoutingDataSource( config, listeners );
+        }
+        if ( config.dataSourceImplementation() == AGROAL_SHARDED ) {
+            return new ShardedDataSource( config, listeners );
+        }
         return config.dataSourceImplementation() == AGROAL || config.dataSourceImplementation() == AGROAL_POOLLESS ? new DataSource( config, listeners ) : null;
     }
 }
@@ -1,14 +1,18 @@
 package io.agroal.pool;
 
+import io.agroal.pool.util.StatementMetricsRegistry;
+
 import java.text.MessageFormat;
 import java.time.Duration;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.atomic.LongAccumulator;
 import java.util.concurrent.atomic.LongAdder;
 
 import static java.lang.System.nanoTime;
 import static java.time.Duration.ZERO;
 import static java.time.Duration.ofNanos;
+import static java.util.Collections.emptyMap;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
@@ -21,6 +25,9 @@ public final class DefaultMetricsRepository implements MetricsRepository {
     private static final String FORMAT_3 = "Created duration: {0,number,000.000}ms average | {1}ms max | {2}ms total";
     private static final String FORMAT_4 = "Acquire duration: {0,number,000.000}ms average | {1}ms max | {2}ms total";
     private static final String FORMAT_5 = "Threads awaiting: {0}";
+    private static final String FORMAT_6 = "Housekeeping: {0} runs | {1}ms cpu | {2} bytes allocated";
+    private static final String FORMAT_7 = "Statement cache: {0} hit | {1} miss | {2} evicted";
+    private static final String FORMAT_8 = "Statement metrics: {0} statements";
 
     private final Pool connectionPool;
     private final LongAdder creationCount = new LongAdder();
@@ -33,11 +40,22 @@ public final class DefaultMetricsRepository implements MetricsRepository {
     private final LongAdder flushCount = new LongAdder();
     private final LongAdder reapCount = new LongAdder();
     private final LongAdder destroyCount = new LongAdder();
+    private final LongAdder housekeepingCount = new LongAdder();
+    private final LongAdder housekeepingCpuTime = new LongAdder();
+    private final LongAdder housekeepingAllocatedBytes = new LongAdder();
+    private final LongAdder statementCacheHitCount = new LongAdder();
+    private final LongAdder statementCacheMissCount = new LongAdder();
+    private final LongAdder statementCacheEvictionCount = new LongAdder();
     private final LongAccumulator maxCreatedDuration = new LongAccumulator( Long::max, 0 );
     private final LongAccumulator maxAcquireDuration = new LongAccumulator( Long::max, 0 );
 
+    // null if statement metrics are disabled
+    private final StatementMetricsRegistry statementMetricsRegistry;
+
     public DefaultMetricsRepository(Pool pool) {
         connectionPool = pool;
+        int statementMetricsLimit = pool.getConfiguration().connectionFactoryConfiguration().statementMetricsLimit();
+        statementMetricsRegistry = statementMetricsLimit > 0 ? new StatementMetricsRegistry( statementMetricsLimit ) : null;
     }
 
     @Override
@@ -96,6 +114,33 @@ public final class DefaultMetricsRepository implements MetricsRepository {
         destroyCount.increment();
     }
 
+    @Override
+    public void afterHousekeeping(long cpuTime, long allocatedBytes) {
+        housekeepingCount.increment();
+        housekeepingCpuTime.add( cpuTime );
+        housekeepingAllocatedBytes.add( allocatedBytes );
+    }
+
+    @Override
+    public void afterStatementCacheHit() {
+        statementCacheHitCount.increment();
+    }
+
+    @Override
+    public void afterStatementCacheMiss() {
+        statementCacheMissCount.increment();
+    }
+
+    @Override
+    public void afterStatementCacheEviction() {
+        statementCacheEvictionCount.increment();
+    }
+
+    @Override
+    public StatementMetricsRegistry.Recorder statementRecorder(String sql) {
+        return statementMetricsRegistry == null ? null : statementMetricsRegistry.recorder( sql );
+    }
+
     // --- //
 
     @Override
@@ -189,6 +234,41 @@ public final class DefaultMetricsRepository implements MetricsRepository {
         return connectionPool.awaitingCount();
     }
 
+    @Override
+    public long housekeepingCount() {
+        return housekeepingCount.longValue();
+    }
+
+    @Override
+    public Duration housekeepingCpuTime() {
+        return ofNanos( housekeepingCpuTime.longValue() );
+    }
+
+    @Override
+    public long housekeepingAllocatedBytes() {
+        return housekeepingAllocatedBytes.longValue();
+    }
+
+    @Override
+    public long statementCacheHitCount() {
+        return statementCacheHitCount.longValue();
+    }
+
+    @Override
+    public long statementCacheMissCount() {
+        return statementCacheMissCount.longValue();
+    }
+
+    @Override
+    public long statementCacheEvictionCount() {
+        return statementCacheEvictionCount.longValue();
+    }
+
+    @Override
+    public Map<String, StatementMetrics> statementMetrics() {
+        return statementMetricsRegistry == null ? emptyMap() : statementMetricsRegistry.statementMetrics();
+    }
+
     // --- //
 
     @Override
@@ -199,6 +279,15 @@ public final class DefaultMetricsRepository implements MetricsRepository {
         acquireTotalTime.reset();
         leakDetectionCount.reset();
         invalidCount.reset();
+        housekeepingCount.reset();
+        housekeepingCpuTime.reset();
+        housekeepingAllocatedBytes.reset();
+        statementCacheHitCount.reset();
+        statementCacheMissCount.reset();
+        statementCacheEvictionCount.reset();
+        if ( statementMetricsRegistry != null ) {
+            statementMetricsRegistry.reset();
+        }
 
         maxCreatedDuration.reset();
         maxAcquireDuration.reset();
@@ -221,6 +310,9 @@ public final class DefaultMetricsRepository implements MetricsRepository {
         new MessageFormat( FORMAT_3, Locale.ROOT ).format( new Object[]{avgCreationMs, creationTimeMax().toMillis(), creationTimeTotal().toMillis()}, buffer, null ).append( nl );
         new MessageFormat( FORMAT_4, Locale.ROOT ).format( new Object[]{avgBlockingMs, blockingTimeMax().toMillis(), blockingTimeTotal().toMillis()}, buffer, null ).append( nl );
         new MessageFormat( FORMAT_5, Locale.ROOT ).format( new Object[]{awaitingCount()}, buffer, null ).append( nl );
+        new MessageFormat( FORMAT_6, Locale.ROOT ).format( new Object[]{housekeepingCount, housekeepingCpuTime().toMillis(), housekeepingAllocatedBytes}, buffer, null ).append( nl );
+        new MessageFormat( FORMAT_7, Locale.ROOT ).format( new Object[]{statementCacheHitCount, statementCacheMissCount, statementCacheEvictionCount}, buffer, null ).append( nl );
+        new MessageFormat( FORMAT_8, Locale.ROOT ).format( new Object[]{statementMetrics().size()}, buffer, null ).append( nl );
         return buffer.append( "===" ).toString();
     }
 }
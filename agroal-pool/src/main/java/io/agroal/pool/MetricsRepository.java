@@ -4,6 +4,7 @@
 package io.agroal.pool;
 
 import io.agroal.api.AgroalDataSourceMetrics;
+import io.agroal.pool.util.StatementMetricsRegistry;
 
 /**
  * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
@@ -42,6 +43,25 @@ public interface MetricsRepository extends AgroalDataSourceMetrics {
     default void afterConnectionDestroy() {
     }
 
+    default void afterHousekeeping(long cpuTime, long allocatedBytes) {
+    }
+
+    default void afterStatementCacheHit() {
+    }
+
+    default void afterStatementCacheMiss() {
+    }
+
+    default void afterStatementCacheEviction() {
+    }
+
+    /**
+     * Where the executions of a SQL statement are recorded. null if not recorded.
+     */
+    default StatementMetricsRegistry.Recorder statementRecorder(String sql) {
+        return null;
+    }
+
     // --- //
 
     final class EmptyMetricsRepository implements MetricsRepository {
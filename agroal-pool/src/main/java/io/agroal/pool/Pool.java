@@ -5,16 +5,18 @@ package io.agroal.pool;
 
 import io.agroal.api.AgroalDataSource.FlushMode;
 import io.agroal.api.AgroalDataSourceListener;
-import io.agroal.api.AgroalDataSourceMetrics;
 import io.agroal.api.AgroalPoolInterceptor;
 import io.agroal.api.configuration.AgroalConnectionPoolConfiguration;
 import io.agroal.api.configuration.AgroalDataSourceConfiguration.MetricsEnabledListener;
 import io.agroal.api.transaction.TransactionIntegration.ResourceRecoveryFactory;
+import io.agroal.pool.util.TimingWheel;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 /**
  * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
@@ -25,9 +27,11 @@ public interface Pool extends MetricsEnabledListener, AutoCloseable, ResourceRec
 
     Connection getConnection() throws SQLException;
 
+    CompletionStage<Connection> getConnectionAsync(Duration timeout);
+
     AgroalConnectionPoolConfiguration getConfiguration();
 
-    AgroalDataSourceMetrics getMetrics();
+    MetricsRepository getMetrics();
 
     AgroalDataSourceListener[] getListeners();
 
@@ -43,6 +47,11 @@ public interface Pool extends MetricsEnabledListener, AutoCloseable, ResourceRec
 
     int defaultJdbcIsolationLevel();
 
+    /**
+     * Schedules the cancellation of a statement once the query timeout (in nanoseconds) expires. Returns null if the pool does not enforce query timeouts.
+     */
+    TimingWheel.Timeout scheduleQueryTimeout(Runnable cancellation, long timeout);
+
     @Override
     void close();
 
@@ -10,13 +10,20 @@ import io.agroal.api.configuration.AgroalConnectionPoolConfiguration;
 import io.agroal.api.transaction.TransactionIntegration;
 import io.agroal.pool.MetricsRepository.EmptyMetricsRepository;
 import io.agroal.pool.util.AgroalSynchronizer;
+import io.agroal.pool.util.HandoffQueue;
+import io.agroal.pool.util.PriorityScheduledExecutor;
 import io.agroal.pool.util.StampedCopyOnWriteArrayList;
+import io.agroal.pool.util.TimingWheel;
 
 import javax.sql.XAConnection;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.LongAccumulator;
 import java.util.function.Function;
@@ -27,6 +34,7 @@ import static io.agroal.api.configuration.AgroalConnectionPoolConfiguration.Mult
 import static io.agroal.pool.ConnectionHandler.State.CHECKED_OUT;
 import static io.agroal.pool.ConnectionHandler.State.FLUSH;
 import static io.agroal.pool.ConnectionHandler.State.VALIDATION;
+import static io.agroal.pool.util.CompletionHelper.completeAsync;
 import static io.agroal.pool.util.InterceptorHelper.fireOnConnectionAcquiredInterceptor;
 import static io.agroal.pool.util.InterceptorHelper.fireOnConnectionCreateInterceptor;
 import static io.agroal.pool.util.InterceptorHelper.fireOnConnectionDestroyInterceptor;
@@ -51,24 +59,29 @@ import static java.lang.System.nanoTime;
 import static java.lang.Thread.currentThread;
 import static java.util.Arrays.copyOfRange;
 import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.stream.Collectors.toList;
 
 /**
  * Alternative implementation of ConnectionPool for the special case of flush-on-close (and min-size == 0)
- * In particular, this removes the need for the executor. Also, there is no thread-local connection cache as connections are not reused
+ * In particular, this removes the need for housekeeping, and the executor only establishes connections for asynchronous acquisition. Also, there is no thread-local connection cache as connections are not reused
  *
  * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
  */
 public final class Poolless implements Pool {
 
+    private static final AtomicInteger POOLLESS_COUNT = new AtomicInteger();
+
     private final AgroalConnectionPoolConfiguration configuration;
     private final AgroalDataSourceListener[] listeners;
 
     private final StampedCopyOnWriteArrayList<ConnectionHandler> allConnections;
 
     private final AgroalSynchronizer synchronizer;
+    private final HandoffQueue<Void> handoffQueue;
     private final ConnectionFactory connectionFactory;
     private final TransactionIntegration transactionIntegration;
+    private final PriorityScheduledExecutor asyncExecutor;
 
     private final LongAccumulator maxUsed = new LongAccumulator( Math::max, Long.MIN_VALUE );
     private final AtomicInteger activeCount = new AtomicInteger();
@@ -84,8 +97,11 @@ public final class Poolless implements Pool {
         allConnections = new StampedCopyOnWriteArrayList<>( ConnectionHandler.class );
 
         synchronizer = new AgroalSynchronizer();
+        handoffQueue = new HandoffQueue<>();
         connectionFactory = new ConnectionFactory( configuration.connectionFactoryConfiguration(), listeners );
         transactionIntegration = configuration.transactionIntegration();
+        // threads are only started on the first asynchronous acquisition
+        asyncExecutor = new PriorityScheduledExecutor( configuration.creationConcurrency(), "agroal-poolless-" + POOLLESS_COUNT.incrementAndGet() + "-", listeners );
     }
 
     private TransactionIntegration.ResourceRecoveryFactory getResourceRecoveryFactory() {
@@ -114,6 +130,9 @@ public final class Poolless implements Pool {
         if ( configuration.minSize() != 0 ) {
             fireOnInfo( listeners, "Min size always zero in pool-less mode" );
         }
+        if ( !configuration.connectionFactoryConfiguration().queryTimeout().isZero() ) {
+            fireOnInfo( listeners, "Query timeout not supported in pool-less mode" );
+        }
         if (configuration.recoveryEnable()) {
             transactionIntegration.addResourceRecoveryFactory(getResourceRecoveryFactory());
         }
@@ -127,6 +146,12 @@ public final class Poolless implements Pool {
         return connectionFactory.defaultJdbcIsolationLevel();
     }
 
+    @Override
+    public TimingWheel.Timeout scheduleQueryTimeout(Runnable cancellation, long timeout) {
+        // there is no executor to run the cancellation
+        return null;
+    }
+
     public AgroalDataSourceListener[] getListeners() {
         return listeners;
     }
@@ -172,6 +197,7 @@ public final class Poolless implements Pool {
             transactionIntegration.removeResourceRecoveryFactory(getResourceRecoveryFactory());
         }
         shutdown = true;
+        asyncExecutor.shutdown();
 
         for ( ConnectionHandler handler : allConnections ) {
             handler.setState( FLUSH );
@@ -180,6 +206,7 @@ public final class Poolless implements Pool {
         allConnections.clear();
 
         synchronizer.release( synchronizer.getQueueLength() );
+        handoffQueue.signalAll();
     }
 
     // --- //
@@ -238,6 +265,19 @@ public final class Poolless implements Pool {
         }
     }
 
+    @Override
+    public CompletionStage<Connection> getConnectionAsync(Duration timeout) {
+        CompletableFuture<Connection> future = new CompletableFuture<>();
+        try {
+            long stamp = beforeAcquire();
+            checkMultipleAcquisition();
+            new AsyncAcquisition( future, stamp ).start( timeout );
+        } catch ( SQLException e ) {
+            future.completeExceptionally( e );
+        }
+        return completeAsync( future );
+    }
+
     private ConnectionHandler handlerFromTransaction() throws SQLException {
         return (ConnectionHandler) transactionIntegration.getTransactionAware();
     }
@@ -278,6 +318,12 @@ public final class Poolless implements Pool {
 
     @SuppressWarnings( "SingleCharacterStringConcatenation" )
     private void afterAcquire(long metricsStamp, ConnectionHandler checkedOutHandler, boolean verifyEnlistment) throws SQLException {
+        afterAcquire( metricsStamp, checkedOutHandler, verifyEnlistment, currentThread() );
+    }
+
+    // the requester is the thread that asked for the connection, that on asynchronous acquisition may not be the current thread
+    @SuppressWarnings( "SingleCharacterStringConcatenation" )
+    private void afterAcquire(long metricsStamp, ConnectionHandler checkedOutHandler, boolean verifyEnlistment, Thread requester) throws SQLException {
         metricsRepository.afterConnectionAcquire( metricsStamp );
         fireOnConnectionAcquired( listeners, checkedOutHandler );
 
@@ -293,16 +339,16 @@ public final class Poolless implements Pool {
             }
         }
         if ( !configuration.leakTimeout().isZero() || configuration.multipleAcquisition() != OFF ) {
-            if ( checkedOutHandler.getHoldingThread() != null && checkedOutHandler.getHoldingThread() != currentThread() ) {
-                Throwable warn = new Throwable( "Shared connection between threads '" + checkedOutHandler.getHoldingThread().getName() + "' and '" + currentThread().getName() + "'" );
+            if ( checkedOutHandler.getHoldingThread() != null && checkedOutHandler.getHoldingThread() != requester ) {
+                Throwable warn = new Throwable( "Shared connection between threads '" + checkedOutHandler.getHoldingThread().getName() + "' and '" + requester.getName() + "'" );
                 warn.setStackTrace( checkedOutHandler.getHoldingThread().getStackTrace() );
                 fireOnWarning( listeners, warn );
             }
-            checkedOutHandler.setHoldingThread( currentThread() );
+            checkedOutHandler.setHoldingThread( requester );
             checkedOutHandler.touch();
-            if ( configuration.enhancedLeakReport() ) {
+            if ( configuration.enhancedLeakReport() && requester == currentThread() ) {
                 StackTraceElement[] stackTrace = currentThread().getStackTrace();
-                checkedOutHandler.setAcquisitionStackTrace( copyOfRange( stackTrace, 4, stackTrace.length ) );
+                checkedOutHandler.setAcquisitionStackTrace( copyOfRange( stackTrace, 5, stackTrace.length ) );
             }
         }
     }
@@ -350,7 +396,7 @@ public final class Poolless implements Pool {
     }
 
     public long awaitingCount() {
-        return synchronizer.getQueueLength();
+        return synchronizer.getQueueLength() + handoffQueue.waiterCount();
     }
 
     // --- health check //
@@ -378,6 +424,132 @@ public final class Poolless implements Pool {
         }
     }
 
+    // --- async acquisition //
+
+    // State of an asynchronous acquisition. Instead of a parked thread, waits in the handoff queue to be signaled by the thread that flushes a connection, freeing room for a new one
+    private final class AsyncAcquisition {
+
+        private final CompletableFuture<Connection> future;
+        private final long metricsStamp;
+        private final Thread requester;
+        private final StackTraceElement[] requestStackTrace;
+
+        private volatile HandoffQueue<Void>.Waiter waiter;
+
+        @SuppressWarnings( "WeakerAccess" )
+        AsyncAcquisition(CompletableFuture<Connection> future, long metricsStamp) {
+            this.future = future;
+            this.metricsStamp = metricsStamp;
+            this.requester = currentThread();
+            this.requestStackTrace = configuration.enhancedLeakReport() && ( !configuration.leakTimeout().isZero() || configuration.multipleAcquisition() != OFF ) ? currentThread().getStackTrace() : null;
+        }
+
+        @SuppressWarnings( "WeakerAccess" )
+        void start(Duration timeout) {
+            if ( !timeout.isZero() ) {
+                TimingWheel.Timeout timeoutTask = TimingWheel.shared().schedule( this::timeout, timeout.toNanos(), NANOSECONDS, asyncExecutor );
+                future.whenComplete( (connection, throwable) -> timeoutTask.cancel() );
+            }
+            // on timeout or cancellation stop waiting for a connection
+            future.whenComplete( (connection, throwable) -> {
+                if ( throwable != null ) {
+                    cancelWaiter();
+                }
+            } );
+            attempt();
+        }
+
+        private void attempt() {
+            for ( ; ; ) {
+                if ( future.isDone() ) {
+                    return;
+                }
+                if ( shutdown ) {
+                    future.completeExceptionally( new SQLException( "Can't create new connection as the pool is shutting down" ) );
+                    return;
+                }
+                // Try to get a "token" to create a new connection. The connection is established on the executor and not on the thread that made room for it.
+                if ( activeCount.incrementAndGet() <= configuration.maxSize() ) {
+                    try {
+                        asyncExecutor.execute( this::createConnection );
+                    } catch ( RejectedExecutionException e ) {
+                        releaseToken();
+                        future.completeExceptionally( new SQLException( "Can't create new connection as the pool is shutting down", e ) );
+                    }
+                    return;
+                } else {
+                    activeCount.decrementAndGet();
+                }
+
+                HandoffQueue<Void>.Waiter registered = handoffQueue.enqueue( this::signaled );
+                waiter = registered;
+
+                // Check again after enqueue, as a connection may have been flushed in the meantime without noticing this waiter
+                if ( ( activeCount.get() < configuration.maxSize() || future.isDone() || shutdown ) && handoffQueue.cancel( registered ) ) {
+                    continue;
+                }
+                return;
+            }
+        }
+
+        private void signaled(Void ignored) {
+            if ( future.isDone() ) {
+                // pass the signal along to a waiter that still needs it
+                handoffQueue.signal();
+            } else {
+                attempt();
+            }
+        }
+
+        private void createConnection() {
+            if ( future.isDone() ) {
+                releaseToken();
+                return;
+            }
+            ConnectionHandler handler;
+            try {
+                handler = Poolless.this.createConnection();
+            } catch ( Throwable t ) {
+                releaseToken();
+                future.completeExceptionally( t );
+                return;
+            }
+            try {
+                fireOnConnectionAcquiredInterceptor( interceptors, handler );
+                afterAcquire( metricsStamp, handler, false, requester );
+                if ( requestStackTrace != null ) {
+                    handler.setAcquisitionStackTrace( requestStackTrace );
+                }
+
+                Connection connection = handler.connectionWrapper();
+                if ( !future.complete( connection ) ) {
+                    // timeout or cancellation in the meantime
+                    connection.close();
+                }
+            } catch ( Throwable t ) {
+                flushHandler( handler );
+                future.completeExceptionally( t );
+            }
+        }
+
+        private void releaseToken() {
+            activeCount.decrementAndGet();
+            synchronizer.releaseConditional();
+            handoffQueue.signal();
+        }
+
+        private void timeout() {
+            future.completeExceptionally( new SQLException( "Sorry, acquisition timeout!" ) );
+        }
+
+        private void cancelWaiter() {
+            HandoffQueue<Void>.Waiter registered = waiter;
+            if ( registered != null ) {
+                handoffQueue.cancel( registered );
+            }
+        }
+    }
+
     // --- create //
 
     private ConnectionHandler createConnection() throws SQLException {
@@ -385,7 +557,7 @@ public final class Poolless implements Pool {
         long metricsStamp = metricsRepository.beforeConnectionCreation();
 
         try {
-            ConnectionHandler handler = new ConnectionHandler( connectionFactory.createConnection(), this );
+            ConnectionHandler handler = connectionFactory.createConnection( this );
             metricsRepository.afterConnectionCreation( metricsStamp );
 
             fireOnConnectionCreation( listeners, handler );
@@ -427,6 +599,7 @@ public final class Poolless implements Pool {
         allConnections.remove( handler );
         activeCount.decrementAndGet();
         synchronizer.releaseConditional();
+        handoffQueue.signal();
         metricsRepository.afterConnectionFlush();
         fireOnConnectionFlush( listeners, handler );
         destroyConnection( handler );
@@ -0,0 +1,261 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool;
+
+import io.agroal.api.AgroalDataSourceListener;
+import io.agroal.api.AgroalDataSourceMetrics;
+import io.agroal.api.AgroalPoolInterceptor;
+import io.agroal.api.RoutingAgroalDataSource;
+import io.agroal.api.configuration.AgroalConnectionPoolConfiguration;
+import io.agroal.api.configuration.AgroalDataSourceConfiguration;
+import io.agroal.pool.wrapper.RoutingConnection;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+import static java.lang.System.nanoTime;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Data source with one pool for the primary and one for each of the read replicas.
+ * Connections go to a replica when acquired within a {@link #readOnlyScope()}, and to the primary otherwise.
+ * With {@link AgroalDataSourceConfiguration#lazyRouting()} connections are acquired on first use instead, and also go to a replica when set read-only before that.
+ * The replica is the one with fewer active connections, with ties broken by the lowest acquisition latency.
+ * Replicas are not supported with a transaction integration.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class RoutingDataSource implements RoutingAgroalDataSource {
+
+    private static final long serialVersionUID = 2617498731651271304L;
+
+    // weight of a new sample in the moving average of the acquisition latency is 1 / 2^LATENCY_SHIFT
+    private static final int LATENCY_SHIFT = 3;
+
+    private final AgroalDataSourceConfiguration configuration;
+    private final Pool primary;
+    private final Pool[] replicas;
+    private final AtomicLongArray replicaLatency;
+    private final RoutingConnection.Router router = this::route;
+    private final boolean lazyRouting;
+
+    @SuppressWarnings( "ThreadLocalNotStaticFinal" )
+    private final ThreadLocal<Boolean> readOnlyScope = new ThreadLocal<>();
+
+    public RoutingDataSource(AgroalDataSourceConfiguration dataSourceConfiguration, AgroalDataSourceListener... listeners) {
+        configuration = dataSourceConfiguration;
+        primary = new ConnectionPool( dataSourceConfiguration.connectionPoolConfiguration(), listeners );
+
+        List<AgroalConnectionPoolConfiguration> replicaConfigurations = dataSourceConfiguration.replicaPoolConfigurations();
+        replicas = new Pool[replicaConfigurations.size()];
+        for ( int i = 0; i < replicas.length; i++ ) {
+            replicas[i] = new ConnectionPool( replicaConfigurations.get( i ), listeners );
+        }
+        replicaLatency = new AtomicLongArray( replicas.length );
+        lazyRouting = dataSourceConfiguration.lazyRouting();
+
+        // there is room for a single listener on the configuration
+        dataSourceConfiguration.registerMetricsEnabledListener( this::onMetricsEnabled );
+        onMetricsEnabled( dataSourceConfiguration.metricsEnabled() );
+
+        primary.init();
+        for ( Pool replica : replicas ) {
+            replica.init();
+        }
+    }
+
+    private void onMetricsEnabled(boolean metricsEnabled) {
+        primary.onMetricsEnabled( metricsEnabled );
+        for ( Pool replica : replicas ) {
+            replica.onMetricsEnabled( metricsEnabled );
+        }
+    }
+
+    // --- routing //
+
+    @Override
+    public ReadOnlyScope readOnlyScope() {
+        Boolean previous = readOnlyScope.get();
+        readOnlyScope.set( Boolean.TRUE );
+        return () -> {
+            if ( previous == null ) {
+                readOnlyScope.remove();
+            } else {
+                readOnlyScope.set( previous );
+            }
+        };
+    }
+
+    private boolean inReadOnlyScope() {
+        return readOnlyScope.get() != null;
+    }
+
+    private Connection route(boolean readOnly) throws SQLException {
+        if ( !readOnly || replicas.length == 0 ) {
+            return primary.getConnection();
+        }
+        int replica = selectReplica();
+        long start = nanoTime();
+        try {
+            return replicas[replica].getConnection();
+        } finally {
+            // a failed acquisition is also accounted for, so that an unresponsive replica is avoided
+            long latency = replicaLatency.get( replica );
+            replicaLatency.lazySet( replica, latency + ( ( nanoTime() - start - latency ) >> LATENCY_SHIFT ) );
+        }
+    }
+
+    private int selectReplica() {
+        int selected = 0;
+        long selectedActive = replicas[0].activeCount();
+        for ( int i = 1; i < replicas.length; i++ ) {
+            long active = replicas[i].activeCount();
+            if ( active < selectedActive || active == selectedActive && replicaLatency.get( i ) < replicaLatency.get( selected ) ) {
+                selected = i;
+                selectedActive = active;
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public List<AgroalDataSourceMetrics> getReplicaMetrics() {
+        List<AgroalDataSourceMetrics> metrics = new ArrayList<>( replicas.length );
+        for ( Pool replica : replicas ) {
+            metrics.add( replica.getMetrics() );
+        }
+        return unmodifiableList( metrics );
+    }
+
+    // --- AgroalDataSource methods //
+
+    @Override
+    public void setPoolInterceptors(Collection<? extends AgroalPoolInterceptor> interceptors) {
+        Collection<? extends AgroalPoolInterceptor> list = interceptors == null ? emptyList() : interceptors;
+        primary.setPoolInterceptors( list );
+        for ( Pool replica : replicas ) {
+            replica.setPoolInterceptors( list );
+        }
+    }
+
+    @Override
+    public List<AgroalPoolInterceptor> getPoolInterceptors() {
+        return primary.getPoolInterceptors();
+    }
+
+    @Override
+    public AgroalDataSourceConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Metrics of the pool of the primary. See {@link #getReplicaMetrics()} for the ones of the replicas.
+     */
+    @Override
+    public AgroalDataSourceMetrics getMetrics() {
+        return primary.getMetrics();
+    }
+
+    @Override
+    public void flush(FlushMode mode) {
+        primary.flushPool( mode );
+        for ( Pool replica : replicas ) {
+            replica.flushPool( mode );
+        }
+    }
+
+    @Override
+    public boolean isHealthy(boolean newConnection) throws SQLException {
+        if ( !primary.isHealthy( newConnection ) ) {
+            return false;
+        }
+        for ( Pool replica : replicas ) {
+            if ( !replica.isHealthy( newConnection ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Connections acquired asynchronously are routed on acquisition, to a replica only within a {@link #readOnlyScope()}.
+     */
+    @Override
+    public CompletionStage<Connection> getConnectionAsync(Duration timeout) {
+        return inReadOnlyScope() && replicas.length > 0 ? replicas[selectReplica()].getConnectionAsync( timeout ) : primary.getConnectionAsync( timeout );
+    }
+
+    @Override
+    public void close() {
+        primary.close();
+        for ( Pool replica : replicas ) {
+            replica.close();
+        }
+    }
+
+    // --- DataSource methods //
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if ( inReadOnlyScope() ) {
+            return route( true );
+        }
+        return lazyRouting && replicas.length > 0 ? new RoutingConnection( router ) : primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException( "username and password combination invalid on a pooled data source!" );
+    }
+
+    // --- Wrapper methods //
+
+    @Override
+    public <T> T unwrap(Class<T> target) throws SQLException {
+        return target.cast( this );
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> target) throws SQLException {
+        return target.isInstance( this );
+    }
+
+    // --- CommonDataSource methods //
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        // no-op
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        // no-op
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException( "Not Supported" );
+    }
+
+}
@@ -0,0 +1,221 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool;
+
+import io.agroal.api.AgroalDataSourceListener;
+import io.agroal.api.AgroalDataSourceMetrics;
+import io.agroal.api.AgroalPoolInterceptor;
+import io.agroal.api.ShardedAgroalDataSource;
+import io.agroal.api.configuration.AgroalConnectionPoolConfiguration;
+import io.agroal.api.configuration.AgroalDataSourceConfiguration;
+import io.agroal.pool.util.PriorityScheduledExecutor;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static java.lang.Runtime.getRuntime;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Data source with one pool for each shard. All the pools share one executor for housekeeping, with at most one thread per processor, regardless of the number of shards.
+ * Each pool creates connections on threads of its own, bounded by its creation concurrency, so that a shard that is slow to connect does not hold back the others.
+ * The configuration does not allow a transaction integration, as the connection enlisted in a transaction would be returned for every shard.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class ShardedDataSource implements ShardedAgroalDataSource {
+
+    private static final long serialVersionUID = -3094381733410758302L;
+
+    private static final AtomicInteger SHARDED_COUNT = new AtomicInteger();
+
+    private final AgroalDataSourceConfiguration configuration;
+    private final AgroalDataSourceConfiguration.ShardFunction shardFunction;
+    private final PriorityScheduledExecutor executor;
+    private final Pool[] shards;
+    private final AgroalDataSourceMetrics metrics;
+
+    @SuppressWarnings( "StringConcatenation" )
+    public ShardedDataSource(AgroalDataSourceConfiguration dataSourceConfiguration, AgroalDataSourceListener... listeners) {
+        configuration = dataSourceConfiguration;
+        shardFunction = dataSourceConfiguration.shardFunction();
+
+        List<AgroalConnectionPoolConfiguration> shardConfigurations = dataSourceConfiguration.shardPoolConfigurations();
+        if ( shardConfigurations.isEmpty() ) {
+            throw new IllegalArgumentException( "Sharded data source requires at least one shard" );
+        }
+        executor = new PriorityScheduledExecutor( Math.min( shardConfigurations.size(), getRuntime().availableProcessors() ), "agroal-sharded-" + SHARDED_COUNT.incrementAndGet() + "-", listeners );
+        shards = new Pool[shardConfigurations.size()];
+        for ( int i = 0; i < shards.length; i++ ) {
+            shards[i] = new ConnectionPool( shardConfigurations.get( i ), executor, listeners );
+        }
+        metrics = new AggregateMetrics( shards );
+
+        // there is room for a single listener on the configuration
+        dataSourceConfiguration.registerMetricsEnabledListener( this::onMetricsEnabled );
+        onMetricsEnabled( dataSourceConfiguration.metricsEnabled() );
+
+        for ( Pool shard : shards ) {
+            shard.init();
+        }
+    }
+
+    private void onMetricsEnabled(boolean metricsEnabled) {
+        for ( Pool shard : shards ) {
+            shard.onMetricsEnabled( metricsEnabled );
+        }
+    }
+
+    // --- ShardedAgroalDataSource methods //
+
+    @Override
+    public Connection getConnection(Object shardKey) throws SQLException {
+        return shards[shardOf( shardKey )].getConnection();
+    }
+
+    @Override
+    @SuppressWarnings( "StringConcatenation" )
+    public int shardOf(Object shardKey) {
+        int shard = shardFunction.shard( shardKey, shards.length );
+        if ( shard < 0 || shard >= shards.length ) {
+            throw new IllegalArgumentException( "Shard function returned " + shard + " for key " + shardKey + ", out of the range of " + shards.length + " shards" );
+        }
+        return shard;
+    }
+
+    @Override
+    public List<AgroalDataSourceMetrics> getShardMetrics() {
+        List<AgroalDataSourceMetrics> shardMetrics = new ArrayList<>( shards.length );
+        for ( Pool shard : shards ) {
+            shardMetrics.add( shard.getMetrics() );
+        }
+        return unmodifiableList( shardMetrics );
+    }
+
+    // --- AgroalDataSource methods //
+
+    @Override
+    public void setPoolInterceptors(Collection<? extends AgroalPoolInterceptor> interceptors) {
+        Collection<? extends AgroalPoolInterceptor> list = interceptors == null ? emptyList() : interceptors;
+        for ( Pool shard : shards ) {
+            shard.setPoolInterceptors( list );
+        }
+    }
+
+    @Override
+    public List<AgroalPoolInterceptor> getPoolInterceptors() {
+        return shards[0].getPoolInterceptors();
+    }
+
+    @Override
+    public AgroalDataSourceConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Aggregate of the metrics of all the shards. See {@link #getShardMetrics()} for the ones of each shard.
+     */
+    @Override
+    public AgroalDataSourceMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void flush(FlushMode mode) {
+        for ( Pool shard : shards ) {
+            shard.flushPool( mode );
+        }
+    }
+
+    /**
+     * Healthy if all the shards are.
+     */
+    @Override
+    public boolean isHealthy(boolean newConnection) throws SQLException {
+        for ( Pool shard : shards ) {
+            if ( !shard.isHealthy( newConnection ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public CompletionStage<Connection> getConnectionAsync(Duration timeout) {
+        CompletableFuture<Connection> future = new CompletableFuture<>();
+        future.completeExceptionally( new SQLException( "A shard key is required to get a connection from a sharded data source" ) );
+        return future;
+    }
+
+    @Override
+    public void close() {
+        for ( Pool shard : shards ) {
+            shard.close();
+        }
+        // runs the tasks in queue, that may be destroying connections, before terminating
+        executor.shutdown();
+    }
+
+    // --- DataSource methods //
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        throw new SQLException( "A shard key is required to get a connection from a sharded data source" );
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException( "username and password combination invalid on a pooled data source!" );
+    }
+
+    // --- Wrapper methods //
+
+    @Override
+    public <T> T unwrap(Class<T> target) throws SQLException {
+        return target.cast( this );
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> target) throws SQLException {
+        return target.isInstance( this );
+    }
+
+    // --- CommonDataSource methods //
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        // no-op
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        // no-op
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException( "Not Supported" );
+    }
+}
@@ -16,8 +16,10 @@ import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater
  * There is the invariant that at any given point in time the list can be traversed from the head and all inserted elements are reachable.
  * As an implementation detail, the collection formed is actually a stack (FILO behaviour) and is thread-safe.
  * <p>
- * The resources do not remove themselves on close. It's assumed that the implementations of this interface are wrappers and the contents are dropped at that moment.
- * Also, allowing removal of elements would introduce an undesirable amount of complexity to this class.
+ * The resources do not remove themselves on close, as an element does not know the one before it. Instead, they mark themselves as released and are unlinked by the head.
+ * Every insertion advances an incremental sweep over the collection by a fixed number of steps, so that the collection stays proportional to the number of open resources, even for long-lived heads.
+ * The sweep only ever changes the link of the element before a released one, and never the link of the released element itself, so concurrent insertions and sweeps never make an open element unreachable.
+ * At worst, a released element is linked back and is unlinked on the next sweep.
  *
  * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
  */
@@ -27,6 +29,9 @@ public abstract class AutoCloseableElement implements AutoCloseable {
 
     private volatile AutoCloseableElement nextElement;
 
+    // plain field, a stale read only delays the removal of this element
+    private boolean released;
+
     public abstract boolean isClosed() throws Exception;
 
     @SuppressWarnings( "ThisEscapedInObjectConstruction" )
@@ -36,9 +41,20 @@ public abstract class AutoCloseableElement implements AutoCloseable {
             do {
                 nextElement = head.getNextElement();
             } while ( !head.setNextElement( nextElement, this ) );
+
+            if ( head instanceof AutoCloseableElementHead ) {
+                ( (AutoCloseableElementHead) head ).sweep();
+            }
         }
     }
 
+    /**
+     * Marks this element as closed, allowing it to be removed from the collection. Implementations should invoke this method on close.
+     */
+    protected final void released() {
+        released = true;
+    }
+
     /**
      * Returns the number of resources that were not properly closed. The resources are closed in the process and the collection is cleared.
      * This method should be invoked on the collection head only, otherwise it may not traverse the whole collection.
@@ -92,10 +108,41 @@ public abstract class AutoCloseableElement implements AutoCloseable {
 
     private static class AutoCloseableElementHead extends AutoCloseableElement {
 
+        // number of elements visited by the sweep on each insertion. with two steps the collection is at most about twice the number of open elements
+        private static final int SWEEP_STEPS = 2;
+
+        // element where the sweep resumes. plain field, as concurrent sweeps only repeat or skip part of the work
+        private AutoCloseableElement sweepCursor;
+
         private AutoCloseableElementHead() {
             super( null );
         }
 
+        private void sweep() {
+            AutoCloseableElement previous = sweepCursor == null ? this : sweepCursor;
+            for ( int i = 0; i < SWEEP_STEPS; i++ ) {
+                AutoCloseableElement current = previous.getNextElement();
+                if ( current == null ) {
+                    // reached the end of the collection, start over on the next insertion
+                    previous = null;
+                    break;
+                }
+                if ( current.released ) {
+                    // if it fails the element is visited again on the next step
+                    previous.setNextElement( current, current.getNextElement() );
+                } else {
+                    previous = current;
+                }
+            }
+            sweepCursor = previous;
+        }
+
+        @Override
+        public int closeAllAutocloseableElements() {
+            sweepCursor = null;
+            return super.closeAllAutocloseableElements();
+        }
+
         @Override
         public boolean isClosed() {
             throw new IllegalStateException();
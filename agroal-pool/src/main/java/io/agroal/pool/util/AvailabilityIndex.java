@@ -0,0 +1,175 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool.util;
+
+import io.agroal.api.cache.Acquirable;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.lang.Long.numberOfTrailingZeros;
+
+/**
+ * Index of available elements. Each element registered is given a slot, and a bitmap keeps track of what slots hold an available element.
+ * Looking for an available element only visits the slots with the corresponding bit set, instead of every element.
+ * <p>
+ * The bitmap is only a hint. Elements are responsible for setting the bit of their slot after becoming available and for clearing it once they are not.
+ * A set bit may point to an element that is not available anymore (and the attempt to acquire it fails), but an available element always has it's bit set.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class AvailabilityIndex<T extends Acquirable> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Object lock = new Object();
+
+    // guarded by lock
+    private long[] occupied = new long[INITIAL_CAPACITY >>> 6];
+
+    private volatile Slots<T> slots = new Slots<>( INITIAL_CAPACITY );
+
+    // one more than the highest slot in use
+    private volatile int limit;
+
+    /**
+     * Assigns a free slot to an element. The slot is not marked as available.
+     *
+     * @return the slot assigned to the element
+     */
+    public int register(T element) {
+        synchronized ( lock ) {
+            int slot = 0;
+            while ( slot < occupied.length << 6 && ( occupied[slot >>> 6] & 1L << slot ) != 0 ) {
+                slot++;
+            }
+            if ( slot == occupied.length << 6 ) {
+                grow();
+            }
+            occupied[slot >>> 6] |= 1L << slot;
+            slots.elements.set( slot, element );
+            if ( slot >= limit ) {
+                limit = slot + 1;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Releases the slot of an element that is no longer available, allowing it to be assigned to another element.
+     */
+    public void unregister(int slot) {
+        synchronized ( lock ) {
+            unavailable( slot );
+            slots.elements.set( slot, null );
+            occupied[slot >>> 6] &= ~( 1L << slot );
+            while ( limit > 0 && ( occupied[( limit - 1 ) >>> 6] & 1L << limit - 1 ) == 0 ) {
+                limit--;
+            }
+        }
+    }
+
+    // Slots only grow. The new bitmap is published before the old bits are copied into it, so that bits set concurrently are not lost.
+    private void grow() {
+        Slots<T> old = slots;
+        Slots<T> grown = new Slots<>( old.elements.length() << 1 );
+        for ( int i = 0; i < old.elements.length(); i++ ) {
+            grown.elements.set( i, old.elements.get( i ) );
+        }
+        slots = grown;
+        for ( int i = 0; i < old.bitmap.length(); i++ ) {
+            long bits = old.bitmap.get( i );
+            if ( bits != 0 ) {
+                grown.bitmap.getAndAccumulate( i, bits, ( x, y ) -> x | y );
+            }
+        }
+        long[] newOccupied = new long[occupied.length << 1];
+        System.arraycopy( occupied, 0, newOccupied, 0, occupied.length );
+        occupied = newOccupied;
+    }
+
+    // --- //
+
+    /**
+     * Marks the slot as holding an available element.
+     */
+    public void available(int slot) {
+        for ( Slots<T> current = slots, previous = null; current != previous; previous = current, current = slots ) {
+            current.bitmap.getAndAccumulate( slot >>> 6, 1L << slot, ( x, y ) -> x | y );
+        }
+    }
+
+    /**
+     * Marks the slot as not holding an available element.
+     */
+    public void unavailable(int slot) {
+        for ( Slots<T> current = slots, previous = null; current != previous; previous = current, current = slots ) {
+            current.bitmap.getAndAccumulate( slot >>> 6, ~( 1L << slot ), ( x, y ) -> x & y );
+        }
+    }
+
+    // --- //
+
+    /**
+     * Acquires an available element, starting from the lowest slot.
+     *
+     * @return the acquired element or null if none was available
+     */
+    public T acquire() {
+        return acquire( 0 );
+    }
+
+    /**
+     * Acquires an available element, starting from the first slot of the given stripe and wrapping around to the other stripes.
+     *
+     * @return the acquired element or null if none was available
+     */
+    public T acquire(int stripe, int stripeCount) {
+        return acquire( (int) ( (long) limit * stripe / stripeCount ) );
+    }
+
+    private T acquire(int start) {
+        Slots<T> current = slots;
+        AtomicLongArray bitmap = current.bitmap;
+        // limit is updated after a grown bitmap is published, so it may be ahead of the bitmap read here
+        int words = Math.min( ( limit + 63 ) >>> 6, bitmap.length() ), startWord = start >>> 6;
+        if ( startWord >= words ) {
+            startWord = 0;
+            start = 0;
+        }
+
+        for ( int n = 0; n <= words; n++ ) {
+            int word = startWord + n < words ? startWord + n : startWord + n - words;
+            long bits = bitmap.get( word );
+            if ( n == 0 ) {
+                // on the first word skip the slots before start, they are visited last
+                bits &= -1L << start;
+            } else if ( n == words ) {
+                bits &= ~( -1L << start );
+            }
+            for ( ; bits != 0; bits &= bits - 1 ) {
+                T element = current.elements.get( word << 6 | numberOfTrailingZeros( bits ) );
+                if ( element != null && element.acquire() ) {
+                    return element;
+                }
+            }
+        }
+        return null;
+    }
+
+    // --- //
+
+    private static final class Slots<T> {
+
+        private final AtomicReferenceArray<T> elements;
+
+        private final AtomicLongArray bitmap;
+
+        @SuppressWarnings( "WeakerAccess" )
+        Slots(int capacity) {
+            elements = new AtomicReferenceArray<>( capacity );
+            bitmap = new AtomicLongArray( capacity >>> 6 );
+        }
+    }
+}
@@ -0,0 +1,87 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool.util;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
+
+/**
+ * Index of the columns of the results of a statement by their label, built from {@link ResultSetMetaData} and shared by all the results of the statement.
+ * As in {@link ResultSet#findColumn(String)}, labels are matched ignoring case and if more than one column has the same label the first one is used.
+ * The index is built again when a result has different column labels, as the same statement may return other columns, for instance after the schema changes.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class ColumnLabelCache {
+
+    // replaced as a whole, so that results of the statement that are still open keep using the index they validated against
+    private volatile Index index;
+
+    /**
+     * The index for the columns of a result set. Invoked once per result set, as it involves the driver to validate the column labels.
+     */
+    public Index index(ResultSet resultSet) throws SQLException {
+        String[] labels = Index.labels( resultSet.getMetaData() );
+        Index current = index;
+        if ( current == null || !Arrays.equals( current.labels, labels ) ) {
+            current = new Index( labels );
+            index = current;
+        }
+        return current;
+    }
+
+    // --- //
+
+    public static final class Index {
+
+        private final String[] labels;
+        private final Map<String, Integer> columns;
+        private final Map<String, Integer> columnsIgnoringCase = new TreeMap<>( CASE_INSENSITIVE_ORDER );
+
+        public Index(ResultSetMetaData metaData) throws SQLException {
+            this( labels( metaData ) );
+        }
+
+        @SuppressWarnings( "WeakerAccess" )
+        Index(String[] labels) {
+            this.labels = labels;
+            columns = new HashMap<>( labels.length * 4 / 3 + 1 );
+            for ( int i = 0; i < labels.length; i++ ) {
+                if ( labels[i] != null ) {
+                    columns.putIfAbsent( labels[i], i + 1 );
+                    columnsIgnoringCase.putIfAbsent( labels[i], i + 1 );
+                }
+            }
+        }
+
+        private static String[] labels(ResultSetMetaData metaData) throws SQLException {
+            String[] labels = new String[metaData.getColumnCount()];
+            for ( int i = 0; i < labels.length; i++ ) {
+                labels[i] = metaData.getColumnLabel( i + 1 );
+            }
+            return labels;
+        }
+
+        /**
+         * The index of the column with a label, or -1 if there is none and the driver should resolve the label.
+         */
+        public int findColumn(String columnLabel) {
+            if ( columnLabel == null ) {
+                return -1;
+            }
+            Integer column = columns.get( columnLabel );
+            if ( column == null ) {
+                column = columnsIgnoringCase.get( columnLabel );
+            }
+            return column == null ? -1 : column;
+        }
+    }
+}
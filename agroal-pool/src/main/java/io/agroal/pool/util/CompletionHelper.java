@@ -0,0 +1,43 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+@SuppressWarnings( "UtilityClass" )
+public final class CompletionHelper {
+
+    private CompletionHelper() {
+    }
+
+    /**
+     * The future returned to the caller of an asynchronous acquisition. It's completed on the default async executor, so that dependent stages do not run on the threads of the pool.
+     * Cancelling it cancels the acquisition, and a connection acquired after that is closed.
+     */
+    public static CompletableFuture<Connection> completeAsync(CompletableFuture<Connection> acquisition) {
+        CompletableFuture<Connection> result = new CompletableFuture<>();
+        acquisition.whenCompleteAsync( (connection, throwable) -> {
+            if ( throwable != null ) {
+                result.completeExceptionally( throwable );
+            } else if ( !result.complete( connection ) ) {
+                try {
+                    connection.close();
+                } catch ( SQLException e ) {
+                    // closing a connection returns it to the pool, where errors are reported
+                }
+            }
+        } );
+        result.whenComplete( (connection, throwable) -> {
+            if ( result.isCancelled() ) {
+                acquisition.cancel( false );
+            }
+        } );
+        return result;
+    }
+}
@@ -0,0 +1,156 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static java.lang.System.nanoTime;
+import static java.lang.Thread.currentThread;
+
+/**
+ * Lock-free queue of waiters that allows an element to be transferred directly to the oldest one, without it having to compete for the element with other threads.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class HandoffQueue<T> {
+
+    private static final Object WAITING = new Object();
+    private static final Object SIGNALED = new Object();
+    private static final Object CANCELLED = new Object();
+
+    @SuppressWarnings( "rawtypes" )
+    private static final AtomicReferenceFieldUpdater<HandoffQueue.Waiter, Object> ITEM_UPDATER = AtomicReferenceFieldUpdater.newUpdater( HandoffQueue.Waiter.class, Object.class, "item" );
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Registers the current thread as a waiter. The caller must either {@link Waiter#await(long)} or {@link #cancel(Waiter)}.
+     */
+    public Waiter enqueue() {
+        Waiter waiter = new Waiter( currentThread(), null );
+        waiters.add( waiter );
+        return waiter;
+    }
+
+    /**
+     * Registers a callback as a waiter, so that no thread has to block. The callback is invoked by the thread that fulfills the waiter, either with the element transferred or with null if signaled.
+     * The caller must {@link #cancel(Waiter)} the waiter once it's no longer interested in an element.
+     */
+    public Waiter enqueue(Consumer<? super T> callback) {
+        Waiter waiter = new Waiter( null, callback );
+        waiters.add( waiter );
+        return waiter;
+    }
+
+    /**
+     * Transfers the element to the oldest waiter.
+     *
+     * @return true if the element was transferred, false if there was no waiter to take it
+     */
+    public boolean offer(T element) {
+        for ( Waiter waiter; ( waiter = waiters.poll() ) != null; ) {
+            if ( waiter.fulfill( element ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wakes up the oldest waiter without transferring any element.
+     */
+    public void signal() {
+        for ( Waiter waiter; ( waiter = waiters.poll() ) != null; ) {
+            if ( waiter.fulfill( SIGNALED ) ) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wakes up all waiters without transferring any element.
+     */
+    public void signalAll() {
+        for ( Waiter waiter; ( waiter = waiters.poll() ) != null; ) {
+            waiter.fulfill( SIGNALED );
+        }
+    }
+
+    /**
+     * Removes a waiter from the queue, unless an element has already been transferred to it.
+     *
+     * @return true if the waiter was cancelled, false if it got fulfilled in the meantime
+     */
+    public boolean cancel(Waiter waiter) {
+        if ( ITEM_UPDATER.compareAndSet( waiter, WAITING, CANCELLED ) ) {
+            waiters.remove( waiter );
+            return true;
+        }
+        return false;
+    }
+
+    public boolean hasWaiters() {
+        return !waiters.isEmpty();
+    }
+
+    public int waiterCount() {
+        return waiters.size();
+    }
+
+    // --- //
+
+    public final class Waiter {
+
+        private final Thread thread;
+        private final Consumer<? super T> callback;
+
+        private volatile Object item = WAITING;
+
+        @SuppressWarnings( "WeakerAccess" )
+        Waiter(Thread thread, Consumer<? super T> callback) {
+            this.thread = thread;
+            this.callback = callback;
+        }
+
+        @SuppressWarnings( "unchecked" )
+        private boolean fulfill(Object value) {
+            if ( ITEM_UPDATER.compareAndSet( this, WAITING, value ) ) {
+                if ( callback == null ) {
+                    LockSupport.unpark( thread );
+                } else {
+                    callback.accept( value == SIGNALED ? null : (T) value );
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Blocks until an element is transferred, the waiter is signaled or the timeout expires. On timeout the waiter is cancelled.
+         * Only applies to waiters registered by a thread, not to the ones registered with a callback.
+         *
+         * @return the element transferred or null if signaled or on timeout
+         */
+        @SuppressWarnings( "unchecked" )
+        public T await(long timeout) throws InterruptedException {
+            long deadline = nanoTime() + timeout;
+            while ( item == WAITING ) {
+                long remaining = deadline - nanoTime();
+                if ( remaining <= 0 && cancel( this ) ) {
+                    return null;
+                }
+                if ( currentThread().isInterrupted() && cancel( this ) ) {
+                    throw new InterruptedException();
+                }
+                LockSupport.parkNanos( this, remaining );
+            }
+            Object value = item;
+            return value == SIGNALED || value == CANCELLED ? null : (T) value;
+        }
+    }
+}
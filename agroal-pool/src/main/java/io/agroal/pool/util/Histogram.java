@@ -0,0 +1,87 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import static java.lang.Long.numberOfLeadingZeros;
+
+/**
+ * Lock-free histogram of non-negative values. Each power of two is split in a fixed number of buckets, so that the error on any value is bounded by the width of its bucket (about 12%).
+ * Recording a value is a single atomic increment, and does not allocate.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class Histogram {
+
+    // each power of two is split in 2^SUB_BUCKET_BITS buckets
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = ( Long.SIZE - SUB_BUCKET_BITS ) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray( BUCKETS );
+    private final LongAccumulator max = new LongAccumulator( Long::max, 0 );
+
+    private static int bucket(long value) {
+        if ( value < SUB_BUCKETS ) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - numberOfLeadingZeros( value );
+        return ( exponent - SUB_BUCKET_BITS + 1 ) * SUB_BUCKETS + (int) ( ( value >>> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKETS - 1 ) );
+    }
+
+    private static long lowerBound(int bucket) {
+        if ( bucket < SUB_BUCKETS ) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) ( SUB_BUCKETS + bucket % SUB_BUCKETS ) << ( exponent - SUB_BUCKET_BITS );
+    }
+
+    public void record(long value) {
+        long v = Math.max( 0, value );
+        buckets.incrementAndGet( bucket( v ) );
+        max.accumulate( v );
+    }
+
+    public long count() {
+        long count = 0;
+        for ( int i = 0; i < BUCKETS; i++ ) {
+            count += buckets.get( i );
+        }
+        return count;
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * The upper bound of the bucket where the given percentile falls, never more than the maximum recorded. Zero if nothing was recorded.
+     */
+    public long percentile(double percentile) {
+        long count = count();
+        if ( count == 0 ) {
+            return 0;
+        }
+        long rank = Math.max( 1, (long) Math.ceil( count * Math.min( 100, Math.max( 0, percentile ) ) / 100 ) );
+        long seen = 0;
+        for ( int i = 0; i < BUCKETS; i++ ) {
+            seen += buckets.get( i );
+            if ( seen >= rank ) {
+                return i == BUCKETS - 1 ? max() : Math.min( lowerBound( i + 1 ) - 1, max() );
+            }
+        }
+        // values recorded while iterating
+        return max();
+    }
+
+    public void reset() {
+        for ( int i = 0; i < BUCKETS; i++ ) {
+            buckets.set( i, 0 );
+        }
+        max.reset();
+    }
+}
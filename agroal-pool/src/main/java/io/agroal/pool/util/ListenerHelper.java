@@ -152,6 +152,12 @@ public final class ListenerHelper {
         }
     }
 
+    public static void fireOnPoolResize(AgroalDataSourceListener[] listeners, int previousMaxSize, int maxSize) {
+        for ( AgroalDataSourceListener listener : listeners ) {
+            listener.onPoolResize( previousMaxSize, maxSize );
+        }
+    }
+
     public static void fireOnWarning(AgroalDataSourceListener[] listeners, String message) {
         for ( AgroalDataSourceListener listener : listeners ) {
             listener.onWarning( message );
@@ -67,6 +67,15 @@ public final class PriorityScheduledExecutor extends ScheduledThreadPoolExecutor
     @Override
     protected void beforeExecute(Thread thread, Runnable lowPriorityTask) {
         // Run all high priority tasks in queue first, then low priority
+        runPriorityTasks();
+        super.beforeExecute( thread, lowPriorityTask );
+    }
+
+    /**
+     * Runs the high priority tasks in queue. Tasks that take long, running on a thread of this executor, call this from time to time so that high priority tasks do not have to wait for them.
+     */
+    @SuppressWarnings( "WeakerAccess" )
+    public void runPriorityTasks() {
         for ( RunnableFuture<?> priorityTask; ( priorityTask = priorityTasks.poll() ) != null; ) {
             if ( isShutdown() ) {
                 priorityTask.cancel( false );
@@ -79,7 +88,6 @@ public final class PriorityScheduledExecutor extends ScheduledThreadPoolExecutor
                 }
             }
         }
-        super.beforeExecute( thread, lowPriorityTask );
     }
 
     @Override
@@ -0,0 +1,263 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool.util;
+
+import io.agroal.pool.MetricsRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Least recently used cache of the statements prepared on a connection. A statement is removed from the cache while in use, and goes back to it when closed by the application.
+ * If the statement can't be reset to the state it had when it was prepared it's closed instead.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class StatementCache<T extends PreparedStatement> {
+
+    private final int maxSize;
+    private final Supplier<MetricsRepository> metricsSupplier;
+    private final Map<Key, Entry<T>> entries;
+
+    private boolean closed;
+
+    public StatementCache(int maxSize, Supplier<MetricsRepository> metricsSupplier) {
+        this.maxSize = maxSize;
+        this.metricsSupplier = metricsSupplier;
+        entries = new LinkedHashMap<>( maxSize * 4 / 3 + 1, 0.75f, true );
+    }
+
+    /**
+     * Removes a statement from the cache, or prepares a new one if there is none for the key.
+     */
+    public synchronized Entry<T> take(Key key, StatementFactory<T> factory) throws SQLException {
+        Entry<T> entry = entries.remove( key );
+        if ( entry != null ) {
+            metricsSupplier.get().afterStatementCacheHit();
+            return entry;
+        }
+        metricsSupplier.get().afterStatementCacheMiss();
+        return new Entry<>( key, factory.create() );
+    }
+
+    /**
+     * Resets the statement and puts it back in the cache. The least recently used statement is closed if the cache is full.
+     */
+    public void release(Entry<T> entry) throws SQLException {
+        if ( !entry.reset() ) {
+            entry.statement.close();
+            return;
+        }
+        List<Entry<T>> discarded = null;
+        synchronized ( this ) {
+            if ( !closed ) {
+                Entry<T> previous = entries.put( entry.key, entry );
+                if ( previous != null ) {
+                    // the same statement was prepared again while this one was in use. keep only the most recent
+                    discarded = new ArrayList<>( 1 );
+                    discarded.add( previous );
+                }
+                for ( Iterator<Entry<T>> iterator = entries.values().iterator(); entries.size() > maxSize && iterator.hasNext(); ) {
+                    if ( discarded == null ) {
+                        discarded = new ArrayList<>( 1 );
+                    }
+                    discarded.add( iterator.next() );
+                    iterator.remove();
+                    metricsSupplier.get().afterStatementCacheEviction();
+                }
+            } else {
+                discarded = new ArrayList<>( 1 );
+                discarded.add( entry );
+            }
+        }
+        // closing statements involves the driver, so it's done outside the lock
+        if ( discarded != null ) {
+            closeAll( discarded );
+        }
+    }
+
+    /**
+     * Closes all the statements in the cache. Statements in use are closed when released.
+     */
+    public void close() throws SQLException {
+        List<Entry<T>> discarded;
+        synchronized ( this ) {
+            closed = true;
+            discarded = new ArrayList<>( entries.values() );
+            entries.clear();
+        }
+        closeAll( discarded );
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void closeAll(List<Entry<T>> discarded) throws SQLException {
+        SQLException exception = null;
+        for ( Entry<T> entry : discarded ) {
+            try {
+                entry.statement.close();
+            } catch ( SQLException se ) {
+                if ( exception == null ) {
+                    exception = se;
+                } else {
+                    exception.addSuppressed( se );
+                }
+            }
+        }
+        if ( exception != null ) {
+            throw exception;
+        }
+    }
+
+    // --- //
+
+    @FunctionalInterface
+    public interface StatementFactory<T> {
+
+        T create() throws SQLException;
+    }
+
+    /**
+     * Identifies a statement by it's SQL and the arguments used to prepare it. Arguments not specified are zero.
+     */
+    public static final class Key {
+
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+        private final int resultSetHoldability;
+        private final int autoGeneratedKeys;
+        private final int hash;
+
+        public Key(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.resultSetHoldability = resultSetHoldability;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+            hash = Objects.hash( sql, resultSetType, resultSetConcurrency, resultSetHoldability, autoGeneratedKeys );
+        }
+
+        public String sql() {
+            return sql;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( !( o instanceof Key ) ) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && resultSetType == other.resultSetType && resultSetConcurrency == other.resultSetConcurrency && resultSetHoldability == other.resultSetHoldability && autoGeneratedKeys == other.autoGeneratedKeys && sql.equals( other.sql );
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return sql;
+        }
+    }
+
+    /**
+     * A cached statement, along with the values of the attributes the application may change that were observed when it was prepared.
+     */
+    public static final class Entry<T extends PreparedStatement> {
+
+        private final Key key;
+        private final T statement;
+        private final int fetchSize;
+        private final int fetchDirection;
+        private final int maxRows;
+        private final int maxFieldSize;
+        private final int queryTimeout;
+
+        // OUT parameters registered on the first use of a CallableStatement. JDBC has no way to unregister them, so they are expected to be the same on every use
+        private boolean outParametersRecorded;
+        private boolean outParametersChanged;
+        private int outParameters;
+
+        // index of the columns of the results, created on first use as column labels may not be cached
+        private ColumnLabelCache columnLabels;
+
+        @SuppressWarnings( "WeakerAccess" )
+        Entry(Key key, T statement) throws SQLException {
+            this.key = key;
+            this.statement = statement;
+            fetchSize = statement.getFetchSize();
+            fetchDirection = statement.getFetchDirection();
+            maxRows = statement.getMaxRows();
+            maxFieldSize = statement.getMaxFieldSize();
+            queryTimeout = statement.getQueryTimeout();
+        }
+
+        public T statement() {
+            return statement;
+        }
+
+        public ColumnLabelCache columnLabels() {
+            if ( columnLabels == null ) {
+                columnLabels = new ColumnLabelCache();
+            }
+            return columnLabels;
+        }
+
+        /**
+         * Records the OUT parameters registered while the statement was in use. A statement used with different OUT parameters than the first time is not reused.
+         */
+        public void outParameters(int signature) {
+            if ( !outParametersRecorded ) {
+                outParametersRecorded = true;
+                outParameters = signature;
+            } else if ( outParameters != signature ) {
+                outParametersChanged = true;
+            }
+        }
+
+        @SuppressWarnings( "MagicConstant" )
+        private boolean reset() {
+            try {
+                if ( outParametersChanged || statement.isClosed() || !statement.isPoolable() ) {
+                    return false;
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                if ( statement.getFetchSize() != fetchSize ) {
+                    statement.setFetchSize( fetchSize );
+                }
+                if ( statement.getFetchDirection() != fetchDirection ) {
+                    statement.setFetchDirection( fetchDirection );
+                }
+                if ( statement.getMaxRows() != maxRows ) {
+                    statement.setMaxRows( maxRows );
+                }
+                if ( statement.getMaxFieldSize() != maxFieldSize ) {
+                    statement.setMaxFieldSize( maxFieldSize );
+                }
+                if ( statement.getQueryTimeout() != queryTimeout ) {
+                    statement.setQueryTimeout( queryTimeout );
+                }
+                return true;
+            } catch ( SQLException se ) {
+                return false;
+            }
+        }
+    }
+}
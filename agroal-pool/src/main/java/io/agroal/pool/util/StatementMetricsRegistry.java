@@ -0,0 +1,169 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool.util;
+
+import io.agroal.api.AgroalDataSourceMetrics.StatementMetrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.lang.Character.isDigit;
+import static java.lang.Character.isJavaIdentifierPart;
+import static java.lang.Character.isWhitespace;
+import static java.lang.System.nanoTime;
+import static java.time.Duration.ofNanos;
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * Execution metrics of SQL statements, keyed by normalized SQL. Literals are replaced by '?' and lists of literals collapsed, so that statements that differ only on their arguments are recorded together.
+ * The number of statements is bounded, and once the limit is reached other statements are not recorded.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class StatementMetricsRegistry {
+
+    private final int limit;
+    private final ConcurrentMap<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, StatementMetrics> view = unmodifiableMap( recorders );
+
+    public StatementMetricsRegistry(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * The recorder for a SQL statement, or null if the limit of statements was reached.
+     */
+    public Recorder recorder(String sql) {
+        if ( sql == null ) {
+            return null;
+        }
+        // SQL without literals is its own key, and does not need to be normalized
+        Recorder recorder = recorders.get( sql );
+        if ( recorder == null ) {
+            String key = normalize( sql );
+            recorder = recorders.get( key );
+            if ( recorder == null && recorders.size() < limit ) {
+                recorder = recorders.computeIfAbsent( key, k -> new Recorder() );
+            }
+        }
+        return recorder;
+    }
+
+    public Map<String, StatementMetrics> statementMetrics() {
+        return view;
+    }
+
+    /**
+     * Clears the recorded values. The statements are kept, as recorders may be in use.
+     */
+    public void reset() {
+        for ( Recorder recorder : recorders.values() ) {
+            recorder.executionTime.reset();
+            recorder.rows.reset();
+        }
+    }
+
+    // --- //
+
+    @SuppressWarnings( "AssignmentToForLoopParameter" )
+    static String normalize(String sql) {
+        StringBuilder builder = new StringBuilder( sql.length() );
+        boolean space = false;
+        for ( int i = 0; i < sql.length(); i++ ) {
+            char c = sql.charAt( i );
+            if ( isWhitespace( c ) ) {
+                space = builder.length() > 0;
+                continue;
+            }
+            if ( space ) {
+                builder.append( ' ' );
+                space = false;
+            }
+            if ( c == '\'' ) {
+                // string literal, where quotes are escaped by doubling them
+                for ( i++; i < sql.length(); i++ ) {
+                    if ( sql.charAt( i ) == '\'' ) {
+                        if ( i + 1 < sql.length() && sql.charAt( i + 1 ) == '\'' ) {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                appendLiteral( builder );
+            } else if ( isDigit( c ) && ( builder.length() == 0 || !isJavaIdentifierPart( builder.charAt( builder.length() - 1 ) ) ) ) {
+                // numeric literal, not part of an identifier
+                while ( i + 1 < sql.length() && ( isDigit( sql.charAt( i + 1 ) ) || sql.charAt( i + 1 ) == '.' ) ) {
+                    i++;
+                }
+                appendLiteral( builder );
+            } else {
+                builder.append( c );
+            }
+        }
+        return builder.toString();
+    }
+
+    // a literal that follows another in a list is dropped, so that IN lists of any length are the same statement
+    private static void appendLiteral(StringBuilder builder) {
+        int length = builder.length();
+        if ( length >= 3 && builder.charAt( length - 1 ) == ' ' && builder.charAt( length - 2 ) == ',' && builder.charAt( length - 3 ) == '?' ) {
+            builder.setLength( length - 2 );
+        } else if ( length >= 2 && builder.charAt( length - 1 ) == ',' && builder.charAt( length - 2 ) == '?' ) {
+            builder.setLength( length - 1 );
+        } else {
+            builder.append( '?' );
+        }
+    }
+
+    // --- //
+
+    /**
+     * Records the executions of one statement.
+     */
+    public static final class Recorder implements StatementMetrics {
+
+        private final Histogram executionTime = new Histogram();
+        private final Histogram rows = new Histogram();
+
+        /**
+         * Records an execution started at the given timestamp, as returned by {@link System#nanoTime()}. Rows are not recorded if negative, meaning that they are not known yet.
+         */
+        public void afterExecution(long timestamp, long rowCount) {
+            executionTime.record( nanoTime() - timestamp );
+            if ( rowCount >= 0 ) {
+                rows.record( rowCount );
+            }
+        }
+
+        /**
+         * Records the number of rows read from a result.
+         */
+        public void afterFetch(long rowCount) {
+            rows.record( rowCount );
+        }
+
+        @Override
+        public long executionCount() {
+            return executionTime.count();
+        }
+
+        @Override
+        public Duration executionTimePercentile(double percentile) {
+            return ofNanos( executionTime.percentile( percentile ) );
+        }
+
+        @Override
+        public Duration executionTimeMax() {
+            return ofNanos( executionTime.max() );
+        }
+
+        @Override
+        public long rowsPercentile(double percentile) {
+            return rows.percentile( percentile );
+        }
+    }
+}
@@ -0,0 +1,65 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static java.lang.Math.max;
+import static java.lang.Thread.currentThread;
+import static java.lang.invoke.MethodHandles.publicLookup;
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Measures the resources used by the current thread. Support for each measurement depends on the JVM, and when not available it's reported as zero.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class ThreadCost {
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_BEAN.isThreadCpuTimeEnabled();
+
+    // the allocation counter is an extension of the HotSpot bean. it's looked up so that there is no dependency on it
+    private static final MethodHandle ALLOCATED_BYTES = allocatedBytesHandle();
+
+    private ThreadCost() {
+    }
+
+    private static MethodHandle allocatedBytesHandle() {
+        try {
+            Class<?> extendedBean = Class.forName( "com.sun.management.ThreadMXBean" );
+            if ( extendedBean.isInstance( THREAD_BEAN ) ) {
+                return publicLookup().findVirtual( extendedBean, "getThreadAllocatedBytes", methodType( long.class, long.class ) ).bindTo( THREAD_BEAN );
+            }
+        } catch ( ReflectiveOperationException | RuntimeException e ) {
+            // not available on this JVM
+        }
+        return null;
+    }
+
+    /**
+     * CPU time of the current thread, in nanoseconds.
+     */
+    public static long cpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Bytes allocated in the heap by the current thread since it started.
+     */
+    public static long allocatedBytes() {
+        if ( ALLOCATED_BYTES == null ) {
+            return 0;
+        }
+        try {
+            return max( 0, (long) ALLOCATED_BYTES.invokeExact( currentThread().getId() ) );
+        } catch ( Throwable t ) {
+            // disabled while running
+            return 0;
+        }
+    }
+}
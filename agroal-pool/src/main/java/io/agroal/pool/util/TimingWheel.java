@@ -0,0 +1,308 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.lang.Math.max;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Hashed timing wheel. Timeouts are kept in a circular array of buckets, one for each tick, so that both scheduling and cancellation take constant time regardless of the number of timeouts.
+ * The price is precision: a timeout expires on the first tick after it's deadline, and never before.
+ * <p>
+ * A single thread, shared by all pools, advances the wheel. It's started when there are timeouts and stops when there are none.
+ * Expired tasks are not run by that thread, but submitted to the executor they were scheduled with.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class TimingWheel {
+
+    private static final TimingWheel SHARED = new TimingWheel( MILLISECONDS.toNanos( 10 ), 512, "agroal-timer" );
+
+    private static final int WAITING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater( Timeout.class, "state" );
+
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final String threadName;
+    private final long startTime = nanoTime();
+
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger timeoutCount = new AtomicInteger();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // only accessed by the tick thread
+    private long tick;
+
+    /**
+     * A timing wheel with its own thread. Most pools use the {@link #shared()} one.
+     *
+     * @param tickDuration  duration of each tick, in nanoseconds
+     * @param ticksPerWheel number of buckets, a power of 2. Timeouts further away than a whole wheel are kept for a number of rounds
+     */
+    public TimingWheel(long tickDuration, int ticksPerWheel, String threadName) {
+        if ( Integer.bitCount( ticksPerWheel ) != 1 ) {
+            throw new IllegalArgumentException( "Ticks per wheel must be a power of 2" );
+        }
+        this.tickDuration = tickDuration;
+        this.threadName = threadName;
+        wheel = new Bucket[ticksPerWheel];
+        for ( int i = 0; i < ticksPerWheel; i++ ) {
+            wheel[i] = new Bucket();
+        }
+        mask = ticksPerWheel - 1;
+    }
+
+    /**
+     * The timing wheel shared by all pools.
+     */
+    public static TimingWheel shared() {
+        return SHARED;
+    }
+
+    /**
+     * Submits the task to the executor once the delay expires.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit, Executor executor) {
+        return add( new Timeout( task, executor, nanoTime() - startTime + unit.toNanos( delay ), 0 ) );
+    }
+
+    /**
+     * Submits the task to the executor periodically, starting after one period, until cancelled.
+     * Runs do not overlap: a period that expires while the previous run is still going is skipped.
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long period, TimeUnit unit, Executor executor) {
+        long periodNanos = unit.toNanos( period );
+        if ( periodNanos <= 0 ) {
+            throw new IllegalArgumentException( "A positive period is required" );
+        }
+        return add( new Timeout( task, executor, nanoTime() - startTime + periodNanos, periodNanos ) );
+    }
+
+    private Timeout add(Timeout timeout) {
+        timeoutCount.incrementAndGet();
+        pendingTimeouts.add( timeout );
+        if ( !running.get() && running.compareAndSet( false, true ) ) {
+            startThread();
+        }
+        return timeout;
+    }
+
+    public int timeoutCount() {
+        return timeoutCount.get();
+    }
+
+    // --- //
+
+    private void startThread() {
+        Thread thread = new Thread( this::run, threadName );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    private void run() {
+        // the wheel is empty when the thread starts, so it can skip the ticks elapsed while stopped
+        tick = ( nanoTime() - startTime ) / tickDuration;
+
+        for ( ; ; ) {
+            long deadline = ( tick + 1 ) * tickDuration;
+            for ( long sleep = deadline - ( nanoTime() - startTime ); sleep > 0; sleep = deadline - ( nanoTime() - startTime ) ) {
+                LockSupport.parkNanos( this, sleep );
+            }
+
+            processCancelled();
+            transferPending();
+            wheel[(int) ( tick & mask )].expire( deadline );
+            tick++;
+
+            if ( timeoutCount.get() == 0 ) {
+                running.set( false );
+                // a timeout may have been added after the check, by a thread that saw this one still running
+                if ( timeoutCount.get() == 0 || !running.compareAndSet( false, true ) ) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void transferPending() {
+        for ( Timeout timeout; ( timeout = pendingTimeouts.poll() ) != null; ) {
+            // the cancelled ones are accounted for when processing cancellations
+            if ( timeout.state != CANCELLED ) {
+                place( timeout );
+            }
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long expiryTick = timeout.deadline / tickDuration;
+        timeout.remainingRounds = ( expiryTick - tick ) / wheel.length;
+        // timeouts already expired go on the current tick
+        wheel[(int) ( max( expiryTick, tick ) & mask )].add( timeout );
+    }
+
+    private void processCancelled() {
+        for ( Timeout timeout; ( timeout = cancelledTimeouts.poll() ) != null; ) {
+            if ( timeout.bucket != null ) {
+                timeout.bucket.remove( timeout );
+            }
+            timeoutCount.decrementAndGet();
+        }
+    }
+
+    // --- //
+
+    private final class Bucket {
+
+        private Timeout head, tail;
+
+        @SuppressWarnings( "WeakerAccess" )
+        Bucket() {
+        }
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if ( head == null ) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if ( timeout.previous == null ) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if ( timeout.next == null ) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.previous = timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        private void expire(long deadline) {
+            for ( Timeout timeout = head, next; timeout != null; timeout = next ) {
+                next = timeout.next;
+                if ( timeout.remainingRounds > 0 ) {
+                    timeout.remainingRounds--;
+                } else if ( timeout.deadline <= deadline ) {
+                    remove( timeout );
+                    timeout.expire();
+                }
+            }
+        }
+    }
+
+    // --- //
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public final class Timeout {
+
+        private final Runnable task;
+        private final Executor executor;
+        private final long period;
+
+        // set while a run of a periodic task is submitted or running
+        private final AtomicBoolean inProgress;
+        private final Runnable periodicTask;
+
+        private volatile int state = WAITING;
+
+        // only accessed by the tick thread
+        private long deadline;
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout previous, next;
+
+        @SuppressWarnings( "WeakerAccess" )
+        Timeout(Runnable task, Executor executor, long deadline, long period) {
+            this.task = task;
+            this.executor = executor;
+            this.deadline = deadline;
+            this.period = period;
+            inProgress = period > 0 ? new AtomicBoolean() : null;
+            periodicTask = period > 0 ? this::runPeriodic : null;
+        }
+
+        /**
+         * Prevents the task from being submitted again. Has no effect on a task already submitted.
+         *
+         * @return true if the timeout was cancelled, false if it expired already or was cancelled before
+         */
+        public boolean cancel() {
+            if ( STATE_UPDATER.compareAndSet( this, WAITING, CANCELLED ) ) {
+                cancelledTimeouts.add( this );
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        private void expire() {
+            if ( period > 0 ) {
+                if ( state != WAITING ) {
+                    return;
+                }
+                // placed on the next tick, not in the bucket being expired
+                deadline += period;
+                pendingTimeouts.add( this );
+                if ( inProgress.compareAndSet( false, true ) ) {
+                    submit( periodicTask );
+                }
+            } else if ( STATE_UPDATER.compareAndSet( this, WAITING, EXPIRED ) ) {
+                timeoutCount.decrementAndGet();
+                submit( task );
+            }
+        }
+
+        private void submit(Runnable runnable) {
+            try {
+                executor.execute( runnable );
+            } catch ( RejectedExecutionException e ) {
+                // executor shutting down
+                if ( inProgress != null ) {
+                    inProgress.set( false );
+                }
+            }
+        }
+
+        private void runPeriodic() {
+            try {
+                task.run();
+            } finally {
+                inProgress.set( false );
+            }
+        }
+    }
+}
@@ -4,6 +4,9 @@
 package io.agroal.pool.wrapper;
 
 import io.agroal.pool.util.AutoCloseableElement;
+import io.agroal.pool.util.ColumnLabelCache;
+import io.agroal.pool.util.StatementCache;
+import io.agroal.pool.util.StatementMetricsRegistry;
 
 import java.io.InputStream;
 import java.io.Reader;
@@ -25,11 +28,16 @@ import java.sql.RowId;
 import java.sql.SQLException;
 import java.sql.SQLType;
 import java.sql.SQLXML;
+import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
 import static java.lang.reflect.Proxy.newProxyInstance;
 
 /**
@@ -62,9 +70,31 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     private CallableStatement wrappedStatement;
 
+    // The entry to release the statement to on close(). If null the statement is not cached.
+    private final StatementCache.Entry<CallableStatement> cacheEntry;
+
+    // Column index by label of the results of executeQuery(). Shared with other uses of the statement if it's cached
+    private ColumnLabelCache columnLabels;
+
+    // Hash of the OUT parameters registered through this wrapper
+    private int outParameters;
+
+    // OUT parameters registered through this wrapper. A cached statement keeps the registrations of previous uses, that JDBC has no way to clear
+    private BitSet outParameterIndexes;
+    private Set<String> outParameterNames;
+
     public CallableStatementWrapper(ConnectionWrapper connectionWrapper, CallableStatement statement, boolean trackJdbcResources, AutoCloseableElement head) {
-        super( connectionWrapper, statement, trackJdbcResources, head );
+        this( connectionWrapper, statement, trackJdbcResources, head, null );
+    }
+
+    public CallableStatementWrapper(ConnectionWrapper connectionWrapper, CallableStatement statement, boolean trackJdbcResources, AutoCloseableElement head, StatementCache.Entry<CallableStatement> entry) {
+        this( connectionWrapper, statement, trackJdbcResources, head, entry, null );
+    }
+
+    public CallableStatementWrapper(ConnectionWrapper connectionWrapper, CallableStatement statement, boolean trackJdbcResources, AutoCloseableElement head, StatementCache.Entry<CallableStatement> entry, StatementMetricsRegistry.Recorder recorder) {
+        super( connectionWrapper, statement, trackJdbcResources, head, recorder );
         wrappedStatement = statement;
+        cacheEntry = entry;
     }
 
     @Override
@@ -73,12 +103,58 @@ public final class CallableStatementWrapper extends StatementWrapper implements
         super.close();
     }
 
+    @Override
+    protected void closeWrappedStatement(Statement statement) throws SQLException {
+        if ( cacheEntry != null ) {
+            cacheEntry.outParameters( outParameters );
+            connection.getHandler().getCallableStatementCache().release( cacheEntry );
+        } else {
+            super.closeWrappedStatement( statement );
+        }
+    }
+
+    private void trackOutParameter(int parameterIndex, int sqlType) {
+        if ( cacheEntry != null ) {
+            outParameters = 31 * ( 31 * outParameters + parameterIndex ) + sqlType;
+            if ( outParameterIndexes == null ) {
+                outParameterIndexes = new BitSet();
+            }
+            outParameterIndexes.set( parameterIndex );
+        }
+    }
+
+    private void trackOutParameter(String parameterName, int sqlType) {
+        if ( cacheEntry != null ) {
+            outParameters = 31 * ( 31 * outParameters + parameterName.hashCode() ) + sqlType;
+            if ( outParameterNames == null ) {
+                outParameterNames = new TreeSet<>( CASE_INSENSITIVE_ORDER );
+            }
+            outParameterNames.add( parameterName );
+        }
+    }
+
+    // the driver would return the value of an OUT parameter registered by a previous use of a cached statement, instead of failing as for a new one
+    @SuppressWarnings( "StringConcatenation" )
+    private void checkOutParameter(int parameterIndex) throws SQLException {
+        if ( cacheEntry != null && ( outParameterIndexes == null || parameterIndex < 0 || !outParameterIndexes.get( parameterIndex ) ) ) {
+            throw new SQLException( "Parameter " + parameterIndex + " was not registered as an OUT parameter" );
+        }
+    }
+
+    @SuppressWarnings( "StringConcatenation" )
+    private void checkOutParameter(String parameterName) throws SQLException {
+        if ( cacheEntry != null && ( outParameterNames == null || parameterName == null || !outParameterNames.contains( parameterName ) ) ) {
+            throw new SQLException( "Parameter " + parameterName + " was not registered as an OUT parameter" );
+        }
+    }
+
     // --- //
 
     @Override
     public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException {
         try {
             wrappedStatement.registerOutParameter( parameterIndex, sqlType );
+            trackOutParameter( parameterIndex, sqlType );
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
@@ -89,6 +165,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
     public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException {
         try {
             wrappedStatement.registerOutParameter( parameterIndex, sqlType, scale );
+            trackOutParameter( parameterIndex, sqlType );
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
@@ -107,6 +184,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public String getString(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getString( parameterIndex );
         } catch ( SQLException se ) {
@@ -117,6 +195,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public boolean getBoolean(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getBoolean( parameterIndex );
         } catch ( SQLException se ) {
@@ -127,6 +206,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public byte getByte(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getByte( parameterIndex );
         } catch ( SQLException se ) {
@@ -137,6 +217,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public short getShort(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getShort( parameterIndex );
         } catch ( SQLException se ) {
@@ -147,6 +228,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public int getInt(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getInt( parameterIndex );
         } catch ( SQLException se ) {
@@ -157,6 +239,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public long getLong(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getLong( parameterIndex );
         } catch ( SQLException se ) {
@@ -167,6 +250,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public float getFloat(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getFloat( parameterIndex );
         } catch ( SQLException se ) {
@@ -177,6 +261,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public double getDouble(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getDouble( parameterIndex );
         } catch ( SQLException se ) {
@@ -188,6 +273,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
     @Override
     @SuppressWarnings( "deprecation" )
     public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getBigDecimal( parameterIndex, scale );
         } catch ( SQLException se ) {
@@ -198,6 +284,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public byte[] getBytes(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getBytes( parameterIndex );
         } catch ( SQLException se ) {
@@ -208,6 +295,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Date getDate(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getDate( parameterIndex );
         } catch ( SQLException se ) {
@@ -218,6 +306,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Time getTime(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getTime( parameterIndex );
         } catch ( SQLException se ) {
@@ -228,6 +317,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Timestamp getTimestamp(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getTimestamp( parameterIndex );
         } catch ( SQLException se ) {
@@ -238,6 +328,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Object getObject(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getObject( parameterIndex );
         } catch ( SQLException se ) {
@@ -248,6 +339,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public BigDecimal getBigDecimal(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getBigDecimal( parameterIndex );
         } catch ( SQLException se ) {
@@ -258,6 +350,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Object getObject(int parameterIndex, Map<String, Class<?>> map) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getObject( parameterIndex, map );
         } catch ( SQLException se ) {
@@ -268,6 +361,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Ref getRef(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getRef( parameterIndex );
         } catch ( SQLException se ) {
@@ -278,6 +372,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Blob getBlob(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getBlob( parameterIndex );
         } catch ( SQLException se ) {
@@ -288,6 +383,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Clob getClob(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getClob( parameterIndex );
         } catch ( SQLException se ) {
@@ -298,6 +394,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Array getArray(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getArray( parameterIndex );
         } catch ( SQLException se ) {
@@ -308,6 +405,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Date getDate(int parameterIndex, Calendar cal) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getDate( parameterIndex, cal );
         } catch ( SQLException se ) {
@@ -318,6 +416,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Time getTime(int parameterIndex, Calendar cal) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getTime( parameterIndex, cal );
         } catch ( SQLException se ) {
@@ -328,6 +427,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getTimestamp( parameterIndex, cal );
         } catch ( SQLException se ) {
@@ -340,6 +440,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
     public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException {
         try {
             wrappedStatement.registerOutParameter( parameterIndex, sqlType, typeName );
+            trackOutParameter( parameterIndex, sqlType );
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
@@ -350,6 +451,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
     public void registerOutParameter(String parameterName, int sqlType) throws SQLException {
         try {
             wrappedStatement.registerOutParameter( parameterName, sqlType );
+            trackOutParameter( parameterName, sqlType );
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
@@ -360,6 +462,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
     public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException {
         try {
             wrappedStatement.registerOutParameter( parameterName, sqlType, scale );
+            trackOutParameter( parameterName, sqlType );
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
@@ -370,6 +473,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
     public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException {
         try {
             wrappedStatement.registerOutParameter( parameterName, sqlType, typeName );
+            trackOutParameter( parameterName, sqlType );
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
@@ -378,6 +482,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public URL getURL(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getURL( parameterIndex );
         } catch ( SQLException se ) {
@@ -638,6 +743,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public String getString(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getString( parameterName );
         } catch ( SQLException se ) {
@@ -648,6 +754,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public boolean getBoolean(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getBoolean( parameterName );
         } catch ( SQLException se ) {
@@ -658,6 +765,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public byte getByte(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getByte( parameterName );
         } catch ( SQLException se ) {
@@ -668,6 +776,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public short getShort(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getShort( parameterName );
         } catch ( SQLException se ) {
@@ -678,6 +787,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public int getInt(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getInt( parameterName );
         } catch ( SQLException se ) {
@@ -688,6 +798,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public long getLong(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getLong( parameterName );
         } catch ( SQLException se ) {
@@ -698,6 +809,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public float getFloat(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getFloat( parameterName );
         } catch ( SQLException se ) {
@@ -708,6 +820,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public double getDouble(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getDouble( parameterName );
         } catch ( SQLException se ) {
@@ -718,6 +831,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public byte[] getBytes(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getBytes( parameterName );
         } catch ( SQLException se ) {
@@ -728,6 +842,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Date getDate(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getDate( parameterName );
         } catch ( SQLException se ) {
@@ -738,6 +853,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Time getTime(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getTime( parameterName );
         } catch ( SQLException se ) {
@@ -748,6 +864,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Timestamp getTimestamp(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getTimestamp( parameterName );
         } catch ( SQLException se ) {
@@ -758,6 +875,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Object getObject(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getObject( parameterName );
         } catch ( SQLException se ) {
@@ -768,6 +886,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public BigDecimal getBigDecimal(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getBigDecimal( parameterName );
         } catch ( SQLException se ) {
@@ -778,6 +897,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Object getObject(String parameterName, Map<String, Class<?>> map) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getObject( parameterName, map );
         } catch ( SQLException se ) {
@@ -788,6 +908,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Ref getRef(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getRef( parameterName );
         } catch ( SQLException se ) {
@@ -798,6 +919,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Blob getBlob(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getBlob( parameterName );
         } catch ( SQLException se ) {
@@ -808,6 +930,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Clob getClob(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getClob( parameterName );
         } catch ( SQLException se ) {
@@ -818,6 +941,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Array getArray(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getArray( parameterName );
         } catch ( SQLException se ) {
@@ -828,6 +952,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Date getDate(String parameterName, Calendar cal) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getDate( parameterName, cal );
         } catch ( SQLException se ) {
@@ -838,6 +963,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Time getTime(String parameterName, Calendar cal) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getTime( parameterName, cal );
         } catch ( SQLException se ) {
@@ -848,6 +974,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getTimestamp( parameterName, cal );
         } catch ( SQLException se ) {
@@ -858,6 +985,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public URL getURL(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getURL( parameterName );
         } catch ( SQLException se ) {
@@ -868,6 +996,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public RowId getRowId(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getRowId( parameterIndex );
         } catch ( SQLException se ) {
@@ -878,6 +1007,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public RowId getRowId(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getRowId( parameterName );
         } catch ( SQLException se ) {
@@ -958,6 +1088,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public NClob getNClob(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getNClob( parameterIndex );
         } catch ( SQLException se ) {
@@ -968,6 +1099,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public NClob getNClob(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getNClob( parameterName );
         } catch ( SQLException se ) {
@@ -988,6 +1120,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public SQLXML getSQLXML(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getSQLXML( parameterIndex );
         } catch ( SQLException se ) {
@@ -998,6 +1131,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public SQLXML getSQLXML(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getSQLXML( parameterName );
         } catch ( SQLException se ) {
@@ -1008,6 +1142,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public String getNString(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getNString( parameterIndex );
         } catch ( SQLException se ) {
@@ -1018,6 +1153,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public String getNString(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getNString( parameterName );
         } catch ( SQLException se ) {
@@ -1028,6 +1164,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Reader getNCharacterStream(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getNCharacterStream( parameterIndex );
         } catch ( SQLException se ) {
@@ -1038,6 +1175,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Reader getNCharacterStream(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getNCharacterStream( parameterName );
         } catch ( SQLException se ) {
@@ -1048,6 +1186,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Reader getCharacterStream(int parameterIndex) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getCharacterStream( parameterIndex );
         } catch ( SQLException se ) {
@@ -1058,6 +1197,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public Reader getCharacterStream(String parameterName) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getCharacterStream( parameterName );
         } catch ( SQLException se ) {
@@ -1188,6 +1328,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException {
+        checkOutParameter( parameterIndex );
         try {
             return wrappedStatement.getObject( parameterIndex, type );
         } catch ( SQLException se ) {
@@ -1198,6 +1339,7 @@ public final class CallableStatementWrapper extends StatementWrapper implements
 
     @Override
     public <T> T getObject(String parameterName, Class<T> type) throws SQLException {
+        checkOutParameter( parameterName );
         try {
             return wrappedStatement.getObject( parameterName, type );
         } catch ( SQLException se ) {
@@ -1206,23 +1348,41 @@ public final class CallableStatementWrapper extends StatementWrapper implements
         }
     }
 
+    // null if column labels are resolved by the driver
+    private ColumnLabelCache columnLabels() {
+        if ( columnLabels == null && connection.getHandler().isColumnLabelCacheEnabled() ) {
+            columnLabels = cacheEntry != null ? cacheEntry.columnLabels() : new ColumnLabelCache();
+        }
+        return columnLabels;
+    }
+
     @Override
     public ResultSet executeQuery() throws SQLException {
         try {
-            return trackResultSet( wrappedStatement.executeQuery() );
+            long timestamp = beforeExecution();
+            ResultSet resultSet = wrappedStatement.executeQuery();
+            afterExecution( timestamp );
+            return trackResultSet( resultSet, columnLabels() );
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public int executeUpdate() throws SQLException {
         try {
-            return wrappedStatement.executeUpdate();
+            long timestamp = beforeExecution();
+            int rows = wrappedStatement.executeUpdate();
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
@@ -1430,10 +1590,15 @@ public final class CallableStatementWrapper extends StatementWrapper implements
     @Override
     public boolean execute() throws SQLException {
         try {
-            return wrappedStatement.execute();
+            long timestamp = beforeExecution();
+            boolean result = wrappedStatement.execute();
+            afterExecution( timestamp );
+            return result;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
@@ -1782,10 +1947,15 @@ public final class CallableStatementWrapper extends StatementWrapper implements
     @Override
     public long executeLargeUpdate() throws SQLException {
         try {
-            return wrappedStatement.executeLargeUpdate();
+            long timestamp = beforeExecution();
+            long rows = wrappedStatement.executeLargeUpdate();
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 }
@@ -5,6 +5,7 @@ package io.agroal.pool.wrapper;
 
 import io.agroal.pool.ConnectionHandler;
 import io.agroal.pool.util.AutoCloseableElement;
+import io.agroal.pool.util.StatementCache;
 
 import java.lang.reflect.InvocationHandler;
 import java.sql.Array;
@@ -56,11 +57,16 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
 
     private static final JdbcResourcesLeakReport JDBC_RESOURCES_NOT_LEAKED = new JdbcResourcesLeakReport( 0, 0 );
 
+    private static final int NO_GENERATION = -1;
+
     // --- //
 
     // Connection.close() does not return the connection to the pool.
     private final boolean detached;
 
+    // Generation of the handler when this wrapper was created. Wrappers not created for a borrow do not have one.
+    private final int generation;
+
     // Collection of Statements to close them on close(). If null Statements are not tracked.
     private final AutoCloseableElement trackedStatements;
     private int leakedResultSets;
@@ -79,6 +85,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         wrappedConnection = connectionHandler.rawConnection();
         trackedStatements = trackResources ? AutoCloseableElement.newHead() : null;
         this.detached = detached;
+        generation = NO_GENERATION;
     }
 
     public ConnectionWrapper(ConnectionHandler connectionHandler, boolean trackResources, AutoCloseableElement head ) {
@@ -87,6 +94,19 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         wrappedConnection = connectionHandler.rawConnection();
         trackedStatements = trackResources ? AutoCloseableElement.newHead() : null;
         detached = false;
+        generation = NO_GENERATION;
+    }
+
+    /**
+     * Wrapper for a borrow of the connection. The collection of statements is owned by the handler and reused from one borrow to the next.
+     */
+    public ConnectionWrapper(ConnectionHandler connectionHandler, AutoCloseableElement statementsHead, int borrowGeneration) {
+        super( null );
+        handler = connectionHandler;
+        wrappedConnection = connectionHandler.rawConnection();
+        trackedStatements = statementsHead;
+        detached = false;
+        generation = borrowGeneration;
     }
 
     public ConnectionHandler getHandler() {
@@ -99,30 +119,82 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
 
     // --- //
 
+    // statements are wrapped if tracked, to record their executions, to enforce the query timeout or to cache or materialize their results
+    private boolean wrapStatements() {
+        return trackedStatements != null || handler.isStatementMetricsEnabled() || handler.isQueryTimeoutEnabled() || handler.isColumnLabelCacheEnabled() || handler.isMaterializeResultsEnabled();
+    }
+
     private Statement trackStatement(Statement statement) {
-        if ( trackedStatements != null && statement != null ) {
-            return new StatementWrapper( this, statement, true, trackedStatements );
+        if ( wrapStatements() && statement != null ) {
+            return new StatementWrapper( this, statement, trackedStatements != null, trackedStatements );
         }
         return statement;
     }
 
-    private CallableStatement trackCallableStatement(CallableStatement statement) {
-        if ( trackedStatements != null && statement != null ) {
-            return new CallableStatementWrapper( this, statement, true, trackedStatements );
+    private CallableStatement trackCallableStatement(String sql, CallableStatement statement) {
+        if ( wrapStatements() && statement != null ) {
+            return new CallableStatementWrapper( this, statement, trackedStatements != null, trackedStatements, null, handler.statementRecorder( sql ) );
         }
         return statement;
     }
 
-    private PreparedStatement trackPreparedStatement(PreparedStatement statement) {
-        if ( trackedStatements != null && statement != null ) {
-            return new PreparedStatementWrapper( this, statement, true, trackedStatements );
+    private PreparedStatement trackPreparedStatement(String sql, PreparedStatement statement) {
+        if ( wrapStatements() && statement != null ) {
+            return new PreparedStatementWrapper( this, statement, trackedStatements != null, trackedStatements, null, handler.statementRecorder( sql ) );
         }
         return statement;
     }
 
+    private CallableStatement cacheCallableStatement(StatementCache.Key key, StatementCache.StatementFactory<CallableStatement> factory) throws SQLException {
+        StatementCache<CallableStatement> cache = handler.getCallableStatementCache();
+        if ( cache == null || wrappedConnection == CLOSED_CONNECTION ) {
+            return trackCallableStatement( key.sql(), factory.create() );
+        }
+        StatementCache.Entry<CallableStatement> entry = cache.take( key, factory );
+        return new CallableStatementWrapper( this, entry.statement(), trackedStatements != null, trackedStatements, entry, handler.statementRecorder( key.sql() ) );
+    }
+
+    private PreparedStatement cachePreparedStatement(StatementCache.Key key, StatementCache.StatementFactory<PreparedStatement> factory) throws SQLException {
+        StatementCache<PreparedStatement> cache = handler.getPreparedStatementCache();
+        if ( cache == null || wrappedConnection == CLOSED_CONNECTION ) {
+            return trackPreparedStatement( key.sql(), factory.create() );
+        }
+        // the statement is always wrapped, to be returned to the cache on close()
+        StatementCache.Entry<PreparedStatement> entry = cache.take( key, factory );
+        return new PreparedStatementWrapper( this, entry.statement(), trackedStatements != null, trackedStatements, entry, handler.statementRecorder( key.sql() ) );
+    }
+
+    private void verifyOpen() throws SQLException {
+        if ( wrappedConnection == CLOSED_CONNECTION ) {
+            throw new SQLException( "Connection is closed" );
+        }
+    }
+
+    // a wrapper of a previous borrow must not change the state of the current one
+    private boolean isCurrentBorrow() {
+        return wrappedConnection != CLOSED_CONNECTION && ( generation == NO_GENERATION || handler.isCurrentGeneration( generation ) );
+    }
+
+    // the reset deferred when the connection was returned is applied on the first operation of the next borrow
+    private void applyDeferredReset() throws SQLException {
+        if ( handler.isResetDeferred() && isCurrentBorrow() ) {
+            handler.applyDeferredReset();
+        }
+    }
+
+    // an attribute set before the deferred reset is applied does not need to be reset first
+    private void overrideDeferredReset(ConnectionHandler.DirtyAttribute attribute) {
+        if ( handler.isResetDeferred() && isCurrentBorrow() ) {
+            handler.overrideDeferredReset( attribute );
+        }
+    }
+
     private JdbcResourcesLeakReport closeTrackedStatements() throws SQLException {
         if ( trackedStatements != null ) {
-            return new JdbcResourcesLeakReport( trackedStatements.closeAllAutocloseableElements(), leakedResultSets );
+            int leakedStatements = trackedStatements.closeAllAutocloseableElements();
+            if ( leakedStatements != 0 || leakedResultSets != 0 ) {
+                return new JdbcResourcesLeakReport( leakedStatements, leakedResultSets );
+            }
         }
         return JDBC_RESOURCES_NOT_LEAKED;
     }
@@ -134,7 +206,10 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         handler.traceConnectionOperation( "close()" );
         if ( wrappedConnection != CLOSED_CONNECTION ) {
             wrappedConnection = CLOSED_CONNECTION;
-            handler.onConnectionWrapperClose( this, closeTrackedStatements() );
+            // a wrapper of a previous borrow must not close the statements of the current one, nor return it
+            if ( generation == NO_GENERATION || handler.endGeneration( generation ) ) {
+                handler.onConnectionWrapperClose( this, closeTrackedStatements() );
+            }
         }
     }
 
@@ -159,10 +234,9 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         }
         try {
             handler.verifyEnlistment();
-            if ( wrappedConnection.getAutoCommit() != autoCommit ) {
-                handler.setDirtyAttribute( ConnectionHandler.DirtyAttribute.AUTOCOMMIT );
-                wrappedConnection.setAutoCommit( autoCommit );
-            }
+            applyDeferredReset();
+            verifyOpen();
+            handler.setAutoCommit( autoCommit );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -174,7 +248,9 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "getAutoCommit()" );
             handler.verifyEnlistment();
-            return wrappedConnection.getAutoCommit();
+            applyDeferredReset();
+            verifyOpen();
+            return handler.getAutoCommit();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -205,6 +281,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         }
         try {
             handler.verifyEnlistment();
+            applyDeferredReset();
             wrappedConnection.rollback();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -221,6 +298,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         }
         try {
             handler.verifyEnlistment();
+            applyDeferredReset();
             wrappedConnection.rollback( savepoint );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -235,6 +313,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "clearWarnings()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             wrappedConnection.clearWarnings();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -247,6 +326,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "createClob()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.createClob();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -259,6 +339,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "createBlob()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.createBlob();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -271,6 +352,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "createNClob()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.createNClob();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -283,6 +365,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "createSQLXML()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.createSQLXML();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -295,6 +378,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "createArrayOf(String, Object[])" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.createArrayOf( typeName, elements );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -307,6 +391,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "createStatement()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return trackStatement( wrappedConnection.createStatement() );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -319,6 +404,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "createStatement(int, int)" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return trackStatement( wrappedConnection.createStatement( resultSetType, resultSetConcurrency ) );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -331,6 +417,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "createStatement(int, int, int)" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return trackStatement( wrappedConnection.createStatement( resultSetType, resultSetConcurrency, resultSetHoldability ) );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -343,6 +430,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "createStruct(String, Object[])" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.createStruct( typeName, attributes );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -355,7 +443,9 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "getCatalog()" );
             handler.verifyEnlistment();
-            return wrappedConnection.getCatalog();
+            applyDeferredReset();
+            verifyOpen();
+            return handler.getCatalog();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -367,8 +457,9 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "setCatalog(String)" );
             handler.verifyEnlistment();
-            handler.setDirtyAttribute( ConnectionHandler.DirtyAttribute.CATALOG );
-            wrappedConnection.setCatalog( catalog );
+            applyDeferredReset();
+            verifyOpen();
+            handler.setCatalog( catalog );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -380,6 +471,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "getHoldability()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.getHoldability();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -392,6 +484,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "setHoldability(int)" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             wrappedConnection.setHoldability( holdability );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -404,6 +497,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "getClientInfo()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.getClientInfo();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -427,6 +521,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "getClientInfo(String)" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.getClientInfo( name );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -439,6 +534,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "getMetaData()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.getMetaData();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -451,6 +547,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "getNetworkTimeout()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.getNetworkTimeout();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -463,7 +560,9 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "getSchema()" );
             handler.verifyEnlistment();
-            return wrappedConnection.getSchema();
+            applyDeferredReset();
+            verifyOpen();
+            return handler.getSchema();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -475,8 +574,9 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "setSchema(String)" );
             handler.verifyEnlistment();
-            handler.setDirtyAttribute( ConnectionHandler.DirtyAttribute.SCHEMA );
-            wrappedConnection.setSchema( schema );
+            applyDeferredReset();
+            verifyOpen();
+            handler.setSchema( schema );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -488,6 +588,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "getTypeMap()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.getTypeMap();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -500,6 +601,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "setTypeMap(Map<String, Class<?>>)" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             wrappedConnection.setTypeMap( map );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -512,7 +614,9 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "getTransactionIsolation()" );
             handler.verifyEnlistment();
-            return wrappedConnection.getTransactionIsolation();
+            applyDeferredReset();
+            verifyOpen();
+            return handler.getTransactionIsolation();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -524,8 +628,9 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "setTransactionIsolation(int)" );
             handler.verifyEnlistment();
-            handler.setDirtyAttribute( ConnectionHandler.DirtyAttribute.TRANSACTION_ISOLATION );
-            wrappedConnection.setTransactionIsolation( level );
+            verifyOpen();
+            overrideDeferredReset( ConnectionHandler.DirtyAttribute.TRANSACTION_ISOLATION );
+            handler.setTransactionIsolation( level );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -537,6 +642,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "getWarnings()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.getWarnings();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -560,7 +666,9 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "isReadOnly()" );
             handler.verifyEnlistment();
-            return wrappedConnection.isReadOnly();
+            applyDeferredReset();
+            verifyOpen();
+            return handler.isReadOnly();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -573,8 +681,9 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
             handler.traceConnectionOperation( "setReadOnly(boolean)" );
             handler.verifyReadOnly( readOnly );
             handler.verifyEnlistment();
-            handler.setDirtyAttribute( ConnectionHandler.DirtyAttribute.READ_ONLY );
-            wrappedConnection.setReadOnly( readOnly );
+            verifyOpen();
+            overrideDeferredReset( ConnectionHandler.DirtyAttribute.READ_ONLY );
+            handler.setReadOnly( readOnly );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -586,6 +695,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "isValid(int)" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.isValid( timeout );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -598,6 +708,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "nativeSQL(String)" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.nativeSQL( sql );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -610,7 +721,8 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "prepareCall(String)" );
             handler.verifyEnlistment();
-            return trackCallableStatement( wrappedConnection.prepareCall( sql ) );
+            applyDeferredReset();
+            return cacheCallableStatement( new StatementCache.Key( sql, 0, 0, 0, 0 ), () -> wrappedConnection.prepareCall( sql ) );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -622,7 +734,8 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "prepareCall(String, int, int)" );
             handler.verifyEnlistment();
-            return trackCallableStatement( wrappedConnection.prepareCall( sql, resultSetType, resultSetConcurrency ) );
+            applyDeferredReset();
+            return cacheCallableStatement( new StatementCache.Key( sql, resultSetType, resultSetConcurrency, 0, 0 ), () -> wrappedConnection.prepareCall( sql, resultSetType, resultSetConcurrency ) );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -634,7 +747,8 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "prepareCall(String, int, int, int)" );
             handler.verifyEnlistment();
-            return trackCallableStatement( wrappedConnection.prepareCall( sql, resultSetType, resultSetConcurrency, resultSetHoldability ) );
+            applyDeferredReset();
+            return cacheCallableStatement( new StatementCache.Key( sql, resultSetType, resultSetConcurrency, resultSetHoldability, 0 ), () -> wrappedConnection.prepareCall( sql, resultSetType, resultSetConcurrency, resultSetHoldability ) );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -646,7 +760,8 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "prepareStatement(String)" );
             handler.verifyEnlistment();
-            return trackPreparedStatement( wrappedConnection.prepareStatement( sql ) );
+            applyDeferredReset();
+            return cachePreparedStatement( new StatementCache.Key( sql, 0, 0, 0, 0 ), () -> wrappedConnection.prepareStatement( sql ) );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -658,7 +773,8 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "prepareStatement(String, int, int)" );
             handler.verifyEnlistment();
-            return trackPreparedStatement( wrappedConnection.prepareStatement( sql, resultSetType, resultSetConcurrency ) );
+            applyDeferredReset();
+            return cachePreparedStatement( new StatementCache.Key( sql, resultSetType, resultSetConcurrency, 0, 0 ), () -> wrappedConnection.prepareStatement( sql, resultSetType, resultSetConcurrency ) );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -670,7 +786,8 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "prepareStatement(String, int, int, int)" );
             handler.verifyEnlistment();
-            return trackPreparedStatement( wrappedConnection.prepareStatement( sql, resultSetType, resultSetConcurrency, resultSetHoldability ) );
+            applyDeferredReset();
+            return cachePreparedStatement( new StatementCache.Key( sql, resultSetType, resultSetConcurrency, resultSetHoldability, 0 ), () -> wrappedConnection.prepareStatement( sql, resultSetType, resultSetConcurrency, resultSetHoldability ) );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -682,7 +799,8 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "prepareStatement(String, int)" );
             handler.verifyEnlistment();
-            return trackPreparedStatement( wrappedConnection.prepareStatement( sql, autoGeneratedKeys ) );
+            applyDeferredReset();
+            return cachePreparedStatement( new StatementCache.Key( sql, 0, 0, 0, autoGeneratedKeys ), () -> wrappedConnection.prepareStatement( sql, autoGeneratedKeys ) );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -694,7 +812,8 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "prepareStatement(String, int[])" );
             handler.verifyEnlistment();
-            return trackPreparedStatement( wrappedConnection.prepareStatement( sql, columnIndexes ) );
+            applyDeferredReset();
+            return trackPreparedStatement( sql, wrappedConnection.prepareStatement( sql, columnIndexes ) );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -706,7 +825,8 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "prepareStatement(String, String[])" );
             handler.verifyEnlistment();
-            return trackPreparedStatement( wrappedConnection.prepareStatement( sql, columnNames ) );
+            applyDeferredReset();
+            return trackPreparedStatement( sql, wrappedConnection.prepareStatement( sql, columnNames ) );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -718,6 +838,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "releaseSavepoint(Savepoint)" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             wrappedConnection.releaseSavepoint( savepoint );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -741,6 +862,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "setSavepoint()" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.setSavepoint();
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -753,6 +875,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "setSavepoint(String)" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             return wrappedConnection.setSavepoint( name );
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
@@ -765,6 +888,7 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
         try {
             handler.traceConnectionOperation( "setNetworkTimeout(Executor, int)" );
             handler.verifyEnlistment();
+            applyDeferredReset();
             handler.setDirtyAttribute( ConnectionHandler.DirtyAttribute.NETWORK_TIMEOUT );
             wrappedConnection.setNetworkTimeout( executor, milliseconds );
         } catch ( SQLException se ) {
@@ -779,7 +903,11 @@ public final class ConnectionWrapper extends AutoCloseableElement implements Con
     public <T> T unwrap(Class<T> target) throws SQLException {
         try {
             handler.traceConnectionOperation( "unwrap(Class<T>)" );
-            return wrappedConnection.unwrap( target );
+            applyDeferredReset();
+            T unwrapped = wrappedConnection.unwrap( target );
+            // the session state may be changed through the unwrapped connection
+            handler.clearSessionState();
+            return unwrapped;
         } catch ( SQLException se ) {
             handler.setFlushOnly( se );
             throw se;
@@ -0,0 +1,1947 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool.wrapper;
+
+import io.agroal.pool.util.ColumnLabelCache;
+
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLType;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Map;
+
+import static java.sql.Types.ARRAY;
+import static java.sql.Types.NCLOB;
+import static java.sql.Types.REF;
+import static java.sql.Types.REF_CURSOR;
+import static java.sql.Types.SQLXML;
+import static java.sql.Types.STRUCT;
+
+/**
+ * Result of a query read in full when executed, so that it remains usable after the statement and the connection are closed.
+ * Values are kept by column. Columns of integral and floating point types are kept in primitive arrays, and the other columns hold the objects returned by the driver, along with their text when it's not a String. LOB values are copied.
+ * The result is read-only, and can be scrolled.
+ * <p>
+ * A result with more rows than the limit is only read up to it on execution. The remaining rows are read from the cursor as they are consumed, a limit at a time, and the result can only be scrolled forward.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class MaterializedResultSet implements ResultSet {
+
+    private static final String READ_ONLY = "A materialized ResultSet is read-only";
+
+    private static final LocalDate EPOCH = LocalDate.of( 1970, 1, 1 );
+
+    private final Statement statement;
+    private final ResultSetMetaData metaData;
+    private final ColumnLabelCache.Index columnIndex;
+    private final Column[] columns;
+    private final int materializedRows;
+
+    // maximum number of rows kept, when the result is read as it is consumed
+    private final int maxRows;
+    // cursor of the rows not read yet. null when the result is read in full
+    private ResultSet remaining;
+    private final boolean partial;
+
+    // rows kept, and the number of rows before them
+    private int rowCount;
+    private int rowOffset;
+
+    // 0 is before the first row kept, and rowCount + 1 after the last
+    private int row;
+    private boolean wasNull;
+    private boolean closed;
+    private SQLWarning warnings;
+
+    private MaterializedResultSet(Statement statement, ResultSetMetaData metaData, Column[] columns, int rowCount, int maxRows, boolean partial, SQLWarning warnings) throws SQLException {
+        this.statement = statement;
+        this.metaData = metaData;
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.maxRows = maxRows;
+        this.partial = partial;
+        this.warnings = warnings;
+        materializedRows = rowCount;
+        columnIndex = new ColumnLabelCache.Index( metaData );
+    }
+
+    /**
+     * Reads all the rows of a result set, and closes it. Returns null without reading any row if the result set is updatable or has columns with values that are read from the database on access.
+     * With a limit of rows other than zero, a result set with more rows is only read up to the row after the limit, and is kept open. See {@link #readRemaining(ResultSet)}.
+     */
+    public static MaterializedResultSet materialize(Statement statement, ResultSet resultSet, int maxRows) throws SQLException {
+        try {
+            if ( resultSet.getConcurrency() == CONCUR_UPDATABLE ) {
+                return null;
+            }
+            ResultSetMetaData driverMetaData = resultSet.getMetaData();
+            int columnCount = driverMetaData.getColumnCount();
+            for ( int i = 1; i <= columnCount; i++ ) {
+                switch ( driverMetaData.getColumnType( i ) ) {
+                    case ARRAY:
+                    case REF:
+                    case REF_CURSOR:
+                    case STRUCT:
+                    case SQLXML:
+                    case NCLOB:
+                        return null;
+                    default:
+                }
+            }
+
+            MetaData metaData = new MetaData( driverMetaData, columnCount );
+            Column[] columns = new Column[columnCount];
+            for ( int i = 0; i < columnCount; i++ ) {
+                columns[i] = Column.forClassName( metaData.columnClassName[i] );
+            }
+            // the row after the limit is read to know if there are more
+            int rowCount = readRows( resultSet, columns, maxRows == 0 ? Integer.MAX_VALUE : maxRows + 1 );
+            SQLWarning warnings = resultSet.getWarnings();
+            if ( maxRows != 0 && rowCount > maxRows ) {
+                return new MaterializedResultSet( statement, metaData, columns, rowCount, maxRows, true, warnings );
+            }
+            for ( Column column : columns ) {
+                column.trim( rowCount );
+            }
+            resultSet.close();
+            return new MaterializedResultSet( statement, metaData, columns, rowCount, maxRows, false, warnings );
+        } catch ( SQLException se ) {
+            try {
+                resultSet.close();
+            } catch ( SQLException e ) {
+                se.addSuppressed( e );
+            }
+            throw se;
+        }
+    }
+
+    private static int readRows(ResultSet resultSet, Column[] columns, int maxRows) throws SQLException {
+        int rowCount = 0;
+        while ( rowCount < maxRows && resultSet.next() ) {
+            for ( int i = 0; i < columns.length; i++ ) {
+                columns[i].read( resultSet, i + 1, rowCount );
+            }
+            rowCount++;
+        }
+        return rowCount;
+    }
+
+    /**
+     * The number of rows read from the database on execution.
+     */
+    public int rowCount() {
+        return materializedRows;
+    }
+
+    /**
+     * If the result has more rows than the limit, and still has to read them from the cursor.
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * Sets the cursor the rows above the limit are read from, positioned on the last row read on execution. It's closed when the result is closed, or after the last row is read.
+     */
+    public void readRemaining(ResultSet resultSet) {
+        remaining = resultSet;
+    }
+
+    // reads the next rows from the cursor, in place of the ones kept
+    private void readNextRows() throws SQLException {
+        rowOffset += rowCount;
+        row = 0;
+        for ( Column column : columns ) {
+            column.clearNulls();
+        }
+        rowCount = readRows( remaining, columns, maxRows );
+        if ( rowCount < maxRows ) {
+            closeRemaining();
+        }
+    }
+
+    private void closeRemaining() throws SQLException {
+        if ( remaining != null ) {
+            try {
+                remaining.close();
+            } finally {
+                remaining = null;
+            }
+        }
+    }
+
+    // a result read as it is consumed only moves forward
+    private void checkScrollable() throws SQLException {
+        checkOpen();
+        if ( partial ) {
+            throw new SQLException( "ResultSet with more rows than the materialization limit can only move forward" );
+        }
+    }
+
+    private void checkOpen() throws SQLException {
+        if ( closed ) {
+            throw new SQLException( "ResultSet is closed" );
+        }
+    }
+
+    // the column, positioned on the current row. sets wasNull
+    private Column column(int index) throws SQLException {
+        checkOpen();
+        if ( row < 1 || row > rowCount ) {
+            throw new SQLException( "ResultSet is not positioned on a row" );
+        }
+        if ( index < 1 || index > columns.length ) {
+            throw new SQLException( "Invalid column index " + index );
+        }
+        Column column = columns[index - 1];
+        wasNull = column.isNull( row - 1 );
+        return column;
+    }
+
+    private Object objectValue(int index) throws SQLException {
+        return column( index ).object( row - 1 );
+    }
+
+    private long longValue(int index) throws SQLException {
+        Column column = column( index );
+        if ( wasNull ) {
+            return 0;
+        }
+        if ( column instanceof LongColumn ) {
+            return ( (LongColumn) column ).values[row - 1];
+        }
+        if ( column instanceof DoubleColumn ) {
+            return (long) ( (DoubleColumn) column ).values[row - 1];
+        }
+        Object value = column.object( row - 1 );
+        if ( value instanceof Number ) {
+            return ( (Number) value ).longValue();
+        }
+        if ( value instanceof Boolean ) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return toBigDecimal( value ).longValue();
+    }
+
+    private double doubleValue(int index) throws SQLException {
+        Column column = column( index );
+        if ( wasNull ) {
+            return 0;
+        }
+        if ( column instanceof DoubleColumn ) {
+            return ( (DoubleColumn) column ).values[row - 1];
+        }
+        if ( column instanceof LongColumn ) {
+            return ( (LongColumn) column ).values[row - 1];
+        }
+        Object value = column.object( row - 1 );
+        if ( value instanceof Number ) {
+            return ( (Number) value ).doubleValue();
+        }
+        if ( value instanceof Boolean ) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return toBigDecimal( value ).doubleValue();
+    }
+
+    @SuppressWarnings( "ChainOfInstanceofChecks" )
+    private Object convert(int index, Class<?> type) throws SQLException {
+        if ( type == String.class ) {
+            return getString( index );
+        } else if ( type == Integer.class ) {
+            return getInt( index );
+        } else if ( type == Long.class ) {
+            return getLong( index );
+        } else if ( type == Short.class ) {
+            return getShort( index );
+        } else if ( type == Byte.class ) {
+            return getByte( index );
+        } else if ( type == Boolean.class ) {
+            return getBoolean( index );
+        } else if ( type == Double.class ) {
+            return getDouble( index );
+        } else if ( type == Float.class ) {
+            return getFloat( index );
+        } else if ( type == BigDecimal.class ) {
+            return getBigDecimal( index );
+        } else if ( type == byte[].class ) {
+            return getBytes( index );
+        } else if ( type == Date.class ) {
+            return getDate( index );
+        } else if ( type == Time.class ) {
+            return getTime( index );
+        } else if ( type == Timestamp.class ) {
+            return getTimestamp( index );
+        } else if ( type == LocalDate.class ) {
+            return getDate( index ).toLocalDate();
+        } else if ( type == LocalTime.class ) {
+            return getTime( index ).toLocalTime();
+        } else if ( type == LocalDateTime.class ) {
+            return getTimestamp( index ).toLocalDateTime();
+        } else if ( type == Blob.class ) {
+            return getBlob( index );
+        } else if ( type == Clob.class ) {
+            return getClob( index );
+        } else if ( type == URL.class ) {
+            return getURL( index );
+        }
+        throw conversionException( objectValue( index ), type );
+    }
+
+    private static SQLException conversionException(Object value, Class<?> type) {
+        return new SQLException( "Can't convert value of " + value.getClass().getName() + " to " + type.getName() );
+    }
+
+    private static String clobString(Clob clob) throws SQLException {
+        return clob.getSubString( 1, (int) clob.length() );
+    }
+
+    private static BigDecimal toBigDecimal(Object value) throws SQLException {
+        if ( value instanceof BigDecimal ) {
+            return (BigDecimal) value;
+        }
+        if ( value instanceof BigInteger ) {
+            return new BigDecimal( (BigInteger) value );
+        }
+        if ( value instanceof Number || value instanceof String ) {
+            try {
+                return new BigDecimal( value.toString().trim() );
+            } catch ( NumberFormatException e ) {
+                throw new SQLException( "Can't convert value '" + value + "' to a number", e );
+            }
+        }
+        throw conversionException( value, BigDecimal.class );
+    }
+
+    @SuppressWarnings( "ChainOfInstanceofChecks" )
+    private static Date toDate(Object value) throws SQLException {
+        if ( value == null || value instanceof Date ) {
+            return (Date) value;
+        } else if ( value instanceof LocalDate ) {
+            return Date.valueOf( (LocalDate) value );
+        } else if ( value instanceof LocalDateTime ) {
+            return Date.valueOf( ( (LocalDateTime) value ).toLocalDate() );
+        } else if ( value instanceof Timestamp ) {
+            return Date.valueOf( ( (Timestamp) value ).toLocalDateTime().toLocalDate() );
+        } else if ( value instanceof java.util.Date ) {
+            return new Date( ( (java.util.Date) value ).getTime() );
+        } else if ( value instanceof String ) {
+            try {
+                return Date.valueOf( ( (String) value ).trim() );
+            } catch ( IllegalArgumentException e ) {
+                throw new SQLException( "Can't convert value '" + value + "' to a date", e );
+            }
+        }
+        throw conversionException( value, Date.class );
+    }
+
+    @SuppressWarnings( "ChainOfInstanceofChecks" )
+    private static Time toTime(Object value) throws SQLException {
+        if ( value == null || value instanceof Time ) {
+            return (Time) value;
+        } else if ( value instanceof LocalTime ) {
+            return Time.valueOf( (LocalTime) value );
+        } else if ( value instanceof LocalDateTime ) {
+            return Time.valueOf( ( (LocalDateTime) value ).toLocalTime() );
+        } else if ( value instanceof Timestamp ) {
+            return Time.valueOf( ( (Timestamp) value ).toLocalDateTime().toLocalTime() );
+        } else if ( value instanceof java.util.Date ) {
+            return new Time( ( (java.util.Date) value ).getTime() );
+        } else if ( value instanceof String ) {
+            try {
+                return Time.valueOf( ( (String) value ).trim() );
+            } catch ( IllegalArgumentException e ) {
+                throw new SQLException( "Can't convert value '" + value + "' to a time", e );
+            }
+        }
+        throw conversionException( value, Time.class );
+    }
+
+    @SuppressWarnings( "ChainOfInstanceofChecks" )
+    private static Timestamp toTimestamp(Object value) throws SQLException {
+        if ( value == null || value instanceof Timestamp ) {
+            return (Timestamp) value;
+        } else if ( value instanceof LocalDateTime ) {
+            return Timestamp.valueOf( (LocalDateTime) value );
+        } else if ( value instanceof LocalDate ) {
+            return Timestamp.valueOf( ( (LocalDate) value ).atStartOfDay() );
+        } else if ( value instanceof java.util.Date ) {
+            return new Timestamp( ( (java.util.Date) value ).getTime() );
+        } else if ( value instanceof String ) {
+            try {
+                return Timestamp.valueOf( ( (String) value ).trim() );
+            } catch ( IllegalArgumentException e ) {
+                throw new SQLException( "Can't convert value '" + value + "' to a timestamp", e );
+            }
+        }
+        throw conversionException( value, Timestamp.class );
+    }
+
+    @Override
+    public void close() throws SQLException {
+        closed = true;
+        closeRemaining();
+    }
+
+    // --- //
+
+    @Override
+    public boolean next() throws SQLException {
+        checkOpen();
+        if ( row == rowCount && remaining != null ) {
+            readNextRows();
+        }
+        if ( row <= rowCount ) {
+            row++;
+        }
+        return row <= rowCount;
+    }
+
+    @Override
+    public boolean wasNull() throws SQLException {
+        checkOpen();
+        return wasNull;
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        Column column = column( columnIndex );
+        if ( wasNull ) {
+            return null;
+        }
+        Object value = column.object( row - 1 );
+        if ( value instanceof String ) {
+            return (String) value;
+        }
+        if ( value instanceof Clob ) {
+            return clobString( (Clob) value );
+        }
+        if ( column instanceof ObjectColumn ) {
+            // the text of the value as returned by the driver, that may not be the same as toString()
+            String text = ( (ObjectColumn) column ).text( row - 1 );
+            if ( text == null ) {
+                throw conversionException( value, String.class );
+            }
+            return text;
+        }
+        return value.toString();
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        Column column = column( columnIndex );
+        if ( wasNull ) {
+            return false;
+        }
+        if ( column instanceof LongColumn ) {
+            return ( (LongColumn) column ).values[row - 1] != 0;
+        }
+        if ( column instanceof DoubleColumn ) {
+            return ( (DoubleColumn) column ).values[row - 1] != 0;
+        }
+        Object value = column.object( row - 1 );
+        if ( value instanceof Boolean ) {
+            return (Boolean) value;
+        }
+        if ( value instanceof Number ) {
+            return ( (Number) value ).doubleValue() != 0;
+        }
+        if ( value instanceof String ) {
+            String string = ( (String) value ).trim();
+            return "true".equalsIgnoreCase( string ) || "1".equals( string );
+        }
+        throw conversionException( value, boolean.class );
+    }
+
+    @Override
+    public byte getByte(int columnIndex) throws SQLException {
+        return (byte) longValue( columnIndex );
+    }
+
+    @Override
+    public short getShort(int columnIndex) throws SQLException {
+        return (short) longValue( columnIndex );
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        return (int) longValue( columnIndex );
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        return longValue( columnIndex );
+    }
+
+    @Override
+    public float getFloat(int columnIndex) throws SQLException {
+        return (float) doubleValue( columnIndex );
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        return doubleValue( columnIndex );
+    }
+
+    @Override
+    @SuppressWarnings( "deprecation" )
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+        BigDecimal value = getBigDecimal( columnIndex );
+        return value == null ? null : value.setScale( scale, RoundingMode.HALF_UP );
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        Object value = objectValue( columnIndex );
+        if ( value == null || value instanceof byte[] ) {
+            return (byte[]) value;
+        }
+        if ( value instanceof Blob ) {
+            return ( (Blob) value ).getBytes( 1, (int) ( (Blob) value ).length() );
+        }
+        throw conversionException( value, byte[].class );
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        return toDate( objectValue( columnIndex ) );
+    }
+
+    @Override
+    public Time getTime(int columnIndex) throws SQLException {
+        return toTime( objectValue( columnIndex ) );
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        return toTimestamp( objectValue( columnIndex ) );
+    }
+
+    @Override
+    public InputStream getAsciiStream(int columnIndex) throws SQLException {
+        String value = getString( columnIndex );
+        return value == null ? null : new ByteArrayInputStream( value.getBytes( StandardCharsets.US_ASCII ) );
+    }
+
+    @Override
+    @SuppressWarnings( "deprecation" )
+    public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException( "getUnicodeStream() is deprecated" );
+    }
+
+    @Override
+    public InputStream getBinaryStream(int columnIndex) throws SQLException {
+        byte[] value = getBytes( columnIndex );
+        return value == null ? null : new ByteArrayInputStream( value );
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return getBoolean( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public byte getByte(String columnLabel) throws SQLException {
+        return getByte( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public short getShort(String columnLabel) throws SQLException {
+        return getShort( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public float getFloat(String columnLabel) throws SQLException {
+        return getFloat( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble( findColumn( columnLabel ) );
+    }
+
+    @Override
+    @SuppressWarnings( "deprecation" )
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+        return getBigDecimal( findColumn( columnLabel ), scale );
+    }
+
+    @Override
+    public byte[] getBytes(String columnLabel) throws SQLException {
+        return getBytes( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws SQLException {
+        return getDate( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public Time getTime(String columnLabel) throws SQLException {
+        return getTime( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        return getTimestamp( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public InputStream getAsciiStream(String columnLabel) throws SQLException {
+        return getAsciiStream( findColumn( columnLabel ) );
+    }
+
+    @Override
+    @SuppressWarnings( "deprecation" )
+    public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+        return getUnicodeStream( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public InputStream getBinaryStream(String columnLabel) throws SQLException {
+        return getBinaryStream( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        checkOpen();
+        return warnings;
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        checkOpen();
+        warnings = null;
+    }
+
+    @Override
+    public String getCursorName() throws SQLException {
+        throw new SQLFeatureNotSupportedException( "The cursor of a materialized ResultSet is closed" );
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        checkOpen();
+        return metaData;
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        return objectValue( columnIndex );
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        checkOpen();
+        int column = columnIndex.findColumn( columnLabel );
+        if ( column < 1 ) {
+            throw new SQLException( "Invalid column label " + columnLabel );
+        }
+        return column;
+    }
+
+    @Override
+    public Reader getCharacterStream(int columnIndex) throws SQLException {
+        String value = getString( columnIndex );
+        return value == null ? null : new StringReader( value );
+    }
+
+    @Override
+    public Reader getCharacterStream(String columnLabel) throws SQLException {
+        return getCharacterStream( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        Column column = column( columnIndex );
+        if ( wasNull ) {
+            return null;
+        }
+        if ( column instanceof LongColumn ) {
+            return BigDecimal.valueOf( ( (LongColumn) column ).values[row - 1] );
+        }
+        if ( column instanceof DoubleColumn ) {
+            return BigDecimal.valueOf( ( (DoubleColumn) column ).values[row - 1] );
+        }
+        return toBigDecimal( column.object( row - 1 ) );
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+        return getBigDecimal( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws SQLException {
+        checkOpen();
+        return row == 0 && rowOffset == 0 && rowCount > 0;
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException {
+        checkOpen();
+        return row > rowCount && rowOffset + rowCount > 0;
+    }
+
+    @Override
+    public boolean isFirst() throws SQLException {
+        checkOpen();
+        return row == 1 && rowOffset == 0 && rowCount > 0;
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        checkOpen();
+        return row == rowCount && remaining == null && rowCount > 0;
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        checkScrollable();
+        row = 0;
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        checkScrollable();
+        row = rowCount + 1;
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        return absolute( 1 );
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        return absolute( -1 );
+    }
+
+    @Override
+    public int getRow() throws SQLException {
+        checkOpen();
+        return row > rowCount ? 0 : rowOffset + row;
+    }
+
+    @Override
+    public boolean absolute(int row) throws SQLException {
+        checkScrollable();
+        // negative positions count from the end
+        int position = row < 0 ? rowCount + 1 + row : row;
+        this.row = Math.max( 0, Math.min( position, rowCount + 1 ) );
+        return this.row >= 1 && this.row <= rowCount;
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException {
+        checkScrollable();
+        row = (int) Math.max( 0, Math.min( (long) row + rows, rowCount + 1 ) );
+        return row >= 1 && row <= rowCount;
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        checkScrollable();
+        if ( row > 0 ) {
+            row--;
+        }
+        return row >= 1;
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        checkOpen();
+        return FETCH_FORWARD;
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        checkOpen();
+        // all the rows are in memory
+        if ( direction != FETCH_FORWARD && direction != FETCH_REVERSE && direction != FETCH_UNKNOWN ) {
+            throw new SQLException( "Invalid fetch direction " + direction );
+        }
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        checkOpen();
+        return 0;
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        checkOpen();
+        if ( rows < 0 ) {
+            throw new SQLException( "Invalid fetch size " + rows );
+        }
+    }
+
+    @Override
+    public int getType() throws SQLException {
+        checkOpen();
+        return partial ? TYPE_FORWARD_ONLY : TYPE_SCROLL_INSENSITIVE;
+    }
+
+    @Override
+    public int getConcurrency() throws SQLException {
+        checkOpen();
+        return CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public boolean rowUpdated() throws SQLException {
+        checkOpen();
+        return false;
+    }
+
+    @Override
+    public boolean rowInserted() throws SQLException {
+        checkOpen();
+        return false;
+    }
+
+    @Override
+    public boolean rowDeleted() throws SQLException {
+        checkOpen();
+        return false;
+    }
+
+    @Override
+    public void updateNull(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateByte(int columnIndex, byte x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateShort(int columnIndex, short x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateInt(int columnIndex, int x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateLong(int columnIndex, long x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateFloat(int columnIndex, float x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateDouble(int columnIndex, double x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateString(int columnIndex, String x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateDate(int columnIndex, Date x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateTime(int columnIndex, Time x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateNull(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateByte(String columnLabel, byte x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateShort(String columnLabel, short x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateInt(String columnLabel, int x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateLong(String columnLabel, long x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateFloat(String columnLabel, float x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateDouble(String columnLabel, double x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateString(String columnLabel, String x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateDate(String columnLabel, Date x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateTime(String columnLabel, Time x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void insertRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void deleteRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void refreshRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException( "A materialized ResultSet can't be refreshed" );
+    }
+
+    @Override
+    public void cancelRowUpdates() throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void moveToInsertRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void moveToCurrentRow() throws SQLException {
+        checkOpen();
+    }
+
+    @Override
+    public Statement getStatement() throws SQLException {
+        checkOpen();
+        return statement;
+    }
+
+    @Override
+    public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+        if ( map != null && !map.isEmpty() ) {
+            throw new SQLFeatureNotSupportedException( "Type maps are not supported by a materialized ResultSet" );
+        }
+        return getObject( columnIndex );
+    }
+
+    @Override
+    public Ref getRef(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException( "REF values are not materialized" );
+    }
+
+    @Override
+    public Blob getBlob(int columnIndex) throws SQLException {
+        Object value = objectValue( columnIndex );
+        if ( value == null || value instanceof Blob ) {
+            return (Blob) value;
+        }
+        if ( value instanceof byte[] ) {
+            return new SerialBlob( (byte[]) value );
+        }
+        throw conversionException( value, Blob.class );
+    }
+
+    @Override
+    public Clob getClob(int columnIndex) throws SQLException {
+        Object value = objectValue( columnIndex );
+        if ( value == null || value instanceof Clob ) {
+            return (Clob) value;
+        }
+        if ( value instanceof String ) {
+            return new SerialClob( ( (String) value ).toCharArray() );
+        }
+        throw conversionException( value, Clob.class );
+    }
+
+    @Override
+    public Array getArray(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException( "ARRAY values are not materialized" );
+    }
+
+    @Override
+    public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+        return getObject( findColumn( columnLabel ), map );
+    }
+
+    @Override
+    public Ref getRef(String columnLabel) throws SQLException {
+        return getRef( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public Blob getBlob(String columnLabel) throws SQLException {
+        return getBlob( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public Clob getClob(String columnLabel) throws SQLException {
+        return getClob( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public Array getArray(String columnLabel) throws SQLException {
+        return getArray( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+        Date value = getDate( columnIndex );
+        return value == null || cal == null ? value : new Date( value.toLocalDate().atStartOfDay( cal.getTimeZone().toZoneId() ).toInstant().toEpochMilli() );
+    }
+
+    @Override
+    public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+        return getDate( findColumn( columnLabel ), cal );
+    }
+
+    @Override
+    public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+        Time value = getTime( columnIndex );
+        return value == null || cal == null ? value : new Time( value.toLocalTime().atDate( EPOCH ).atZone( cal.getTimeZone().toZoneId() ).toInstant().toEpochMilli() );
+    }
+
+    @Override
+    public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+        return getTime( findColumn( columnLabel ), cal );
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+        Timestamp value = getTimestamp( columnIndex );
+        return value == null || cal == null ? value : Timestamp.from( value.toLocalDateTime().atZone( cal.getTimeZone().toZoneId() ).toInstant() );
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+        return getTimestamp( findColumn( columnLabel ), cal );
+    }
+
+    @Override
+    public URL getURL(int columnIndex) throws SQLException {
+        Object value = objectValue( columnIndex );
+        if ( value == null || value instanceof URL ) {
+            return (URL) value;
+        }
+        try {
+            return new URL( value.toString() );
+        } catch ( MalformedURLException e ) {
+            throw new SQLException( "Invalid URL " + value, e );
+        }
+    }
+
+    @Override
+    public URL getURL(String columnLabel) throws SQLException {
+        return getURL( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public void updateRef(int columnIndex, Ref x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateRef(String columnLabel, Ref x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, Blob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, Blob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Clob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Clob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateArray(int columnIndex, Array x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateArray(String columnLabel, Array x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public RowId getRowId(int columnIndex) throws SQLException {
+        Object value = objectValue( columnIndex );
+        if ( value == null || value instanceof RowId ) {
+            return (RowId) value;
+        }
+        throw conversionException( value, RowId.class );
+    }
+
+    @Override
+    public RowId getRowId(String columnLabel) throws SQLException {
+        return getRowId( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public void updateRowId(int columnIndex, RowId x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateRowId(String columnLabel, RowId x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        checkOpen();
+        return HOLD_CURSORS_OVER_COMMIT;
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed;
+    }
+
+    @Override
+    public void updateNString(int columnIndex, String nString) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateNString(String columnLabel, String nString) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, NClob nClob) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, NClob nClob) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public NClob getNClob(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException( "NCLOB values are not materialized" );
+    }
+
+    @Override
+    public NClob getNClob(String columnLabel) throws SQLException {
+        return getNClob( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public SQLXML getSQLXML(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException( "SQLXML values are not materialized" );
+    }
+
+    @Override
+    public SQLXML getSQLXML(String columnLabel) throws SQLException {
+        return getSQLXML( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public void updateSQLXML(int columnIndex, SQLXML xmlObject) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateSQLXML(String columnLabel, SQLXML xmlObject) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public String getNString(int columnIndex) throws SQLException {
+        return getString( columnIndex );
+    }
+
+    @Override
+    public String getNString(String columnLabel) throws SQLException {
+        return getNString( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public Reader getNCharacterStream(int columnIndex) throws SQLException {
+        return getCharacterStream( columnIndex );
+    }
+
+    @Override
+    public Reader getNCharacterStream(String columnLabel) throws SQLException {
+        return getNCharacterStream( findColumn( columnLabel ) );
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream inputStream, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream inputStream) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        if ( type == null ) {
+            throw new SQLException( "Type must not be null" );
+        }
+        Object value = objectValue( columnIndex );
+        if ( value == null || type.isInstance( value ) ) {
+            return type.cast( value );
+        }
+        return type.cast( convert( columnIndex, type ) );
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        return getObject( findColumn( columnLabel ), type );
+    }
+
+    // --- JDBC 4.2 //
+
+    @Override
+    public void updateObject(int columnIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x, SQLType targetSqlType) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x, SQLType targetSqlType) throws SQLException {
+        throw new SQLFeatureNotSupportedException( READ_ONLY );
+    }
+
+    // --- //
+
+    @Override
+    public <T> T unwrap(Class<T> target) throws SQLException {
+        if ( target.isInstance( this ) ) {
+            return target.cast( this );
+        }
+        throw new SQLException( "Not a wrapper for " + target.getName() );
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> target) throws SQLException {
+        return target.isInstance( this );
+    }
+
+    // --- //
+
+    /**
+     * The values of a column, by row. Null values are kept in a bitmap.
+     */
+    private abstract static class Column {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long[] nulls = new long[1];
+
+        @SuppressWarnings( "SwitchStatementWithTooManyBranches" )
+        static Column forClassName(String className) {
+            if ( className == null ) {
+                return new ObjectColumn();
+            }
+            switch ( className ) {
+                case "java.lang.Long":
+                case "java.lang.Integer":
+                case "java.lang.Short":
+                case "java.lang.Byte":
+                case "java.lang.Boolean":
+                    return new LongColumn( className );
+                case "java.lang.Double":
+                case "java.lang.Float":
+                    return new DoubleColumn( className );
+                default:
+                    return new ObjectColumn();
+            }
+        }
+
+        static int capacity(int length) {
+            return Math.max( INITIAL_CAPACITY, length * 2 );
+        }
+
+        final void setNull(int row) {
+            if ( row >> 6 >= nulls.length ) {
+                nulls = Arrays.copyOf( nulls, Math.max( nulls.length * 2, ( row >> 6 ) + 1 ) );
+            }
+            nulls[row >> 6] |= 1L << row;
+        }
+
+        final void clearNulls() {
+            Arrays.fill( nulls, 0 );
+        }
+
+        final boolean isNull(int row) {
+            return row >> 6 < nulls.length && ( nulls[row >> 6] & 1L << row ) != 0;
+        }
+
+        abstract void read(ResultSet resultSet, int column, int row) throws SQLException;
+
+        abstract void trim(int rowCount);
+
+        /**
+         * The value of a row as returned by {@link ResultSet#getObject(int)}, or null.
+         */
+        abstract Object object(int row);
+    }
+
+    private static final class LongColumn extends Column {
+
+        private final String className;
+        private long[] values = new long[0];
+
+        LongColumn(String className) {
+            this.className = className;
+        }
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            if ( row == values.length ) {
+                values = Arrays.copyOf( values, capacity( row ) );
+            }
+            if ( "java.lang.Boolean".equals( className ) ) {
+                values[row] = resultSet.getBoolean( column ) ? 1 : 0;
+            } else {
+                values[row] = resultSet.getLong( column );
+            }
+            if ( resultSet.wasNull() ) {
+                setNull( row );
+            }
+        }
+
+        @Override
+        void trim(int rowCount) {
+            values = Arrays.copyOf( values, rowCount );
+        }
+
+        @Override
+        Object object(int row) {
+            if ( isNull( row ) ) {
+                return null;
+            }
+            long value = values[row];
+            switch ( className ) {
+                case "java.lang.Integer":
+                    return (int) value;
+                case "java.lang.Short":
+                    return (short) value;
+                case "java.lang.Byte":
+                    return (byte) value;
+                case "java.lang.Boolean":
+                    return value != 0;
+                default:
+                    return value;
+            }
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+
+        private final boolean isFloat;
+        private double[] values = new double[0];
+
+        DoubleColumn(String className) {
+            isFloat = "java.lang.Float".equals( className );
+        }
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            if ( row == values.length ) {
+                values = Arrays.copyOf( values, capacity( row ) );
+            }
+            values[row] = resultSet.getDouble( column );
+            if ( resultSet.wasNull() ) {
+                setNull( row );
+            }
+        }
+
+        @Override
+        void trim(int rowCount) {
+            values = Arrays.copyOf( values, rowCount );
+        }
+
+        @Override
+        Object object(int row) {
+            if ( isNull( row ) ) {
+                return null;
+            }
+            return isFloat ? (Object) (float) values[row] : (Object) values[row];
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+
+        private Object[] values = new Object[0];
+
+        // text of the values that are not a String or a LOB, as the conversion of the driver depends on the database type. null until there is one
+        private String[] texts;
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            if ( row == values.length ) {
+                values = Arrays.copyOf( values, capacity( row ) );
+            }
+            Object value = resultSet.getObject( column );
+            String text = null;
+            // LOBs are only valid while the connection is open, so their content is copied
+            if ( value instanceof Blob ) {
+                value = new SerialBlob( (Blob) value );
+            } else if ( value instanceof Clob ) {
+                value = new SerialClob( (Clob) value );
+            } else if ( value != null && !( value instanceof String ) ) {
+                text = resultSet.getString( column );
+            }
+            if ( value == null ) {
+                setNull( row );
+            }
+            values[row] = value;
+            if ( text != null && texts == null ) {
+                texts = new String[values.length];
+            }
+            if ( texts != null ) {
+                if ( texts.length < values.length ) {
+                    texts = Arrays.copyOf( texts, values.length );
+                }
+                texts[row] = text;
+            }
+        }
+
+        @Override
+        void trim(int rowCount) {
+            values = Arrays.copyOf( values, rowCount );
+            if ( texts != null ) {
+                texts = Arrays.copyOf( texts, rowCount );
+            }
+        }
+
+        @Override
+        Object object(int row) {
+            return values[row];
+        }
+
+        /**
+         * The text of a value that is not a String or a LOB, as returned by {@link ResultSet#getString(int)}, or null.
+         */
+        String text(int row) {
+            return texts == null ? null : texts[row];
+        }
+    }
+
+    // --- //
+
+    /**
+     * Copy of the metadata of the result. Attributes the driver fails to provide are empty.
+     */
+    private static final class MetaData implements ResultSetMetaData {
+
+        private final String[] columnLabel, columnName, schemaName, tableName, catalogName, columnTypeName, columnClassName;
+        private final int[] columnType, precision, scale, nullable, columnDisplaySize;
+        private final boolean[] autoIncrement, caseSensitive, searchable, currency, signed;
+
+        @SuppressWarnings( "ObjectAllocationInLoop" )
+        MetaData(ResultSetMetaData metaData, int columnCount) throws SQLException {
+            columnLabel = new String[columnCount];
+            columnName = new String[columnCount];
+            schemaName = new String[columnCount];
+            tableName = new String[columnCount];
+            catalogName = new String[columnCount];
+            columnTypeName = new String[columnCount];
+            columnClassName = new String[columnCount];
+            columnType = new int[columnCount];
+            precision = new int[columnCount];
+            scale = new int[columnCount];
+            nullable = new int[columnCount];
+            columnDisplaySize = new int[columnCount];
+            autoIncrement = new boolean[columnCount];
+            caseSensitive = new boolean[columnCount];
+            searchable = new boolean[columnCount];
+            currency = new boolean[columnCount];
+            signed = new boolean[columnCount];
+
+            for ( int i = 0; i < columnCount; i++ ) {
+                int column = i + 1;
+                columnLabel[i] = metaData.getColumnLabel( column );
+                columnType[i] = metaData.getColumnType( column );
+                columnName[i] = attribute( () -> metaData.getColumnName( column ), columnLabel[i] );
+                schemaName[i] = attribute( () -> metaData.getSchemaName( column ), "" );
+                tableName[i] = attribute( () -> metaData.getTableName( column ), "" );
+                catalogName[i] = attribute( () -> metaData.getCatalogName( column ), "" );
+                columnTypeName[i] = attribute( () -> metaData.getColumnTypeName( column ), "" );
+                columnClassName[i] = attribute( () -> metaData.getColumnClassName( column ), null );
+                precision[i] = attribute( () -> metaData.getPrecision( column ), 0 );
+                scale[i] = attribute( () -> metaData.getScale( column ), 0 );
+                nullable[i] = attribute( () -> metaData.isNullable( column ), columnNullableUnknown );
+                columnDisplaySize[i] = attribute( () -> metaData.getColumnDisplaySize( column ), 0 );
+                autoIncrement[i] = attribute( () -> metaData.isAutoIncrement( column ), false );
+                caseSensitive[i] = attribute( () -> metaData.isCaseSensitive( column ), false );
+                searchable[i] = attribute( () -> metaData.isSearchable( column ), false );
+                currency[i] = attribute( () -> metaData.isCurrency( column ), false );
+                signed[i] = attribute( () -> metaData.isSigned( column ), false );
+            }
+        }
+
+        private static <T> T attribute(Attribute<T> attribute, T defaultValue) {
+            try {
+                return attribute.get();
+            } catch ( SQLException e ) {
+                return defaultValue;
+            }
+        }
+
+        private int index(int column) throws SQLException {
+            if ( column < 1 || column > columnLabel.length ) {
+                throw new SQLException( "Invalid column index " + column );
+            }
+            return column - 1;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnLabel.length;
+        }
+
+        @Override
+        public boolean isAutoIncrement(int column) throws SQLException {
+            return autoIncrement[index( column )];
+        }
+
+        @Override
+        public boolean isCaseSensitive(int column) throws SQLException {
+            return caseSensitive[index( column )];
+        }
+
+        @Override
+        public boolean isSearchable(int column) throws SQLException {
+            return searchable[index( column )];
+        }
+
+        @Override
+        public boolean isCurrency(int column) throws SQLException {
+            return currency[index( column )];
+        }
+
+        @Override
+        public int isNullable(int column) throws SQLException {
+            return nullable[index( column )];
+        }
+
+        @Override
+        public boolean isSigned(int column) throws SQLException {
+            return signed[index( column )];
+        }
+
+        @Override
+        public int getColumnDisplaySize(int column) throws SQLException {
+            return columnDisplaySize[index( column )];
+        }
+
+        @Override
+        public String getColumnLabel(int column) throws SQLException {
+            return columnLabel[index( column )];
+        }
+
+        @Override
+        public String getColumnName(int column) throws SQLException {
+            return columnName[index( column )];
+        }
+
+        @Override
+        public String getSchemaName(int column) throws SQLException {
+            return schemaName[index( column )];
+        }
+
+        @Override
+        public int getPrecision(int column) throws SQLException {
+            return precision[index( column )];
+        }
+
+        @Override
+        public int getScale(int column) throws SQLException {
+            return scale[index( column )];
+        }
+
+        @Override
+        public String getTableName(int column) throws SQLException {
+            return tableName[index( column )];
+        }
+
+        @Override
+        public String getCatalogName(int column) throws SQLException {
+            return catalogName[index( column )];
+        }
+
+        @Override
+        public int getColumnType(int column) throws SQLException {
+            return columnType[index( column )];
+        }
+
+        @Override
+        public String getColumnTypeName(int column) throws SQLException {
+            return columnTypeName[index( column )];
+        }
+
+        @Override
+        public boolean isReadOnly(int column) throws SQLException {
+            index( column );
+            return true;
+        }
+
+        @Override
+        public boolean isWritable(int column) throws SQLException {
+            index( column );
+            return false;
+        }
+
+        @Override
+        public boolean isDefinitelyWritable(int column) throws SQLException {
+            index( column );
+            return false;
+        }
+
+        @Override
+        public String getColumnClassName(int column) throws SQLException {
+            return columnClassName[index( column )];
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> target) throws SQLException {
+            if ( target.isInstance( this ) ) {
+                return target.cast( this );
+            }
+            throw new SQLException( "Not a wrapper for " + target.getName() );
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> target) {
+            return target.isInstance( this );
+        }
+
+        @FunctionalInterface
+        private interface Attribute<T> {
+
+            T get() throws SQLException;
+        }
+    }
+}
@@ -4,6 +4,9 @@
 package io.agroal.pool.wrapper;
 
 import io.agroal.pool.util.AutoCloseableElement;
+import io.agroal.pool.util.ColumnLabelCache;
+import io.agroal.pool.util.StatementCache;
+import io.agroal.pool.util.StatementMetricsRegistry;
 
 import java.io.InputStream;
 import java.io.Reader;
@@ -25,6 +28,7 @@ import java.sql.RowId;
 import java.sql.SQLException;
 import java.sql.SQLType;
 import java.sql.SQLXML;
+import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Calendar;
@@ -61,9 +65,24 @@ public final class PreparedStatementWrapper extends StatementWrapper implements
 
     private PreparedStatement wrappedStatement;
 
+    // The entry to release the statement to on close(). If null the statement is not cached.
+    private final StatementCache.Entry<PreparedStatement> cacheEntry;
+
+    // Column index by label of the results of executeQuery(). Shared with other uses of the statement if it's cached
+    private ColumnLabelCache columnLabels;
+
     public PreparedStatementWrapper(ConnectionWrapper connectionWrapper, PreparedStatement statement, boolean trackJdbcResources, AutoCloseableElement head) {
-        super( connectionWrapper, statement, trackJdbcResources, head );
+        this( connectionWrapper, statement, trackJdbcResources, head, null );
+    }
+
+    public PreparedStatementWrapper(ConnectionWrapper connectionWrapper, PreparedStatement statement, boolean trackJdbcResources, AutoCloseableElement head, StatementCache.Entry<PreparedStatement> entry) {
+        this( connectionWrapper, statement, trackJdbcResources, head, entry, null );
+    }
+
+    public PreparedStatementWrapper(ConnectionWrapper connectionWrapper, PreparedStatement statement, boolean trackJdbcResources, AutoCloseableElement head, StatementCache.Entry<PreparedStatement> entry, StatementMetricsRegistry.Recorder recorder) {
+        super( connectionWrapper, statement, trackJdbcResources, head, recorder );
         wrappedStatement = statement;
+        cacheEntry = entry;
     }
 
     @Override
@@ -72,25 +91,52 @@ public final class PreparedStatementWrapper extends StatementWrapper implements
         super.close();
     }
 
+    @Override
+    protected void closeWrappedStatement(Statement statement) throws SQLException {
+        if ( cacheEntry != null ) {
+            connection.getHandler().getPreparedStatementCache().release( cacheEntry );
+        } else {
+            super.closeWrappedStatement( statement );
+        }
+    }
+
     // --- //
 
+    // null if column labels are resolved by the driver
+    private ColumnLabelCache columnLabels() {
+        if ( columnLabels == null && connection.getHandler().isColumnLabelCacheEnabled() ) {
+            columnLabels = cacheEntry != null ? cacheEntry.columnLabels() : new ColumnLabelCache();
+        }
+        return columnLabels;
+    }
+
     @Override
     public ResultSet executeQuery() throws SQLException {
         try {
-            return trackResultSet( wrappedStatement.executeQuery() );
+            long timestamp = beforeExecution();
+            ResultSet resultSet = wrappedStatement.executeQuery();
+            afterExecution( timestamp );
+            return trackResultSet( resultSet, columnLabels() );
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public int executeUpdate() throws SQLException {
         try {
-            return wrappedStatement.executeUpdate();
+            long timestamp = beforeExecution();
+            int rows = wrappedStatement.executeUpdate();
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
@@ -298,10 +344,15 @@ public final class PreparedStatementWrapper extends StatementWrapper implements
     @Override
     public boolean execute() throws SQLException {
         try {
-            return wrappedStatement.execute();
+            long timestamp = beforeExecution();
+            boolean result = wrappedStatement.execute();
+            afterExecution( timestamp );
+            return result;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
@@ -650,10 +701,15 @@ public final class PreparedStatementWrapper extends StatementWrapper implements
     @Override
     public long executeLargeUpdate() throws SQLException {
         try {
-            return wrappedStatement.executeLargeUpdate();
+            long timestamp = beforeExecution();
+            long rows = wrappedStatement.executeLargeUpdate();
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 }
@@ -4,6 +4,8 @@
 package io.agroal.pool.wrapper;
 
 import io.agroal.pool.util.AutoCloseableElement;
+import io.agroal.pool.util.ColumnLabelCache;
+import io.agroal.pool.util.StatementMetricsRegistry;
 
 import java.io.InputStream;
 import java.io.Reader;
@@ -62,32 +64,67 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
 
     private final StatementWrapper statement;
 
+    // Where the number of rows read is recorded on close. If null rows are not recorded.
+    private final StatementMetricsRegistry.Recorder recorder;
+
+    // Column index by label shared by the results of the statement. If null labels are resolved by the driver.
+    private final ColumnLabelCache columnLabels;
+    private ColumnLabelCache.Index columnIndex;
+
     private ResultSet wrappedResultSet;
+    private long rows;
 
     public ResultSetWrapper(StatementWrapper statementWrapper, ResultSet resultSet, AutoCloseableElement head) {
+        this( statementWrapper, resultSet, head, null );
+    }
+
+    public ResultSetWrapper(StatementWrapper statementWrapper, ResultSet resultSet, AutoCloseableElement head, StatementMetricsRegistry.Recorder statementRecorder) {
+        this( statementWrapper, resultSet, head, statementRecorder, null );
+    }
+
+    public ResultSetWrapper(StatementWrapper statementWrapper, ResultSet resultSet, AutoCloseableElement head, StatementMetricsRegistry.Recorder statementRecorder, ColumnLabelCache columnLabelCache) {
         super( head );
         statement = statementWrapper;
         wrappedResultSet = resultSet;
+        recorder = statementRecorder;
+        columnLabels = columnLabelCache;
     }
 
     @Override
     public void close() throws SQLException {
         try {
+            if ( recorder != null && wrappedResultSet != CLOSED_RESULT_SET ) {
+                recorder.afterFetch( rows );
+            }
             wrappedResultSet.close();
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
         } finally {
             wrappedResultSet = CLOSED_RESULT_SET;
+            released();
         }
     }
 
+    // the index of the column with a label. labels not in the index are resolved by the driver
+    private int findColumnIndex(String columnLabel) throws SQLException {
+        if ( columnIndex == null ) {
+            columnIndex = columnLabels.index( wrappedResultSet );
+        }
+        int column = columnIndex.findColumn( columnLabel );
+        return column > 0 ? column : wrappedResultSet.findColumn( columnLabel );
+    }
+
     // --- //
 
     @Override
     public boolean next() throws SQLException {
         try {
-            return wrappedResultSet.next();
+            if ( wrappedResultSet.next() ) {
+                rows++;
+                return true;
+            }
+            return false;
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -269,7 +306,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public String getString(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getString( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getString( columnLabel ) : wrappedResultSet.getString( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -279,7 +316,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public boolean getBoolean(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getBoolean( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getBoolean( columnLabel ) : wrappedResultSet.getBoolean( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -289,7 +326,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public byte getByte(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getByte( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getByte( columnLabel ) : wrappedResultSet.getByte( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -299,7 +336,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public short getShort(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getShort( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getShort( columnLabel ) : wrappedResultSet.getShort( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -309,7 +346,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public int getInt(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getInt( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getInt( columnLabel ) : wrappedResultSet.getInt( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -319,7 +356,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public long getLong(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getLong( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getLong( columnLabel ) : wrappedResultSet.getLong( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -329,7 +366,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public float getFloat(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getFloat( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getFloat( columnLabel ) : wrappedResultSet.getFloat( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -339,7 +376,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public double getDouble(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getDouble( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getDouble( columnLabel ) : wrappedResultSet.getDouble( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -350,7 +387,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @SuppressWarnings( "deprecation" )
     public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
         try {
-            return wrappedResultSet.getBigDecimal( columnLabel, scale );
+            return columnLabels == null ? wrappedResultSet.getBigDecimal( columnLabel, scale ) : wrappedResultSet.getBigDecimal( findColumnIndex( columnLabel ), scale );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -360,7 +397,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public byte[] getBytes(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getBytes( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getBytes( columnLabel ) : wrappedResultSet.getBytes( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -370,7 +407,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Date getDate(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getDate( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getDate( columnLabel ) : wrappedResultSet.getDate( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -380,7 +417,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Time getTime(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getTime( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getTime( columnLabel ) : wrappedResultSet.getTime( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -390,7 +427,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Timestamp getTimestamp(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getTimestamp( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getTimestamp( columnLabel ) : wrappedResultSet.getTimestamp( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -400,7 +437,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public InputStream getAsciiStream(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getAsciiStream( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getAsciiStream( columnLabel ) : wrappedResultSet.getAsciiStream( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -411,7 +448,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @SuppressWarnings( "deprecation" )
     public InputStream getUnicodeStream(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getUnicodeStream( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getUnicodeStream( columnLabel ) : wrappedResultSet.getUnicodeStream( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -421,7 +458,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public InputStream getBinaryStream(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getBinaryStream( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getBinaryStream( columnLabel ) : wrappedResultSet.getBinaryStream( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -481,7 +518,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Object getObject(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getObject( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getObject( columnLabel ) : wrappedResultSet.getObject( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -491,7 +528,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public int findColumn(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.findColumn( columnLabel );
+            return columnLabels == null ? wrappedResultSet.findColumn( columnLabel ) : findColumnIndex( columnLabel );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -511,7 +548,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Reader getCharacterStream(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getCharacterStream( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getCharacterStream( columnLabel ) : wrappedResultSet.getCharacterStream( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -531,7 +568,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getBigDecimal( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getBigDecimal( columnLabel ) : wrappedResultSet.getBigDecimal( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1256,7 +1293,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
         try {
-            return wrappedResultSet.getObject( columnLabel, map );
+            return columnLabels == null ? wrappedResultSet.getObject( columnLabel, map ) : wrappedResultSet.getObject( findColumnIndex( columnLabel ), map );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1266,7 +1303,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Ref getRef(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getRef( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getRef( columnLabel ) : wrappedResultSet.getRef( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1276,7 +1313,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Blob getBlob(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getBlob( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getBlob( columnLabel ) : wrappedResultSet.getBlob( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1286,7 +1323,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Clob getClob(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getClob( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getClob( columnLabel ) : wrappedResultSet.getClob( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1296,7 +1333,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Array getArray(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getArray( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getArray( columnLabel ) : wrappedResultSet.getArray( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1316,7 +1353,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Date getDate(String columnLabel, Calendar cal) throws SQLException {
         try {
-            return wrappedResultSet.getDate( columnLabel, cal );
+            return columnLabels == null ? wrappedResultSet.getDate( columnLabel, cal ) : wrappedResultSet.getDate( findColumnIndex( columnLabel ), cal );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1336,7 +1373,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Time getTime(String columnLabel, Calendar cal) throws SQLException {
         try {
-            return wrappedResultSet.getTime( columnLabel, cal );
+            return columnLabels == null ? wrappedResultSet.getTime( columnLabel, cal ) : wrappedResultSet.getTime( findColumnIndex( columnLabel ), cal );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1356,7 +1393,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
         try {
-            return wrappedResultSet.getTimestamp( columnLabel, cal );
+            return columnLabels == null ? wrappedResultSet.getTimestamp( columnLabel, cal ) : wrappedResultSet.getTimestamp( findColumnIndex( columnLabel ), cal );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1376,7 +1413,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public URL getURL(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getURL( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getURL( columnLabel ) : wrappedResultSet.getURL( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1476,7 +1513,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public RowId getRowId(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getRowId( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getRowId( columnLabel ) : wrappedResultSet.getRowId( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1576,7 +1613,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public NClob getNClob(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getNClob( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getNClob( columnLabel ) : wrappedResultSet.getNClob( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1596,7 +1633,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public SQLXML getSQLXML(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getSQLXML( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getSQLXML( columnLabel ) : wrappedResultSet.getSQLXML( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1636,7 +1673,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public String getNString(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getNString( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getNString( columnLabel ) : wrappedResultSet.getNString( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1656,7 +1693,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public Reader getNCharacterStream(String columnLabel) throws SQLException {
         try {
-            return wrappedResultSet.getNCharacterStream( columnLabel );
+            return columnLabels == null ? wrappedResultSet.getNCharacterStream( columnLabel ) : wrappedResultSet.getNCharacterStream( findColumnIndex( columnLabel ) );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
@@ -1956,7 +1993,7 @@ public final class ResultSetWrapper extends AutoCloseableElement implements Resu
     @Override
     public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
         try {
-            return wrappedResultSet.getObject( columnLabel, type );
+            return columnLabels == null ? wrappedResultSet.getObject( columnLabel, type ) : wrappedResultSet.getObject( findColumnIndex( columnLabel ), type );
         } catch ( SQLException se ) {
             statement.getConnectionWrapper().getHandler().setFlushOnly( se );
             throw se;
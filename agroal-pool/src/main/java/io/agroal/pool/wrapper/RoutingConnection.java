@@ -0,0 +1,398 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.pool.wrapper;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * Connection that is only acquired on first use, so that calling {@link #setReadOnly(boolean)} before that can route it to a read replica.
+ * Until then, the read-only flag and the closed state are kept locally, and validity, warnings and unwrapping to this class are answered without acquiring.
+ *
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+public final class RoutingConnection implements Connection {
+
+    private final Router router;
+
+    private Connection connection;
+    private boolean readOnly;
+    private boolean closed;
+
+    public RoutingConnection(Router router) {
+        this.router = router;
+    }
+
+    private Connection connection() throws SQLException {
+        if ( connection == null ) {
+            if ( closed ) {
+                throw new SQLException( "Connection is closed" );
+            }
+            connection = router.route( readOnly );
+            if ( readOnly ) {
+                connection.setReadOnly( true );
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * If the connection was acquired already.
+     */
+    public boolean isRouted() {
+        return connection != null;
+    }
+
+    // --- //
+
+    @Override
+    public void close() throws SQLException {
+        closed = true;
+        if ( connection != null ) {
+            connection.close();
+        }
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        closed = true;
+        if ( connection != null ) {
+            connection.abort( executor );
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return connection == null ? closed : connection.isClosed();
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        if ( connection == null ) {
+            if ( closed ) {
+                throw new SQLException( "Connection is closed" );
+            }
+            return readOnly;
+        }
+        return connection.isReadOnly();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        if ( connection == null ) {
+            if ( closed ) {
+                throw new SQLException( "Connection is closed" );
+            }
+            this.readOnly = readOnly;
+        } else {
+            connection.setReadOnly( readOnly );
+        }
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        try {
+            connection().setClientInfo( properties );
+        } catch ( SQLClientInfoException e ) {
+            throw e;
+        } catch ( SQLException se ) {
+            throw new SQLClientInfoException( se.getMessage(), null, se );
+        }
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        try {
+            connection().setClientInfo( name, value );
+        } catch ( SQLClientInfoException e ) {
+            throw e;
+        } catch ( SQLException se ) {
+            throw new SQLClientInfoException( se.getMessage(), null, se );
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingConnection(" + ( connection == null ? closed ? "closed" : readOnly ? "read-only" : "unrouted" : connection ) + ")";
+    }
+
+    // --- //
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        connection().setAutoCommit( autoCommit );
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        return connection().getAutoCommit();
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        connection().commit();
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        connection().rollback();
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        connection().rollback( savepoint );
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        connection().clearWarnings();
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        return connection().createClob();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        return connection().createBlob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        return connection().createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        return connection().createSQLXML();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        return connection().createArrayOf( typeName, elements );
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return connection().createStatement();
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return connection().createStatement( resultSetType, resultSetConcurrency );
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return connection().createStatement( resultSetType, resultSetConcurrency, resultSetHoldability );
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        return connection().createStruct( typeName, attributes );
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        return connection().getCatalog();
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        connection().setCatalog( catalog );
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return connection().getHoldability();
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+        connection().setHoldability( holdability );
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+        return connection().getClientInfo();
+    }
+
+    @Override
+    public String getClientInfo(String name) throws SQLException {
+        return connection().getClientInfo( name );
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        return connection().getMetaData();
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        return connection().getNetworkTimeout();
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        return connection().getSchema();
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        connection().setSchema( schema );
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        return connection().getTypeMap();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        connection().setTypeMap( map );
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        return connection().getTransactionIsolation();
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        connection().setTransactionIsolation( level );
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        if ( connection == null ) {
+            if ( closed ) {
+                throw new SQLException( "Connection is closed" );
+            }
+            return null;
+        }
+        return connection.getWarnings();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        if ( connection == null ) {
+            if ( timeout < 0 ) {
+                throw new SQLException( "Timeout must not be negative" );
+            }
+            return !closed;
+        }
+        return connection.isValid( timeout );
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+        return connection().nativeSQL( sql );
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return connection().prepareCall( sql );
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return connection().prepareCall( sql, resultSetType, resultSetConcurrency );
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return connection().prepareCall( sql, resultSetType, resultSetConcurrency, resultSetHoldability );
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return connection().prepareStatement( sql );
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return connection().prepareStatement( sql, resultSetType, resultSetConcurrency );
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return connection().prepareStatement( sql, resultSetType, resultSetConcurrency, resultSetHoldability );
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return connection().prepareStatement( sql, autoGeneratedKeys );
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return connection().prepareStatement( sql, columnIndexes );
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return connection().prepareStatement( sql, columnNames );
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        connection().releaseSavepoint( savepoint );
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        return connection().setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        return connection().setSavepoint( name );
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        connection().setNetworkTimeout( executor, milliseconds );
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> target) throws SQLException {
+        if ( target.isInstance( this ) ) {
+            return target.cast( this );
+        }
+        return connection().unwrap( target );
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> target) throws SQLException {
+        return target.isInstance( this ) || connection().isWrapperFor( target );
+    }
+
+    // --- //
+
+    /**
+     * Acquires the connection to use, from a replica if read-only or from the primary otherwise.
+     */
+    @FunctionalInterface
+    public interface Router {
+
+        Connection route(boolean readOnly) throws SQLException;
+    }
+}
@@ -4,6 +4,9 @@
 package io.agroal.pool.wrapper;
 
 import io.agroal.pool.util.AutoCloseableElement;
+import io.agroal.pool.util.ColumnLabelCache;
+import io.agroal.pool.util.StatementMetricsRegistry;
+import io.agroal.pool.util.TimingWheel;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
@@ -13,9 +16,12 @@ import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 
+import static java.lang.System.nanoTime;
 import static java.lang.reflect.Proxy.newProxyInstance;
 
 /**
+ * Wrappers of statements, and of their results, are not recycled as the one of a connection is not either: a recycled wrapper is the same object a previous holder may still reference, and would not be seen as closed by it.
+ *
  * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
  * @author <a href="jesper.pedersen@redhat.com">Jesper Pedersen</a>
  */
@@ -46,27 +52,147 @@ public class StatementWrapper extends AutoCloseableElement implements Statement
     @SuppressWarnings( "ProtectedField" )
     protected final ConnectionWrapper connection;
 
-    // Collection of ResultSet to close them on close(). If null ResultSet are not tracked.
-    private final AutoCloseableElement trackedResultSets;
+    // Collection of ResultSet to close them on close(), created with the first one as many statements do not have results. If false ResultSet are not tracked.
+    private final boolean trackResultSets;
+    private AutoCloseableElement trackedResultSets;
 
-    private Statement wrappedStatement;
+    // Where the executions of a prepared statement are recorded. If null the SQL is only known on execution.
+    private final StatementMetricsRegistry.Recorder preparedRecorder;
+
+    // Where the last execution was recorded, and the rows of its results. If null executions are not recorded.
+    private StatementMetricsRegistry.Recorder recorder;
+
+    // Cancellation of the statement executing, if the pool enforces a query timeout. Not enforced if the application sets a timeout.
+    private TimingWheel.Timeout queryTimeout;
+    private boolean applicationQueryTimeout;
+
+    // Sequence of the execution a cancellation is for. Incremented, while holding the lock, when an execution with a query timeout ends.
+    private final Object cancellationLock = new Object();
+    private volatile long execution;
+
+    private volatile Statement wrappedStatement;
 
     public StatementWrapper(ConnectionWrapper connectionWrapper, Statement statement, boolean trackResources, AutoCloseableElement head) {
+        this( connectionWrapper, statement, trackResources, head, null );
+    }
+
+    protected StatementWrapper(ConnectionWrapper connectionWrapper, Statement statement, boolean trackResources, AutoCloseableElement head, StatementMetricsRegistry.Recorder statementRecorder) {
         super( head );
         connection = connectionWrapper;
         wrappedStatement = statement;
-        trackedResultSets = trackResources ? AutoCloseableElement.newHead() : null;
+        trackResultSets = trackResources;
+        preparedRecorder = statementRecorder;
+        recorder = statementRecorder;
     }
 
     // --- //
 
-    protected ResultSet trackResultSet(ResultSet resultSet) {
-        if ( trackedResultSets != null && resultSet != null ) {
-            return new ResultSetWrapper( this, resultSet, trackedResultSets );
+    protected ResultSet trackResultSet(ResultSet resultSet) throws SQLException {
+        return trackResultSet( resultSet, (ColumnLabelCache) null );
+    }
+
+    /**
+     * Wraps the result of a query that has always the same columns, so that the column index by label can be shared between executions.
+     * If the pool materializes results the query result is read in full instead, and is not tracked as it remains usable after the connection is closed.
+     * Rows above the materialization limit are read from the cursor through the wrapper used for results not materialized.
+     */
+    protected ResultSet trackResultSet(ResultSet resultSet, ColumnLabelCache columnLabels) throws SQLException {
+        if ( resultSet != null && connection.getHandler().isMaterializeResultsEnabled() ) {
+            MaterializedResultSet materialized = MaterializedResultSet.materialize( this, resultSet, connection.getHandler().materializeResultsMaxRows() );
+            if ( materialized != null ) {
+                if ( recorder != null ) {
+                    recorder.afterFetch( materialized.rowCount() );
+                }
+                if ( materialized.isPartial() ) {
+                    materialized.readRemaining( trackResultSet( resultSet, recorder, columnLabels ) );
+                }
+                return materialized;
+            }
+        }
+        return trackResultSet( resultSet, recorder, columnLabels );
+    }
+
+    private ResultSet trackResultSet(ResultSet resultSet, StatementMetricsRegistry.Recorder resultRecorder, ColumnLabelCache columnLabels) {
+        if ( ( trackResultSets || resultRecorder != null || columnLabels != null ) && resultSet != null ) {
+            if ( trackResultSets && trackedResultSets == null ) {
+                trackedResultSets = AutoCloseableElement.newHead();
+            }
+            return new ResultSetWrapper( this, resultSet, trackedResultSets, resultRecorder, columnLabels );
         }
         return resultSet;
     }
 
+    private long beforeExecution(String sql) {
+        recorder = connection.getHandler().statementRecorder( sql );
+        return beforeExecution();
+    }
+
+    protected final long beforeExecution() {
+        if ( !applicationQueryTimeout && connection.getHandler().isQueryTimeoutEnabled() ) {
+            long current = execution;
+            queryTimeout = connection.getHandler().scheduleQueryTimeout( () -> cancelOnQueryTimeout( current ) );
+        }
+        return recorder == null ? 0 : nanoTime();
+    }
+
+    // the execution ended, successfully or not. a cancellation that already started completes before this returns, and one that did not is discarded
+    protected final void cancelQueryTimeout() {
+        if ( queryTimeout != null ) {
+            queryTimeout.cancel();
+            queryTimeout = null;
+            synchronized ( cancellationLock ) {
+                execution++;
+            }
+        }
+    }
+
+    // cancels only the execution it was scheduled for, as the statement may be executed again, possibly by another borrower when cached
+    private void cancelOnQueryTimeout(long scheduledExecution) {
+        synchronized ( cancellationLock ) {
+            Statement statement = wrappedStatement;
+            if ( execution == scheduledExecution && statement != CLOSED_STATEMENT ) {
+                connection.getHandler().cancelStatement( statement );
+            }
+        }
+    }
+
+    // the rows are not known until the results are read
+    protected final void afterExecution(long timestamp) {
+        afterExecution( timestamp, -1 );
+    }
+
+    protected final void afterExecution(long timestamp, long rows) {
+        if ( recorder != null ) {
+            recorder.afterExecution( timestamp, rows );
+        }
+    }
+
+    // a batch of a Statement may have different SQL, and is not recorded
+    private long beforeBatchExecution() {
+        recorder = preparedRecorder;
+        return beforeExecution();
+    }
+
+    private void afterBatchExecution(long timestamp, int[] updateCounts) {
+        if ( recorder != null ) {
+            long rows = 0;
+            for ( int count : updateCounts ) {
+                rows += Math.max( 0, count );
+            }
+            recorder.afterExecution( timestamp, rows );
+        }
+    }
+
+    private void afterBatchExecution(long timestamp, long[] updateCounts) {
+        if ( recorder != null ) {
+            long rows = 0;
+            for ( long count : updateCounts ) {
+                rows += Math.max( 0, count );
+            }
+            recorder.afterExecution( timestamp, rows );
+        }
+    }
+
     private void closeTrackedResultSets() throws SQLException {
         if ( trackedResultSets != null ) {
             connection.addLeakedResultSets( trackedResultSets.closeAllAutocloseableElements() );
@@ -77,18 +203,29 @@ public class StatementWrapper extends AutoCloseableElement implements Statement
         return connection;
     }
 
+    /**
+     * Invoked once, when this wrapper is closed. Subclasses may keep the statement open for reuse.
+     */
+    protected void closeWrappedStatement(Statement statement) throws SQLException {
+        statement.close();
+    }
+
     @Override
     public void close() throws SQLException {
         try {
             if ( wrappedStatement != CLOSED_STATEMENT ) {
                 closeTrackedResultSets();
-                wrappedStatement.close();
+                closeWrappedStatement( wrappedStatement );
             }
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
         } finally {
-            wrappedStatement = CLOSED_STATEMENT;
+            // waits for a cancellation in progress, that would otherwise reach a statement the cache may have handed to another borrower
+            synchronized ( cancellationLock ) {
+                wrappedStatement = CLOSED_STATEMENT;
+            }
+            released();
         }
     }
 
@@ -107,20 +244,30 @@ public class StatementWrapper extends AutoCloseableElement implements Statement
     @Override
     public final ResultSet executeQuery(String sql) throws SQLException {
         try {
-            return trackResultSet( wrappedStatement.executeQuery( sql ) );
+            long timestamp = beforeExecution( sql );
+            ResultSet resultSet = wrappedStatement.executeQuery( sql );
+            afterExecution( timestamp );
+            return trackResultSet( resultSet );
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public final int executeUpdate(String sql) throws SQLException {
         try {
-            return wrappedStatement.executeUpdate( sql );
+            long timestamp = beforeExecution( sql );
+            int rows = wrappedStatement.executeUpdate( sql );
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
@@ -188,6 +335,7 @@ public class StatementWrapper extends AutoCloseableElement implements Statement
     public final void setQueryTimeout(int seconds) throws SQLException {
         try {
             wrappedStatement.setQueryTimeout( seconds );
+            applicationQueryTimeout = seconds > 0;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
@@ -217,10 +365,15 @@ public class StatementWrapper extends AutoCloseableElement implements Statement
     @Override
     public final boolean execute(String sql) throws SQLException {
         try {
-            return wrappedStatement.execute( sql );
+            long timestamp = beforeExecution( sql );
+            boolean result = wrappedStatement.execute( sql );
+            afterExecution( timestamp );
+            return result;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
@@ -337,10 +490,15 @@ public class StatementWrapper extends AutoCloseableElement implements Statement
     @Override
     public final int[] executeBatch() throws SQLException {
         try {
-            return wrappedStatement.executeBatch();
+            long timestamp = beforeBatchExecution();
+            int[] rows = wrappedStatement.executeBatch();
+            afterBatchExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
@@ -362,7 +520,7 @@ public class StatementWrapper extends AutoCloseableElement implements Statement
     @Override
     public final ResultSet getGeneratedKeys() throws SQLException {
         try {
-            return trackResultSet( wrappedStatement.getGeneratedKeys() );
+            return trackResultSet( wrappedStatement.getGeneratedKeys(), null, null );
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
@@ -372,60 +530,90 @@ public class StatementWrapper extends AutoCloseableElement implements Statement
     @Override
     public final int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
         try {
-            return wrappedStatement.executeUpdate( sql, autoGeneratedKeys );
+            long timestamp = beforeExecution( sql );
+            int rows = wrappedStatement.executeUpdate( sql, autoGeneratedKeys );
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public final int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
         try {
-            return wrappedStatement.executeUpdate( sql, columnIndexes );
+            long timestamp = beforeExecution( sql );
+            int rows = wrappedStatement.executeUpdate( sql, columnIndexes );
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public final int executeUpdate(String sql, String[] columnNames) throws SQLException {
         try {
-            return wrappedStatement.executeUpdate( sql, columnNames );
+            long timestamp = beforeExecution( sql );
+            int rows = wrappedStatement.executeUpdate( sql, columnNames );
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public final boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
         try {
-            return wrappedStatement.execute( sql, autoGeneratedKeys );
+            long timestamp = beforeExecution( sql );
+            boolean result = wrappedStatement.execute( sql, autoGeneratedKeys );
+            afterExecution( timestamp );
+            return result;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public final boolean execute(String sql, int[] columnIndexes) throws SQLException {
         try {
-            return wrappedStatement.execute( sql, columnIndexes );
+            long timestamp = beforeExecution( sql );
+            boolean result = wrappedStatement.execute( sql, columnIndexes );
+            afterExecution( timestamp );
+            return result;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public final boolean execute(String sql, String[] columnNames) throws SQLException {
         try {
-            return wrappedStatement.execute( sql, columnNames );
+            long timestamp = beforeExecution( sql );
+            boolean result = wrappedStatement.execute( sql, columnNames );
+            afterExecution( timestamp );
+            return result;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
@@ -534,50 +722,75 @@ public class StatementWrapper extends AutoCloseableElement implements Statement
     @Override
     public long[] executeLargeBatch() throws SQLException {
         try {
-            return wrappedStatement.executeLargeBatch();
+            long timestamp = beforeBatchExecution();
+            long[] rows = wrappedStatement.executeLargeBatch();
+            afterBatchExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public long executeLargeUpdate(String sql) throws SQLException {
         try {
-            return wrappedStatement.executeLargeUpdate( sql );
+            long timestamp = beforeExecution( sql );
+            long rows = wrappedStatement.executeLargeUpdate( sql );
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
         try {
-            return wrappedStatement.executeLargeUpdate( sql, autoGeneratedKeys );
+            long timestamp = beforeExecution( sql );
+            long rows = wrappedStatement.executeLargeUpdate( sql, autoGeneratedKeys );
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
         try {
-            return wrappedStatement.executeLargeUpdate( sql, columnIndexes );
+            long timestamp = beforeExecution( sql );
+            long rows = wrappedStatement.executeLargeUpdate( sql, columnIndexes );
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
     @Override
     public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
         try {
-            return wrappedStatement.executeLargeUpdate( sql, columnNames );
+            long timestamp = beforeExecution( sql );
+            long rows = wrappedStatement.executeLargeUpdate( sql, columnNames );
+            afterExecution( timestamp, rows );
+            return rows;
         } catch ( SQLException se ) {
             connection.getHandler().setFlushOnly( se );
             throw se;
+        } finally {
+            cancelQueryTimeout();
         }
     }
 
@@ -37,6 +37,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 import static java.lang.System.lineSeparator;
 import static java.util.stream.Collectors.joining;
@@ -322,6 +323,11 @@ public class AgroalDataSource implements io.agroal.api.AgroalDataSource, Initial
         return delegate.getConnection( username, password );
     }
 
+    @Override
+    public CompletionStage<Connection> getConnectionAsync(Duration timeout) {
+        return delegate.getConnectionAsync( timeout );
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <T> T unwrap(Class<T> iface) throws SQLException {
@@ -408,6 +414,13 @@ public class AgroalDataSource implements io.agroal.api.AgroalDataSource, Initial
             }
         }
 
+        @Override
+        public void onPoolResize(int previousMaxSize, int maxSize) {
+            if ( logger.isDebugEnabled() ) {
+                logger.debug( "Pool max size adjusted from {} to {}", previousMaxSize, maxSize );
+            }
+        }
+
         @Override
         public void onConnectionLeak(Connection connection, Thread thread) {
             logger.info( "Connection {} leak! Acquired by {}", connection, thread.getName() );
@@ -3,16 +3,23 @@
 
 package io.agroal.springframework.boot.metrics;
 
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+
 import io.agroal.api.AgroalDataSource;
 import io.agroal.api.AgroalDataSourceMetrics;
+import io.agroal.api.AgroalDataSourceMetrics.StatementMetrics;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.TimeGauge;
 import io.micrometer.core.instrument.binder.MeterBinder;
 
-public class AgroalDataSourcePoolMetrics implements MeterBinder {
+public class AgroalDataSourcePoolMetrics implements MeterBinder, AutoCloseable {
 
     public static final String AGROAL_METRIC_NAME_PREFIX = "agroal";
     private static final String METRIC_CATEGORY = "pool";
@@ -33,9 +40,20 @@ public class AgroalDataSourcePoolMetrics implements MeterBinder {
     private static final String METRIC_BLOCKING_TIME_MAX = AGROAL_METRIC_NAME_PREFIX + ".blocking.time.max";
     private static final String METRIC_BLOCKING_TIME_TOTAL = AGROAL_METRIC_NAME_PREFIX + ".blocking.time.total";
     private static final String METRIC_AWAITING_COUNT = AGROAL_METRIC_NAME_PREFIX + ".awaiting.count";
+    private static final String METRIC_STATEMENTS_COUNT = AGROAL_METRIC_NAME_PREFIX + ".statements.count";
+    private static final String METRIC_STATEMENT_EXECUTION_COUNT = AGROAL_METRIC_NAME_PREFIX + ".statement.execution.count";
+    private static final String METRIC_STATEMENT_EXECUTION_TIME = AGROAL_METRIC_NAME_PREFIX + ".statement.execution.time";
+    private static final String METRIC_STATEMENT_EXECUTION_TIME_MAX = AGROAL_METRIC_NAME_PREFIX + ".statement.execution.time.max";
+    private static final String METRIC_STATEMENT_ROWS = AGROAL_METRIC_NAME_PREFIX + ".statement.rows";
+    private static final String STATEMENT_TAG = "sql";
+    private static final String PERCENTILE_TAG = "phi";
+    private static final double[] PERCENTILES = {50, 95, 99};
+    private static final long STATEMENTS_REFRESH_SECONDS = 10;
 
     private final String name;
     private final AgroalDataSource dataSource;
+    private final Set<String> boundStatements = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService statementsRefresh;
 
     public AgroalDataSourcePoolMetrics(String name, AgroalDataSource dataSource) {
         this.name = name;
@@ -113,5 +131,61 @@ public class AgroalDataSourcePoolMetrics implements MeterBinder {
                 .description("Approximate number of threads blocked, waiting to acquire a connection")
                 .tags(METRIC_CATEGORY, name)
                 .register(registry);
+        if (dataSource.getConfiguration().connectionPoolConfiguration().connectionFactoryConfiguration().statementMetricsLimit() > 0) {
+            Gauge.builder(METRIC_STATEMENTS_COUNT, metrics, m -> m.statementMetrics().size())
+                    .description("Number of SQL statements with execution metrics")
+                    .tags(METRIC_CATEGORY, name)
+                    .register(registry);
+            bindStatements(registry, metrics);
+
+            // statements are only known once executed, so new ones are bound periodically and not while the registry is read
+            statementsRefresh = newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, AGROAL_METRIC_NAME_PREFIX + "-statements-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            statementsRefresh.scheduleWithFixedDelay(() -> bindStatements(registry, metrics), STATEMENTS_REFRESH_SECONDS, STATEMENTS_REFRESH_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService refresh = statementsRefresh;
+        if (refresh != null) {
+            refresh.shutdownNow();
+        }
+    }
+
+    private void bindStatements(MeterRegistry registry, AgroalDataSourceMetrics metrics) {
+        Map<String, StatementMetrics> statements = metrics.statementMetrics();
+        if (boundStatements.size() < statements.size()) {
+            statements.forEach((sql, statementMetrics) -> {
+                if (boundStatements.add(sql)) {
+                    bindStatement(registry, sql, statementMetrics);
+                }
+            });
+        }
+    }
+
+    private void bindStatement(MeterRegistry registry, String sql, StatementMetrics statementMetrics) {
+        Gauge.builder(METRIC_STATEMENT_EXECUTION_COUNT, statementMetrics, StatementMetrics::executionCount)
+                .description("Number of times the statement was executed")
+                .tags(METRIC_CATEGORY, name, STATEMENT_TAG, sql)
+                .register(registry);
+        TimeGauge.builder(METRIC_STATEMENT_EXECUTION_TIME_MAX, () -> statementMetrics.executionTimeMax().toNanos(), TimeUnit.NANOSECONDS)
+                .description("Maximum execution time of the statement")
+                .tags(METRIC_CATEGORY, name, STATEMENT_TAG, sql)
+                .register(registry);
+        for (double percentile : PERCENTILES) {
+            String phi = Double.toString(percentile / 100);
+            TimeGauge.builder(METRIC_STATEMENT_EXECUTION_TIME, () -> statementMetrics.executionTimePercentile(percentile).toNanos(), TimeUnit.NANOSECONDS)
+                    .description("Percentile of the execution time of the statement")
+                    .tags(METRIC_CATEGORY, name, STATEMENT_TAG, sql, PERCENTILE_TAG, phi)
+                    .register(registry);
+            Gauge.builder(METRIC_STATEMENT_ROWS, () -> statementMetrics.rowsPercentile(percentile))
+                    .description("Percentile of the rows updated or read by the statement")
+                    .tags(METRIC_CATEGORY, name, STATEMENT_TAG, sql, PERCENTILE_TAG, phi)
+                    .register(registry);
+        }
     }
 }
@@ -19,6 +19,8 @@ import org.springframework.context.annotation.Bean;
 import javax.sql.DataSource;
 
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 @AutoConfiguration(after = {AgroalDataSourceAutoConfiguration.class, CompositeMeterRegistryAutoConfiguration.class})
 @ConditionalOnClass({AgroalDataSource.class, MeterRegistry.class})
@@ -30,9 +32,10 @@ public class AgroalDataSourcePoolMetricsAutoConfiguration {
         return new AgroalDataSourceMeterBinder(dataSources);
     }
 
-    public static class AgroalDataSourceMeterBinder implements MeterBinder {
+    public static class AgroalDataSourceMeterBinder implements MeterBinder, AutoCloseable {
 
         private final Map<String, ? extends DataSource> dataSources;
+        private final Queue<AgroalDataSourcePoolMetrics> poolMetrics = new ConcurrentLinkedQueue<>();
 
         AgroalDataSourceMeterBinder(Map<String, ? extends DataSource> dataSources) {
             this.dataSources = dataSources;
@@ -43,10 +46,17 @@ public class AgroalDataSourcePoolMetricsAutoConfiguration {
             dataSources.forEach((name, dataSource) -> bindDataSourceToRegistry(name, dataSource, registry));
         }
 
+        @Override
+        public void close() {
+            poolMetrics.forEach(AgroalDataSourcePoolMetrics::close);
+        }
+
         private void bindDataSourceToRegistry(String name, DataSource dataSource, MeterRegistry registry) {
             AgroalDataSource agroalDataSource = DataSourceUnwrapper.unwrap(dataSource, AgroalDataSource.class);
             if (agroalDataSource != null && agroalDataSource.getMetrics() instanceof DefaultMetricsRepository) {
-                new AgroalDataSourcePoolMetrics(name, agroalDataSource).bindTo(registry);
+                AgroalDataSourcePoolMetrics metrics = new AgroalDataSourcePoolMetrics(name, agroalDataSource);
+                metrics.bindTo(registry);
+                poolMetrics.add(metrics);
             }
         }
     }
@@ -5,7 +5,12 @@ package io.agroal.test.basic;
 
 import io.agroal.api.AgroalDataSource;
 import io.agroal.api.AgroalDataSourceListener;
+import io.agroal.api.cache.Acquirable;
+import io.agroal.api.cache.ConnectionCache;
+import io.agroal.api.cache.SharedConnectionCache;
 import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import io.agroal.test.MockConnection;
+import io.agroal.test.MockDataSource;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -14,11 +19,18 @@ import org.junit.jupiter.api.Test;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Logger;
@@ -27,6 +39,7 @@ import static io.agroal.test.AgroalTestGroup.CONCURRENCY;
 import static io.agroal.test.AgroalTestGroup.FUNCTIONAL;
 import static io.agroal.test.MockDriver.deregisterMockDriver;
 import static io.agroal.test.MockDriver.registerMockDriver;
+import static java.lang.Thread.currentThread;
 import static java.text.MessageFormat.format;
 import static java.time.Duration.ofMillis;
 import static java.time.Duration.ofSeconds;
@@ -36,7 +49,11 @@ import static java.util.logging.Logger.getLogger;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -118,6 +135,60 @@ public class BasicConcurrencyTests {
         } );
     }
 
+    @Test
+    @DisplayName( "Multiple threads on a striped pool" )
+    @SuppressWarnings( "ObjectAllocationInLoop" )
+    void stripedConnectionAcquireTest() throws SQLException {
+        int MAX_POOL_SIZE = 8, STRIPE_COUNT = 4, THREAD_POOL_SIZE = 16, CALLS = 10000, SLEEP_TIME = 1, OVERHEAD = 1;
+
+        ExecutorService executor = newFixedThreadPool( THREAD_POOL_SIZE );
+        CountDownLatch latch = new CountDownLatch( CALLS );
+        BasicConcurrencyTestsListener listener = new BasicConcurrencyTestsListener();
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .connectionPoolConfiguration( cp -> cp
+                        .initialSize( MAX_POOL_SIZE )
+                        .maxSize( MAX_POOL_SIZE )
+                        .stripeCount( STRIPE_COUNT )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier, listener ) ) {
+
+            for ( int i = 0; i < CALLS; i++ ) {
+                executor.submit( () -> {
+                    try {
+                        Connection connection = dataSource.getConnection();
+                        LockSupport.parkNanos( ofMillis( SLEEP_TIME ).toNanos() );
+                        connection.close();
+                    } catch ( SQLException e ) {
+                        fail( "Unexpected SQLException " + e.getMessage() );
+                    } finally {
+                        latch.countDown();
+                    }
+                } );
+            }
+
+            try {
+                long waitTime = ( SLEEP_TIME + OVERHEAD ) * CALLS / MAX_POOL_SIZE;
+                logger.info( format( "Main thread waiting for {0}ms", waitTime ) );
+                if ( !latch.await( waitTime, MILLISECONDS ) ) {
+                    fail( "Did not execute within the required amount of time" );
+                }
+            } catch ( InterruptedException e ) {
+                fail( "Test fail due to interrupt" );
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertAll( () -> {
+            assertFalse( listener.getWarning().get(), "Unexpected warning" );
+            assertEquals( MAX_POOL_SIZE, listener.getCreationCount().longValue() );
+            assertEquals( CALLS, listener.getAcquireCount().longValue() );
+            assertEquals( CALLS, listener.getReturnCount().longValue() );
+        } );
+    }
+
     @Test
     @DisplayName( "Concurrent DataSource in closed state" )
     @SuppressWarnings( {"BusyWait", "JDBCResourceOpenedButNotSafelyClosed", "MethodCallInLoopCondition"} )
@@ -234,8 +305,401 @@ public class BasicConcurrencyTests {
         } );
     }
 
+    @Test
+    @DisplayName( "Direct handoff to waiting threads" )
+    @SuppressWarnings( {"BusyWait", "MethodCallInLoopCondition"} )
+    void directHandoffTest() throws SQLException, InterruptedException {
+        int MAX_POOL_SIZE = 1, WAITERS = 4, TIMEOUT_MS = 1000;
+
+        BasicConcurrencyTestsListener listener = new BasicConcurrencyTestsListener();
+        ExecutorService executor = newFixedThreadPool( WAITERS );
+        CountDownLatch latch = new CountDownLatch( WAITERS );
+        List<Integer> acquisitionOrder = new CopyOnWriteArrayList<>();
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( MAX_POOL_SIZE )
+                        .directHandoff()
+                        .acquisitionTimeout( ofMillis( TIMEOUT_MS ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier, listener ) ) {
+            Connection connection = dataSource.getConnection();
+
+            for ( int i = 0; i < WAITERS; i++ ) {
+                int waiter = i;
+                executor.submit( () -> {
+                    try ( Connection c = dataSource.getConnection() ) {
+                        assertNotNull( c, "Expected non null connection" );
+                        acquisitionOrder.add( waiter );
+                    } catch ( SQLException e ) {
+                        fail( "Unexpected SQLException " + e.getMessage() );
+                    } finally {
+                        latch.countDown();
+                    }
+                } );
+
+                // make sure threads start waiting in order
+                do {
+                    Thread.sleep( 10 );
+                } while ( dataSource.getMetrics().awaitingCount() <= i );
+            }
+
+            logger.info( format( "Returning connection to {0} waiting threads", dataSource.getMetrics().awaitingCount() ) );
+            connection.close();
+
+            if ( !latch.await( TIMEOUT_MS, MILLISECONDS ) ) {
+                fail( "Did not execute within the required amount of time" );
+            }
+
+            assertAll( () -> {
+                assertFalse( listener.getWarning().get(), "Unexpected warning" );
+                assertEquals( 1, listener.getCreationCount().longValue() );
+                assertEquals( WAITERS + 1, listener.getAcquireCount().longValue() );
+                assertEquals( WAITERS + 1, listener.getReturnCount().longValue() );
+                assertEquals( 0, dataSource.getMetrics().awaitingCount(), "Threads still waiting" );
+                assertEquals( List.of( 0, 1, 2, 3 ), acquisitionOrder, "Connection not handed over in order" );
+            } );
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName( "Asynchronous acquisition" )
+    @SuppressWarnings( "ObjectAllocationInLoop" )
+    void asyncConnectionAcquireTest() throws SQLException, InterruptedException, ExecutionException, TimeoutException {
+        int MAX_POOL_SIZE = 1, REQUESTS = 4, TIMEOUT_MS = 1000;
+
+        BasicConcurrencyTestsListener listener = new BasicConcurrencyTestsListener();
+        List<Integer> acquisitionOrder = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<Void>> futures = new CopyOnWriteArrayList<>();
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( MAX_POOL_SIZE )
+                        .acquisitionTimeout( ofMillis( TIMEOUT_MS ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier, listener ) ) {
+            Connection connection = dataSource.getConnection();
+
+            // no thread waits for these, each one is completed by the close of the previous connection
+            for ( int i = 0; i < REQUESTS; i++ ) {
+                int request = i;
+                futures.add( dataSource.getConnectionAsync().thenAccept( c -> {
+                    if ( currentThread().getName().startsWith( "agroal-" ) ) {
+                        fail( "Dependent stage run by pool thread " + currentThread().getName() );
+                    }
+                    acquisitionOrder.add( request );
+                    try {
+                        c.close();
+                    } catch ( SQLException e ) {
+                        fail( "Unexpected SQLException " + e.getMessage() );
+                    }
+                } ).toCompletableFuture() );
+            }
+
+            assertEquals( REQUESTS, dataSource.getMetrics().awaitingCount(), "Expected all requests to be waiting" );
+            assertTrue( futures.stream().noneMatch( CompletableFuture::isDone ), "Expected no request to complete while the pool is full" );
+
+            connection.close();
+
+            for ( CompletableFuture<Void> future : futures ) {
+                future.get( TIMEOUT_MS, MILLISECONDS );
+            }
+
+            // a request for a pool that stays full completes exceptionally
+            Connection blocking = dataSource.getConnection();
+            ExecutionException e = assertThrows( ExecutionException.class, () -> dataSource.getConnectionAsync( ofMillis( 50 ) ).toCompletableFuture().get( TIMEOUT_MS, MILLISECONDS ) );
+            assertInstanceOf( SQLException.class, e.getCause(), "Expected timeout on acquisition" );
+            blocking.close();
+
+            assertAll( () -> {
+                assertFalse( listener.getWarning().get(), "Unexpected warning" );
+                assertEquals( 1, listener.getCreationCount().longValue() );
+                assertEquals( REQUESTS + 2, listener.getAcquireCount().longValue() );
+                assertEquals( REQUESTS + 2, listener.getReturnCount().longValue() );
+                assertEquals( 0, dataSource.getMetrics().awaitingCount(), "Requests still waiting" );
+                assertEquals( List.of( 0, 1, 2, 3 ), acquisitionOrder, "Connection not handed over in order" );
+            } );
+        }
+    }
+
+    @Test
+    @DisplayName( "Async acquisition validated off the returning thread and cancelled" )
+    void asyncConnectionValidationAndCancelTest() throws SQLException, InterruptedException, ExecutionException, TimeoutException {
+        int TIMEOUT_MS = 1000;
+        AtomicReference<Thread> validationThread = new AtomicReference<>();
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 1 )
+                        .validateOnBorrow( true )
+                        .acquisitionTimeout( ofMillis( TIMEOUT_MS ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier, new AgroalDataSourceListener() {
+            @Override
+            public void beforeConnectionValidation(Connection connection) {
+                validationThread.set( currentThread() );
+            }
+        } ) ) {
+            Connection connection = dataSource.getConnection();
+
+            // a cancelled request stops waiting, and the connection goes to the next one
+            CompletableFuture<Connection> cancelled = dataSource.getConnectionAsync( ofMillis( 10 * TIMEOUT_MS ) ).toCompletableFuture();
+            CompletableFuture<Connection> pending = dataSource.getConnectionAsync().toCompletableFuture();
+            assertEquals( 2, dataSource.getMetrics().awaitingCount(), "Expected both requests to be waiting" );
+            assertTrue( cancelled.cancel( false ) );
+            assertEquals( 1, dataSource.getMetrics().awaitingCount(), "Expected cancelled request not to be waiting" );
+
+            connection.close();
+            try ( Connection handedOver = pending.get( TIMEOUT_MS, MILLISECONDS ) ) {
+                assertNotNull( handedOver, "Expected connection handed over to the pending request" );
+                assertNotSame( currentThread(), validationThread.get(), "Expected validation not to run on the thread that returned the connection" );
+            }
+            assertEquals( 0, dataSource.getMetrics().awaitingCount(), "Requests still waiting" );
+        }
+    }
+
+    @Test
+    @DisplayName( "Connection cache shared by short-lived threads" )
+    void sharedConnectionCacheTest() throws SQLException, InterruptedException {
+        AtomicReference<Connection> lastAcquired = new AtomicReference<>();
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 2 )
+                        .connectionCache( SharedConnectionCache.slots( 1 ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier, new AgroalDataSourceListener() {
+            @Override
+            public void onConnectionAcquire(Connection connection) {
+                lastAcquired.set( connection );
+            }
+        } ) ) {
+            Connection first = dataSource.getConnection();
+            Connection second = dataSource.getConnection();
+            Connection secondRaw = lastAcquired.get();
+
+            // the cache keeps the last connection returned, while the pool would look for the first
+            first.close();
+            second.close();
+
+            AtomicReference<Connection> acquiredRaw = new AtomicReference<>();
+            Thread thread = new Thread( () -> {
+                try ( Connection c = dataSource.getConnection() ) {
+                    assertNotNull( c, "Expected non null connection" );
+                    acquiredRaw.set( lastAcquired.get() );
+                } catch ( SQLException e ) {
+                    fail( "Unexpected SQLException " + e.getMessage() );
+                }
+            } );
+            thread.start();
+            thread.join();
+
+            assertSame( secondRaw, acquiredRaw.get(), "Expected connection from the shared cache on a new thread" );
+        }
+    }
+
+    @Test
+    @DisplayName( "Shared cache not bound to the thread that returned the connection" )
+    void sharedConnectionCacheSlotsTest() throws InterruptedException {
+        ConnectionCache cache = SharedConnectionCache.slots( 64 );
+        AtomicBoolean inUse = new AtomicBoolean();
+        Acquirable acquirable = new Acquirable() {
+            @Override
+            public boolean acquire() {
+                return inUse.compareAndSet( false, true );
+            }
+
+            @Override
+            public boolean isAcquirable() {
+                return true;
+            }
+        };
+        cache.put( acquirable );
+
+        for ( int i = 0; i < 16; i++ ) {
+            AtomicReference<Acquirable> cached = new AtomicReference<>();
+            Thread thread = new Thread( () -> cached.set( cache.get() ) );
+            thread.start();
+            thread.join();
+
+            assertSame( acquirable, cached.get(), "Expected cached object on a new thread" );
+            assertNull( cache.get(), "Expected object acquired from the cache only once" );
+            inUse.set( false );
+            cache.put( acquirable );
+        }
+    }
+
+    @Test
+    @DisplayName( "Parallel connection creation" )
+    @SuppressWarnings( "ObjectAllocationInLoop" )
+    void parallelConnectionCreationTest() throws SQLException, InterruptedException {
+        int MAX_POOL_SIZE = 8, CREATION_CONCURRENCY = 4, THREADS = 16, TIMEOUT_MS = 1000;
+
+        BasicConcurrencyTestsListener listener = new BasicConcurrencyTestsListener();
+        SlowDataSource.reset();
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .connectionPoolConfiguration( cp -> cp
+                        .initialSize( MAX_POOL_SIZE / 2 )
+                        .maxSize( MAX_POOL_SIZE )
+                        .creationConcurrency( CREATION_CONCURRENCY )
+                        .acquisitionTimeout( ofMillis( TIMEOUT_MS ) )
+                        .connectionFactoryConfiguration( cf -> cf
+                                .connectionProviderClass( SlowDataSource.class )
+                        )
+                );
+
+        ExecutorService executor = newFixedThreadPool( THREADS );
+        CountDownLatch latch = new CountDownLatch( THREADS );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier, listener ) ) {
+            // burst of demand while the pool is still filling up
+            for ( int i = 0; i < THREADS; i++ ) {
+                executor.submit( () -> {
+                    try ( Connection c = dataSource.getConnection() ) {
+                        assertNotNull( c, "Expected non null connection" );
+                        Thread.sleep( SlowDataSource.CREATION_TIME_MS );
+                    } catch ( SQLException e ) {
+                        fail( "Unexpected SQLException " + e.getMessage() );
+                    } catch ( InterruptedException e ) {
+                        fail( "Interrupted" );
+                    } finally {
+                        latch.countDown();
+                    }
+                } );
+            }
+
+            if ( !latch.await( TIMEOUT_MS, MILLISECONDS ) ) {
+                fail( "Did not execute within the required amount of time" );
+            }
+
+            logger.info( format( "Created {0} connections, up to {1} at the same time", listener.getCreationCount().longValue(), SlowDataSource.maxConcurrent.get() ) );
+
+            assertAll( () -> {
+                assertFalse( listener.getWarning().get(), "Unexpected warning" );
+                assertEquals( MAX_POOL_SIZE, listener.getCreationCount().longValue(), "Expected pool to grow up to max size" );
+                assertTrue( SlowDataSource.maxConcurrent.get() > 1, "Expected connections to be created in parallel" );
+                assertTrue( SlowDataSource.maxConcurrent.get() <= CREATION_CONCURRENCY, "Too many connections created at the same time" );
+            } );
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName( "Acquire, return and flush on a growing pool" )
+    @SuppressWarnings( "ObjectAllocationInLoop" )
+    void growingPoolFlushTest() throws SQLException, InterruptedException {
+        // more than the 64 initial slots of the availability index, so that it grows under load
+        int MAX_POOL_SIZE = 100, THREADS = 128, CALLS = 20000, FLUSH_INTERVAL_MS = 5, TIMEOUT_MS = 10000;
+
+        BasicConcurrencyTestsListener listener = new BasicConcurrencyTestsListener();
+        ExecutorService executor = newFixedThreadPool( THREADS + 1 );
+        CountDownLatch latch = new CountDownLatch( CALLS );
+        AtomicBoolean flushing = new AtomicBoolean( true );
+        LongAdder failures = new LongAdder();
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( MAX_POOL_SIZE )
+                        .directHandoff()
+                        .acquisitionTimeout( ofMillis( TIMEOUT_MS ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier, listener ) ) {
+            // flushes and validates idle connections while others are acquired and returned, and new ones take their slots
+            executor.submit( () -> {
+                for ( int i = 0; flushing.get(); i++ ) {
+                    dataSource.flush( i % 2 == 0 ? AgroalDataSource.FlushMode.IDLE : AgroalDataSource.FlushMode.INVALID );
+                    LockSupport.parkNanos( ofMillis( FLUSH_INTERVAL_MS ).toNanos() );
+                }
+            } );
+
+            for ( int i = 0; i < CALLS; i++ ) {
+                executor.submit( () -> {
+                    try ( Connection connection = dataSource.getConnection() ) {
+                        assertNotNull( connection, "Expected non null connection" );
+                        LockSupport.parkNanos( ofMillis( 1 ).toNanos() );
+                    } catch ( SQLException e ) {
+                        logger.info( format( "Unexpected SQLException {0}", e.getMessage() ) );
+                        failures.increment();
+                    } finally {
+                        latch.countDown();
+                    }
+                } );
+            }
+
+            if ( !latch.await( TIMEOUT_MS, MILLISECONDS ) ) {
+                fail( "Did not execute within the required amount of time" );
+            }
+            flushing.set( false );
+
+            logger.info( format( "Created {0} connections, up to {1} at the same time", listener.getCreationCount().longValue(), dataSource.getMetrics().maxUsedCount() ) );
+
+            assertAll( () -> {
+                assertFalse( listener.getWarning().get(), "Unexpected warning" );
+                assertEquals( 0, failures.longValue(), "Unexpected acquisition failure" );
+                assertEquals( CALLS, listener.getAcquireCount().longValue() );
+                assertEquals( CALLS, listener.getReturnCount().longValue() );
+                assertTrue( dataSource.getMetrics().maxUsedCount() > 64, "Expected pool to grow beyond 64 connections" );
+                assertTrue( dataSource.getMetrics().maxUsedCount() <= MAX_POOL_SIZE, "Expected pool not to grow beyond max size" );
+                assertEquals( 0, dataSource.getMetrics().activeCount(), "Expected no active connections" );
+                assertEquals( 0, dataSource.getMetrics().awaitingCount(), "Threads still waiting" );
+            } );
+
+            // every connection left in the pool can still be acquired
+            long available = dataSource.getMetrics().availableCount();
+            List<Connection> connections = new CopyOnWriteArrayList<>();
+            for ( long i = 0; i < available; i++ ) {
+                connections.add( dataSource.getConnection() );
+            }
+            assertEquals( available, connections.stream().distinct().count(), "Expected distinct connections" );
+            for ( Connection connection : connections ) {
+                connection.close();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     // --- //
 
+    public static class SlowDataSource implements MockDataSource {
+
+        private static final int CREATION_TIME_MS = 50;
+
+        private static final AtomicInteger concurrent = new AtomicInteger();
+        private static final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        static void reset() {
+            concurrent.set( 0 );
+            maxConcurrent.set( 0 );
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            maxConcurrent.accumulateAndGet( concurrent.incrementAndGet(), Math::max );
+            try {
+                Thread.sleep( CREATION_TIME_MS );
+                return new MockConnection.Empty();
+            } catch ( InterruptedException e ) {
+                throw new SQLException( "Interrupted while establishing connection", e );
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+    }
+
     @SuppressWarnings( "WeakerAccess" )
     private static class BasicConcurrencyTestsListener implements AgroalDataSourceListener {
 
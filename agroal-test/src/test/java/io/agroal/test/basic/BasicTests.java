@@ -14,6 +14,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -283,6 +285,54 @@ public class BasicTests {
         }
     }
 
+    @Test
+    @DisplayName( "Validation and reap on the same housekeeping pass" )
+    void housekeepingTest() throws SQLException {
+        int MIN_POOL_SIZE = 5, MAX_POOL_SIZE = 10, VALIDATION_MS = 200, REAP_TIMEOUT_MS = 300;
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp
+                        .initialSize( MAX_POOL_SIZE )
+                        .minSize( MIN_POOL_SIZE )
+                        .maxSize( MAX_POOL_SIZE )
+                        .validationTimeout( ofMillis( VALIDATION_MS ) )
+                        .reapTimeout( ofMillis( REAP_TIMEOUT_MS ) )
+                );
+
+        CountDownLatch validationLatch = new CountDownLatch( MAX_POOL_SIZE );
+        CountDownLatch destroyLatch = new CountDownLatch( MAX_POOL_SIZE - MIN_POOL_SIZE );
+        LongAdder reapCount = new LongAdder();
+
+        AgroalDataSourceListener validationListener = new ValidationListener( validationLatch );
+        AgroalDataSourceListener reapListener = new ReapListener( new CountDownLatch( 0 ), reapCount, destroyLatch );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier, validationListener, reapListener ) ) {
+            try {
+                logger.info( format( "Awaiting validation of all the {0} connections on the pool", MAX_POOL_SIZE ) );
+                if ( !validationLatch.await( 3L * VALIDATION_MS, MILLISECONDS ) ) {
+                    fail( format( "Validation of {0} connections", validationLatch.getCount() ) );
+                }
+                logger.info( format( "Waiting for reaping of {0} connections ", MAX_POOL_SIZE - MIN_POOL_SIZE ) );
+                if ( !destroyLatch.await( 3L * REAP_TIMEOUT_MS, MILLISECONDS ) ) {
+                    fail( format( "{0} idle connections not sent for destruction", destroyLatch.getCount() ) );
+                }
+            } catch ( InterruptedException e ) {
+                fail( "Test fail due to interrupt" );
+            }
+            assertEquals( MAX_POOL_SIZE - MIN_POOL_SIZE, reapCount.longValue(), "Unexpected number of idle connections " );
+            assertTrue( dataSource.getMetrics().housekeepingCount() > 0, "Expected housekeeping to be accounted for" );
+            // validating and reaping connections takes CPU time and allocates, where the JVM measures it
+            ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            if ( threadBean.isThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled() ) {
+                assertTrue( dataSource.getMetrics().housekeepingCpuTime().toNanos() > 0, "Expected housekeeping CPU time to be accounted for" );
+            }
+            if ( threadBean instanceof com.sun.management.ThreadMXBean && ( (com.sun.management.ThreadMXBean) threadBean ).isThreadAllocatedMemoryEnabled() ) {
+                assertTrue( dataSource.getMetrics().housekeepingAllocatedBytes() > 0, "Expected housekeeping allocation to be accounted for" );
+            }
+        }
+    }
+
     @Test
     @DisplayName( "Enhanced leak report" )
     void enhancedLeakReportTest() throws SQLException {
@@ -0,0 +1,170 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.test.basic;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceListener;
+import io.agroal.api.ConnectionBudget;
+import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+import static io.agroal.test.AgroalTestGroup.FUNCTIONAL;
+import static io.agroal.test.MockDriver.deregisterMockDriver;
+import static io.agroal.test.MockDriver.registerMockDriver;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.logging.Logger.getLogger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+@Tag( FUNCTIONAL )
+public class ConnectionBudgetTests {
+
+    private static final Logger logger = getLogger( ConnectionBudgetTests.class.getName() );
+
+    @BeforeAll
+    static void setupMockDriver() {
+        registerMockDriver();
+    }
+
+    @AfterAll
+    static void teardown() {
+        deregisterMockDriver();
+    }
+
+    private static AgroalDataSourceConfigurationSupplier configuration(ConnectionBudget budget, int weight) {
+        return new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp.maxSize( 4 ).acquisitionTimeout( ofMillis( 200 ) ).connectionBudget( budget, weight ) );
+    }
+
+    private static long poolSize(AgroalDataSource dataSource) {
+        return dataSource.getMetrics().activeCount() + dataSource.getMetrics().availableCount();
+    }
+
+    // --- //
+
+    @Test
+    @DisplayName( "Connections lent to a busy pool are given back" )
+    void lendingTest() throws SQLException, InterruptedException, ExecutionException, TimeoutException {
+        ConnectionBudget budget = new ConnectionBudget( 4 );
+
+        try ( AgroalDataSource busy = AgroalDataSource.from( configuration( budget, 1 ) ); AgroalDataSource other = AgroalDataSource.from( configuration( budget, 1 ) ) ) {
+            List<Connection> connections = new ArrayList<>();
+            for ( int i = 0; i < 4; i++ ) {
+                connections.add( busy.getConnection() );
+            }
+            assertEquals( 4, budget.connectionCount(), "Expected busy pool to use the whole budget" );
+
+            CompletionStage<Connection> pending = other.getConnectionAsync( ofSeconds( 5 ) );
+            connections.remove( 0 ).close();
+
+            try ( Connection connection = pending.toCompletableFuture().get( 5, SECONDS ) ) {
+                logger.info( budget.toString() );
+                assertEquals( 3, poolSize( busy ), "Expected busy pool to give back a connection" );
+                assertEquals( 4, budget.connectionCount() );
+            }
+
+            // no other pool is waiting for a connection now
+            connections.remove( 0 ).close();
+            assertEquals( 3, poolSize( busy ), "Expected no connection to be given back without demand" );
+
+            for ( Connection connection : connections ) {
+                connection.close();
+            }
+        }
+        assertEquals( 0, budget.connectionCount(), "Expected all connections to be given back on close" );
+    }
+
+    @Test
+    @DisplayName( "Budget enforced for pools within their share" )
+    void budgetTest() throws SQLException {
+        ConnectionBudget budget = new ConnectionBudget( 3 );
+
+        try ( AgroalDataSource heavy = AgroalDataSource.from( configuration( budget, 2 ) ); AgroalDataSource light = AgroalDataSource.from( configuration( budget, 1 ) ) ) {
+            try ( Connection first = heavy.getConnection(); Connection second = heavy.getConnection(); Connection third = light.getConnection() ) {
+                assertEquals( 3, budget.connectionCount() );
+                assertThrows( SQLException.class, heavy::getConnection, "Expected acquisition timeout with budget exhausted" );
+                assertThrows( SQLException.class, light::getConnection, "Expected acquisition timeout with budget exhausted" );
+            }
+        }
+    }
+
+    @Test
+    @DisplayName( "Connections destroyed while in use are given back once" )
+    void flushTest() throws SQLException, InterruptedException {
+        ConnectionBudget budget = new ConnectionBudget( 2 );
+        CountDownLatch destroyLatch = new CountDownLatch( 1 );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configuration( budget, 1 ), new AgroalDataSourceListener() {
+            @Override
+            public void onConnectionDestroy(Connection connection) {
+                destroyLatch.countDown();
+            }
+        } ) ) {
+            Connection connection = dataSource.getConnection();
+            assertEquals( 1, budget.connectionCount() );
+
+            dataSource.flush( AgroalDataSource.FlushMode.ALL );
+            assertTrue( destroyLatch.await( 1, SECONDS ), "Expected connection to be destroyed on flush" );
+            connection.close();
+        }
+        // close runs the pending destroy tasks
+        assertEquals( 0, budget.connectionCount(), "Expected connection to be given back once" );
+    }
+
+    @Test
+    @DisplayName( "Reclaim put back is taken again" )
+    void putBackReclaimTest() {
+        ConnectionBudget budget = new ConnectionBudget( 2 );
+        ConnectionBudget.Member member = new ConnectionBudget.Member() {
+            @Override
+            public void reclaim() {
+            }
+
+            @Override
+            public void available() {
+            }
+        };
+        ConnectionBudget.Share lender = budget.register( 1, member ), borrower = budget.register( 1, member );
+
+        assertTrue( lender.tryAcquire() );
+        assertTrue( lender.tryAcquire() );
+        assertFalse( borrower.tryAcquire(), "Expected budget to be exhausted" );
+
+        assertTrue( lender.takeReclaim(), "Expected a connection to be reclaimed from the pool above its share" );
+        assertFalse( lender.takeReclaim(), "Expected a single connection to be reclaimed" );
+
+        // the pool could not give back the connection
+        lender.putBackReclaim();
+        assertTrue( lender.takeReclaim(), "Expected reclaim to be taken again after being put back" );
+    }
+
+    @Test
+    @DisplayName( "Budget weight must be positive" )
+    void weightTest() {
+        assertThrows( IllegalArgumentException.class, () -> configuration( new ConnectionBudget( 1 ), 0 ).get() );
+        assertThrows( IllegalArgumentException.class, () -> new ConnectionBudget( 0 ) );
+    }
+}
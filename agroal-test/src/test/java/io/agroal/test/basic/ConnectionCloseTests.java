@@ -6,6 +6,7 @@ package io.agroal.test.basic;
 import io.agroal.api.AgroalDataSource;
 import io.agroal.api.AgroalDataSourceListener;
 import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import io.agroal.pool.util.AutoCloseableElement;
 import io.agroal.pool.wrapper.StatementWrapper;
 import io.agroal.test.MockConnection;
 import io.agroal.test.MockStatement;
@@ -19,6 +20,8 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -113,6 +116,33 @@ public class ConnectionCloseTests {
         }
     }
 
+    @Test
+    @DisplayName( "Stale connection does not affect a later borrow" )
+    void staleConnectionTest() throws SQLException {
+        ReturnListener returnListener = new ReturnListener();
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier().metricsEnabled().connectionPoolConfiguration( cp -> cp.maxSize( 1 ) ), returnListener ) ) {
+            Connection staleConnection = dataSource.getConnection();
+            Statement staleStatement = staleConnection.createStatement();
+            staleConnection.close();
+
+            try ( Connection connection = dataSource.getConnection() ) {
+                Statement statement = connection.createStatement();
+                staleConnection.close();
+                staleStatement.close();
+
+                assertAll( () -> {
+                    assertTrue( staleStatement.isClosed(), "Expected closed Statement, but it's open" );
+                    assertThrows( SQLException.class, staleConnection::createStatement, "Expected SQLException on closed Connection" );
+                    assertFalse( statement.isClosed(), "Expected open Statement, but it's closed" );
+                    assertFalse( connection.isClosed(), "Expected open Connection, but it's closed" );
+                    assertEquals( 1, returnListener.getReturnCount().longValue(), "Expecting connection to be returned once to the pool" );
+                    assertEquals( 1, dataSource.getMetrics().activeCount(), "Expecting 1 active connection" );
+                } );
+            }
+        }
+    }
+
     @Test
     @DisplayName( "Connection closed multiple times" )
     @SuppressWarnings( "RedundantExplicitClose" )
@@ -185,6 +215,73 @@ public class ConnectionCloseTests {
         resultSet.close();
     }
 
+    @Test
+    @DisplayName( "Closed Statements removed from tracking, open ones kept" )
+    void statementTrackingCompactionTest() throws SQLException {
+        int STATEMENTS = 100_000, KEEP_EVERY = 1_000;
+        List<Statement> openStatements = new ArrayList<>();
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier().connectionPoolConfiguration( cp -> cp.maxSize( 1 ) ) ) ) {
+            try ( Connection connection = dataSource.getConnection() ) {
+                Statement previous = null;
+                for ( int i = 0; i < STATEMENTS; i++ ) {
+                    Statement statement = connection.createStatement();
+                    if ( i % KEEP_EVERY == 0 ) {
+                        openStatements.add( statement );
+                    } else if ( previous != null ) {
+                        // close out of order, so that released statements are not always the first in the collection
+                        previous.close();
+                    }
+                    previous = i % KEEP_EVERY == 0 ? null : statement;
+                }
+                if ( previous != null ) {
+                    previous.close();
+                }
+                for ( Statement statement : openStatements ) {
+                    assertFalse( statement.isClosed(), "Expected open Statement, but it's closed" );
+                }
+            }
+        }
+        logger.info( format( "Created {0} Statements, kept {1} open", STATEMENTS, openStatements.size() ) );
+        for ( Statement statement : openStatements ) {
+            assertTrue( statement.isClosed(), "Expected leaked Statement to be closed with the Connection" );
+        }
+    }
+
+    @Test
+    @DisplayName( "Tracking collection compacted as elements are closed" )
+    void trackingCompactionTest() {
+        int ELEMENTS = 100_000, KEEP_EVERY = 1_000;
+        LongAdder visited = new LongAdder();
+        AutoCloseableElement head = AutoCloseableElement.newHead();
+        List<TrackedElement> openElements = new ArrayList<>();
+
+        TrackedElement previous = null;
+        for ( int i = 0; i < ELEMENTS; i++ ) {
+            TrackedElement element = new TrackedElement( head, visited );
+            if ( previous != null ) {
+                // close out of order, so that released elements are not always the first in the collection
+                previous.close();
+            }
+            if ( i % KEEP_EVERY == 0 ) {
+                openElements.add( element );
+            }
+            previous = i % KEEP_EVERY == 0 ? null : element;
+        }
+        if ( previous != null ) {
+            previous.close();
+        }
+
+        // the elements still in the collection are the ones visited when closing it
+        assertEquals( openElements.size(), head.closeAllAutocloseableElements(), "Expected open elements to be closed with the collection" );
+        logger.info( format( "Tracked {0} elements, {1} open, {2} still in the collection", ELEMENTS, openElements.size(), visited.longValue() ) );
+        // about twice the number of open elements, instead of all the elements ever tracked
+        assertTrue( visited.longValue() < 3L * openElements.size(), "Expected closed elements to be removed from the collection" );
+        for ( TrackedElement element : openElements ) {
+            assertTrue( element.isClosed(), "Expected open element to be closed with the collection" );
+        }
+    }
+
     @Test
     @DisplayName( "JDBC resources tracking disabled" )
     @SuppressWarnings( "InstanceofConcreteClass" )
@@ -220,6 +317,30 @@ public class ConnectionCloseTests {
         }
     }
 
+    private static class TrackedElement extends AutoCloseableElement {
+
+        private final LongAdder visited;
+        private boolean closed;
+
+        @SuppressWarnings( "WeakerAccess" )
+        TrackedElement(AutoCloseableElement head, LongAdder visited) {
+            super( head );
+            this.visited = visited;
+        }
+
+        @Override
+        public boolean isClosed() {
+            visited.increment();
+            return closed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            released();
+        }
+    }
+
     // --- //
 
     public static class FakeSchemaConnection implements MockConnection {
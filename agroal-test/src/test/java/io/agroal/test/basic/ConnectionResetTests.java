@@ -177,6 +177,86 @@ public class ConnectionResetTests {
         }
     }
 
+    @Test
+    @DisplayName( "Test session state served from cache" )
+    void cachedSessionStateTest() throws SQLException {
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier().connectionPoolConfiguration(
+                cp -> cp.maxSize( 1 ).connectionFactoryConfiguration( cf -> cf.autoCommit( true ).cacheSessionState( true ).connectionProviderClass( CountingDataSource.class ) )
+        ) ) ) {
+            Connection connection = dataSource.getConnection();
+            CountingConnection.reset();
+
+            assertTrue( connection.getAutoCommit() );
+            assertTrue( connection.getAutoCommit() );
+            assertEquals( FakeConnection.DEFAULT_ISOLATION, connection.getTransactionIsolation() );
+            connection.setAutoCommit( true );
+            connection.setTransactionIsolation( Connection.TRANSACTION_SERIALIZABLE );
+            connection.setTransactionIsolation( Connection.TRANSACTION_SERIALIZABLE );
+            assertEquals( Connection.TRANSACTION_SERIALIZABLE, connection.getTransactionIsolation() );
+
+            assertEquals( 3, CountingConnection.driverCalls, "Expected only the first read of each attribute and one change to reach the driver" );
+            connection.close();
+
+            connection = dataSource.getConnection();
+            assertEquals( 4, CountingConnection.driverCalls, "Expected isolation to be reset" );
+            assertEquals( FakeConnection.DEFAULT_ISOLATION, connection.getTransactionIsolation() );
+
+            connection.setAutoCommit( false );
+            connection.setAutoCommit( true );
+            connection.close();
+
+            connection = dataSource.getConnection();
+            assertEquals( 6, CountingConnection.driverCalls, "Expected no reset of attributes with the default value" );
+            connection.close();
+        }
+    }
+
+    @Test
+    @DisplayName( "Deferred reset" )
+    void deferredResetTest() throws SQLException {
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier().connectionPoolConfiguration(
+                cp -> cp.maxSize( 1 ).deferredReset().connectionFactoryConfiguration( cf -> cf.connectionProviderClass( CountingDataSource.class ) )
+        ) ) ) {
+            Connection connection = dataSource.getConnection();
+            connection.setTransactionIsolation( Connection.TRANSACTION_SERIALIZABLE );
+            connection.setAutoCommit( false );
+            CountingConnection.reset();
+            connection.close();
+            assertEquals( 1, CountingConnection.driverCalls, "Expected only autocommit to be reset on return" );
+
+            CountingConnection.reset();
+            connection = dataSource.getConnection();
+            assertEquals( 0, CountingConnection.driverCalls, "Expected deferred reset not to be applied on acquisition" );
+            assertEquals( FakeConnection.DEFAULT_ISOLATION, connection.getTransactionIsolation(), "Expected isolation to be reset before use" );
+            assertTrue( connection.getAutoCommit() );
+            connection.close();
+        }
+    }
+
+    @Test
+    @DisplayName( "Deferred reset of an attribute set again by the next borrower" )
+    void deferredResetOverrideTest() throws SQLException {
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier().connectionPoolConfiguration(
+                cp -> cp.maxSize( 1 ).deferredReset().connectionFactoryConfiguration( cf -> cf.cacheSessionState( true ).connectionProviderClass( CountingDataSource.class ) )
+        ) ) ) {
+            Connection connection = dataSource.getConnection();
+            connection.setTransactionIsolation( Connection.TRANSACTION_SERIALIZABLE );
+            connection.close();
+
+            CountingConnection.reset();
+            connection = dataSource.getConnection();
+            connection.setTransactionIsolation( Connection.TRANSACTION_SERIALIZABLE );
+            assertEquals( Connection.TRANSACTION_SERIALIZABLE, connection.getTransactionIsolation() );
+            assertEquals( 0, CountingConnection.driverCalls, "Expected no round trip to set the isolation of the previous borrower" );
+            connection.close();
+
+            connection = dataSource.getConnection();
+            assertEquals( FakeConnection.DEFAULT_ISOLATION, connection.getTransactionIsolation(), "Expected isolation to be reset before use" );
+            assertEquals( 1, CountingConnection.driverCalls, "Expected a single round trip to reset the isolation" );
+            connection.close();
+        }
+    }
+
     // --- //
 
     @Test
@@ -267,6 +347,47 @@ public class ConnectionResetTests {
         }
     }
 
+    public static class CountingDataSource implements MockDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return new CountingConnection();
+        }
+    }
+
+    public static class CountingConnection extends FakeConnection {
+
+        static int driverCalls;
+
+        static void reset() {
+            driverCalls = 0;
+        }
+
+        @Override
+        public int getTransactionIsolation() {
+            driverCalls++;
+            return super.getTransactionIsolation();
+        }
+
+        @Override
+        public void setTransactionIsolation(int level) {
+            driverCalls++;
+            super.setTransactionIsolation( level );
+        }
+
+        @Override
+        public boolean getAutoCommit() {
+            driverCalls++;
+            return super.getAutoCommit();
+        }
+
+        @Override
+        public void setAutoCommit(boolean autoCommit) {
+            driverCalls++;
+            super.setAutoCommit( autoCommit );
+        }
+    }
+
     public static class SneakyDataSource implements MockDataSource {
 
         @Override
@@ -6,16 +6,28 @@ package io.agroal.test.basic;
 import io.agroal.api.AgroalDataSource;
 import io.agroal.api.AgroalDataSourceListener;
 import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import io.agroal.test.MockConnection;
 import io.agroal.test.MockDriver;
+import io.agroal.test.MockXADataSource;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
+import static io.agroal.api.AgroalDataSource.FlushMode.ALL;
 import static io.agroal.test.AgroalTestGroup.FUNCTIONAL;
 import static java.util.logging.Logger.getLogger;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -49,6 +61,43 @@ public class DriverTests {
         assertTrue( listener.hasWarning(), "An warning message should be issued" );
     }
 
+    @Test
+    @DisplayName( "Connections created on failover URL when a host is down" )
+    void failoverURLTest() throws SQLException {
+        AgroalDataSourceConfigurationSupplier configuration = new AgroalDataSourceConfigurationSupplier().connectionPoolConfiguration(
+                cp -> cp.maxSize( 1 ).acquisitionTimeout( Duration.ofSeconds( 1 ) ).connectionFactoryConfiguration(
+                        cf -> cf.connectionProviderClass( HostsDriver.class ).jdbcUrl( "jdbc:down" ).addFailoverJdbcUrl( "jdbc:up" ).failoverBackoff( Duration.ofMinutes( 1 ) )
+                ) );
+
+        DriverAgroalDataSourceListener listener = new DriverAgroalDataSourceListener();
+        HostsDriver.attempts.clear();
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configuration, listener ) ) {
+            try ( Connection connection = dataSource.getConnection() ) {
+                assertEquals( 1, HostsDriver.attempts( "jdbc:down" ), "Expected one attempt on the host that is down" );
+                assertEquals( 1, HostsDriver.attempts( "jdbc:up" ), "Expected connection from the failover URL" );
+                assertTrue( listener.hasWarning(), "A warning message should be issued" );
+            }
+
+            dataSource.flush( ALL );
+            try ( Connection connection = dataSource.getConnection() ) {
+                assertAll( () -> {
+                    assertEquals( 1, HostsDriver.attempts( "jdbc:down" ), "Expected host that is down to be avoided" );
+                    assertEquals( 2, HostsDriver.attempts( "jdbc:up" ), "Expected connection from the failover URL" );
+                } );
+            }
+        }
+    }
+
+    @Test
+    @DisplayName( "Failover URLs not supported with an XADataSource" )
+    void failoverXADataSourceTest() {
+        assertThrows( IllegalArgumentException.class, () -> new AgroalDataSourceConfigurationSupplier().connectionPoolConfiguration(
+                cp -> cp.maxSize( 1 ).connectionFactoryConfiguration(
+                        cf -> cf.connectionProviderClass( MockXADataSource.Empty.class ).jdbcUrl( "jdbc:primary" ).addFailoverJdbcUrl( "jdbc:secondary" )
+                ) ).get(), "Expected failover URLs to be rejected, as recovery only connects to the database URL" );
+    }
+
     // --- //
 
     @SuppressWarnings( "WeakerAccess" )
@@ -82,4 +131,23 @@ public class DriverTests {
             return false;
         }
     }
+
+    public static class HostsDriver implements MockDriver {
+
+        static final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+        static int attempts(String url) {
+            AtomicInteger count = attempts.get( url );
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            attempts.computeIfAbsent( url, u -> new AtomicInteger() ).incrementAndGet();
+            if ( url.endsWith( "down" ) ) {
+                throw new SQLException( "Host is down" );
+            }
+            return new MockConnection.Empty();
+        }
+    }
 }
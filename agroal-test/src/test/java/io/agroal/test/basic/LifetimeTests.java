@@ -16,6 +16,8 @@ import org.junit.jupiter.api.Test;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Logger;
@@ -29,6 +31,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.logging.Logger.getLogger;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -178,6 +181,55 @@ public class LifetimeTests {
         }
     }
 
+    @Test
+    @DisplayName( "Jittered maxLifetime with limited evictions" )
+    void jitterLifetimeTest() throws SQLException {
+        int MIN_SIZE = 5, MAX_LIFETIME_MS = 300, JITTER = 50;
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp
+                        .initialSize( MIN_SIZE )
+                        .minSize( MIN_SIZE )
+                        .maxSize( 2 * MIN_SIZE )
+                        .maxLifetime( ofMillis( MAX_LIFETIME_MS ) )
+                        .maxLifetimeJitter( JITTER )
+                        .maxLifetimeEvictions( 1 )
+                );
+
+        CountDownLatch flushLatch = new CountDownLatch( MIN_SIZE );
+        AtomicInteger poolSize = new AtomicInteger();
+        LongAccumulator lowestSize = new LongAccumulator( Math::min, Long.MAX_VALUE );
+        LongAccumulator highestSize = new LongAccumulator( Math::max, Long.MIN_VALUE );
+
+        AgroalDataSourceListener listener = new AgroalDataSourceListener() {
+            @Override
+            public void onConnectionPooled(Connection connection) {
+                highestSize.accumulate( poolSize.incrementAndGet() );
+            }
+
+            @Override
+            public void onConnectionFlush(Connection connection) {
+                lowestSize.accumulate( poolSize.decrementAndGet() );
+                flushLatch.countDown();
+            }
+        };
+
+        long start = System.nanoTime();
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier, listener ) ) {
+            logger.info( format( "Waiting for {0}ms (twice the maxLifetime) for the flush of {1} connections", 2 * MAX_LIFETIME_MS, MIN_SIZE ) );
+            if ( !flushLatch.await( 2 * MAX_LIFETIME_MS, MILLISECONDS ) ) {
+                fail( format( "{0} connections not flushed in time", flushLatch.getCount() ) );
+            }
+            assertTrue( ofMillis( MAX_LIFETIME_MS * ( 100 - JITTER ) / 100 ).toNanos() <= System.nanoTime() - start, "Connections flushed before the minimum lifetime" );
+            assertEquals( MIN_SIZE, lowestSize.get(), "Pool dropped below min size" );
+            assertEquals( MIN_SIZE + 1, highestSize.get(), "More than one connection replaced at the same time" );
+            assertTrue( dataSource.getMetrics().creationCount() >= 2 * MIN_SIZE, "Flushed connections not replaced" );
+        } catch ( InterruptedException e ) {
+            fail( "Test fail due to interrupt" );
+        }
+    }
+
     // --- //
 
     private static class MaxLifetimeListener implements AgroalDataSourceListener {
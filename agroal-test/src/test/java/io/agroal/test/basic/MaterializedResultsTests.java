@@ -0,0 +1,365 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.test.basic;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import io.agroal.test.MockConnection;
+import io.agroal.test.MockResultSet;
+import io.agroal.test.MockStatement;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static io.agroal.test.AgroalTestGroup.FUNCTIONAL;
+import static io.agroal.test.MockDriver.deregisterMockDriver;
+import static io.agroal.test.MockDriver.registerMockDriver;
+import static java.lang.reflect.Proxy.newProxyInstance;
+import static java.sql.Types.DOUBLE;
+import static java.sql.Types.INTEGER;
+import static java.sql.Types.VARBINARY;
+import static java.sql.Types.VARCHAR;
+import static java.util.logging.Logger.getLogger;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+@Tag( FUNCTIONAL )
+public class MaterializedResultsTests {
+
+    private static final Logger logger = getLogger( MaterializedResultsTests.class.getName() );
+
+    @BeforeAll
+    static void setupMockDriver() {
+        registerMockDriver( TableConnection.class );
+    }
+
+    @AfterAll
+    static void teardown() {
+        deregisterMockDriver();
+    }
+
+    // --- //
+
+    @Test
+    @DisplayName( "Results usable after the connection is returned" )
+    void materializedResultsTest() throws SQLException {
+        TableResultSet.closed.set( false );
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 1 )
+                        .connectionFactoryConfiguration( cf -> cf.materializeResults( true ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            ResultSet resultSet;
+            try ( Connection connection = dataSource.getConnection() ) {
+                try ( Statement statement = connection.createStatement() ) {
+                    resultSet = statement.executeQuery( "SELECT id, name, score FROM t" );
+                    assertTrue( TableResultSet.closed.get(), "Expected driver result set to be closed on execution" );
+                }
+            }
+            logger.info( dataSource.getMetrics().toString() );
+            assertEquals( 1, dataSource.getMetrics().availableCount(), "Expected connection to be back in the pool" );
+
+            assertAll( () -> {
+                assertFalse( resultSet.isClosed(), "Expected result to remain open" );
+                assertEquals( 3, resultSet.getMetaData().getColumnCount() );
+                assertEquals( "NAME", resultSet.getMetaData().getColumnLabel( 2 ) );
+                assertEquals( 2, resultSet.findColumn( "name" ), "Expected label to be matched ignoring case" );
+            } );
+
+            assertTrue( resultSet.next() );
+            assertAll( () -> {
+                assertEquals( 1, resultSet.getInt( "ID" ) );
+                assertEquals( Integer.class, resultSet.getObject( 1 ).getClass(), "Expected same type as the driver" );
+                assertEquals( "first", resultSet.getString( 2 ) );
+                assertEquals( 1.5, resultSet.getDouble( "SCORE" ) );
+                assertEquals( new BigDecimal( "1.5" ), resultSet.getBigDecimal( 3 ) );
+                assertEquals( "1", resultSet.getString( 1 ) );
+            } );
+
+            assertTrue( resultSet.next() );
+            assertAll( () -> {
+                assertNull( resultSet.getString( "NAME" ) );
+                assertTrue( resultSet.wasNull() );
+                assertEquals( 0.0, resultSet.getDouble( 3 ) );
+                assertTrue( resultSet.wasNull() );
+                assertEquals( 2L, resultSet.getLong( 1 ) );
+                assertFalse( resultSet.wasNull() );
+            } );
+
+            assertTrue( resultSet.next() );
+            assertTrue( resultSet.isLast() );
+            assertFalse( resultSet.next() );
+            assertTrue( resultSet.isAfterLast() );
+
+            assertAll( () -> {
+                assertTrue( resultSet.absolute( 1 ), "Expected result to be scrollable" );
+                assertEquals( "first", resultSet.getString( "name" ) );
+                assertTrue( resultSet.last() );
+                assertEquals( 3, resultSet.getRow() );
+                assertThrows( SQLFeatureNotSupportedException.class, () -> resultSet.updateInt( 1, 0 ), "Expected result to be read-only" );
+            } );
+
+            resultSet.close();
+            assertThrows( SQLException.class, resultSet::next, "Expected SQLException on closed result" );
+        }
+    }
+
+    @Test
+    @DisplayName( "Results not materialized when disabled" )
+    void disabledMaterializedResultsTest() throws SQLException {
+        TableResultSet.closed.set( false );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier().connectionPoolConfiguration( cp -> cp.maxSize( 1 ) ) ) ) {
+            try ( Connection connection = dataSource.getConnection() ) {
+                try ( Statement statement = connection.createStatement() ) {
+                    ResultSet resultSet = statement.executeQuery( "SELECT id, name, score FROM t" );
+                    assertFalse( TableResultSet.closed.get(), "Expected driver result set to remain open" );
+                    assertTrue( resultSet.next() );
+                }
+            }
+            assertTrue( TableResultSet.closed.get(), "Expected driver result set to be closed with the statement" );
+        }
+    }
+
+    @Test
+    @DisplayName( "Results above the limit of rows read as they are consumed" )
+    void maxRowsTest() throws SQLException {
+        int MAX_ROWS = 4;
+        TableResultSet.closed.set( false );
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 1 )
+                        .connectionFactoryConfiguration( cf -> cf.materializeResults( true ).materializeResultsMaxRows( MAX_ROWS ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            try ( Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement() ) {
+                try ( ResultSet resultSet = statement.executeQuery( "SELECT id, name, score FROM t" ) ) {
+                    assertTrue( TableResultSet.closed.get(), "Expected result within the limit to be read in full" );
+                    assertEquals( ResultSet.TYPE_SCROLL_INSENSITIVE, resultSet.getType() );
+                }
+
+                TableResultSet.closed.set( false );
+                try ( ResultSet resultSet = statement.executeQuery( "SELECT id FROM large" ) ) {
+                    assertFalse( TableResultSet.closed.get(), "Expected cursor to remain open for the rows above the limit" );
+                    assertEquals( ResultSet.TYPE_FORWARD_ONLY, resultSet.getType() );
+                    assertTrue( resultSet.isBeforeFirst() );
+
+                    for ( int i = 1; i <= LargeResultSet.ROWS; i++ ) {
+                        assertTrue( resultSet.next(), "Expected row " + i );
+                        assertEquals( i, resultSet.getInt( 1 ) );
+                        assertEquals( i, resultSet.getRow() );
+                        assertEquals( i == 1, resultSet.isFirst() );
+                    }
+                    assertTrue( resultSet.isLast() );
+                    assertTrue( TableResultSet.closed.get(), "Expected cursor to be closed after the last row" );
+                    assertFalse( resultSet.next() );
+                    assertTrue( resultSet.isAfterLast() );
+                    assertThrows( SQLException.class, resultSet::previous, "Expected result to only move forward" );
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName( "Text of values converted by the driver" )
+    void textTest() throws SQLException {
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 1 )
+                        .connectionFactoryConfiguration( cf -> cf.materializeResults( true ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            ResultSet resultSet;
+            try ( Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement() ) {
+                resultSet = statement.executeQuery( "SELECT data FROM binary" );
+            }
+            assertTrue( resultSet.next() );
+            assertEquals( BinaryResultSet.TEXT, resultSet.getString( 1 ), "Expected text of the value as returned by the driver" );
+            assertEquals( BinaryResultSet.TEXT, resultSet.getObject( 1, String.class ) );
+            assertArrayEquals( BinaryResultSet.DATA, resultSet.getBytes( 1 ) );
+            resultSet.close();
+        }
+    }
+
+    @Test
+    @DisplayName( "Limit of rows must not be negative" )
+    void negativeMaxRowsTest() {
+        assertThrows( IllegalArgumentException.class, () -> new AgroalDataSourceConfigurationSupplier().connectionPoolConfiguration(
+                cp -> cp.maxSize( 1 ).connectionFactoryConfiguration( cf -> cf.materializeResultsMaxRows( -1 ) ) ).get() );
+    }
+
+    // --- //
+
+    public static class TableConnection implements MockConnection {
+
+        @Override
+        public Statement createStatement() throws SQLException {
+            return new TableStatement();
+        }
+
+        private static class TableStatement implements MockStatement {
+
+            @Override
+            public ResultSet executeQuery(String sql) throws SQLException {
+                if ( sql.endsWith( "large" ) ) {
+                    return new LargeResultSet();
+                }
+                if ( sql.endsWith( "binary" ) ) {
+                    return new BinaryResultSet();
+                }
+                return new TableResultSet();
+            }
+        }
+    }
+
+    // three rows with columns ID, NAME and SCORE. the second row has nulls
+    private static class TableResultSet implements MockResultSet {
+
+        static final AtomicBoolean closed = new AtomicBoolean();
+
+        private static final String[] LABELS = {"ID", "NAME", "SCORE"};
+        private static final int[] TYPES = {INTEGER, VARCHAR, DOUBLE};
+        private static final String[] CLASSES = {Integer.class.getName(), String.class.getName(), Double.class.getName()};
+        private static final Object[][] ROWS = {{1, "first", 1.5}, {2, null, null}, {3, "third", 3.0}};
+
+        private final String[] labels;
+        private final int[] types;
+        private final String[] classes;
+        private final Object[][] rows;
+
+        private int row = -1;
+        private boolean wasNull;
+
+        TableResultSet() {
+            this( LABELS, TYPES, CLASSES, ROWS );
+        }
+
+        TableResultSet(String[] labels, int[] types, String[] classes, Object[][] rows) {
+            this.labels = labels;
+            this.types = types;
+            this.classes = classes;
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            return ++row < rows.length;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            closed.set( true );
+        }
+
+        @Override
+        public boolean wasNull() throws SQLException {
+            return wasNull;
+        }
+
+        @Override
+        public Object getObject(int columnIndex) throws SQLException {
+            Object value = rows[row][columnIndex - 1];
+            wasNull = value == null;
+            return value;
+        }
+
+        @Override
+        public String getString(int columnIndex) throws SQLException {
+            Object value = getObject( columnIndex );
+            return value == null ? null : value.toString();
+        }
+
+        @Override
+        public long getLong(int columnIndex) throws SQLException {
+            Object value = getObject( columnIndex );
+            return value == null ? 0 : ( (Number) value ).longValue();
+        }
+
+        @Override
+        public double getDouble(int columnIndex) throws SQLException {
+            Object value = getObject( columnIndex );
+            return value == null ? 0 : ( (Number) value ).doubleValue();
+        }
+
+        @Override
+        public ResultSetMetaData getMetaData() throws SQLException {
+            return (ResultSetMetaData) newProxyInstance( ResultSetMetaData.class.getClassLoader(), new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                switch ( method.getName() ) {
+                    case "getColumnCount":
+                        return labels.length;
+                    case "getColumnLabel":
+                    case "getColumnName":
+                        return labels[(Integer) args[0] - 1];
+                    case "getColumnType":
+                        return types[(Integer) args[0] - 1];
+                    case "getColumnClassName":
+                        return classes[(Integer) args[0] - 1];
+                    default:
+                        throw new SQLFeatureNotSupportedException();
+                }
+            } );
+        }
+    }
+
+    // rows with a single ID column, from 1
+    private static class LargeResultSet extends TableResultSet {
+
+        static final int ROWS = 10;
+
+        LargeResultSet() {
+            super( new String[]{"ID"}, new int[]{INTEGER}, new String[]{Integer.class.getName()}, rows() );
+        }
+
+        private static Object[][] rows() {
+            Object[][] rows = new Object[ROWS][];
+            for ( int i = 0; i < ROWS; i++ ) {
+                rows[i] = new Object[]{i + 1};
+            }
+            return rows;
+        }
+    }
+
+    // a single row with a binary value, that the driver converts to text in hex
+    private static class BinaryResultSet extends TableResultSet {
+
+        static final byte[] DATA = {1, 2, (byte) 0xff};
+        static final String TEXT = "\\x0102ff";
+
+        BinaryResultSet() {
+            super( new String[]{"DATA"}, new int[]{VARBINARY}, new String[]{byte[].class.getName()}, new Object[][]{{DATA}} );
+        }
+
+        @Override
+        public String getString(int columnIndex) throws SQLException {
+            return getObject( columnIndex ) == null ? null : TEXT;
+        }
+    }
+}
@@ -19,7 +19,10 @@ import java.sql.SQLException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
 import static io.agroal.api.configuration.AgroalDataSourceConfiguration.DataSourceImplementation.AGROAL_POOLLESS;
@@ -33,6 +36,7 @@ import static java.util.logging.Logger.getLogger;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -179,6 +183,41 @@ class PoollessTests {
 
     // --- //
 
+    @Test
+    @DisplayName( "Pool-less asynchronous acquisition" )
+    void poollessAsyncTest() throws SQLException, InterruptedException, ExecutionException, TimeoutException {
+        int TIMEOUT_MS = 1000;
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_POOLLESS )
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 1 )
+                        .acquisitionTimeout( Duration.ofMillis( TIMEOUT_MS ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            Connection c = dataSource.getConnectionAsync().toCompletableFuture().get( TIMEOUT_MS, MILLISECONDS );
+            assertFalse( c.isClosed() );
+
+            CompletableFuture<Connection> waiting = dataSource.getConnectionAsync().toCompletableFuture();
+            assertFalse( waiting.isDone(), "Expected request to wait while the pool is full" );
+            assertEquals( 1, dataSource.getMetrics().awaitingCount() );
+
+            logger.info( "Closing connection to complete the waiting request" );
+            c.close();
+
+            try ( Connection testSubject = waiting.get( TIMEOUT_MS, MILLISECONDS ) ) {
+                assertFalse( testSubject.isClosed() );
+                assertEquals( 2, dataSource.getMetrics().creationCount() );
+
+                ExecutionException e = assertThrows( ExecutionException.class, () -> dataSource.getConnectionAsync( Duration.ofMillis( 50 ) ).toCompletableFuture().get( TIMEOUT_MS, MILLISECONDS ) );
+                assertInstanceOf( SQLException.class, e.getCause(), "Expected timeout on acquisition" );
+            }
+            assertEquals( 0, dataSource.getMetrics().awaitingCount() );
+        }
+    }
+
     @Test
     @DisplayName( "Exception on create connection" )
     void createExceptionTest() throws SQLException {
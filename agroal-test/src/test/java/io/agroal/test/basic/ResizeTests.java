@@ -15,7 +15,12 @@ import org.junit.jupiter.api.Test;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 import static io.agroal.test.AgroalTestGroup.FUNCTIONAL;
@@ -23,10 +28,13 @@ import static io.agroal.test.MockDriver.deregisterMockDriver;
 import static io.agroal.test.MockDriver.registerMockDriver;
 import static java.lang.Integer.max;
 import static java.text.MessageFormat.format;
+import static java.time.Duration.ofMillis;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.logging.Logger.getLogger;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -167,4 +175,74 @@ public class ResizeTests {
             creationLatch.countDown();
         }
     }
+
+    @SuppressWarnings( "AnonymousInnerClassMayBeStatic" )
+    @Test
+    @DisplayName( "adaptive sizing" )
+    void adaptiveSizing() throws SQLException, InterruptedException {
+        int MAX_SIZE = 8, INTERVAL_MS = 50, TIMEOUT_MS = 2000;
+
+        // metrics are not enabled, adaptive sizing does not depend on them
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .connectionPoolConfiguration( cp -> cp
+                        .initialSize( MAX_SIZE )
+                        .maxSize( MAX_SIZE )
+                        .adaptiveSizingInterval( ofMillis( INTERVAL_MS ) )
+                        .acquisitionTimeout( ofMillis( TIMEOUT_MS ) )
+                );
+
+        CountDownLatch shrinkLatch = new CountDownLatch( 1 );
+        CountDownLatch growLatch = new CountDownLatch( 1 );
+        AtomicReference<AgroalDataSource> dataSourceReference = new AtomicReference<>();
+        AtomicLong availableOnShrink = new AtomicLong( -1 );
+        AtomicInteger adaptiveSize = new AtomicInteger( MAX_SIZE );
+        AgroalDataSourceListener listener = new AgroalDataSourceListener() {
+            @Override
+            public void onPoolResize(int previousMaxSize, int maxSize) {
+                logger.info( format( "Pool resized from {0} to {1}", previousMaxSize, maxSize ) );
+                adaptiveSize.set( maxSize );
+                if ( maxSize < previousMaxSize && shrinkLatch.getCount() > 0 ) {
+                    availableOnShrink.set( dataSourceReference.get().getMetrics().availableCount() );
+                }
+                ( maxSize < previousMaxSize ? shrinkLatch : growLatch ).countDown();
+            }
+        };
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier, listener ) ) {
+            dataSourceReference.set( dataSource );
+            logger.info( "Waiting for the idle pool to shrink" );
+            if ( !shrinkLatch.await( TIMEOUT_MS, MILLISECONDS ) ) {
+                fail( "Idle pool not resized" );
+            }
+
+            int shrunkSize = adaptiveSize.get();
+            assertTrue( shrunkSize < MAX_SIZE, "Expected smaller max size" );
+            assertEquals( MAX_SIZE, dataSource.getConfiguration().connectionPoolConfiguration().maxSize(), "Expected configured max size not to change" );
+            assertTrue( availableOnShrink.get() <= shrunkSize, "Expected idle connections above the new size to be flushed before the resize is reported" );
+
+            // the acquisition over the max size blocks until the pool grows
+            Collection<Connection> connections = new ArrayList<>();
+            for ( int i = 0; i <= shrunkSize; i++ ) {
+                connections.add( dataSource.getConnection() );
+            }
+            assertEquals( 0, growLatch.getCount(), "Expected pool to grow" );
+            assertTrue( adaptiveSize.get() > shrunkSize, "Expected bigger max size" );
+
+            // a lower configured max size is the ceiling for adaptive sizing
+            dataSource.getConfiguration().connectionPoolConfiguration().setMaxSize( shrunkSize );
+            for ( Connection connection : connections ) {
+                connection.close();
+            }
+            connections.clear();
+            for ( int i = 0; i < shrunkSize; i++ ) {
+                connections.add( dataSource.getConnection() );
+            }
+            assertThrows( SQLException.class, () -> dataSource.getConnection(), "Expected acquisition timeout at the configured max size" );
+
+            for ( Connection connection : connections ) {
+                connection.close();
+            }
+        }
+    }
+
 }
@@ -0,0 +1,200 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.test.basic;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
+import io.agroal.api.RoutingAgroalDataSource;
+import io.agroal.api.transaction.TransactionIntegration;
+import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import io.agroal.pool.wrapper.RoutingConnection;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static io.agroal.api.configuration.AgroalDataSourceConfiguration.DataSourceImplementation.AGROAL_ROUTING;
+import static io.agroal.test.AgroalTestGroup.FUNCTIONAL;
+import static io.agroal.test.MockDriver.deregisterMockDriver;
+import static io.agroal.test.MockDriver.registerMockDriver;
+import static java.lang.reflect.Proxy.newProxyInstance;
+import static java.util.logging.Logger.getLogger;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+@Tag( FUNCTIONAL )
+public class RoutingTests {
+
+    private static final Logger logger = getLogger( RoutingTests.class.getName() );
+
+    @BeforeAll
+    static void setupMockDriver() {
+        registerMockDriver();
+    }
+
+    @AfterAll
+    static void teardown() {
+        deregisterMockDriver();
+    }
+
+    // --- //
+
+    @Test
+    @DisplayName( "Read-only connections routed to replicas" )
+    void routingTest() throws SQLException {
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_ROUTING )
+                .lazyRouting( true )
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp.maxSize( 2 ) )
+                .replicaPoolConfiguration( cp -> cp.maxSize( 1 ) )
+                .replicaPoolConfiguration( cp -> cp.maxSize( 1 ) );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            RoutingAgroalDataSource routingDataSource = assertInstanceOf( RoutingAgroalDataSource.class, dataSource );
+            AgroalDataSourceMetrics primaryMetrics = dataSource.getMetrics();
+            List<AgroalDataSourceMetrics> replicaMetrics = routingDataSource.getReplicaMetrics();
+            assertEquals( 2, replicaMetrics.size() );
+
+            try ( Connection connection = dataSource.getConnection() ) {
+                assertTrue( connection.isValid( 0 ) );
+                assertNull( connection.getWarnings() );
+                assertFalse( connection.unwrap( RoutingConnection.class ).isRouted() );
+                assertEquals( 0, primaryMetrics.acquireCount(), "Expected connection to be acquired on first use" );
+                connection.createStatement().close();
+                assertEquals( 1, primaryMetrics.acquireCount(), "Expected connection from the primary" );
+            }
+
+            try ( Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection() ) {
+                first.setReadOnly( true );
+                second.setReadOnly( true );
+                first.createStatement().close();
+                second.createStatement().close();
+
+                logger.info( replicaMetrics.toString() );
+                assertAll( () -> {
+                    assertEquals( 1, primaryMetrics.acquireCount(), "Expected no read-only connection from the primary" );
+                    assertEquals( 1, replicaMetrics.get( 0 ).activeCount(), "Expected connections to be balanced between replicas" );
+                    assertEquals( 1, replicaMetrics.get( 1 ).activeCount(), "Expected connections to be balanced between replicas" );
+                } );
+            }
+
+            Connection unused = dataSource.getConnection();
+            unused.setReadOnly( true );
+            unused.close();
+            assertTrue( unused.isClosed() );
+            assertThrows( SQLException.class, unused::createStatement, "Expected SQLException on closed connection" );
+
+            try ( RoutingAgroalDataSource.ReadOnlyScope scope = routingDataSource.readOnlyScope() ) {
+                try ( Connection connection = dataSource.getConnection() ) {
+                    assertEquals( 3, replicaMetrics.get( 0 ).acquireCount() + replicaMetrics.get( 1 ).acquireCount(), "Expected connection from a replica within read-only scope" );
+                }
+            }
+
+            try ( Connection connection = dataSource.getConnection() ) {
+                connection.getAutoCommit();
+                assertEquals( 2, primaryMetrics.acquireCount(), "Expected connection from the primary after read-only scope" );
+            }
+            assertEquals( 3, replicaMetrics.get( 0 ).acquireCount() + replicaMetrics.get( 1 ).acquireCount() );
+        }
+    }
+
+    @Test
+    @DisplayName( "Connections acquired eagerly unless lazy routing" )
+    void eagerRoutingTest() throws SQLException {
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_ROUTING )
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp.maxSize( 1 ) )
+                .replicaPoolConfiguration( cp -> cp.maxSize( 1 ) );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            RoutingAgroalDataSource routingDataSource = assertInstanceOf( RoutingAgroalDataSource.class, dataSource );
+
+            try ( Connection connection = dataSource.getConnection() ) {
+                assertFalse( connection.isWrapperFor( RoutingConnection.class ) );
+                assertEquals( 1, dataSource.getMetrics().acquireCount(), "Expected connection from the primary on acquisition" );
+                connection.setReadOnly( true );
+                assertEquals( 0, routingDataSource.getReplicaMetrics().get( 0 ).acquireCount(), "Expected no routing after acquisition" );
+            }
+
+            try ( RoutingAgroalDataSource.ReadOnlyScope scope = routingDataSource.readOnlyScope() ) {
+                try ( Connection connection = dataSource.getConnection() ) {
+                    assertEquals( 1, routingDataSource.getReplicaMetrics().get( 0 ).acquireCount(), "Expected connection from a replica within read-only scope" );
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName( "Routing without replicas" )
+    void noReplicasTest() throws SQLException {
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier().dataSourceImplementation( AGROAL_ROUTING ).metricsEnabled().connectionPoolConfiguration( cp -> cp.maxSize( 1 ) ) ) ) {
+            try ( Connection connection = dataSource.getConnection() ) {
+                connection.setReadOnly( true );
+                assertEquals( 1, dataSource.getMetrics().acquireCount(), "Expected connection from the primary" );
+            }
+        }
+    }
+
+    @Test
+    @DisplayName( "Health of the primary and the replicas" )
+    void healthTest() throws SQLException {
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_ROUTING )
+                .connectionPoolConfiguration( cp -> cp.maxSize( 1 ) )
+                .replicaPoolConfiguration( cp -> cp.maxSize( 1 ) ) ) ) {
+            assertTrue( dataSource.isHealthy( false ) );
+            assertTrue( dataSource.isHealthy( true ) );
+        }
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_ROUTING )
+                .connectionPoolConfiguration( cp -> cp.maxSize( 1 ) )
+                .replicaPoolConfiguration( cp -> cp.maxSize( 1 ) )
+                // connections to this replica are always invalid
+                .replicaPoolConfiguration( cp -> cp.maxSize( 1 ).connectionValidator( c -> false ) ) ) ) {
+            assertFalse( dataSource.isHealthy( false ), "Expected health check to include the replicas" );
+            assertFalse( dataSource.isHealthy( true ), "Expected health check to include the replicas" );
+        }
+    }
+
+    @Test
+    @DisplayName( "Replicas not supported with a transaction integration" )
+    void transactionIntegrationTest() {
+        TransactionIntegration transactionIntegration = (TransactionIntegration) newProxyInstance( TransactionIntegration.class.getClassLoader(), new Class[]{TransactionIntegration.class}, (proxy, method, args) -> method.getReturnType() == boolean.class ? true : null );
+
+        AgroalDataSourceConfigurationSupplier primarySupplier = new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_ROUTING )
+                .connectionPoolConfiguration( cp -> cp.maxSize( 1 ).transactionIntegration( transactionIntegration ) )
+                .replicaPoolConfiguration( cp -> cp.maxSize( 1 ) );
+        assertThrows( IllegalArgumentException.class, primarySupplier::get, "Expected replicas not to be allowed with a transaction integration" );
+
+        AgroalDataSourceConfigurationSupplier replicaSupplier = new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_ROUTING )
+                .connectionPoolConfiguration( cp -> cp.maxSize( 1 ) )
+                .replicaPoolConfiguration( cp -> cp.maxSize( 1 ).transactionIntegration( transactionIntegration ) );
+        assertThrows( IllegalArgumentException.class, replicaSupplier::get, "Expected replicas not to be allowed with a transaction integration" );
+
+        // a single pool, without replicas
+        new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_ROUTING )
+                .connectionPoolConfiguration( cp -> cp.maxSize( 1 ).transactionIntegration( transactionIntegration ) )
+                .get();
+    }
+}
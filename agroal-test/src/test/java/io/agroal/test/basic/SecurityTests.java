@@ -8,6 +8,7 @@ import io.agroal.api.AgroalDataSourceListener;
 import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
 import io.agroal.api.security.AgroalSecurityProvider;
 import io.agroal.api.security.NamePrincipal;
+import io.agroal.api.transaction.TransactionIntegration;
 import io.agroal.test.MockConnection;
 import io.agroal.test.MockDataSource;
 import org.junit.jupiter.api.DisplayName;
@@ -24,9 +25,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import static io.agroal.test.AgroalTestGroup.FUNCTIONAL;
+import static java.lang.reflect.Proxy.newProxyInstance;
 import static java.text.MessageFormat.format;
+import static java.time.Duration.ofMillis;
 import static java.util.logging.Logger.getLogger;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -38,6 +42,7 @@ public class SecurityTests {
     private static final Logger logger = getLogger( SecurityTests.class.getName() );
 
     private static final String DEFAULT_USER = "def";
+    private static final String WRONG_PASSWORD = "wrong";
 
     // --- //
 
@@ -70,6 +75,67 @@ public class SecurityTests {
         }
     }
 
+    @Test
+    @DisplayName( "Test connections with other credentials" )
+    void credentialPools() throws SQLException {
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( credentialPoolsConfiguration(), new WarningsAgroalDatasourceListener() ) ) {
+            try ( Connection connection = dataSource.getConnection( null, null ) ) {
+                assertEquals( DEFAULT_USER, connection.unwrap( CredentialsConnection.class ).getUser(), "Expected connection from the pool of the data source" );
+            }
+
+            Connection first = dataSource.getConnection( "first", "one" );
+            Connection second = dataSource.getConnection( "second", "two" );
+            logger.info( format( "Got connections {0} and {1} with other credentials", first, second ) );
+
+            assertEquals( "first", first.unwrap( CredentialsConnection.class ).getUser() );
+            assertEquals( "one", first.unwrap( CredentialsConnection.class ).getPassword() );
+            assertEquals( "second", second.unwrap( CredentialsConnection.class ).getUser() );
+            assertEquals( "two", second.unwrap( CredentialsConnection.class ).getPassword() );
+
+            assertThrows( SQLException.class, () -> dataSource.getConnection( "third", "three" ), "Expected SQLException with all connections for other credentials in use" );
+            first.close();
+
+            try ( Connection third = dataSource.getConnection( "third", "three" ) ) {
+                assertEquals( "third", third.unwrap( CredentialsConnection.class ).getUser() );
+            }
+            second.close();
+        }
+
+        // failed attempts neither keep a pool nor a connection in use
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( credentialPoolsConfiguration() ) ) {
+            for ( int i = 0; i < 3; i++ ) {
+                assertThrows( SQLException.class, () -> dataSource.getConnection( "intruder", WRONG_PASSWORD ), "Expected SQLException with wrong password" );
+            }
+            try ( Connection fourth = dataSource.getConnection( "fourth", "four" ); Connection fifth = dataSource.getConnection( "fifth", "five" ) ) {
+                assertEquals( "fourth", fourth.unwrap( CredentialsConnection.class ).getUser() );
+                assertEquals( "fifth", fifth.unwrap( CredentialsConnection.class ).getUser() );
+            }
+        }
+
+        TransactionIntegration transactionIntegration = (TransactionIntegration) newProxyInstance( TransactionIntegration.class.getClassLoader(), new Class[]{TransactionIntegration.class}, (proxy, method, args) -> method.getReturnType() == boolean.class ? true : null );
+        AgroalDataSourceConfigurationSupplier transactionalSupplier = new AgroalDataSourceConfigurationSupplier()
+                .credentialPoolsMaxSize( 2 )
+                .connectionPoolConfiguration( cp -> cp.maxSize( 1 ).transactionIntegration( transactionIntegration ) );
+        assertThrows( IllegalArgumentException.class, transactionalSupplier::get, "Expected other credentials not to be allowed with a transaction integration" );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier().connectionPoolConfiguration( cp -> cp.maxSize( 1 ).connectionFactoryConfiguration( cf -> cf.connectionProviderClass( CredentialsDataSource.class ) ) ) ) ) {
+            assertThrows( SQLException.class, () -> dataSource.getConnection( "first", "one" ), "Expected SQLException with pools for other credentials disabled" );
+        }
+    }
+
+    private static AgroalDataSourceConfigurationSupplier credentialPoolsConfiguration() {
+        return new AgroalDataSourceConfigurationSupplier()
+                .credentialPoolsMaxSize( 2 )
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 1 )
+                        .acquisitionTimeout( ofMillis( 100 ) )
+                        .connectionFactoryConfiguration( cf -> cf
+                                .connectionProviderClass( CredentialsDataSource.class )
+                                .principal( new NamePrincipal( DEFAULT_USER ) )
+                        )
+                );
+    }
+
     // --- //
 
     @SuppressWarnings( {"UtilityClass", "UtilityClassWithoutPrivateConstructor"} )
@@ -141,6 +207,9 @@ public class SecurityTests {
 
         @Override
         public Connection getConnection() throws SQLException {
+            if ( WRONG_PASSWORD.equals( password ) ) {
+                throw new SQLException( "Authentication failed for " + user );
+            }
             return new CredentialsConnection( user, password );
         }
     }
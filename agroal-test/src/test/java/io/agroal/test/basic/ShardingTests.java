@@ -0,0 +1,181 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.test.basic;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
+import io.agroal.api.ShardedAgroalDataSource;
+import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import io.agroal.api.transaction.TransactionIntegration;
+import io.agroal.test.MockConnection;
+import io.agroal.test.MockDriver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+import static io.agroal.api.configuration.AgroalDataSourceConfiguration.DataSourceImplementation.AGROAL_SHARDED;
+import static io.agroal.test.AgroalTestGroup.FUNCTIONAL;
+import static java.lang.Runtime.getRuntime;
+import static java.lang.reflect.Proxy.newProxyInstance;
+import static java.time.Duration.ofMillis;
+import static java.util.logging.Logger.getLogger;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+@Tag( FUNCTIONAL )
+public class ShardingTests {
+
+    private static final Logger logger = getLogger( ShardingTests.class.getName() );
+
+    // --- //
+
+    @Test
+    @DisplayName( "Connections acquired from the shard of a key" )
+    void shardingTest() throws SQLException {
+        int SHARDS = 3;
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_SHARDED )
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp.maxSize( 2 ).connectionFactoryConfiguration( cf -> cf.connectionProviderClass( ShardDriver.class ) ) )
+                .shardFunction( (key, shardCount) -> (Integer) key % shardCount );
+        for ( int i = 0; i < SHARDS; i++ ) {
+            configurationSupplier.shardJdbcUrl( "jdbc:shard" + i );
+        }
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            ShardedAgroalDataSource shardedDataSource = assertInstanceOf( ShardedAgroalDataSource.class, dataSource );
+            List<AgroalDataSourceMetrics> shardMetrics = shardedDataSource.getShardMetrics();
+            assertEquals( SHARDS, shardMetrics.size() );
+
+            try ( Connection connection = shardedDataSource.getConnection( 4 ) ) {
+                assertEquals( "jdbc:shard1", connection.getSchema(), "Expected connection to the shard of the key" );
+            }
+            try ( Connection first = shardedDataSource.getConnection( 2 ); Connection second = shardedDataSource.getConnection( 5 ) ) {
+                assertEquals( "jdbc:shard2", first.getSchema() );
+                assertEquals( "jdbc:shard2", second.getSchema() );
+
+                logger.info( dataSource.getMetrics().toString() );
+                assertAll( () -> {
+                    assertEquals( 0, shardMetrics.get( 0 ).acquireCount() );
+                    assertEquals( 1, shardMetrics.get( 1 ).acquireCount() );
+                    assertEquals( 2, shardMetrics.get( 2 ).activeCount() );
+                    assertEquals( 3, dataSource.getMetrics().acquireCount(), "Expected aggregate of the metrics of all shards" );
+                    assertEquals( 2, dataSource.getMetrics().activeCount(), "Expected aggregate of the metrics of all shards" );
+                } );
+            }
+
+            long housekeepingThreads = Thread.getAllStackTraces().keySet().stream().filter( t -> t.getName().startsWith( "agroal-sharded-" ) ).count();
+            assertTrue( housekeepingThreads <= Math.min( SHARDS, getRuntime().availableProcessors() ), "Expected housekeeping threads to be shared between shards" );
+
+            assertThrows( SQLException.class, dataSource::getConnection, "Expected SQLException without a shard key" );
+            assertThrows( IllegalArgumentException.class, () -> shardedDataSource.getConnection( -1 ), "Expected exception for a shard out of range" );
+        }
+    }
+
+    @Test
+    @DisplayName( "Shard that does not connect does not hold back the others" )
+    void hungShardTest() throws SQLException {
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_SHARDED )
+                .connectionPoolConfiguration( cp -> cp.maxSize( 2 ).acquisitionTimeout( ofMillis( 200 ) ).connectionFactoryConfiguration( cf -> cf.connectionProviderClass( ShardDriver.class ) ) )
+                .shardFunction( (key, shardCount) -> (Integer) key )
+                .shardJdbcUrl( HUNG_URL )
+                .shardJdbcUrl( "jdbc:shard1" );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            ShardedAgroalDataSource shardedDataSource = assertInstanceOf( ShardedAgroalDataSource.class, dataSource );
+
+            // more attempts than threads of the shared executor
+            for ( int i = 0; i <= getRuntime().availableProcessors(); i++ ) {
+                assertThrows( SQLException.class, () -> shardedDataSource.getConnection( 0 ), "Expected acquisition timeout on a shard that does not connect" );
+            }
+            try ( Connection connection = shardedDataSource.getConnection( 1 ) ) {
+                assertEquals( "jdbc:shard1", connection.getSchema() );
+            }
+        } finally {
+            HUNG.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName( "Sharded data source requires shards" )
+    void noShardsTest() {
+        assertThrows( IllegalArgumentException.class, () -> new AgroalDataSourceConfigurationSupplier().dataSourceImplementation( AGROAL_SHARDED ).connectionPoolConfiguration( cp -> cp.maxSize( 1 ) ).get() );
+    }
+
+    @Test
+    @DisplayName( "Sharded data source rejects a transaction integration" )
+    void transactionIntegrationTest() {
+        TransactionIntegration transactionIntegration = (TransactionIntegration) newProxyInstance( TransactionIntegration.class.getClassLoader(), new Class[]{TransactionIntegration.class}, (proxy, method, args) -> method.getReturnType() == boolean.class ? true : null );
+
+        AgroalDataSourceConfigurationSupplier templateSupplier = new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_SHARDED )
+                .connectionPoolConfiguration( cp -> cp.maxSize( 1 ).transactionIntegration( transactionIntegration ) )
+                .shardJdbcUrl( "jdbc:shard0" )
+                .shardJdbcUrl( "jdbc:shard1" );
+        assertThrows( IllegalArgumentException.class, templateSupplier::get, "Expected shards not to be allowed with a transaction integration" );
+
+        AgroalDataSourceConfigurationSupplier shardSupplier = new AgroalDataSourceConfigurationSupplier()
+                .dataSourceImplementation( AGROAL_SHARDED )
+                .connectionPoolConfiguration( cp -> cp.maxSize( 1 ) )
+                .shardJdbcUrl( "jdbc:shard0" )
+                .shardPoolConfiguration( template -> template.transactionIntegration( transactionIntegration ) );
+        assertThrows( IllegalArgumentException.class, shardSupplier::get, "Expected shards not to be allowed with a transaction integration" );
+    }
+
+    // --- //
+
+    private static final String HUNG_URL = "jdbc:hung";
+    private static final CountDownLatch HUNG = new CountDownLatch( 1 );
+
+    public static class ShardDriver implements MockDriver {
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if ( HUNG_URL.equals( url ) ) {
+                // like a driver blocked on I/O, does not respond to interruption
+                boolean interrupted = false;
+                while ( HUNG.getCount() > 0 ) {
+                    try {
+                        HUNG.await();
+                    } catch ( InterruptedException e ) {
+                        interrupted = true;
+                    }
+                }
+                if ( interrupted ) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new ShardConnection( url );
+        }
+    }
+
+    private static class ShardConnection implements MockConnection {
+
+        private final String url;
+
+        ShardConnection(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public String getSchema() throws SQLException {
+            return url;
+        }
+    }
+}
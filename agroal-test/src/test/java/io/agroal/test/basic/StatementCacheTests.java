@@ -0,0 +1,407 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.test.basic;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import io.agroal.test.MockConnection;
+import io.agroal.test.MockPreparedStatement;
+import io.agroal.test.MockResultSet;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import static io.agroal.test.AgroalTestGroup.FUNCTIONAL;
+import static io.agroal.test.MockDriver.deregisterMockDriver;
+import static io.agroal.test.MockDriver.registerMockDriver;
+import static java.lang.reflect.Proxy.newProxyInstance;
+import static java.sql.ResultSet.CONCUR_READ_ONLY;
+import static java.sql.ResultSet.TYPE_SCROLL_INSENSITIVE;
+import static java.sql.Types.INTEGER;
+import static java.sql.Types.VARCHAR;
+import static java.util.logging.Logger.getLogger;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+@Tag( FUNCTIONAL )
+public class StatementCacheTests {
+
+    private static final Logger logger = getLogger( StatementCacheTests.class.getName() );
+
+    @BeforeAll
+    static void setupMockDriver() {
+        registerMockDriver( CountingConnection.class );
+    }
+
+    @AfterAll
+    static void teardown() {
+        deregisterMockDriver();
+    }
+
+    // --- //
+
+    @Test
+    @DisplayName( "Prepared statements are reused" )
+    void preparedStatementCacheTest() throws SQLException {
+        CountingConnection.reset();
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 1 )
+                        .connectionFactoryConfiguration( cf -> cf.preparedStatementCacheSize( 2 ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            for ( int i = 0; i < 10; i++ ) {
+                try ( Connection connection = dataSource.getConnection() ) {
+                    try ( PreparedStatement statement = connection.prepareStatement( "SELECT 1" ) ) {
+                        statement.setInt( 1, i );
+                        statement.executeQuery();
+                    }
+                    connection.prepareStatement( "SELECT 2" ).close();
+                }
+            }
+            logger.info( dataSource.getMetrics().toString() );
+
+            assertAll( () -> {
+                assertEquals( 2, CountingConnection.prepared.longValue(), "Expected each statement to be prepared once" );
+                assertEquals( 0, CountingConnection.closed.longValue(), "Expected cached statements to remain open" );
+                assertEquals( 20, CountingConnection.cleared.longValue(), "Expected parameters to be cleared on every close" );
+                assertEquals( 18, dataSource.getMetrics().statementCacheHitCount(), "Expected hits on the cache" );
+                assertEquals( 2, dataSource.getMetrics().statementCacheMissCount(), "Expected misses on the cache" );
+                assertEquals( 0, dataSource.getMetrics().statementCacheEvictionCount(), "Expected no evictions from the cache" );
+            } );
+
+            try ( Connection connection = dataSource.getConnection() ) {
+                // different arguments are a different statement, and the cache can only keep two
+                connection.prepareStatement( "SELECT 1", TYPE_SCROLL_INSENSITIVE, CONCUR_READ_ONLY ).close();
+
+                PreparedStatement first = connection.prepareStatement( "SELECT 3" );
+                PreparedStatement second = connection.prepareStatement( "SELECT 3" );
+                assertNotSame( first.unwrap( PreparedStatement.class ), second.unwrap( PreparedStatement.class ), "Expected a new statement while the cached one is in use" );
+                first.close();
+                second.close();
+
+                assertAll( () -> {
+                    assertTrue( first.isClosed(), "Expected wrapper to be closed" );
+                    assertThrows( SQLException.class, first::executeQuery, "Expected SQLException on closed statement" );
+                    assertEquals( 5, CountingConnection.prepared.longValue() );
+                    assertEquals( 3, CountingConnection.closed.longValue(), "Expected duplicate and least recently used statements to be closed" );
+                    assertEquals( 2, dataSource.getMetrics().statementCacheEvictionCount(), "Expected evictions from the cache" );
+                } );
+            }
+        }
+        assertEquals( 5, CountingConnection.closed.longValue(), "Expected cached statements to be closed with the connection" );
+    }
+
+    @Test
+    @DisplayName( "Prepared statements not cached when disabled" )
+    void disabledCacheTest() throws SQLException {
+        CountingConnection.reset();
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier().metricsEnabled().connectionPoolConfiguration( cp -> cp.maxSize( 1 ) ) ) ) {
+            try ( Connection connection = dataSource.getConnection() ) {
+                connection.prepareStatement( "SELECT 1" ).close();
+                connection.prepareStatement( "SELECT 1" ).close();
+            }
+
+            assertAll( () -> {
+                assertEquals( 2, CountingConnection.prepared.longValue(), "Expected statements to be prepared every time" );
+                assertEquals( 2, CountingConnection.closed.longValue(), "Expected statements to be closed" );
+                assertEquals( 0, dataSource.getMetrics().statementCacheMissCount(), "Expected cache to be disabled" );
+            } );
+        }
+    }
+
+    @Test
+    @DisplayName( "Callable statements are reused" )
+    void callableStatementCacheTest() throws SQLException {
+        CountingConnection.reset();
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 1 )
+                        .connectionFactoryConfiguration( cf -> cf.callableStatementCacheSize( 1 ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            for ( int i = 0; i < 5; i++ ) {
+                try ( Connection connection = dataSource.getConnection() ) {
+                    try ( CallableStatement statement = connection.prepareCall( "{call proc(?, ?)}" ) ) {
+                        assertEquals( 0, statement.getQueryTimeout(), "Expected query timeout to be reset" );
+                        assertEquals( 0, statement.getFetchSize(), "Expected fetch size to be reset" );
+                        statement.setQueryTimeout( 10 );
+                        statement.setFetchSize( 100 );
+                        statement.setInt( 1, i );
+                        statement.registerOutParameter( 2, INTEGER );
+                        statement.execute();
+                        assertEquals( 0, statement.getInt( 2 ) );
+                    }
+                }
+            }
+
+            assertAll( () -> {
+                assertEquals( 1, CountingConnection.prepared.longValue(), "Expected the call to be prepared once" );
+                assertEquals( 0, CountingConnection.closed.longValue(), "Expected cached statement to remain open" );
+                assertEquals( 5, CountingConnection.cleared.longValue(), "Expected parameters to be cleared on every close" );
+                assertEquals( 4, dataSource.getMetrics().statementCacheHitCount(), "Expected hits on the cache" );
+                assertEquals( 1, dataSource.getMetrics().statementCacheMissCount(), "Expected misses on the cache" );
+            } );
+
+            try ( Connection connection = dataSource.getConnection() ) {
+                try ( CallableStatement statement = connection.prepareCall( "{call proc(?, ?)}" ) ) {
+                    statement.execute();
+                    assertThrows( SQLException.class, () -> statement.getInt( 2 ), "Expected OUT parameter registered on a previous use not to be read" );
+                }
+            }
+            assertEquals( 0, dataSource.getMetrics().flushCount(), "Expected connection not to be flushed on a misuse of the statement" );
+            assertEquals( 1, CountingConnection.closed.longValue(), "Expected statement used without its OUT parameters to be closed" );
+
+            try ( Connection connection = dataSource.getConnection() ) {
+                try ( CallableStatement statement = connection.prepareCall( "{call proc(?, ?)}" ) ) {
+                    statement.registerOutParameter( 2, VARCHAR );
+                }
+                // OUT parameters can't be reset, so the statement is not reused
+                connection.prepareCall( "{call proc(?, ?)}" ).close();
+            }
+
+            assertAll( () -> {
+                assertEquals( 2, CountingConnection.prepared.longValue(), "Expected the call to be prepared again" );
+                assertEquals( 2, CountingConnection.closed.longValue(), "Expected statement with different OUT parameters to be closed" );
+            } );
+        }
+    }
+
+    @Test
+    @DisplayName( "Column labels resolved by the pool" )
+    void columnLabelCacheTest() throws SQLException {
+        CountingConnection.reset();
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 1 )
+                        .connectionFactoryConfiguration( cf -> cf.preparedStatementCacheSize( 1 ).cacheColumnLabels( true ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            for ( int i = 0; i < 5; i++ ) {
+                try ( Connection connection = dataSource.getConnection() ) {
+                    try ( PreparedStatement statement = connection.prepareStatement( "SELECT id, name FROM t" ) ) {
+                        try ( ResultSet resultSet = statement.executeQuery() ) {
+                            assertAll( () -> {
+                                assertEquals( "1", resultSet.getString( "ID" ) );
+                                assertEquals( "2", resultSet.getString( "name" ), "Expected label to be matched ignoring case" );
+                                assertEquals( 2, resultSet.findColumn( "NAME" ) );
+                                assertEquals( "3", resultSet.getString( "other" ), "Expected unknown label to be resolved by the driver" );
+                            } );
+                        }
+                    }
+                }
+            }
+
+            assertAll( () -> {
+                assertEquals( 10, CountingConnection.described.longValue(), "Expected column labels to be validated on each result" );
+                assertEquals( 5, CountingConnection.resolved.longValue(), "Expected only unknown labels to be resolved by the driver" );
+            } );
+
+            // same number of columns, in another order
+            CountingConnection.labels = new String[]{"NAME", "ID"};
+            try ( Connection connection = dataSource.getConnection() ) {
+                try ( PreparedStatement statement = connection.prepareStatement( "SELECT id, name FROM t" ) ) {
+                    try ( ResultSet resultSet = statement.executeQuery() ) {
+                        assertEquals( "2", resultSet.getString( "ID" ), "Expected index to be built again for other column labels" );
+                    }
+                }
+            }
+        }
+    }
+
+    // --- //
+
+    public static class CountingConnection implements MockConnection {
+
+        static final LongAdder prepared = new LongAdder();
+        static final LongAdder closed = new LongAdder();
+        static final LongAdder cleared = new LongAdder();
+        static final LongAdder described = new LongAdder();
+        static final LongAdder resolved = new LongAdder();
+        static volatile String[] labels = {"ID", "NAME"};
+
+        static void reset() {
+            prepared.reset();
+            closed.reset();
+            cleared.reset();
+            described.reset();
+            resolved.reset();
+            labels = new String[]{"ID", "NAME"};
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            return new CountingStatement();
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+            return new CountingStatement();
+        }
+
+        @Override
+        public CallableStatement prepareCall(String sql) throws SQLException {
+            return (CallableStatement) newProxyInstance( CallableStatement.class.getClassLoader(), new Class[]{CallableStatement.class}, new CountingCallableHandler() );
+        }
+
+        @SuppressWarnings( "SwitchStatementWithTooManyBranches" )
+        private static class CountingCallableHandler implements InvocationHandler {
+
+            private boolean isClosed;
+            private int queryTimeout, fetchSize;
+
+            CountingCallableHandler() {
+                prepared.increment();
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch ( method.getName() ) {
+                    case "close":
+                        if ( !isClosed ) {
+                            isClosed = true;
+                            closed.increment();
+                        }
+                        return null;
+                    case "isClosed":
+                        return isClosed;
+                    case "isPoolable":
+                        return true;
+                    case "clearParameters":
+                        cleared.increment();
+                        return null;
+                    case "getQueryTimeout":
+                        return queryTimeout;
+                    case "setQueryTimeout":
+                        queryTimeout = (Integer) args[0];
+                        return null;
+                    case "getFetchSize":
+                        return fetchSize;
+                    case "setFetchSize":
+                        fetchSize = (Integer) args[0];
+                        return null;
+                    case "execute":
+                        return false;
+                    default:
+                        return method.getReturnType() == int.class ? 0 : null;
+                }
+            }
+        }
+
+        private static class CountingStatement implements MockPreparedStatement {
+
+            private boolean isClosed;
+
+            CountingStatement() {
+                prepared.increment();
+            }
+
+            @Override
+            public void clearParameters() throws SQLException {
+                assertFalse( isClosed, "Clearing parameters of a closed statement" );
+                cleared.increment();
+            }
+
+            @Override
+            public void close() throws SQLException {
+                if ( !isClosed ) {
+                    isClosed = true;
+                    closed.increment();
+                }
+            }
+
+            @Override
+            public boolean isClosed() throws SQLException {
+                return isClosed;
+            }
+
+            @Override
+            public boolean isPoolable() throws SQLException {
+                return true;
+            }
+
+            @Override
+            public ResultSet executeQuery() throws SQLException {
+                return new LabelResultSet();
+            }
+
+            @Override
+            @SuppressWarnings( "unchecked" )
+            public <T> T unwrap(Class<T> iface) throws SQLException {
+                return (T) this;
+            }
+        }
+
+        // has the columns in labels, and one more column that is not described by the metadata
+        private static class LabelResultSet implements MockResultSet {
+
+            private final String[] columnLabels = labels;
+
+            @Override
+            public ResultSetMetaData getMetaData() throws SQLException {
+                return (ResultSetMetaData) newProxyInstance( ResultSetMetaData.class.getClassLoader(), new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch ( method.getName() ) {
+                        case "getColumnCount":
+                            return columnLabels.length;
+                        case "getColumnLabel":
+                            described.increment();
+                            return columnLabels[(Integer) args[0] - 1];
+                        default:
+                            return null;
+                    }
+                } );
+            }
+
+            @Override
+            public int findColumn(String columnLabel) throws SQLException {
+                resolved.increment();
+                for ( int i = 0; i < columnLabels.length; i++ ) {
+                    if ( columnLabels[i].equalsIgnoreCase( columnLabel ) ) {
+                        return i + 1;
+                    }
+                }
+                return columnLabels.length + 1;
+            }
+
+            @Override
+            public String getString(int columnIndex) throws SQLException {
+                return String.valueOf( columnIndex );
+            }
+
+            @Override
+            public String getString(String columnLabel) throws SQLException {
+                return getString( findColumn( columnLabel ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.test.basic;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics.StatementMetrics;
+import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import io.agroal.test.MockConnection;
+import io.agroal.test.MockResultSet;
+import io.agroal.test.MockStatement;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static io.agroal.test.AgroalTestGroup.FUNCTIONAL;
+import static io.agroal.test.MockDriver.deregisterMockDriver;
+import static io.agroal.test.MockDriver.registerMockDriver;
+import static java.util.logging.Logger.getLogger;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+@Tag( FUNCTIONAL )
+public class StatementMetricsTests {
+
+    private static final Logger logger = getLogger( StatementMetricsTests.class.getName() );
+
+    private static final int ROWS = 5;
+
+    @BeforeAll
+    static void setupMockDriver() {
+        registerMockDriver( RowsConnection.class );
+    }
+
+    @AfterAll
+    static void teardown() {
+        deregisterMockDriver();
+    }
+
+    // --- //
+
+    @Test
+    @DisplayName( "Executions recorded by normalized SQL" )
+    void statementMetricsTest() throws SQLException {
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 1 )
+                        .connectionFactoryConfiguration( cf -> cf.trackJdbcResources( false ).statementMetricsLimit( 2 ) )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier ) ) {
+            try ( Connection connection = dataSource.getConnection() ) {
+                try ( Statement statement = connection.createStatement() ) {
+                    for ( int i = 0; i < 10; i++ ) {
+                        try ( ResultSet resultSet = statement.executeQuery( "SELECT * FROM  t WHERE id = " + i ) ) {
+                            while ( resultSet.next() ) {
+                                resultSet.getInt( 1 );
+                            }
+                        }
+                    }
+                    statement.executeUpdate( "UPDATE t SET name = 'it''s' WHERE id IN (1, 2, 3)" );
+                    statement.executeUpdate( "UPDATE t SET name = 'other' WHERE id IN (4,5)" );
+                    // over the limit of statements
+                    statement.executeUpdate( "DELETE FROM t" );
+                }
+            }
+            logger.info( dataSource.getMetrics().toString() );
+
+            Map<String, StatementMetrics> statementMetrics = dataSource.getMetrics().statementMetrics();
+            StatementMetrics select = statementMetrics.get( "SELECT * FROM t WHERE id = ?" );
+            StatementMetrics update = statementMetrics.get( "UPDATE t SET name = ? WHERE id IN (?)" );
+
+            assertAll( () -> {
+                assertEquals( 2, statementMetrics.size(), "Expected statements to be normalized and limited" );
+                assertFalse( statementMetrics.containsKey( "DELETE FROM t" ), "Expected statement over the limit not to be recorded" );
+                assertNotNull( select, "Expected query to be recorded" );
+                assertNotNull( update, "Expected update to be recorded" );
+            } );
+            assertAll( () -> {
+                assertEquals( 10, select.executionCount() );
+                assertEquals( ROWS, select.rowsPercentile( 50 ), "Expected rows read from the result" );
+                assertEquals( 2, update.executionCount() );
+                assertEquals( ROWS, update.rowsPercentile( 99 ), "Expected update count" );
+                assertTrue( select.executionTimePercentile( 50 ).compareTo( select.executionTimeMax() ) <= 0, "Expected percentile not to exceed max" );
+            } );
+
+            dataSource.getMetrics().reset();
+            assertEquals( 0, select.executionCount(), "Expected executions to be reset" );
+        }
+    }
+
+    @Test
+    @DisplayName( "Executions not recorded when disabled" )
+    void disabledStatementMetricsTest() throws SQLException {
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( new AgroalDataSourceConfigurationSupplier().metricsEnabled().connectionPoolConfiguration( cp -> cp.maxSize( 1 ) ) ) ) {
+            try ( Connection connection = dataSource.getConnection() ) {
+                try ( Statement statement = connection.createStatement() ) {
+                    statement.executeUpdate( "DELETE FROM t" );
+                }
+            }
+            assertTrue( dataSource.getMetrics().statementMetrics().isEmpty(), "Expected no statement metrics" );
+        }
+    }
+
+    // --- //
+
+    public static class RowsConnection implements MockConnection {
+
+        @Override
+        public Statement createStatement() throws SQLException {
+            return new RowsStatement();
+        }
+
+        private static class RowsStatement implements MockStatement {
+
+            @Override
+            public ResultSet executeQuery(String sql) throws SQLException {
+                return new RowsResultSet();
+            }
+
+            @Override
+            public int executeUpdate(String sql) throws SQLException {
+                return ROWS;
+            }
+        }
+
+        private static class RowsResultSet implements MockResultSet {
+
+            private int row;
+
+            @Override
+            public boolean next() throws SQLException {
+                return row++ < ROWS;
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import io.agroal.api.configuration.AgroalDataSourceConfiguration;
 import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
 import io.agroal.test.MockConnection;
 import io.agroal.test.MockDataSource;
+import io.agroal.test.MockStatement;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -18,6 +19,7 @@ import org.junit.jupiter.api.Test;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
@@ -269,6 +271,45 @@ public class TimeoutTests {
         }
     }
 
+    @Test
+    @DisplayName( "Query timeout" )
+    void queryTimeoutTest() throws SQLException {
+        int QUERY_TIMEOUT_MS = 100;
+        OnWarningListener listener = new OnWarningListener();
+
+        AgroalDataSourceConfigurationSupplier configurationSupplier = new AgroalDataSourceConfigurationSupplier()
+                .connectionPoolConfiguration( cp -> cp
+                        .maxSize( 1 )
+                        .connectionFactoryConfiguration( cf -> cf
+                                .connectionProviderClass( SlowQueryDatasource.class )
+                                .trackJdbcResources( false )
+                                .queryTimeout( ofMillis( QUERY_TIMEOUT_MS ) )
+                        )
+                );
+
+        try ( AgroalDataSource dataSource = AgroalDataSource.from( configurationSupplier, listener ) ) {
+            try ( Connection connection = dataSource.getConnection() ) {
+                try ( Statement statement = connection.createStatement() ) {
+                    long start = nanoTime();
+                    assertTimeoutPreemptively( ofSeconds( 2 ), () -> assertThrows( SQLException.class, () -> statement.executeUpdate( "UPDATE slow" ) ), "Expected statement to be cancelled" );
+
+                    long elapsed = NANOSECONDS.toMillis( nanoTime() - start );
+                    logger.info( format( "Statement cancelled after {0}ms - Configuration is {1}ms", elapsed, QUERY_TIMEOUT_MS ) );
+                    assertTrue( elapsed >= QUERY_TIMEOUT_MS, "Statement cancelled before time" );
+                    assertTrue( listener.getWarning().get(), "Expected warning on cancel" );
+                }
+                listener.getWarning().set( false );
+
+                try ( Statement statement = connection.createStatement() ) {
+                    // the driver enforces the timeout set by the application
+                    statement.setQueryTimeout( 1 );
+                    assertEquals( 1, statement.executeUpdate( "UPDATE slow" ), "Expected statement not to be cancelled by the pool" );
+                    assertFalse( listener.getWarning().get(), "Unexpected warning" );
+                }
+            }
+        }
+    }
+
     // --- //
 
     private static class OnWarningListener implements AgroalDataSourceListener {
@@ -365,4 +406,49 @@ public class TimeoutTests {
             }
         }
     }
+
+    public static class SlowQueryDatasource implements MockDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return new SlowQueryConnection();
+        }
+
+        private static class SlowQueryConnection implements MockConnection {
+
+            @Override
+            public Statement createStatement() throws SQLException {
+                return new SlowStatement();
+            }
+        }
+
+        private static class SlowStatement implements MockStatement {
+
+            private final CountDownLatch cancelled = new CountDownLatch( 1 );
+            private int queryTimeout;
+
+            @Override
+            public int executeUpdate(String sql) throws SQLException {
+                try {
+                    // takes longer than the pool query timeout, but not longer than the one set by the application
+                    if ( cancelled.await( queryTimeout == 0 ? 5000 : 300, MILLISECONDS ) ) {
+                        throw new SQLException( "Statement cancelled" );
+                    }
+                    return 1;
+                } catch ( InterruptedException e ) {
+                    throw new SQLException( e );
+                }
+            }
+
+            @Override
+            public void setQueryTimeout(int seconds) throws SQLException {
+                queryTimeout = seconds;
+            }
+
+            @Override
+            public void cancel() throws SQLException {
+                cancelled.countDown();
+            }
+        }
+    }
 }
@@ -0,0 +1,200 @@
+// Copyright (C) 2017 Red Hat, Inc. and individual contributors as indicated by the @author tags.
+// You may not use this file except in compliance with the Apache License, Version 2.0.
+
+package io.agroal.test.basic;
+
+import io.agroal.pool.util.TimingWheel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import static io.agroal.test.AgroalTestGroup.FUNCTIONAL;
+import static java.lang.System.nanoTime;
+import static java.text.MessageFormat.format;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.logging.Logger.getLogger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author <a href="lbarreiro@redhat.com">Luis Barreiro</a>
+ */
+@Tag( FUNCTIONAL )
+public class TimingWheelTests {
+
+    private static final Logger logger = getLogger( TimingWheelTests.class.getName() );
+
+    private static final long TICK_MS = 2;
+    private static final int TICKS_PER_WHEEL = 8;
+    private static final AtomicInteger WHEEL_COUNT = new AtomicInteger();
+
+    // runs the tasks on the tick thread
+    private static final Executor DIRECT = Runnable::run;
+
+    private TimingWheel timingWheel;
+    private String threadName;
+
+    @BeforeEach
+    @SuppressWarnings( "StringConcatenation" )
+    void createTimingWheel() {
+        // each test has a wheel of its own, with its own thread
+        threadName = "agroal-timer-test-" + WHEEL_COUNT.incrementAndGet();
+        timingWheel = new TimingWheel( MILLISECONDS.toNanos( TICK_MS ), TICKS_PER_WHEEL, threadName );
+    }
+
+    @AfterEach
+    void awaitTimeouts() throws InterruptedException {
+        // no timeout is left behind by any test
+        for ( int i = 0; i < 100 && timingWheel.timeoutCount() > 0; i++ ) {
+            Thread.sleep( TICK_MS );
+        }
+        assertEquals( 0, timingWheel.timeoutCount(), "Expected no timeouts left" );
+    }
+
+    private boolean isTickThreadAlive() {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch( thread -> threadName.equals( thread.getName() ) );
+    }
+
+    // --- //
+
+    @Test
+    @DisplayName( "Timeout expires once, after the delay" )
+    void scheduleTest() throws InterruptedException {
+        long DELAY_MS = 20;
+        LongAdder runs = new LongAdder();
+        CountDownLatch latch = new CountDownLatch( 1 );
+
+        long start = nanoTime();
+        TimingWheel.Timeout timeout = timingWheel.schedule( () -> {
+            runs.increment();
+            latch.countDown();
+        }, DELAY_MS, MILLISECONDS, DIRECT );
+
+        assertTrue( latch.await( 10 * DELAY_MS, MILLISECONDS ), "Expected timeout to expire" );
+        assertTrue( NANOSECONDS.toMillis( nanoTime() - start ) >= DELAY_MS, "Expected timeout not to expire before the delay" );
+        assertTrue( timeout.isExpired() );
+        assertFalse( timeout.cancel(), "Expected expired timeout not to be cancelled" );
+
+        Thread.sleep( 2 * DELAY_MS );
+        assertEquals( 1, runs.longValue(), "Expected a single run" );
+    }
+
+    @Test
+    @DisplayName( "Timeout further away than a whole wheel" )
+    void roundsTest() throws InterruptedException {
+        // a few rounds over the wheel
+        long DELAY_MS = 5 * TICK_MS * TICKS_PER_WHEEL;
+        CountDownLatch latch = new CountDownLatch( 1 );
+
+        long start = nanoTime();
+        timingWheel.schedule( latch::countDown, DELAY_MS, MILLISECONDS, DIRECT );
+
+        assertTrue( latch.await( 10 * DELAY_MS, MILLISECONDS ), "Expected timeout to expire" );
+        long elapsed = NANOSECONDS.toMillis( nanoTime() - start );
+        logger.info( format( "Timeout of {0}ms expired after {1}ms", DELAY_MS, elapsed ) );
+        assertTrue( elapsed >= DELAY_MS, "Expected timeout not to expire on an earlier round" );
+    }
+
+    @Test
+    @DisplayName( "Cancelled timeout does not expire" )
+    void cancelTest() throws InterruptedException {
+        long DELAY_MS = 20;
+        LongAdder runs = new LongAdder();
+
+        TimingWheel.Timeout timeout = timingWheel.schedule( runs::increment, DELAY_MS, MILLISECONDS, DIRECT );
+        assertTrue( timeout.cancel(), "Expected timeout to be cancelled" );
+        assertFalse( timeout.cancel(), "Expected timeout to be cancelled only once" );
+        assertTrue( timeout.isCancelled() );
+
+        Thread.sleep( 3 * DELAY_MS );
+        assertEquals( 0, runs.longValue(), "Expected cancelled timeout not to run" );
+        assertFalse( timeout.isExpired() );
+    }
+
+    @Test
+    @DisplayName( "Periodic task runs until cancelled" )
+    void periodicTest() throws InterruptedException {
+        long PERIOD_MS = 5;
+        int RUNS = 5;
+        LongAdder runs = new LongAdder();
+        CountDownLatch latch = new CountDownLatch( RUNS );
+
+        TimingWheel.Timeout timeout = timingWheel.scheduleAtFixedRate( () -> {
+            runs.increment();
+            latch.countDown();
+        }, PERIOD_MS, MILLISECONDS, DIRECT );
+
+        assertTrue( latch.await( 20 * RUNS * PERIOD_MS, MILLISECONDS ), "Expected periodic task to be run again" );
+        assertTrue( timeout.cancel(), "Expected periodic task to be cancelled" );
+        assertFalse( timeout.isExpired(), "Periodic task never expires" );
+
+        long cancelledRuns = runs.longValue();
+        Thread.sleep( 5 * PERIOD_MS );
+        assertEquals( cancelledRuns, runs.longValue(), "Expected no runs after cancel" );
+    }
+
+    @Test
+    @DisplayName( "Periodic task does not overlap its previous run" )
+    void periodicOverlapTest() throws InterruptedException {
+        long PERIOD_MS = 2, RUN_MS = 20;
+        int RUNS = 4;
+        AtomicInteger running = new AtomicInteger(), maxRunning = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch( RUNS );
+
+        ExecutorService executor = newFixedThreadPool( 4 );
+        try {
+            TimingWheel.Timeout timeout = timingWheel.scheduleAtFixedRate( () -> {
+                maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+                try {
+                    Thread.sleep( RUN_MS );
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    latch.countDown();
+                }
+            }, PERIOD_MS, MILLISECONDS, executor );
+
+            assertTrue( latch.await( 10 * RUNS * RUN_MS, MILLISECONDS ), "Expected periodic task to be run again" );
+            timeout.cancel();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination( 1, SECONDS );
+        }
+        assertEquals( 1, maxRunning.get(), "Expected a single run at a time, with runs longer than the period" );
+    }
+
+    @Test
+    @DisplayName( "Tick thread stops without timeouts and starts again" )
+    void threadRestartTest() throws InterruptedException {
+        long DELAY_MS = 10;
+
+        CountDownLatch first = new CountDownLatch( 1 );
+        timingWheel.schedule( first::countDown, DELAY_MS, MILLISECONDS, DIRECT );
+        assertTrue( isTickThreadAlive(), "Expected tick thread to start with a timeout" );
+        assertTrue( first.await( 10 * DELAY_MS, MILLISECONDS ), "Expected timeout to expire" );
+
+        for ( int i = 0; i < 100 && isTickThreadAlive(); i++ ) {
+            Thread.sleep( TICK_MS );
+        }
+        assertEquals( 0, timingWheel.timeoutCount() );
+        assertFalse( isTickThreadAlive(), "Expected tick thread to stop without timeouts" );
+
+        CountDownLatch second = new CountDownLatch( 1 );
+        timingWheel.schedule( second::countDown, DELAY_MS, MILLISECONDS, DIRECT );
+        assertTrue( second.await( 10 * DELAY_MS, MILLISECONDS ), "Expected timeout to expire after the tick thread is started again" );
+    }
+}